@@ -20,18 +20,20 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.maven.doxia.siterenderer.Renderer;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
-import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.data.ControlFlowExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -80,6 +82,13 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	 * @parameter property="jacoco.skip" default-value="false"
 	 */
 	boolean skip;
+	/**
+	 * Number of threads used to analyze class files in parallel. When not
+	 * specified the number of available processors is used.
+	 * 
+	 * @parameter property="jacoco.threads"
+	 */
+	Integer threads;
 	/**
 	 * Maven project.
 	 * 
@@ -185,6 +194,10 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	@Override
 	protected void executeReport(final Locale locale)
 			throws MavenReportException {
+		if (threads != null && threads.intValue() < 1) {
+			throw new MavenReportException(
+					"Number of threads must be positive.");
+		}
 		loadExecutionData();
 		try {
 			final IReportVisitor visitor = createVisitor(locale);
@@ -216,11 +229,26 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 				this.getExcludes());
 		final BundleCreator creator = new BundleCreator(this.getProject(),
 				fileFilter, getLog());
-		final IBundleCoverage bundle = creator.createBundle(executionDataStore);
+		final int threadCount = threads == null ? Runtime.getRuntime()
+				.availableProcessors() : threads.intValue();
 		final SourceFileCollection locator = new SourceFileCollection(
 				getCompileSourceRoots(), sourceEncoding);
-		checkForMissingDebugInformation(bundle);
-		visitor.visitBundle(bundle, locator);
+		final IReportBundleVisitor bundleVisitor = visitor.visitBundleStream(
+				getProject().getName(), locator);
+		final ICoverageNode total;
+		if (threadCount == 1) {
+			total = creator.writeBundle(executionDataStore, bundleVisitor);
+		} else {
+			final ExecutorService executor = Executors
+					.newFixedThreadPool(threadCount);
+			try {
+				creator.setExecutor(executor);
+				total = creator.writeBundle(executionDataStore, bundleVisitor);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		checkForMissingDebugInformation(total);
 	}
 
 	void checkForMissingDebugInformation(final ICoverageNode node) {
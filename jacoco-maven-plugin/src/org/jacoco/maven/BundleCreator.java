@@ -18,15 +18,22 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
+import org.jacoco.core.analysis.AbstractAnalyzer;
 import org.jacoco.core.analysis.ControlFlowAnalyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.PackageIndexer;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
 import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.report.IReportBundleVisitor;
+import org.jacoco.report.ReportPackageVisitor;
 
 /**
  * Creates an IBundleCoverage.
@@ -36,6 +43,7 @@ public final class BundleCreator {
 	private final MavenProject project;
 	private final FileFilter fileFilter;
 	private final Log log;
+	private Executor executor;
 
 	/**
 	 * Construct a new BundleCreator given the MavenProject and FileFilter.
@@ -54,6 +62,17 @@ public final class BundleCreator {
 		this.log = log;
 	}
 
+	/**
+	 * Sets the executor used to analyze class files in parallel.
+	 * 
+	 * @param executor
+	 *            executor for parallel analysis or <code>null</code> to
+	 *            analyze class files sequentially
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	/**
 	 * Create an IBundleCoverage for the given ExecutionDataStore.
 	 * 
@@ -67,6 +86,62 @@ public final class BundleCreator {
 			final ControlFlowExecutionDataStore executionDataStore) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(executionDataStore, builder);
+		analyzer.setExecutor(executor);
+		analyzeFiles(analyzer);
+
+		final IBundleCoverage bundle = builder
+				.getBundle(this.project.getName());
+		logBundleInfo(bundle, builder.getNoMatchClasses());
+
+		return bundle;
+	}
+
+	/**
+	 * Writes the bundle for the given ExecutionDataStore package by package to
+	 * the given visitor, so the coverage data of the complete bundle is never
+	 * held in memory.
+	 * 
+	 * @param executionDataStore
+	 *            the execution data.
+	 * @param visitor
+	 *            the visitor to write the packages to, which is ended
+	 *            afterwards
+	 * @return the summed up counters of the bundle
+	 * @throws IOException
+	 *             if class files can't be read or the report can't be written
+	 */
+	public ICoverageNode writeBundle(
+			final ControlFlowExecutionDataStore executionDataStore,
+			final IReportBundleVisitor visitor) throws IOException {
+		final PackageIndexer indexer = new PackageIndexer();
+		indexer.setExecutor(executor);
+		analyzeFiles(indexer);
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				this.project.getName(), new ReportPackageVisitor(visitor),
+				indexer.getClassCounts());
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				executionDataStore, builder);
+		analyzer.setExecutor(executor);
+		try {
+			analyzeFiles(analyzer);
+			builder.finish();
+		} catch (final RuntimeException e) {
+			// Report writer failures are wrapped by ReportPackageVisitor:
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		visitor.visitEnd();
+
+		final ICoverageNode total = builder.getTotal();
+		logBundleInfo(total, builder.getNoMatchClasses());
+
+		return total;
+	}
+
+	private void analyzeFiles(final AbstractAnalyzer analyzer)
+			throws IOException {
 		final File classesDir = new File(this.project.getBuild()
 				.getOutputDirectory());
 
@@ -77,15 +152,9 @@ public final class BundleCreator {
 		for (final File file : filesToAnalyze) {
 			analyzer.analyzeAll(file);
 		}
-
-		final IBundleCoverage bundle = builder
-				.getBundle(this.project.getName());
-		logBundleInfo(bundle, builder.getNoMatchClasses());
-
-		return bundle;
 	}
 
-	private void logBundleInfo(final IBundleCoverage bundle,
+	private void logBundleInfo(final ICoverageNode bundle,
 			final Collection<IClassCoverage> nomatch) {
 		log.info(format("Analyzed bundle '%s' with %s classes",
 				bundle.getName(),
@@ -17,7 +17,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -45,6 +51,14 @@ import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
  */
 public class InstrumentMojo extends AbstractJacocoMojo {
 
+	/**
+	 * Number of threads used to instrument class files in parallel. When not
+	 * specified the number of available processors is used.
+	 * 
+	 * @parameter property="jacoco.threads"
+	 */
+	private Integer threads;
+
 	@Override
 	public void executeMojo() throws MojoExecutionException,
 			MojoFailureException {
@@ -71,25 +85,65 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
-		for (final String fileName : fileNames) {
-			if (fileName.endsWith(".class")) {
-				final File source = new File(classesDir, fileName);
-				final File backup = new File(originalClassesDir, fileName);
-				InputStream input = null;
-				OutputStream output = null;
-				try {
-					FileUtils.copyFile(source, backup);
-					input = new FileInputStream(backup);
-					output = new FileOutputStream(source);
-					instrumenter.instrument(input, output, source.getPath());
-				} catch (final IOException e2) {
-					throw new MojoExecutionException(
-							"Unable to instrument file.", e2);
-				} finally {
-					IOUtil.close(input);
-					IOUtil.close(output);
+		final int threadCount = threads == null ? Runtime.getRuntime()
+				.availableProcessors() : threads.intValue();
+		if (threadCount < 1) {
+			throw new MojoExecutionException(
+					"Number of threads must be positive.");
+		}
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<?>> results = new ArrayList<Future<?>>();
+			for (final String fileName : fileNames) {
+				if (fileName.endsWith(".class")) {
+					final File source = new File(classesDir, fileName);
+					final File backup = new File(originalClassesDir, fileName);
+					results.add(executor.submit(new Callable<Void>() {
+						public Void call() throws IOException {
+							instrument(instrumenter, source, backup);
+							return null;
+						}
+					}));
 				}
 			}
+			for (final Future<?> result : results) {
+				awaitResult(result);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void instrument(final Instrumenter instrumenter, final File source,
+			final File backup) throws IOException {
+		InputStream input = null;
+		OutputStream output = null;
+		try {
+			FileUtils.copyFile(source, backup);
+			input = new FileInputStream(backup);
+			output = new FileOutputStream(source);
+			instrumenter.instrument(input, output, source.getPath());
+		} finally {
+			IOUtil.close(input);
+			IOUtil.close(output);
+		}
+	}
+
+	private void awaitResult(final Future<?> result)
+			throws MojoExecutionException {
+		try {
+			result.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Instrumentation interrupted.", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new MojoExecutionException("Unable to instrument file.",
+					cause);
 		}
 	}
 
@@ -20,8 +20,11 @@ import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
@@ -29,6 +32,7 @@ import javax.management.ObjectName;
 
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -38,6 +42,7 @@ import org.jacoco.core.data.ControlFlowExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.runtime.AbstractRuntimeData;
 import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.AgentOptions.DumpMode;
 import org.jacoco.core.runtime.AgentOptions.OutputMode;
 import org.junit.Before;
 import org.junit.Rule;
@@ -82,6 +87,9 @@ public class AgentTest implements IExceptionLogger {
 
 		options.setOutput(OutputMode.none);
 		assertEquals(NoneOutput.class, agent.createAgentOutput().getClass());
+
+		options.setOutput(OutputMode.mmap);
+		assertEquals(MmapOutput.class, agent.createAgentOutput().getClass());
 	}
 
 	@Test
@@ -116,6 +124,9 @@ public class AgentTest implements IExceptionLogger {
 
 					public void writeExecutionData(boolean reset) {
 					}
+
+					public void writeExecutionDelta() {
+					}
 				};
 			}
 		};
@@ -243,6 +254,10 @@ public class AgentTest implements IExceptionLogger {
 						assertTrue(reset);
 						called[0] = true;
 					}
+
+					public void writeExecutionDelta() {
+						fail();
+					}
 				};
 			}
 		};
@@ -253,6 +268,141 @@ public class AgentTest implements IExceptionLogger {
 		assertTrue(called[0]);
 	}
 
+	@Test
+	public void testPeriodicDump() throws Exception {
+		testPeriodicDump(DumpMode.full, false);
+	}
+
+	@Test
+	public void testPeriodicDeltaDump() throws Exception {
+		testPeriodicDump(DumpMode.delta, true);
+	}
+
+	private void testPeriodicDump(DumpMode mode, final boolean delta)
+			throws Exception {
+		options.setDumpInterval(10);
+		options.setDumpMode(mode);
+		final CountDownLatch dumps = new CountDownLatch(3);
+		Agent agent = new Agent(options, this) {
+			@Override
+			IAgentOutput createAgentOutput() {
+				return new IAgentOutput() {
+					public void startup(AgentOptions options,
+							AbstractRuntimeData data) {
+					}
+
+					public void shutdown() throws Exception {
+					}
+
+					public void writeExecutionData(boolean reset) {
+						assertFalse(delta);
+						assertFalse(reset);
+						dumps.countDown();
+					}
+
+					public void writeExecutionDelta() {
+						assertTrue(delta);
+						dumps.countDown();
+					}
+				};
+			}
+		};
+		agent.startup();
+
+		assertTrue(dumps.await(5, TimeUnit.SECONDS));
+		agent.shutdown();
+		assertNull(exception);
+	}
+
+	@Test
+	public void testShutdownWithBlockedPeriodicDump() throws Exception {
+		options.setDumpInterval(10);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final boolean[] finalDump = new boolean[1];
+		Agent agent = new Agent(options, this) {
+			@Override
+			IAgentOutput createAgentOutput() {
+				return new IAgentOutput() {
+					public void startup(AgentOptions options,
+							AbstractRuntimeData data) {
+					}
+
+					public void shutdown() throws Exception {
+					}
+
+					public void writeExecutionData(boolean reset) {
+						if (blocked.getCount() > 0) {
+							blocked.countDown();
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								// interrupted by the shutdown
+							}
+						} else {
+							finalDump[0] = true;
+						}
+					}
+
+					public void writeExecutionDelta() {
+						fail();
+					}
+				};
+			}
+		};
+		agent.startup();
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+		final long start = System.currentTimeMillis();
+		agent.shutdown();
+
+		final long duration = System.currentTimeMillis() - start;
+		assertTrue(duration < 2 * Agent.SHUTDOWN_TIMEOUT);
+		assertTrue(finalDump[0]);
+		assertNull(exception);
+		release.countDown();
+	}
+
+	@Test
+	public void testBeginEndTest() throws Exception {
+		final File spectrafile = new File(folder.getRoot(), "spectra.exec");
+		options.setSpectraFile(spectrafile.getAbsolutePath());
+		options.setDumpOnExit(false);
+		Agent agent = new Agent(options, this);
+		agent.startup();
+
+		boolean[] probes = agent.getData()
+				.getExecutionData(Long.valueOf(0x12345678), "Foo", 1)
+				.getProbes();
+		agent.beginTest("test1");
+		probes[0] = true;
+		agent.endTest(false);
+		assertFalse(probes[0]);
+
+		agent.shutdown();
+		assertNull(exception);
+
+		ControlFlowExecutionDataStore execStore = new ControlFlowExecutionDataStore();
+		SessionInfoStore sessionStore = new SessionInfoStore();
+		ExecutionDataReader reader = new ExecutionDataReader(
+				new FileInputStream(spectrafile));
+		reader.setExecutionDataVisitor(execStore);
+		reader.setSessionInfoVisitor(sessionStore);
+		reader.read();
+
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+		assertEquals(1, sessionStore.getInfos().size());
+		assertEquals("test1#failed", sessionStore.getInfos().get(0).getId());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBeginTestWithoutSpectraFile() throws Exception {
+		Agent agent = new Agent(options, this);
+		agent.startup();
+
+		agent.beginTest("test1");
+	}
+
 	@Test
 	public void testJmx() throws Exception {
 		options.setJmx(true);
@@ -11,26 +11,36 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.security.cert.Certificate;
 
 import org.jacoco.core.JaCoCo;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AgentOptions;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.MethodVisitor;
 
 /**
@@ -38,6 +48,9 @@ import org.objectweb.asm.MethodVisitor;
  */
 public class CoverageTransformerTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ExceptionRecorder recorder;
 
 	private AgentOptions options;
@@ -146,6 +159,18 @@ public class CoverageTransformerTest {
 		assertFalse(t.filter(myClassLoader, "org/example/Foo"));
 	}
 
+	@Test
+	public void testFilterClassLoaderRepeated() {
+		options.setExclClassloader("org.jacoco.agent.rt.internal.CoverageTransformerTest$*");
+		CoverageTransformer t = createTransformer();
+		ClassLoader myClassLoader = new ClassLoader(null) {
+		};
+		assertFalse(t.filter(myClassLoader, "org/example/Foo"));
+		assertTrue(t.filter(classLoader, "org/example/Foo"));
+		assertFalse(t.filter(myClassLoader, "org/example/Bar"));
+		assertTrue(t.filter(classLoader, "org/example/Bar"));
+	}
+
 	@Test
 	public void testFilterIncludedClassPositive() {
 		options.setIncludes("org.jacoco.core.*:org.jacoco.agent.rt.*");
@@ -221,6 +246,86 @@ public class CoverageTransformerTest {
 				protectionDomain, getClassData(target)));
 	}
 
+	@Test
+	public void testRetransformedClass() throws Exception {
+		options.setDeinstrumentInterval(1000);
+		CoverageTransformer t = createTransformer();
+		assertTrue(t.isRetransformable());
+		final byte[] original = getClassData(JaCoCo.class);
+		final byte[] instrumented = t.transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original);
+		assertArrayEquals(instrumented, t.transform(classLoader,
+				"org/jacoco/core/JaCoCo", JaCoCo.class, protectionDomain,
+				original));
+	}
+
+	@Test
+	public void testRetransformedSaturatedClass() throws Exception {
+		options.setDeinstrumentInterval(1000);
+		CoverageTransformer t = createTransformer();
+		final byte[] original = getClassData(JaCoCo.class);
+		t.addSaturatedClass(CRC64.checksum(original));
+		final byte[] expected = new Instrumenter(runtime).instrumentSaturated(
+				original, "org/jacoco/core/JaCoCo");
+		assertArrayEquals(expected, t.transform(classLoader,
+				"org/jacoco/core/JaCoCo", JaCoCo.class, protectionDomain,
+				original));
+	}
+
+	@Test
+	public void testRetransformDisabledInDataflowMode() {
+		options.setDeinstrumentInterval(1000);
+		options.setDataflow(true);
+		assertFalse(createTransformer().isRetransformable());
+	}
+
+	@Test
+	public void testInstrumentationCache() throws Exception {
+		options.setInstrCache(folder.getRoot().getPath());
+		final byte[] original = getClassData(JaCoCo.class);
+		final byte[] instrumented = createTransformer().transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original);
+
+		final File[] entries = folder.getRoot().listFiles();
+		assertEquals(1, entries.length);
+		assertArrayEquals(instrumented, readFile(entries[0]));
+
+		// Replace entry to verify that a new transformer uses it:
+		final byte[] marker = getClassData(CoverageTransformerTest.class);
+		final OutputStream out = new FileOutputStream(entries[0]);
+		out.write(marker);
+		out.close();
+		assertArrayEquals(marker, createTransformer().transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original));
+	}
+
+	@Test
+	public void testInstrumentationCacheNotWritable() throws Exception {
+		final File file = folder.newFile("nodirectory");
+		options.setInstrCache(file.getPath());
+		CoverageTransformer t = createTransformer();
+		final byte[] original = getClassData(JaCoCo.class);
+		assertNotNull(t.transform(classLoader, "org/jacoco/core/JaCoCo", null,
+				protectionDomain, original));
+		// Only reported once, the cache is disabled afterwards:
+		recorder.assertException(IOException.class);
+		assertNotNull(t.transform(classLoader, "org/jacoco/core/JaCoCo", null,
+				protectionDomain, original));
+		recorder.clear();
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		final InputStream in = new FileInputStream(file);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[0x100];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
 	private CoverageTransformer createTransformer() {
 		return new CoverageTransformer(runtime, options, recorder);
 	}
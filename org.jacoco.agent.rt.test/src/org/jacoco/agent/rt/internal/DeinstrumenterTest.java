@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.ControlFlowRuntimeData;
+import org.jacoco.core.runtime.SystemPropertiesRuntime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Deinstrumenter}.
+ */
+public class DeinstrumenterTest {
+
+	private static final String NAME = "org/jacoco/core/JaCoCo";
+
+	private ExceptionRecorder recorder;
+
+	private ControlFlowRuntimeData data;
+
+	private SystemPropertiesRuntime runtime;
+
+	private CoverageTransformer transformer;
+
+	private InstrumentationMock inst;
+
+	private Deinstrumenter deinstrumenter;
+
+	private byte[] original;
+
+	private long classid;
+
+	@Before
+	public void setup() throws Exception {
+		recorder = new ExceptionRecorder();
+		data = new ControlFlowRuntimeData();
+		runtime = new SystemPropertiesRuntime();
+		final AgentOptions options = new AgentOptions();
+		options.setDeinstrumentInterval(1000);
+		transformer = new CoverageTransformer(runtime, options, recorder);
+		inst = new InstrumentationMock();
+		deinstrumenter = new Deinstrumenter(Retransformer.create(inst),
+				transformer, data, recorder);
+		original = getClassData(JaCoCo.class);
+		classid = CRC64.checksum(original);
+	}
+
+	@After
+	public void teardown() {
+		recorder.assertNoException();
+	}
+
+	@Test
+	public void testNoSaturatedClasses() {
+		data.getExecutionData(Long.valueOf(classid), NAME, 2).getProbes()[0] = true;
+
+		assertEquals(0, deinstrumenter.deinstrument());
+		assertTrue(inst.retransformed.isEmpty());
+	}
+
+	@Test
+	public void testSaturatedClass() throws Exception {
+		final boolean[] probes = data.getExecutionData(Long.valueOf(classid),
+				NAME, 2).getProbes();
+		probes[0] = true;
+		probes[1] = true;
+
+		assertEquals(1, deinstrumenter.deinstrument());
+
+		assertEquals(1, inst.retransformed.size());
+		assertArrayEquals(new Instrumenter(runtime).instrumentSaturated(
+				original, NAME), inst.retransformed.get(0));
+
+		// Coverage is pinned:
+		data.reset();
+		assertArrayEquals(new boolean[] { true, true }, collect());
+
+		// Classes are deinstrumented only once:
+		assertEquals(0, deinstrumenter.deinstrument());
+	}
+
+	@Test
+	public void testSaturatedClassNotLoaded() {
+		data.getExecutionData(Long.valueOf(123), "org/example/Foo", 1)
+				.getProbes()[0] = true;
+
+		assertEquals(0, deinstrumenter.deinstrument());
+		assertTrue(inst.retransformed.isEmpty());
+	}
+
+	@Test
+	public void testEmptyClass() {
+		data.getExecutionData(Long.valueOf(classid), NAME, 0);
+
+		assertEquals(0, deinstrumenter.deinstrument());
+	}
+
+	@Test
+	public void testRetransformFailure() {
+		final boolean[] probes = data.getExecutionData(Long.valueOf(classid),
+				NAME, 1).getProbes();
+		probes[0] = true;
+		inst.failure = new UnsupportedOperationException();
+
+		assertEquals(0, deinstrumenter.deinstrument());
+
+		recorder.assertException(IllegalStateException.class,
+				"Unable to deinstrument class org.jacoco.core.JaCoCo.",
+				UnsupportedOperationException.class);
+		recorder.clear();
+		data.reset();
+		assertArrayEquals(new boolean[] { true }, collect());
+	}
+
+	private boolean[] collect() {
+		final ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		data.collect(store, new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+			}
+		}, false);
+		return store.get(classid).getProbes();
+	}
+
+	private static byte[] getClassData(Class<?> clazz) throws IOException {
+		final String resource = "/" + clazz.getName().replace('.', '/')
+				+ ".class";
+		final InputStream in = clazz.getResourceAsStream(resource);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[0x100];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+	private class InstrumentationMock implements Instrumentation {
+
+		final List<byte[]> retransformed = new ArrayList<byte[]>();
+
+		RuntimeException failure;
+
+		public void addTransformer(ClassFileTransformer transformer) {
+			fail();
+		}
+
+		public boolean removeTransformer(ClassFileTransformer transformer) {
+			fail();
+			return false;
+		}
+
+		public Class<?>[] getAllLoadedClasses() {
+			return new Class<?>[] { Object.class, JaCoCo.class };
+		}
+
+		public Class<?>[] getInitiatedClasses(ClassLoader loader) {
+			fail();
+			return null;
+		}
+
+		public long getObjectSize(Object objectToSize) {
+			fail();
+			return 0;
+		}
+
+		public boolean isRedefineClassesSupported() {
+			fail();
+			return false;
+		}
+
+		public void redefineClasses(ClassDefinition[] definitions) {
+			fail();
+		}
+
+		// JDK 1.6 Methods:
+
+		@SuppressWarnings("unused")
+		public void addTransformer(ClassFileTransformer transformer,
+				boolean canRetransform) {
+			fail();
+		}
+
+		@SuppressWarnings("unused")
+		public void appendToBootstrapClassLoaderSearch(JarFile jarfile) {
+			fail();
+		}
+
+		@SuppressWarnings("unused")
+		public void appendToSystemClassLoaderSearch(JarFile jarfile) {
+			fail();
+		}
+
+		@SuppressWarnings("unused")
+		public boolean isModifiableClass(Class<?> theClass) {
+			return true;
+		}
+
+		@SuppressWarnings("unused")
+		public boolean isNativeMethodPrefixSupported() {
+			fail();
+			return false;
+		}
+
+		@SuppressWarnings("unused")
+		public boolean isRetransformClassesSupported() {
+			return true;
+		}
+
+		@SuppressWarnings("unused")
+		public void retransformClasses(Class<?>... classes) {
+			if (failure != null) {
+				throw failure;
+			}
+			for (final Class<?> c : classes) {
+				assertFalse(c == Object.class);
+				try {
+					retransformed.add(transformer.transform(
+							c.getClassLoader(), c.getName().replace('.', '/'),
+							c, c.getProtectionDomain(), original));
+				} catch (IllegalClassFormatException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		@SuppressWarnings("unused")
+		public void setNativeMethodPrefix(ClassFileTransformer transformer,
+				String prefix) {
+			fail();
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link InstrumentationCache}.
+ */
+public class InstrumentationCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File dir;
+
+	private InstrumentationCache cache;
+
+	@Before
+	public void setup() {
+		dir = new File(folder.getRoot(), "cache");
+		cache = new InstrumentationCache(dir, "cf", 1000);
+	}
+
+	@Test
+	public void testMissing() {
+		assertNull(cache.get(123));
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		final byte[] content = createClass(100);
+		cache.put(123, content);
+		assertArrayEquals(content, cache.get(123));
+		assertNull(cache.get(456));
+	}
+
+	@Test
+	public void testPutExisting() throws IOException {
+		cache.put(123, createClass(100));
+		cache.put(123, createClass(100));
+		assertEquals(1, dir.listFiles().length);
+	}
+
+	@Test
+	public void testModeIsPartOfKey() throws IOException {
+		cache.put(123, createClass(100));
+		assertNull(new InstrumentationCache(dir, "df", 1000).get(123));
+	}
+
+	@Test
+	public void testInvalidEntry() throws IOException {
+		cache.put(123, createClass(100));
+		final File entry = dir.listFiles()[0];
+		final OutputStream out = new FileOutputStream(entry);
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+		assertNull(cache.get(123));
+	}
+
+	@Test
+	public void testGetUpdatesModificationTime() throws IOException {
+		cache.put(123, createClass(100));
+		final File entry = dir.listFiles()[0];
+		entry.setLastModified(10000);
+		cache.get(123);
+		assertTrue(entry.lastModified() > 10000);
+	}
+
+	@Test
+	public void testEvict() throws IOException {
+		final InstrumentationCache large = new InstrumentationCache(dir, "cf",
+				Long.MAX_VALUE);
+		for (int i = 0; i < 5; i++) {
+			large.put(i, createClass(300));
+		}
+		final File[] entries = dir.listFiles();
+		for (final File f : entries) {
+			// Entry 2 is the least recently used one:
+			final long id = Long.parseLong(f.getName().substring(0, 16), 16);
+			f.setLastModified(id == 2 ? 10000 : 20000 + id * 1000);
+		}
+
+		cache.evict();
+
+		assertNull(cache.get(2));
+		assertNull(cache.get(0));
+		assertArrayEquals(createClass(300), cache.get(1));
+		assertArrayEquals(createClass(300), cache.get(3));
+		assertArrayEquals(createClass(300), cache.get(4));
+	}
+
+	@Test
+	public void testEvictRemovesStaleTempFiles() throws IOException {
+		dir.mkdirs();
+		final File stale = new File(dir, "instr1.tmp");
+		stale.createNewFile();
+		stale.setLastModified(10000);
+		final File fresh = new File(dir, "instr2.tmp");
+		fresh.createNewFile();
+
+		cache.evict();
+
+		assertFalse(stale.exists());
+		assertTrue(fresh.exists());
+	}
+
+	@Test(expected = IOException.class)
+	public void testPutNotWritable() throws IOException {
+		final File file = folder.newFile("nodirectory");
+		new InstrumentationCache(file, "cf", 1000).put(123, createClass(100));
+	}
+
+	private static byte[] createClass(int size) {
+		final byte[] content = new byte[size];
+		content[0] = (byte) 0xca;
+		content[1] = (byte) 0xfe;
+		content[2] = (byte) 0xba;
+		content[3] = (byte) 0xbe;
+		content[10] = (byte) size;
+		return content;
+	}
+
+}
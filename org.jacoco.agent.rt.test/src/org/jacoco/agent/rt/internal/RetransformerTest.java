@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Retransformer}.
+ */
+public class RetransformerTest {
+
+	private boolean supported;
+
+	private Exception failure;
+
+	private List<String> calls;
+
+	private List<Object[]> args;
+
+	private Instrumentation inst;
+
+	@Before
+	public void setup() {
+		supported = true;
+		calls = new ArrayList<String>();
+		args = new ArrayList<Object[]>();
+		inst = (Instrumentation) Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { Instrumentation.class },
+				new InvocationHandler() {
+					public Object invoke(final Object proxy,
+							final Method method, final Object[] a)
+							throws Throwable {
+						calls.add(method.getName());
+						args.add(a);
+						if (failure != null) {
+							throw failure;
+						}
+						if (method.getName().startsWith("is")) {
+							return Boolean.valueOf(supported);
+						}
+						return null;
+					}
+				});
+	}
+
+	@Test
+	public void testNotSupported() throws Exception {
+		supported = false;
+		assertNull(Retransformer.create(inst));
+	}
+
+	@Test
+	public void testAddTransformer() throws Exception {
+		final ClassFileTransformer transformer = new ClassFileTransformer() {
+			public byte[] transform(final ClassLoader loader,
+					final String className, final Class<?> classBeingRedefined,
+					final ProtectionDomain protectionDomain,
+					final byte[] classfileBuffer) {
+				return null;
+			}
+		};
+		Retransformer.create(inst).addTransformer(transformer);
+
+		assertEquals("addTransformer", calls.get(1));
+		assertArrayEquals(new Object[] { transformer, Boolean.TRUE },
+				args.get(1));
+	}
+
+	@Test
+	public void testRetransformClass() throws Exception {
+		final Retransformer retransformer = Retransformer.create(inst);
+		assertNotNull(retransformer);
+		supported = false;
+		assertFalse(retransformer.isModifiableClass(String.class));
+		retransformer.retransformClass(String.class);
+
+		assertEquals("retransformClasses", calls.get(2));
+		assertArrayEquals(new Class<?>[] { String.class },
+				(Object[]) args.get(2)[0]);
+	}
+
+	@Test
+	public void testRetransformFailure() throws Exception {
+		final Retransformer retransformer = Retransformer.create(inst);
+		failure = new UnmodifiableClassException();
+		try {
+			retransformer.retransformClass(String.class);
+			fail();
+		} catch (final UnmodifiableClassException e) {
+			assertSame(failure, e);
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.ControlFlowRuntimeData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link SpectrumRecorder}.
+ */
+public class SpectrumRecorderTest implements ISessionInfoVisitor,
+		IExecutionDataVisitor {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ControlFlowRuntimeData data;
+
+	private File file;
+
+	private SpectrumRecorder recorder;
+
+	private List<String> events;
+
+	private boolean[] collected;
+
+	@Before
+	public void setup() throws IOException {
+		data = new ControlFlowRuntimeData();
+		file = new File(folder.getRoot(), "spectra.exec");
+		recorder = new SpectrumRecorder(data, file, false);
+		events = new ArrayList<String>();
+	}
+
+	@Test
+	public void testRecordTests() throws IOException {
+		final boolean[] foo = getProbes(1, "Foo");
+		final boolean[] bar = getProbes(2, "Bar");
+
+		foo[0] = true;
+		recorder.beginTest("test1");
+		assertFalse(foo[0]);
+		foo[1] = true;
+		recorder.endTest(true);
+		assertFalse(foo[1]);
+
+		recorder.beginTest("test2");
+		bar[0] = true;
+		recorder.endTest(false);
+
+		recorder.close();
+
+		read();
+		assertEquals("[session test1#passed, class Foo, "
+				+ "session test2#failed, class Bar]", events.toString());
+	}
+
+	@Test
+	public void testOverallCoverageRetained() throws IOException {
+		final boolean[] foo = getProbes(1, "Foo");
+
+		foo[0] = true;
+		recorder.beginTest("test1");
+		foo[1] = true;
+		recorder.endTest(true);
+
+		data.collect(this, this, false);
+		assertEquals("[session <none>, class Foo]", events.toString());
+		assertTrue(collected[0]);
+		assertTrue(collected[1]);
+	}
+
+	@Test
+	public void testNoData() throws IOException {
+		recorder.beginTest("test1");
+		recorder.endTest(true);
+		recorder.close();
+
+		read();
+		assertEquals("[session test1#passed]", events.toString());
+	}
+
+	@Test
+	public void testBufferedUntilClose() throws IOException {
+		final long header = file.length();
+		recorder.beginTest("test1");
+		getProbes(1, "Foo")[0] = true;
+		recorder.endTest(true);
+		assertEquals(header, file.length());
+
+		recorder.close();
+		assertTrue(file.length() > header);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBeginTwice() {
+		recorder.beginTest("test1");
+		recorder.beginTest("test2");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEndWithoutBegin() throws IOException {
+		recorder.endTest(true);
+	}
+
+	private boolean[] getProbes(final long id, final String name) {
+		return data.getExecutionData(Long.valueOf(id), name, 2).getProbes();
+	}
+
+	private void read() throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			final ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setSessionInfoVisitor(this);
+			reader.setExecutionDataVisitor(this);
+			reader.read();
+		} finally {
+			in.close();
+		}
+	}
+
+	// === ISessionInfoVisitor ===
+
+	public void visitSessionInfo(final SessionInfo info) {
+		events.add("session " + info.getId());
+	}
+
+	// === IExecutionDataVisitor ===
+
+	public void visitClassExecution(final ControlFlowExecutionData data) {
+		events.add("class " + data.getName());
+		collected = data.getProbes();
+	}
+
+}
@@ -12,14 +12,23 @@
 package org.jacoco.agent.rt.internal.output;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
-import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.ControlFlowRuntimeData;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -32,6 +41,13 @@ public class FileOutputTest {
 	@Rule
 	public TemporaryFolder folder = new TemporaryFolder();
 
+	private ControlFlowRuntimeData data;
+
+	@Before
+	public void setup() {
+		data = new ControlFlowRuntimeData();
+	}
+
 	@Test
 	public void testCreateDestFileOnStartup() throws Exception {
 		File destFile = folder.newFile("jacoco.exec");
@@ -39,11 +55,12 @@ public class FileOutputTest {
 		options.setDestfile(destFile.getAbsolutePath());
 
 		FileOutput controller = new FileOutput();
-		controller.startup(options, new ControlFlowRuntimeData());
+		controller.startup(options, data);
 
 		assertTrue("Execution data file should be created", destFile.exists());
 		assertEquals("Execution data file should be empty", 0,
 				destFile.length());
+		controller.shutdown();
 	}
 
 	@Test
@@ -53,7 +70,7 @@ public class FileOutputTest {
 		options.setDestfile(destFile.getAbsolutePath());
 
 		FileOutput controller = new FileOutput();
-		controller.startup(options, new ControlFlowRuntimeData());
+		controller.startup(options, data);
 		controller.writeExecutionData(false);
 		controller.shutdown();
 
@@ -62,6 +79,129 @@ public class FileOutputTest {
 				destFile.length() > 0);
 	}
 
+	@Test
+	public void testWriteDataSnapshot() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(false);
+		boolean[] probes = data.getExecutionData(Long.valueOf(0x12345678),
+				"Foo", 1).getProbes();
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		probes[0] = true;
+		controller.writeExecutionData(true);
+		assertFalse(probes[0]);
+		controller.shutdown();
+
+		ControlFlowExecutionDataStore store = read(destFile);
+		assertTrue(store.get(0x12345678).getProbes()[0]);
+		assertEquals(Arrays.asList("jacoco.exec", "jacoco.exec.lck"),
+				sortedFiles());
+	}
+
+	@Test
+	public void testWriteDataAppend() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(true);
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		controller.writeExecutionData(true);
+		data.getExecutionData(Long.valueOf(2), "Bar", 1).getProbes()[0] = true;
+		controller.writeExecutionData(true);
+		controller.shutdown();
+
+		ControlFlowExecutionDataStore store = read(destFile);
+		assertEquals("Foo", store.get(1).getName());
+		assertEquals("Bar", store.get(2).getName());
+	}
+
+	@Test
+	public void testWriteDataOverwrite() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(false);
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		controller.writeExecutionData(true);
+		data.getExecutionData(Long.valueOf(2), "Bar", 1).getProbes()[0] = true;
+		controller.writeExecutionData(true);
+		controller.shutdown();
+
+		ControlFlowExecutionDataStore store = read(destFile);
+		assertEquals(null, store.get(1));
+		assertEquals("Bar", store.get(2).getName());
+	}
+
+	@Test
+	public void testWriteDeltaAppendsNewProbes() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(false);
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		probes[0] = true;
+		controller.writeExecutionDelta();
+		probes[1] = true;
+		controller.writeExecutionDelta();
+		controller.shutdown();
+
+		assertTrue(probes[0]);
+		ControlFlowExecutionDataStore store = read(destFile);
+		assertTrue(store.get(1).getProbes()[0]);
+		assertTrue(store.get(1).getProbes()[1]);
+	}
+
+	@Test
+	public void testWriteDataAppendInPlace() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(true);
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		final FileInputStream in = new FileInputStream(destFile);
+		try {
+			controller.writeExecutionData(false);
+			assertTrue(in.available() > 0);
+		} finally {
+			in.close();
+		}
+		controller.shutdown();
+
+		assertEquals(Arrays.asList("jacoco.exec", "jacoco.exec.lck"),
+				sortedFiles());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteDataFailure() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setAppend(true);
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		destFile.delete();
+		destFile.mkdir();
+
+		controller.writeExecutionData(false);
+	}
+
 	@Test(expected = IOException.class)
 	public void testInvalidDestFile() throws Exception {
 		AgentOptions options = new AgentOptions();
@@ -69,7 +209,27 @@ public class FileOutputTest {
 		FileOutput controller = new FileOutput();
 
 		// Startup should fail as the file can not be created:
-		controller.startup(options, new ControlFlowRuntimeData());
+		controller.startup(options, data);
+	}
+
+	private List<String> sortedFiles() {
+		final List<String> files = Arrays.asList(folder.getRoot().list());
+		Collections.sort(files);
+		return files;
+	}
+
+	private ControlFlowExecutionDataStore read(File file) throws IOException {
+		ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		InputStream in = new FileInputStream(file);
+		try {
+			ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setExecutionDataVisitor(store);
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			reader.read();
+		} finally {
+			in.close();
+		}
+		return store;
 	}
 
 }
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Brock Janiczak - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.ControlFlowRuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecSharedMemoryReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MmapOutput}.
+ */
+public class MmapOutputTest implements IExceptionLogger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private AgentOptions options;
+
+	private ControlFlowRuntimeData data;
+
+	private Exception exception;
+
+	@Before
+	public void setup() {
+		destFile = new File(folder.getRoot(), "jacoco.mmap");
+		options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setMmapInterval(0);
+		options.setSessionId("session");
+		data = new ControlFlowRuntimeData();
+		data.setSessionId("session");
+	}
+
+	@Test
+	public void testCreateDestFileOnStartup() throws Exception {
+		MmapOutput controller = new MmapOutput(this);
+		controller.startup(options, data);
+
+		assertTrue(destFile.exists());
+		ExecFileLoader loader = new ExecSharedMemoryReader(destFile).read();
+		assertEquals("session", loader.getSessionInfoStore().getInfos()
+				.get(0).getId());
+		assertTrue(loader.getExecutionDataStore().getContents().isEmpty());
+		controller.shutdown();
+	}
+
+	@Test
+	public void testWriteData() throws Exception {
+		MmapOutput controller = new MmapOutput(this);
+		controller.startup(options, data);
+		boolean[] probes = data.getExecutionData(Long.valueOf(0x12345678),
+				"Foo", 2).getProbes();
+		probes[1] = true;
+		controller.writeExecutionData(false);
+
+		ExecFileLoader loader = new ExecSharedMemoryReader(destFile).read();
+		boolean[] read = loader.getExecutionDataStore().get(0x12345678)
+				.getProbes();
+		assertFalse(read[0]);
+		assertTrue(read[1]);
+		assertTrue(probes[1]);
+		controller.shutdown();
+		assertNull(exception);
+	}
+
+	@Test
+	public void testWriteDataWithReset() throws Exception {
+		MmapOutput controller = new MmapOutput(this);
+		controller.startup(options, data);
+		boolean[] probes = data.getExecutionData(Long.valueOf(0x12345678),
+				"Foo", 1).getProbes();
+		probes[0] = true;
+		controller.writeExecutionData(true);
+
+		assertFalse(probes[0]);
+		ExecFileLoader loader = new ExecSharedMemoryReader(destFile).read();
+		assertTrue(loader.getExecutionDataStore().get(0x12345678)
+				.getProbes()[0]);
+		controller.shutdown();
+	}
+
+	@Test
+	public void testPeriodicRefresh() throws Exception {
+		options.setMmapInterval(1);
+		MmapOutput controller = new MmapOutput(this);
+		controller.startup(options, data);
+		boolean[] probes = data.getExecutionData(Long.valueOf(0x12345678),
+				"Foo", 1).getProbes();
+		probes[0] = true;
+
+		final ExecSharedMemoryReader reader = new ExecSharedMemoryReader(
+				destFile);
+		final long timeout = System.currentTimeMillis() + 10000;
+		while (reader.read().getExecutionDataStore().get(0x12345678) == null) {
+			assertTrue(System.currentTimeMillis() < timeout);
+			Thread.sleep(1);
+		}
+		controller.shutdown();
+		assertNull(exception);
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidDestFile() throws Exception {
+		options.setDestfile(folder.newFolder("folder").getAbsolutePath());
+		MmapOutput controller = new MmapOutput(this);
+
+		// Startup should fail as the file can not be created:
+		controller.startup(options, data);
+	}
+
+	public void logExeption(final Exception ex) {
+		exception = ex;
+	}
+
+}
@@ -67,4 +67,34 @@ public interface IAgent {
 	 */
 	void dump(boolean reset) throws IOException;
 
+	/**
+	 * Starts recording the coverage spectrum of a single test. The spectrum
+	 * contains exactly the probes executed until {@link #endTest(boolean)} is
+	 * called. The execution data collected before is kept and still written
+	 * by {@link #dump(boolean)} and the other outputs. Requires the
+	 * <code>spectrafile</code> agent option.
+	 * 
+	 * @param id
+	 *            identifier of the test
+	 * @throws IllegalStateException
+	 *             if no spectra file is configured or the previous test has
+	 *             not ended
+	 */
+	void beginTest(String id) throws IllegalStateException;
+
+	/**
+	 * Ends the test started with {@link #beginTest(String)} and appends its
+	 * spectrum as a separate session to the spectra file. The session id is
+	 * the test id followed by <code>#passed</code> or <code>#failed</code>.
+	 * The coverage of the test is kept in the overall execution data.
+	 * 
+	 * @param passed
+	 *            <code>true</code> if the test passed
+	 * @throws IOException
+	 *             if the spectra file can't be written
+	 * @throws IllegalStateException
+	 *             if no spectra file is configured or no test has begun
+	 */
+	void endTest(boolean passed) throws IOException, IllegalStateException;
+
 }
@@ -12,13 +12,19 @@
 package org.jacoco.agent.rt.internal;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.jacoco.agent.rt.IAgent;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -27,6 +33,7 @@ import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AbstractRuntimeData;
 import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.AgentOptions.DumpMode;
 import org.jacoco.core.runtime.AgentOptions.OutputMode;
 import org.jacoco.core.runtime.DataFlowRuntimeData;
 import org.jacoco.core.runtime.ControlFlowRuntimeData;
@@ -86,6 +93,13 @@ public class Agent implements IAgent {
 
 	private Callable<Void> jmxRegistration;
 
+	private SpectrumRecorder spectrumRecorder;
+
+	private ScheduledExecutorService dumpScheduler;
+
+	/** Maximum time in milliseconds to wait for a running scheduled dump */
+	static final long SHUTDOWN_TIMEOUT = 5000;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 * 
@@ -127,9 +141,18 @@ public class Agent implements IAgent {
 			data.setSessionId(sessionId);
 			output = createAgentOutput();
 			output.startup(options, data);
+			final String spectraFile = options.getSpectraFile();
+			if (spectraFile != null) {
+				spectrumRecorder = new SpectrumRecorder(data, new File(
+						spectraFile).getAbsoluteFile(), options.getAppend());
+			}
 			if (options.getJmx()) {
 				jmxRegistration = new JmxRegistration(this);
 			}
+			final long dumpInterval = options.getDumpInterval();
+			if (dumpInterval > 0) {
+				startDumpScheduler(dumpInterval);
+			}
 		} catch (final Exception e) {
 			logger.logExeption(e);
 		}
@@ -140,10 +163,21 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (dumpScheduler != null) {
+				dumpScheduler.shutdown();
+				// Don't block JVM exit on a dump stuck in the output:
+				if (!dumpScheduler.awaitTermination(SHUTDOWN_TIMEOUT,
+						TimeUnit.MILLISECONDS)) {
+					dumpScheduler.shutdownNow();
+				}
+			}
 			if (options.getDumpOnExit()) {
-				output.writeExecutionData(false);
+				writeScheduledDump();
 			}
 			output.shutdown();
+			if (spectrumRecorder != null) {
+				spectrumRecorder.close();
+			}
 			if (jmxRegistration != null) {
 				jmxRegistration.call();
 			}
@@ -152,6 +186,42 @@ public class Agent implements IAgent {
 		}
 	}
 
+	private void startDumpScheduler(final long interval) {
+		dumpScheduler = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(Agent.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		dumpScheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					writeScheduledDump();
+				} catch (final Exception e) {
+					logger.logExeption(e);
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Writes either the full execution data or the delta since the last dump,
+	 * depending on the configured dump mode.
+	 * 
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private void writeScheduledDump() throws IOException {
+		if (options.getDumpMode() == DumpMode.delta) {
+			output.writeExecutionDelta();
+		} else {
+			output.writeExecutionData(false);
+		}
+	}
+
 	/**
 	 * Create output implementation as given by the agent options.
 	 * 
@@ -168,6 +238,8 @@ public class Agent implements IAgent {
 			return new TcpClientOutput(logger);
 		case none:
 			return new NoneOutput();
+		case mmap:
+			return new MmapOutput(logger);
 		default:
 			throw new AssertionError(controllerType);
 		}
@@ -219,4 +291,20 @@ public class Agent implements IAgent {
 		output.writeExecutionData(reset);
 	}
 
+	public void beginTest(final String id) throws IllegalStateException {
+		getSpectrumRecorder().beginTest(id);
+	}
+
+	public void endTest(final boolean passed) throws IOException,
+			IllegalStateException {
+		getSpectrumRecorder().endTest(passed);
+	}
+
+	private SpectrumRecorder getSpectrumRecorder() throws IllegalStateException {
+		if (spectrumRecorder == null) {
+			throw new IllegalStateException("No spectra file configured.");
+		}
+		return spectrumRecorder;
+	}
+
 }
@@ -11,12 +11,19 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
+import java.lang.ref.WeakReference;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.IRuntime;
 import org.jacoco.core.runtime.WildcardMatcher;
@@ -44,12 +51,28 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final WildcardMatcher exclClassloader;
 
+	/**
+	 * Decisions of {@link #exclClassloader} by class loader type. Classes are
+	 * compared by identity and held weakly, so loaders can still be unloaded.
+	 * The array is never modified but replaced on every new type, so lookups
+	 * need no lock.
+	 */
+	private volatile LoaderType[] excludedLoaderTypes = new LoaderType[0];
+
 	private final ClassFileDumper classFileDumper;
 
 	private final boolean includeBootstrapClasses;
 
 	private final boolean dataflow;
 
+	private volatile InstrumentationCache cache;
+
+	private final boolean retransform;
+
+	/** ids of classes which are retransformed to their saturated version */
+	private final Set<Long> saturatedClasses = Collections
+			.synchronizedSet(new HashSet<Long>());
+
 	/**
 	 * New transformer with the given delegates.
 	 * 
@@ -77,6 +100,13 @@ public class CoverageTransformer implements ClassFileTransformer {
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
 		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
 		includeBootstrapClasses = options.getInclBootstrapClasses();
+		retransform = !dataflow && options.getDeinstrumentInterval() > 0;
+		final String cacheDir = options.getInstrCache();
+		if (cacheDir != null) {
+			cache = new InstrumentationCache(new File(cacheDir),
+					dataflow ? "df" : "cf",
+					options.getInstrCacheSize() * 1024L * 1024L);
+		}
 	}
 
 	public byte[] transform(final ClassLoader loader, final String classname,
@@ -84,8 +114,8 @@ public class CoverageTransformer implements ClassFileTransformer {
 			final ProtectionDomain protectionDomain,
 			final byte[] classfileBuffer) throws IllegalClassFormatException {
 
-		// We do not support class retransformation:
-		if (classBeingRedefined != null) {
+		// Class retransformation is only supported to remove probes:
+		if (classBeingRedefined != null && !retransform) {
 			return null;
 		}
 
@@ -99,10 +129,26 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 
 		try {
-			classFileDumper.dump(classname, classfileBuffer);
-			return dataflow ? instrumenterdf.instrument(classfileBuffer,
-					classname) : instrumenter.instrument(classfileBuffer,
-					classname);
+			if (classBeingRedefined == null) {
+				classFileDumper.dump(classname, classfileBuffer);
+			} else if (saturatedClasses.contains(Long.valueOf(CRC64
+					.checksum(classfileBuffer)))) {
+				return instrumenter.instrumentSaturated(classfileBuffer,
+						classname);
+			}
+			final InstrumentationCache c = cache;
+			if (c == null) {
+				return instrument(classfileBuffer, classname);
+			}
+			final long classid = CRC64.checksum(classfileBuffer);
+			byte[] instrumented = c.get(classid);
+			if (instrumented == null) {
+				instrumented = dataflow ? instrument(classfileBuffer,
+						classname) : instrumenter.instrument(classfileBuffer,
+						classid, classname);
+				put(c, classid, instrumented);
+			}
+			return instrumented;
 		} catch (final Exception ex) {
 			final IllegalClassFormatException wrapper = new IllegalClassFormatException(
 					ex.getMessage());
@@ -113,6 +159,45 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 	}
 
+	/**
+	 * Marks the class with the given id as saturated, i.e. all its probes have
+	 * been executed. When the class is retransformed the next time the probes
+	 * are removed.
+	 * 
+	 * @param classid
+	 *            id of the class
+	 */
+	void addSaturatedClass(final long classid) {
+		saturatedClasses.add(Long.valueOf(classid));
+	}
+
+	/**
+	 * Checks whether this transformer has to be registered for class
+	 * retransformation.
+	 * 
+	 * @return <code>true</code> if saturated classes are retransformed
+	 */
+	boolean isRetransformable() {
+		return retransform;
+	}
+
+	private byte[] instrument(final byte[] classfileBuffer,
+			final String classname) throws Exception {
+		return dataflow ? instrumenterdf.instrument(classfileBuffer,
+				classname) : instrumenter.instrument(classfileBuffer, classname);
+	}
+
+	private void put(final InstrumentationCache c, final long classid,
+			final byte[] instrumented) {
+		try {
+			c.put(classid, instrumented);
+		} catch (final IOException e) {
+			// Continue without cache after the first failure:
+			cache = null;
+			logger.logExeption(e);
+		}
+	}
+
 	/**
 	 * Checks whether this protection domain is associated with a source
 	 * location.
@@ -147,7 +232,7 @@ public class CoverageTransformer implements ClassFileTransformer {
 				return false;
 			}
 		} else {
-			if (exclClassloader.matches(loader.getClass().getName())) {
+			if (isExcluded(loader.getClass())) {
 				return false;
 			}
 		}
@@ -159,6 +244,58 @@ public class CoverageTransformer implements ClassFileTransformer {
 		!excludes.matches(classname);
 	}
 
+	private boolean isExcluded(final Class<?> loaderType) {
+		final LoaderType known = findLoaderType(excludedLoaderTypes,
+				loaderType);
+		if (known != null) {
+			return known.excluded;
+		}
+		synchronized (this) {
+			final LoaderType[] types = excludedLoaderTypes;
+			LoaderType type = findLoaderType(types, loaderType);
+			if (type == null) {
+				type = new LoaderType(loaderType,
+						exclClassloader.matches(loaderType.getName()));
+				final LoaderType[] newTypes = new LoaderType[types.length + 1];
+				int size = 0;
+				for (final LoaderType t : types) {
+					// Drop the types of unloaded class loaders:
+					if (t.type.get() != null) {
+						newTypes[size++] = t;
+					}
+				}
+				newTypes[size++] = type;
+				final LoaderType[] trimmed = new LoaderType[size];
+				System.arraycopy(newTypes, 0, trimmed, 0, size);
+				excludedLoaderTypes = trimmed;
+			}
+			return type.excluded;
+		}
+	}
+
+	private static LoaderType findLoaderType(final LoaderType[] types,
+			final Class<?> loaderType) {
+		for (final LoaderType t : types) {
+			if (t.type.get() == loaderType) {
+				return t;
+			}
+		}
+		return null;
+	}
+
+	private static class LoaderType {
+
+		final WeakReference<Class<?>> type;
+
+		final boolean excluded;
+
+		LoaderType(final Class<?> type, final boolean excluded) {
+			this.type = new WeakReference<Class<?>>(type);
+			this.excluded = excluded;
+		}
+
+	}
+
 	private static String toVMName(final String srcName) {
 		return srcName.replace('.', '/');
 	}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static java.lang.String.format;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.AbstractRuntimeData;
+
+/**
+ * Periodically looks for classes whose probes have all been executed and
+ * retransforms them to a version without probes, so fully covered code runs
+ * without instrumentation overhead. The coverage of these classes is pinned in
+ * the runtime data, so it is still reported after the execution data has been
+ * reset.
+ */
+class Deinstrumenter implements Runnable {
+
+	private final Retransformer retransformer;
+
+	private final CoverageTransformer transformer;
+
+	private final AbstractRuntimeData data;
+
+	private final IExceptionLogger logger;
+
+	/** ids of classes which have already been deinstrumented */
+	private final Set<Long> deinstrumented = new HashSet<Long>();
+
+	/**
+	 * Creates a new deinstrumenter.
+	 * 
+	 * @param retransformer
+	 *            retransformer to retransform classes with
+	 * @param transformer
+	 *            transformer registered for retransformation
+	 * @param data
+	 *            runtime data to check for saturated classes
+	 * @param logger
+	 *            logger for exceptions during retransformation
+	 */
+	Deinstrumenter(final Retransformer retransformer,
+			final CoverageTransformer transformer,
+			final AbstractRuntimeData data, final IExceptionLogger logger) {
+		this.retransformer = retransformer;
+		this.transformer = transformer;
+		this.data = data;
+		this.logger = logger;
+	}
+
+	/**
+	 * Starts checking for saturated classes on a background daemon thread.
+	 * 
+	 * @param interval
+	 *            interval in milliseconds
+	 */
+	void start(final long interval) {
+		final ScheduledExecutorService scheduler = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r);
+						thread.setName(Deinstrumenter.class.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		scheduler.scheduleWithFixedDelay(this, interval, interval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public void run() {
+		try {
+			deinstrument();
+		} catch (final Exception e) {
+			logger.logExeption(e);
+		}
+	}
+
+	/**
+	 * Retransforms all loaded classes which are saturated and have not been
+	 * deinstrumented before.
+	 * 
+	 * @return number of retransformed classes
+	 */
+	int deinstrument() {
+		final Set<String> names = findSaturatedClasses();
+		if (names.isEmpty()) {
+			return 0;
+		}
+		int count = 0;
+		for (final Class<?> c : retransformer.getAllLoadedClasses()) {
+			if (names.contains(c.getName())) {
+				// Classes of the same name with other ids are instrumented
+				// again, so retransform one by one to isolate failures:
+				try {
+					if (retransformer.isModifiableClass(c)) {
+						retransformer.retransformClass(c);
+						count++;
+					}
+				} catch (final Exception e) {
+					logError(c, e);
+				} catch (final LinkageError e) {
+					logError(c, e);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Marks all saturated classes in the transformer and pins their coverage.
+	 * 
+	 * @return Java names of the saturated classes
+	 */
+	private Set<String> findSaturatedClasses() {
+		final Map<Long, String> saturated = new HashMap<Long, String>();
+		data.collect(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ControlFlowExecutionData d) {
+				final Long id = Long.valueOf(d.getId());
+				if (!deinstrumented.contains(id) && isSaturated(d)) {
+					saturated.put(id, d.getName());
+				}
+			}
+		}, new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+			}
+		}, false);
+		final Set<String> names = new HashSet<String>();
+		for (final Map.Entry<Long, String> entry : saturated.entrySet()) {
+			final long id = entry.getKey().longValue();
+			data.pin(id);
+			transformer.addSaturatedClass(id);
+			deinstrumented.add(entry.getKey());
+			names.add(entry.getValue().replace('/', '.'));
+		}
+		return names;
+	}
+
+	private static boolean isSaturated(final ControlFlowExecutionData data) {
+		final boolean[] probes = data.getProbes();
+		for (final boolean p : probes) {
+			if (!p) {
+				return false;
+			}
+		}
+		return probes.length > 0;
+	}
+
+	private void logError(final Class<?> c, final Throwable cause) {
+		logger.logExeption(new IllegalStateException(format(
+				"Unable to deinstrument class %s.", c.getName()), cause));
+	}
+
+}
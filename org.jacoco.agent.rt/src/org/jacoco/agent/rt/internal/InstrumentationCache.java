@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jacoco.core.JaCoCo;
+
+/**
+ * Cache for instrumented class files in a directory which may be shared by
+ * several JVMs. Every entry is a plain class file whose name consists of the
+ * CRC64 id of the original class file, the instrumentation mode and the agent
+ * version.
+ * <p>
+ * Entries are written to a temporary file first which is then renamed, so
+ * other JVMs never see partially written entries. The modification time of
+ * an entry is refreshed when it is used. When this JVM adds entries the least
+ * recently used entries are removed once in the background until the
+ * directory fits into the maximum size.
+ */
+class InstrumentationCache {
+
+	private static final String SUFFIX = ".class";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** Minimum time between modification time updates of an entry */
+	private static final long TOUCH_INTERVAL = 60 * 1000;
+
+	/** Age after which temporary files of crashed JVMs are removed */
+	private static final long TEMP_MAX_AGE = 60 * 60 * 1000;
+
+	private final File directory;
+
+	private final String mode;
+
+	private final long maxSize;
+
+	private boolean evictionStarted;
+
+	/**
+	 * Create a new cache in the given directory.
+	 * 
+	 * @param directory
+	 *            cache directory, created on demand
+	 * @param mode
+	 *            name of the instrumentation mode
+	 * @param maxSize
+	 *            maximum size of the directory in bytes
+	 */
+	InstrumentationCache(final File directory, final String mode,
+			final long maxSize) {
+		this.directory = directory;
+		this.mode = mode;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the instrumented version of the class file with the given id.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the original class file
+	 * @return instrumented class file or <code>null</code> if there is no
+	 *         valid entry
+	 */
+	byte[] get(final long classid) {
+		final File file = getFile(classid);
+		final byte[] buffer;
+		try {
+			buffer = read(file);
+		} catch (final IOException e) {
+			// Missing or removed concurrently by another JVM
+			return null;
+		}
+		if (!isClassFile(buffer)) {
+			return null;
+		}
+		final long now = System.currentTimeMillis();
+		if (file.lastModified() < now - TOUCH_INTERVAL) {
+			file.setLastModified(now);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Adds the instrumented version of the class file with the given id.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the original class file
+	 * @param instrumented
+	 *            instrumented class file
+	 * @throws IOException
+	 *             if the entry can't be written
+	 */
+	void put(final long classid, final byte[] instrumented) throws IOException {
+		directory.mkdirs();
+		final File temp = File.createTempFile("instr", TEMP_SUFFIX, directory);
+		boolean renamed = false;
+		try {
+			final OutputStream out = new FileOutputStream(temp);
+			try {
+				out.write(instrumented);
+			} finally {
+				out.close();
+			}
+			// Fails if another JVM has added the same entry meanwhile:
+			renamed = temp.renameTo(getFile(classid));
+		} finally {
+			if (!renamed) {
+				temp.delete();
+			}
+		}
+		startEviction();
+	}
+
+	private synchronized void startEviction() {
+		if (evictionStarted) {
+			return;
+		}
+		evictionStarted = true;
+		final Thread worker = new Thread(new Runnable() {
+			public void run() {
+				evict();
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Removes the least recently used entries until the directory fits into
+	 * the maximum size. Temporary files left by crashed JVMs are removed as
+	 * well.
+	 */
+	void evict() {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		final long now = System.currentTimeMillis();
+		final List<Entry> entries = new ArrayList<Entry>();
+		long size = 0;
+		for (final File f : files) {
+			final String name = f.getName();
+			if (name.endsWith(TEMP_SUFFIX)) {
+				if (f.lastModified() < now - TEMP_MAX_AGE) {
+					f.delete();
+				}
+			} else if (name.endsWith(SUFFIX)) {
+				final Entry e = new Entry(f);
+				entries.add(e);
+				size += e.length;
+			}
+		}
+		if (size <= maxSize) {
+			return;
+		}
+		Collections.sort(entries, new Comparator<Entry>() {
+			public int compare(final Entry e1, final Entry e2) {
+				return e1.lastModified < e2.lastModified ? -1
+						: (e1.lastModified == e2.lastModified ? 0 : 1);
+			}
+		});
+		for (final Entry e : entries) {
+			if (size <= maxSize) {
+				break;
+			}
+			if (e.file.delete()) {
+				size -= e.length;
+			}
+		}
+	}
+
+	private File getFile(final long classid) {
+		return new File(directory, String.format("%016x-%s-%s%s",
+				Long.valueOf(classid), mode, JaCoCo.VERSION, SUFFIX));
+	}
+
+	private static byte[] read(final File file) throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(
+					(int) file.length());
+			final byte[] buffer = new byte[4096];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static boolean isClassFile(final byte[] buffer) {
+		return buffer.length >= 4 && (buffer[0] & 0xff) == 0xca
+				&& (buffer[1] & 0xff) == 0xfe && (buffer[2] & 0xff) == 0xba
+				&& (buffer[3] & 0xff) == 0xbe;
+	}
+
+	private static class Entry {
+
+		final File file;
+
+		final long length;
+
+		final long lastModified;
+
+		Entry(final File file) {
+			this.file = file;
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+		}
+
+	}
+
+}
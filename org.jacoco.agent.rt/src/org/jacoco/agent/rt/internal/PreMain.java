@@ -49,8 +49,20 @@ public final class PreMain {
 
 		final IRuntime runtime = createRuntime(inst);
 		runtime.startup(agent.getData());
-		inst.addTransformer(new CoverageTransformer(runtime, agentOptions,
-				IExceptionLogger.SYSTEM_ERR));
+		final CoverageTransformer transformer = new CoverageTransformer(
+				runtime, agentOptions, IExceptionLogger.SYSTEM_ERR);
+		Retransformer retransformer = null;
+		if (transformer.isRetransformable()) {
+			retransformer = Retransformer.create(inst);
+		}
+		if (retransformer != null) {
+			retransformer.addTransformer(transformer);
+			new Deinstrumenter(retransformer, transformer, agent.getData(),
+					IExceptionLogger.SYSTEM_ERR).start(agentOptions
+					.getDeinstrumentInterval());
+		} else {
+			inst.addTransformer(transformer);
+		}
 	}
 
 	private static IRuntime createRuntime(final Instrumentation inst)
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the retransformation API of {@link Instrumentation}, which is only
+ * available since Java 6. As the agent still runs on Java 5 the methods are
+ * called reflectively.
+ */
+class Retransformer {
+
+	private final Instrumentation inst;
+
+	private final Method addTransformer;
+
+	private final Method isModifiableClass;
+
+	private final Method retransformClasses;
+
+	private Retransformer(final Instrumentation inst,
+			final Method addTransformer, final Method isModifiableClass,
+			final Method retransformClasses) {
+		this.inst = inst;
+		this.addTransformer = addTransformer;
+		this.isModifiableClass = isModifiableClass;
+		this.retransformClasses = retransformClasses;
+	}
+
+	/**
+	 * Creates a retransformer for the given instrumentation if the JVM
+	 * supports retransformation.
+	 * 
+	 * @param inst
+	 *            instrumentation callback provided by the JVM
+	 * @return retransformer or <code>null</code> if retransformation is not
+	 *         supported
+	 * @throws Exception
+	 *             if the support can't be determined
+	 */
+	static Retransformer create(final Instrumentation inst) throws Exception {
+		final Class<Instrumentation> type = Instrumentation.class;
+		final Method isSupported;
+		final Method addTransformer;
+		final Method isModifiableClass;
+		final Method retransformClasses;
+		try {
+			isSupported = type.getMethod("isRetransformClassesSupported");
+			addTransformer = type.getMethod("addTransformer",
+					ClassFileTransformer.class, Boolean.TYPE);
+			isModifiableClass = type.getMethod("isModifiableClass",
+					Class.class);
+			retransformClasses = type.getMethod("retransformClasses",
+					Class[].class);
+		} catch (final NoSuchMethodException e) {
+			// Java 5
+			return null;
+		}
+		if (!((Boolean) invoke(isSupported, inst)).booleanValue()) {
+			return null;
+		}
+		return new Retransformer(inst, addTransformer, isModifiableClass,
+				retransformClasses);
+	}
+
+	/**
+	 * Registers the given transformer for retransformation.
+	 * 
+	 * @param transformer
+	 *            transformer to register
+	 * @throws Exception
+	 *             if the transformer can't be registered
+	 */
+	void addTransformer(final ClassFileTransformer transformer)
+			throws Exception {
+		invoke(addTransformer, inst, transformer, Boolean.TRUE);
+	}
+
+	/**
+	 * Returns all classes currently loaded by the JVM.
+	 * 
+	 * @return loaded classes
+	 */
+	Class<?>[] getAllLoadedClasses() {
+		return inst.getAllLoadedClasses();
+	}
+
+	/**
+	 * Checks whether the given class can be retransformed.
+	 * 
+	 * @param c
+	 *            class to check
+	 * @return <code>true</code> if the class can be retransformed
+	 * @throws Exception
+	 *             if the check fails
+	 */
+	boolean isModifiableClass(final Class<?> c) throws Exception {
+		return ((Boolean) invoke(isModifiableClass, inst, c)).booleanValue();
+	}
+
+	/**
+	 * Retransforms the given class.
+	 * 
+	 * @param c
+	 *            class to retransform
+	 * @throws Exception
+	 *             if the class can't be retransformed
+	 */
+	void retransformClass(final Class<?> c) throws Exception {
+		invoke(retransformClasses, inst, new Object[] { new Class<?>[] { c } });
+	}
+
+	private static Object invoke(final Method method, final Object target,
+			final Object... args) throws Exception {
+		try {
+			return method.invoke(target, args);
+		} catch (final InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (Exception) cause;
+		}
+	}
+
+}
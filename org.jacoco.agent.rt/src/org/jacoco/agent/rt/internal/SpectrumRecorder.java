@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.AbstractRuntimeData;
+
+/**
+ * Records the coverage of single tests as separate sessions into one execution
+ * data file. The probes are cleared when a test begins, so the probes collected
+ * when the test ends are exactly the ones executed by that test. The cleared
+ * coverage is retained by the runtime data, so other outputs still see the
+ * overall coverage. The blocks of all tests are buffered in memory and
+ * appended to the file in chunks, which is kept open until the recorder is
+ * closed.
+ */
+class SpectrumRecorder {
+
+	/** Session id suffix for passed tests. */
+	static final String PASSED = "#passed";
+
+	/** Session id suffix for failed tests. */
+	static final String FAILED = "#failed";
+
+	private static final int FLUSH_THRESHOLD = 0x100000;
+
+	private final AbstractRuntimeData data;
+
+	private final FileOutputStream file;
+
+	private final ByteArrayOutputStream buffer;
+
+	private final ExecutionDataWriter writer;
+
+	private String testId;
+
+	/**
+	 * Creates a new recorder which writes to the given file.
+	 * 
+	 * @param data
+	 *            runtime data to record
+	 * @param destFile
+	 *            file to write spectra to
+	 * @param append
+	 *            if <code>true</code> spectra are appended to an existing
+	 *            file
+	 * @throws IOException
+	 *             if the file can't be opened
+	 */
+	SpectrumRecorder(final AbstractRuntimeData data, final File destFile,
+			final boolean append) throws IOException {
+		this.data = data;
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		this.file = new FileOutputStream(destFile, append);
+		// Avoid concurrent writes from different agents running in parallel:
+		this.file.getChannel().lock();
+		this.buffer = new ByteArrayOutputStream(FLUSH_THRESHOLD);
+		this.writer = new ExecutionDataWriter(buffer);
+	}
+
+	/**
+	 * Starts recording of the test with the given id. All coverage data
+	 * collected so far is retained and excluded from the spectrum of the test.
+	 * 
+	 * @param id
+	 *            test identifier
+	 * @throws IllegalStateException
+	 *             if there is already a test being recorded
+	 */
+	synchronized void beginTest(final String id) throws IllegalStateException {
+		if (testId != null) {
+			throw new IllegalStateException(String.format(
+					"Test %s has not ended.", testId));
+		}
+		data.retain();
+		testId = id;
+	}
+
+	/**
+	 * Ends the test which is currently recorded and writes its coverage as a
+	 * separate session. The session id is the test id followed by
+	 * {@link #PASSED} or {@link #FAILED}. The coverage of the test is retained
+	 * afterwards.
+	 * 
+	 * @param passed
+	 *            verdict of the test
+	 * @throws IOException
+	 *             if the buffered spectra can't be written to the file
+	 * @throws IllegalStateException
+	 *             if no test is being recorded
+	 */
+	synchronized void endTest(final boolean passed) throws IOException,
+			IllegalStateException {
+		if (testId == null) {
+			throw new IllegalStateException("No test has begun.");
+		}
+		final String sessionId = testId + (passed ? PASSED : FAILED);
+		testId = null;
+		data.collectAndRetain(writer, new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				writer.visitSessionInfo(new SessionInfo(sessionId, info
+						.getStartTimeStamp(), info.getDumpTimeStamp()));
+			}
+		});
+		if (buffer.size() >= FLUSH_THRESHOLD) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes all buffered spectra to the file.
+	 * 
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	synchronized void flush() throws IOException {
+		writer.flush();
+		buffer.writeTo(file);
+		buffer.reset();
+	}
+
+	/**
+	 * Writes all buffered spectra and closes the file.
+	 * 
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			file.close();
+		}
+	}
+
+}
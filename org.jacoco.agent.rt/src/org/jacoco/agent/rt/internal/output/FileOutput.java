@@ -11,14 +11,24 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.DataFlowExecutionData;
 import org.jacoco.core.data.ExecutionDataWriter;
-import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.runtime.AbstractRuntimeData;
+import org.jacoco.core.runtime.AgentOptions;
 
 /**
  * Local only agent output that will write coverage data to the filesystem. This
@@ -27,47 +37,167 @@ import org.jacoco.core.runtime.AbstractRuntimeData;
  * <li>destfile</li>
  * <li>append</li>
  * </ul>
+ * 
+ * A dump only takes a copy of the executed probes while the runtime data is
+ * locked. The copy is then serialized through a buffered stream on the calling
+ * thread. In append mode and for deltas the data is appended to the
+ * destination file in place. Otherwise it is written to a temporary file next
+ * to the destination file which then replaces the destination file, so readers
+ * never see partially written files. Writes of different agents are
+ * serialized through a lock on the file <code>destfile.lck</code>, which in
+ * contrast to the destination file is never replaced.
  */
 public class FileOutput implements IAgentOutput {
 
+	private static final int BUFFER_SIZE = 0x10000;
+
 	private AbstractRuntimeData data;
 
 	private File destFile;
 
+	private File lockFile;
+
 	private boolean append;
 
-	public final void startup(final AgentOptions options, final AbstractRuntimeData data)
-			throws IOException {
+	public final void startup(final AgentOptions options,
+			final AbstractRuntimeData data) throws IOException {
 		this.data = data;
 		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
+		this.lockFile = new File(destFile.getPath() + ".lck");
 		this.append = options.getAppend();
 		final File folder = destFile.getParentFile();
 		if (folder != null) {
 			folder.mkdirs();
 		}
 		// Make sure we can write to the file:
-		openFile().close();
+		final FileOutputStream lock = lock();
+		try {
+			new FileOutputStream(destFile, append).close();
+		} finally {
+			lock.close();
+		}
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
-		final OutputStream output = openFile();
+		final Snapshot snapshot = new Snapshot();
+		data.collect(snapshot, snapshot, reset);
+		write(snapshot, append);
+	}
+
+	public void writeExecutionDelta() throws IOException {
+		final Snapshot snapshot = new Snapshot();
+		data.collectDelta(snapshot, snapshot);
+		write(snapshot, true);
+	}
+
+	public void shutdown() throws IOException {
+		// Nothing to do
+	}
+
+	private synchronized void write(final Snapshot snapshot,
+			final boolean append) throws IOException {
+		if (append) {
+			final FileOutputStream lock = lock();
+			try {
+				write(snapshot, new FileOutputStream(destFile, true));
+			} finally {
+				lock.close();
+			}
+			return;
+		}
+		final File temp = File.createTempFile("." + destFile.getName() + ".",
+				".tmp", destFile.getParentFile());
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			write(snapshot, new FileOutputStream(temp));
+			final FileOutputStream lock = lock();
+			try {
+				if (!temp.renameTo(destFile)) {
+					// The destination file can't be replaced on every platform
+					// while it is open, so fall back to an in-place copy:
+					final OutputStream output = new FileOutputStream(destFile);
+					try {
+						copy(temp, output);
+					} finally {
+						output.close();
+					}
+				}
+			} finally {
+				lock.close();
+			}
 		} finally {
-			output.close();
+			temp.delete();
 		}
 	}
 
-	public void shutdown() throws IOException {
-		// Nothing to do
+	private static void write(final Snapshot snapshot, final OutputStream file)
+			throws IOException {
+		final OutputStream output = new BufferedOutputStream(file, BUFFER_SIZE);
+		try {
+			snapshot.accept(new ExecutionDataWriter(output));
+		} finally {
+			output.close();
+		}
 	}
 
-	private OutputStream openFile() throws IOException {
-		final FileOutputStream file = new FileOutputStream(destFile, append);
+	private FileOutputStream lock() throws IOException {
+		final FileOutputStream file = new FileOutputStream(lockFile, true);
 		// Avoid concurrent writes from different agents running in parallel:
 		file.getChannel().lock();
 		return file;
 	}
 
+	private static void copy(final File source, final OutputStream target)
+			throws IOException {
+		final InputStream in = new FileInputStream(source);
+		try {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				target.write(buffer, 0, len);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Copy of the executed probes and the session info taken while the
+	 * runtime data is locked.
+	 */
+	private static class Snapshot implements ISessionInfoVisitor,
+			IExecutionDataVisitor {
+
+		private final List<SessionInfo> sessionInfos = new ArrayList<SessionInfo>();
+
+		private final List<ControlFlowExecutionData> executionData = new ArrayList<ControlFlowExecutionData>();
+
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionInfos.add(info);
+		}
+
+		public void visitClassExecution(final ControlFlowExecutionData data) {
+			if (!data.hasHits()) {
+				return;
+			}
+			if (data instanceof DataFlowExecutionData) {
+				executionData.add(new DataFlowExecutionData(data.getId(), data
+						.getName(), ((DataFlowExecutionData) data)
+						.getLongProbes().clone()));
+			} else {
+				executionData.add(new ControlFlowExecutionData(data.getId(),
+						data.getName(), data.getProbes().clone()));
+			}
+		}
+
+		void accept(final ExecutionDataWriter writer) {
+			for (final SessionInfo info : sessionInfos) {
+				writer.visitSessionInfo(info);
+			}
+			for (final ControlFlowExecutionData data : executionData) {
+				writer.visitClassExecution(data);
+			}
+		}
+
+	}
+
 }
@@ -55,4 +55,15 @@ public interface IAgentOutput {
 	 */
 	public void writeExecutionData(boolean reset) throws IOException;
 
+	/**
+	 * Write the probes which have been executed for the first time since the
+	 * last delta as a new session to a location determined by the agent
+	 * controller. File based controllers append the delta. This method should
+	 * only be called by the Agent
+	 * 
+	 * @throws IOException
+	 *             in case writing fails
+	 */
+	public void writeExecutionDelta() throws IOException;
+
 }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AbstractRuntimeData;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.SharedMemoryWriter;
+
+/**
+ * Local only agent output that keeps the probes of all classes in a
+ * memory-mapped file. The file is refreshed periodically and on every dump, so
+ * other processes on the same host can read the current coverage at any time.
+ * This controller uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>mmapinterval</li>
+ * </ul>
+ */
+public class MmapOutput implements IAgentOutput {
+
+	private final IExceptionLogger logger;
+
+	private AbstractRuntimeData data;
+
+	private SharedMemoryWriter writer;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 */
+	public MmapOutput(final IExceptionLogger logger) {
+		this.logger = logger;
+	}
+
+	public void startup(final AgentOptions options,
+			final AbstractRuntimeData data) throws IOException {
+		this.data = data;
+		final File destFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		writer = new SharedMemoryWriter(destFile);
+		refresh();
+		final int interval = options.getMmapInterval();
+		if (interval > 0) {
+			worker = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (true) {
+							Thread.sleep(interval);
+							refresh();
+						}
+					} catch (final InterruptedException e) {
+						// Shutdown
+					} catch (final RuntimeException e) {
+						logger.logExeption(e);
+					}
+				}
+			});
+			worker.setName(getClass().getName());
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	public void writeExecutionData(final boolean reset) throws IOException {
+		refresh();
+		if (reset) {
+			data.reset();
+		}
+	}
+
+	public void writeExecutionDelta() {
+		// The mapped file always reflects the complete execution data
+		refresh();
+	}
+
+	public void shutdown() throws Exception {
+		if (worker != null) {
+			worker.interrupt();
+			worker.join();
+		}
+		synchronized (this) {
+			writer.close();
+		}
+	}
+
+	private synchronized void refresh() {
+		data.collect(writer, writer, false);
+		writer.commit();
+	}
+
+}
@@ -27,6 +27,10 @@ public class NoneOutput implements IAgentOutput {
 		// Nothing to do
 	}
 
+	public void writeExecutionDelta() {
+		// Nothing to do
+	}
+
 	public void shutdown() {
 		// Nothing to do
 	}
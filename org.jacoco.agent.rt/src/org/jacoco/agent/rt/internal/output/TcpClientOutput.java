@@ -72,6 +72,10 @@ public class TcpClientOutput implements IAgentOutput {
 		connection.writeExecutionData(reset);
 	}
 
+	public void writeExecutionDelta() throws IOException {
+		connection.writeExecutionDelta();
+	}
+
 	/**
 	 * Open a socket based on the given configuration.
 	 * 
@@ -83,6 +83,19 @@ class TcpConnection implements IRemoteCommandVisitor {
 		}
 	}
 
+	/**
+	 * Dumps the probes executed for the first time since the last delta to the
+	 * socket.
+	 * 
+	 * @throws IOException
+	 */
+	public void writeExecutionDelta() throws IOException {
+		if (initialized && !socket.isClosed()) {
+			data.collectDelta(writer, writer);
+			writer.sendCmdOk();
+		}
+	}
+
 	/**
 	 * Closes the underlying socket if not closed yet.
 	 * 
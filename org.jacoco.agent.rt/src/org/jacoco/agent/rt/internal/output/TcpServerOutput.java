@@ -92,6 +92,12 @@ public class TcpServerOutput implements IAgentOutput {
 		}
 	}
 
+	public void writeExecutionDelta() throws IOException {
+		if (connection != null) {
+			connection.writeExecutionDelta();
+		}
+	}
+
 	/**
 	 * Open a server socket based on the given configuration.
 	 * 
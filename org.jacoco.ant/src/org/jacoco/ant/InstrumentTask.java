@@ -17,7 +17,14 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
@@ -39,6 +46,8 @@ public class InstrumentTask extends Task {
 
 	private boolean removesignatures = true;
 
+	private int threads = Runtime.getRuntime().availableProcessors();
+
 	/**
 	 * Sets the location of the instrumented classes.
 	 * 
@@ -59,6 +68,18 @@ public class InstrumentTask extends Task {
 		this.removesignatures = removesignatures;
 	}
 
+	/**
+	 * Sets the number of threads used to instrument files and archive entries
+	 * in parallel. With <code>1</code> all files are instrumented
+	 * sequentially.
+	 * 
+	 * @param threads
+	 *            number of threads, defaults to the number of processors
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
 	/**
 	 * This task accepts any number of class file resources.
 	 * 
@@ -75,10 +96,25 @@ public class InstrumentTask extends Task {
 			throw new BuildException("Destination directory must be supplied",
 					getLocation());
 		}
-		int total = 0;
+		if (threads < 1) {
+			throw new BuildException("Number of threads must be positive",
+					getLocation());
+		}
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
 		instrumenter.setRemoveSignatures(removesignatures);
+		final int total;
+		if (threads == 1) {
+			total = instrumentSequential(instrumenter);
+		} else {
+			total = instrumentParallel(instrumenter);
+		}
+		log(format("Instrumented %s classes to %s", Integer.valueOf(total),
+				destdir.getAbsolutePath()));
+	}
+
+	private int instrumentSequential(final Instrumenter instrumenter) {
+		int total = 0;
 		final Iterator<?> resourceIterator = files.iterator();
 		while (resourceIterator.hasNext()) {
 			final Resource resource = (Resource) resourceIterator.next();
@@ -87,8 +123,59 @@ public class InstrumentTask extends Task {
 			}
 			total += instrument(instrumenter, resource);
 		}
-		log(format("Instrumented %s classes to %s", Integer.valueOf(total),
-				destdir.getAbsolutePath()));
+		return total;
+	}
+
+	private int instrumentParallel(final Instrumenter instrumenter) {
+		// Separate pools, as file tasks wait for the entries of archives:
+		final ExecutorService fileExecutor = Executors
+				.newFixedThreadPool(threads);
+		final ExecutorService entryExecutor = Executors
+				.newFixedThreadPool(threads);
+		instrumenter.setExecutor(entryExecutor);
+		try {
+			final List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			final Iterator<?> resourceIterator = files.iterator();
+			while (resourceIterator.hasNext()) {
+				final Resource resource = (Resource) resourceIterator.next();
+				if (resource.isDirectory()) {
+					continue;
+				}
+				results.add(fileExecutor.submit(new Callable<Integer>() {
+					public Integer call() {
+						return Integer.valueOf(instrument(instrumenter,
+								resource));
+					}
+				}));
+			}
+			int total = 0;
+			for (final Future<Integer> result : results) {
+				total += getResult(result);
+			}
+			return total;
+		} finally {
+			fileExecutor.shutdownNow();
+			entryExecutor.shutdownNow();
+		}
+	}
+
+	private int getResult(final Future<Integer> result) {
+		try {
+			return result.get().intValue();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BuildException("Instrumentation interrupted", e,
+					getLocation());
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof BuildException) {
+				throw (BuildException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new BuildException(cause, getLocation());
+		}
 	}
 
 	private int instrument(final Instrumenter instrumenter,
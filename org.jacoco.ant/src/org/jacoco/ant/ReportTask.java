@@ -23,6 +23,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -31,19 +33,23 @@ import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Union;
 import org.apache.tools.ant.util.FileUtils;
+import org.jacoco.core.analysis.AbstractAnalyzer;
+import org.jacoco.core.analysis.ClassDeduplicator;
 import org.jacoco.core.analysis.ControlFlowAnalyzer;
-import org.jacoco.core.analysis.CoverageBuilder;
-import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.PackageIndexer;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
 import org.jacoco.core.data.ControlFlowExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.MultiReportVisitor;
+import org.jacoco.report.ReportPackageVisitor;
 import org.jacoco.report.ZipMultiReportOutput;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Limit;
@@ -423,6 +429,23 @@ public class ReportTask extends Task {
 
 	private final List<FormatterElement> formatters = new ArrayList<FormatterElement>();
 
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private ExecutorService executor;
+
+	private ClassDeduplicator deduplicator;
+
+	/**
+	 * Sets the number of threads used to analyze class files in parallel.
+	 * With <code>1</code> all class files are analyzed sequentially.
+	 * 
+	 * @param threads
+	 *            number of threads, defaults to the number of processors
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
 	/**
 	 * Returns the nested resource collection for execution data files.
 	 * 
@@ -487,7 +510,16 @@ public class ReportTask extends Task {
 
 	@Override
 	public void execute() throws BuildException {
+		if (threads < 1) {
+			throw new BuildException("Number of threads must be positive",
+					getLocation());
+		}
 		loadExecutionData();
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads);
+		}
+		// Identical classes are analyzed once for all groups of the report:
+		deduplicator = new ClassDeduplicator();
 		try {
 			final IReportVisitor visitor = createVisitor();
 			visitor.visitInfo(sessionInfoStore.getInfos(),
@@ -497,9 +529,16 @@ public class ReportTask extends Task {
 			for (final FormatterElement f : formatters) {
 				f.finish();
 			}
+			logDuplicates();
 		} catch (final IOException e) {
 			throw new BuildException("Error while creating report", e,
 					getLocation());
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+			deduplicator = null;
 		}
 	}
 
@@ -539,15 +578,15 @@ public class ReportTask extends Task {
 					getLocation());
 		}
 		if (group.children.isEmpty()) {
-			final IBundleCoverage bundle = createBundle(group);
 			final SourceFilesElement sourcefiles = group.sourcefiles;
 			final AntResourcesLocator locator = new AntResourcesLocator(
 					sourcefiles.encoding, sourcefiles.tabWidth);
 			locator.addAll(sourcefiles.iterator());
+			final ICoverageNode total = createBundle(group,
+					visitor.visitBundleStream(group.name, locator));
 			if (!locator.isEmpty()) {
-				checkForMissingDebugInformation(bundle);
+				checkForMissingDebugInformation(total);
 			}
-			visitor.visitBundle(bundle, locator);
 		} else {
 			final IReportGroupVisitor groupVisitor = visitor
 					.visitGroup(group.name);
@@ -557,10 +596,37 @@ public class ReportTask extends Task {
 		}
 	}
 
-	private IBundleCoverage createBundle(final GroupElement group)
-			throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
-		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(executionDataStore, builder);
+	private ICoverageNode createBundle(final GroupElement group,
+			final IReportBundleVisitor bundleVisitor) throws IOException {
+		final PackageIndexer indexer = new PackageIndexer();
+		indexer.setDeduplicator(new ClassDeduplicator());
+		indexer.setExecutor(executor);
+		analyzeClassfiles(indexer, group);
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				group.name, new ReportPackageVisitor(bundleVisitor),
+				indexer.getClassCounts());
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				executionDataStore, builder);
+		analyzer.setDeduplicator(deduplicator);
+		analyzer.setExecutor(executor);
+		try {
+			analyzeClassfiles(analyzer, group);
+			builder.finish();
+		} catch (final RuntimeException e) {
+			// Report writer failures are wrapped by ReportPackageVisitor:
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		bundleVisitor.visitEnd();
+		final ICoverageNode total = builder.getTotal();
+		logBundleInfo(total, builder.getNoMatchClasses());
+		return total;
+	}
+
+	private void analyzeClassfiles(final AbstractAnalyzer analyzer,
+			final GroupElement group) throws IOException {
 		for (final Iterator<?> i = group.classfiles.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			if (resource.isDirectory() && resource instanceof FileResource) {
@@ -571,14 +637,11 @@ public class ReportTask extends Task {
 				in.close();
 			}
 		}
-		final IBundleCoverage bundle = builder.getBundle(group.name);
-		logBundleInfo(bundle, builder.getNoMatchClasses());
-		return bundle;
 	}
 
-	private void logBundleInfo(final IBundleCoverage bundle,
+	private void logBundleInfo(final ICoverageNode bundle,
 			final Collection<IClassCoverage> nomatch) {
-		log(format("Writing bundle '%s' with %s classes", bundle.getName(),
+		log(format("Wrote bundle '%s' with %s classes", bundle.getName(),
 				Integer.valueOf(bundle.getClassCounter().getTotalCount())));
 		if (!nomatch.isEmpty()) {
 			log(format(
@@ -592,6 +655,14 @@ public class ReportTask extends Task {
 		}
 	}
 
+	private void logDuplicates() {
+		if (deduplicator.getSkippedClasses() > 0) {
+			log(format("Skipped analysis of %s duplicate classes (%s bytes)",
+					Integer.valueOf(deduplicator.getSkippedClasses()),
+					Long.valueOf(deduplicator.getSkippedBytes())));
+		}
+	}
+
 	private void checkForMissingDebugInformation(final ICoverageNode node) {
 		if (node.getClassCounter().getTotalCount() > 0
 				&& node.getLineCounter().getTotalCount() == 0) {
@@ -14,6 +14,7 @@ package org.jacoco.core.analysis;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -50,7 +51,7 @@ public class AnalyzerTest {
 	@Rule
 	public TemporaryFolder folder = new TemporaryFolder();
 
-	private ControlFlowAnalyzer analyzer;
+	protected ControlFlowAnalyzer analyzer;
 
 	private Map<String, IClassCoverage> classes;
 
@@ -204,6 +205,115 @@ public class AnalyzerTest {
 				"org/jacoco/core/analysis/AnalyzerTest");
 	}
 
+	@Test
+	public void testAnalyzeAll_ZipFile() throws IOException {
+		final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+		final ZipOutputStream nestedZip = new ZipOutputStream(nested);
+		nestedZip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/ControlFlowAnalyzer.class"));
+		nestedZip.write(TargetLoader
+				.getClassDataAsBytes(ControlFlowAnalyzer.class));
+		nestedZip.finish();
+
+		final File file = new File(folder.getRoot(), "test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+		zip.write("Manifest-Version: 1.0\n".getBytes("UTF-8"));
+		zip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/AnalyzerTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(AnalyzerTest.class));
+		zip.putNextEntry(new ZipEntry("lib/nested.jar"));
+		zip.write(nested.toByteArray());
+		zip.close();
+
+		final int count = analyzer.analyzeAll(file);
+		assertEquals(2, count);
+		assertClasses("org/jacoco/core/analysis/ControlFlowAnalyzer",
+				"org/jacoco/core/analysis/AnalyzerTest");
+	}
+
+	@Test
+	public void testAnalyzeAll_BrokenClassFileInZipFile() throws IOException {
+		final File file = new File(folder.getRoot(), "test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		zip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/AnalyzerTest.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		zip.close();
+
+		try {
+			analyzer.analyzeAll(file);
+			fail();
+		} catch (IOException e) {
+			assertEquals(String.format("Error while analyzing class %s.",
+					file.getPath()
+							+ "@org/jacoco/core/analysis/AnalyzerTest.class"),
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAnalyzeAll_Deduplicator() throws IOException {
+		final ClassDeduplicator deduplicator = new ClassDeduplicator();
+		analyzer.setDeduplicator(deduplicator);
+		final byte[] bytes1 = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		final byte[] bytes2 = TargetLoader
+				.getClassDataAsBytes(ControlFlowAnalyzer.class);
+
+		final File file = new File(folder.getRoot(), "test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		zip.putNextEntry(new ZipEntry("a/AnalyzerTest.class"));
+		zip.write(bytes1);
+		zip.putNextEntry(new ZipEntry("b/AnalyzerTest.class"));
+		zip.write(bytes1);
+		zip.putNextEntry(new ZipEntry("ControlFlowAnalyzer.class"));
+		zip.write(bytes2);
+		zip.close();
+
+		assertEquals(3, analyzer.analyzeAll(file));
+		assertEquals(3, analyzer.analyzeAll(file));
+		assertEquals(1, analyzer.analyzeAll(new ByteArrayInputStream(bytes1),
+				"Test"));
+
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/ControlFlowAnalyzer");
+		assertEquals(2, deduplicator.getClassCount());
+		assertEquals(5, deduplicator.getSkippedClasses());
+		assertEquals(4 * bytes1.length + bytes2.length,
+				deduplicator.getSkippedBytes());
+	}
+
+	@Test
+	public void testAnalyzeAll_SharedDeduplicator() throws IOException {
+		final ClassDeduplicator deduplicator = new ClassDeduplicator();
+		analyzer.setDeduplicator(deduplicator);
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		analyzer.analyzeAll(new ByteArrayInputStream(bytes), "Test");
+		final IClassCoverage first = classes
+				.get("org/jacoco/core/analysis/AnalyzerTest");
+
+		classes.clear();
+		final ControlFlowAnalyzer other = new ControlFlowAnalyzer(
+				executionData, new EmptyStructureVisitor());
+		other.setDeduplicator(deduplicator);
+		other.analyzeAll(new ByteArrayInputStream(bytes), "Test");
+		other.analyzeAll(new ByteArrayInputStream(bytes), "Test");
+
+		assertSame(first,
+				classes.get("org/jacoco/core/analysis/AnalyzerTest"));
+		assertEquals(1, deduplicator.getClassCount());
+		assertEquals(2, deduplicator.getSkippedClasses());
+		assertEquals(2 * bytes.length, deduplicator.getSkippedBytes());
+	}
+
 	@Test(expected = IOException.class)
 	public void testAnalyzeAll_BrokenZip() throws IOException {
 		File file = new File(folder.getRoot(), "broken.zip");
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ClassDeduplicator}.
+ */
+public class ClassDeduplicatorTest {
+
+	private ClassDeduplicator deduplicator;
+
+	@Before
+	public void setup() {
+		deduplicator = new ClassDeduplicator();
+	}
+
+	@Test
+	public void testInit() {
+		assertEquals(0, deduplicator.getClassCount());
+		assertEquals(0, deduplicator.getSkippedClasses());
+		assertEquals(0, deduplicator.getSkippedBytes());
+	}
+
+	@Test
+	public void testAdd() {
+		assertFalse(deduplicator.contains(123));
+		assertTrue(deduplicator.add(123, 100));
+		assertTrue(deduplicator.contains(123));
+		assertTrue(deduplicator.add(456, 200));
+
+		assertEquals(2, deduplicator.getClassCount());
+		assertEquals(0, deduplicator.getSkippedClasses());
+		assertEquals(0, deduplicator.getSkippedBytes());
+	}
+
+	@Test
+	public void testAddDuplicate() {
+		deduplicator.add(123, 100);
+		assertFalse(deduplicator.add(123, 100));
+		assertFalse(deduplicator.add(123, 100));
+
+		assertEquals(1, deduplicator.getClassCount());
+		assertEquals(2, deduplicator.getSkippedClasses());
+		assertEquals(200, deduplicator.getSkippedBytes());
+	}
+
+	@Test
+	public void testCoverage() {
+		final ClassCoverageImpl c1 = new ClassCoverageImpl("Foo", 123, false,
+				null, "java/lang/Object", new String[0]);
+		final ClassCoverageImpl c2 = new ClassCoverageImpl("Foo", 123, false,
+				null, "java/lang/Object", new String[0]);
+		assertNull(deduplicator.getCoverage(123));
+		assertSame(c1, deduplicator.putCoverage(c1));
+		assertSame(c1, deduplicator.putCoverage(c2));
+		assertSame(c1, deduplicator.getCoverage(123));
+		assertNull(deduplicator.getCoverage(456));
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link PackageIndexer}.
+ */
+public class PackageIndexerTest {
+
+	private PackageIndexer indexer;
+
+	@Before
+	public void setup() {
+		indexer = new PackageIndexer();
+	}
+
+	@Test
+	public void testCountClassesPerPackage() throws IOException {
+		indexer.analyzeAll(new ByteArrayInputStream(createArchive()),
+				"archive");
+
+		final Map<String, Integer> counts = indexer.getClassCounts();
+		assertEquals(2, counts.size());
+		assertEquals(Integer.valueOf(3), counts.get("org/jacoco/core/analysis"));
+		assertEquals(Integer.valueOf(1), counts.get(""));
+	}
+
+	@Test
+	public void testCountWithDeduplicator() throws IOException {
+		indexer.setDeduplicator(new ClassDeduplicator());
+		indexer.analyzeAll(new ByteArrayInputStream(createArchive()),
+				"archive");
+
+		assertEquals(Integer.valueOf(2),
+				indexer.getClassCounts().get("org/jacoco/core/analysis"));
+	}
+
+	@Test
+	public void testStreamNonContiguousPackages() throws IOException {
+		final byte[] archive = createArchive();
+		indexer.analyzeAll(new ByteArrayInputStream(archive), "archive");
+
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				"bundle", new IPackageCoverageVisitor() {
+					public void visitPackage(IPackageCoverage coverage) {
+						packages.add(coverage);
+					}
+				}, indexer.getClassCounts());
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				new ControlFlowExecutionDataStore(), builder);
+		analyzer.analyzeAll(new ByteArrayInputStream(archive), "archive");
+
+		assertEquals(2, packages.size());
+		assertEquals("", packages.get(0).getName());
+		assertEquals("org/jacoco/core/analysis", packages.get(1).getName());
+		assertEquals(2, packages.get(1).getClasses().size());
+		builder.finish();
+		assertEquals(2, packages.size());
+	}
+
+	private byte[] createArchive() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		zip.putNextEntry(new ZipEntry("a/Target1.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(PackageIndexerTest.class));
+		zip.putNextEntry(new ZipEntry("Target2.class"));
+		zip.write(createClass("Target2"));
+		zip.putNextEntry(new ZipEntry("a/Target3.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(CoverageBuilder.class));
+		zip.putNextEntry(new ZipEntry("b/Target4.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(PackageIndexerTest.class));
+		zip.finish();
+		return buffer.toByteArray();
+	}
+
+	private byte[] createClass(final String name) {
+		final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, name, null,
+				"java/lang/Object", null);
+		final MethodVisitor mv = writer.visitMethod(
+				Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object",
+				"<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+}
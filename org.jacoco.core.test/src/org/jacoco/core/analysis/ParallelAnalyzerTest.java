@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs the {@link AnalyzerTest} with an executor for parallel analysis.
+ */
+public class ParallelAnalyzerTest extends AnalyzerTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setupExecutor() {
+		executor = Executors.newFixedThreadPool(4);
+		analyzer.setExecutor(executor);
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testReportOrderIsDeterministic() throws IOException {
+		final Class<?>[] targets = new Class<?>[] { AnalyzerTest.class,
+				ParallelAnalyzerTest.class, AbstractAnalyzer.class,
+				ControlFlowAnalyzer.class, CoverageBuilder.class };
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (int i = 0; i < 500; i++) {
+			final Class<?> target = targets[(i * 7) % targets.length];
+			zip.putNextEntry(new ZipEntry("Target" + i + ".class"));
+			zip.write(TargetLoader.getClassDataAsBytes(target));
+		}
+		zip.finish();
+
+		final List<String> sequential = analyze(buffer.toByteArray(), false);
+		final List<String> parallel = analyze(buffer.toByteArray(), true);
+
+		assertEquals(500, parallel.size());
+		assertEquals(sequential, parallel);
+
+		final File file = new File(folder.getRoot(), "archive.jar");
+		final OutputStream out = new FileOutputStream(file);
+		out.write(buffer.toByteArray());
+		out.close();
+		assertEquals(sequential, analyze(file));
+	}
+
+	private List<String> analyze(final byte[] archive, final boolean parallel)
+			throws IOException {
+		final List<String> names = new ArrayList<String>();
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				new ControlFlowExecutionDataStore(), new ICoverageVisitor() {
+					public void visitCoverage(IClassCoverage coverage) {
+						names.add(coverage.getName());
+					}
+				});
+		if (parallel) {
+			analyzer.setExecutor(executor);
+		}
+		analyzer.analyzeAll(new ByteArrayInputStream(archive), "archive");
+		return names;
+	}
+
+	private List<String> analyze(final File archive) throws IOException {
+		final List<String> names = new ArrayList<String>();
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				new ControlFlowExecutionDataStore(), new ICoverageVisitor() {
+					public void visitCoverage(IClassCoverage coverage) {
+						names.add(coverage.getName());
+					}
+				});
+		analyzer.setExecutor(executor);
+		analyzer.analyzeAll(archive);
+		return names;
+	}
+
+}
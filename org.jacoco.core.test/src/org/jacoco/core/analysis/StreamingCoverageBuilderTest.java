@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingCoverageBuilder}.
+ */
+public class StreamingCoverageBuilderTest implements IPackageCoverageVisitor {
+
+	private List<IPackageCoverage> packages;
+
+	private StreamingCoverageBuilder builder;
+
+	@Before
+	public void setup() {
+		packages = new ArrayList<IPackageCoverage>();
+		builder = new StreamingCoverageBuilder("bundle", this);
+	}
+
+	@Test
+	public void testEmitPackageOnFinish() {
+		addClass(1, "org/jacoco/examples/Sample1", "Sample1.java", 3);
+		addClass(2, "org/jacoco/examples/Sample2", "Sample2.java", 4);
+		addClass(3, "Sample3", null, 1);
+		assertTrue(packages.isEmpty());
+
+		builder.finish();
+		assertEquals(2, packages.size());
+		final IPackageCoverage p = packages.get(0);
+		assertEquals("org/jacoco/examples", p.getName());
+		assertEquals(2, p.getClasses().size());
+		assertEquals(2, p.getSourceFiles().size());
+		assertEquals(7, p.getInstructionCounter().getMissedCount());
+		assertEquals("", packages.get(1).getName());
+		assertEquals(1, packages.get(1).getClasses().size());
+	}
+
+	@Test
+	public void testEmitPackageWhenComplete() {
+		final Map<String, Integer> counts = new HashMap<String, Integer>();
+		counts.put("org/jacoco/examples", Integer.valueOf(2));
+		counts.put("", Integer.valueOf(1));
+		builder = new StreamingCoverageBuilder("bundle", this, counts);
+
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		assertTrue(packages.isEmpty());
+		addClass(2, "org/jacoco/examples/Sample2", null, 4);
+		assertEquals(1, packages.size());
+		assertEquals("org/jacoco/examples", packages.get(0).getName());
+		assertEquals(2, packages.get(0).getClasses().size());
+
+		addClass(3, "Sample3", null, 1);
+		assertEquals(2, packages.size());
+		builder.finish();
+		assertEquals(2, packages.size());
+	}
+
+	@Test
+	public void testEmitPackageWhenCompleteWithEmptyClass() {
+		final Map<String, Integer> counts = new HashMap<String, Integer>();
+		counts.put("org/jacoco/examples", Integer.valueOf(2));
+		builder = new StreamingCoverageBuilder("bundle", this, counts);
+
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		addClass(2, "org/jacoco/examples/Empty", null, 0);
+		assertEquals(1, packages.size());
+		assertEquals(1, packages.get(0).getClasses().size());
+	}
+
+	@Test
+	public void testNoMatchClasses() {
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(
+				"org/jacoco/examples/Sample2", 2, true, null,
+				"java/lang/Object", new String[0]);
+		coverage.addMethod(createMethod(3));
+		builder.visitCoverage(coverage);
+
+		assertEquals(1, builder.getNoMatchClasses().size());
+		assertEquals("org/jacoco/examples/Sample2", builder
+				.getNoMatchClasses().iterator().next().getName());
+	}
+
+	@Test
+	public void testTotal() {
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		addClass(2, "org/jacoco/other/Sample2", null, 4);
+		builder.finish();
+
+		final ICoverageNode total = builder.getTotal();
+		assertEquals("bundle", total.getName());
+		assertEquals(ICoverageNode.ElementType.BUNDLE, total.getElementType());
+		assertEquals(7, total.getInstructionCounter().getMissedCount());
+		assertEquals(2, total.getClassCounter().getTotalCount());
+	}
+
+	@Test
+	public void testFinishWithoutClasses() {
+		builder.finish();
+		assertTrue(packages.isEmpty());
+		assertEquals(0, builder.getTotal().getInstructionCounter()
+				.getTotalCount());
+	}
+
+	@Test
+	public void testIgnoreEmptyClasses() {
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		addClass(2, "Empty", null, 0);
+		addClass(3, "org/jacoco/examples/Sample2", null, 4);
+		builder.finish();
+
+		assertEquals(1, packages.size());
+		assertEquals(2, packages.get(0).getClasses().size());
+	}
+
+	@Test
+	public void testSourceFileAggregation() {
+		addClass(1, "org/jacoco/examples/Sample", "Sample.java", 3);
+		addClass(2, "org/jacoco/examples/Sample$Inner", "Sample.java", 4);
+		builder.finish();
+
+		final ISourceFileCoverage s = packages.get(0).getSourceFiles()
+				.iterator().next();
+		assertEquals("Sample.java", s.getName());
+		assertEquals("org/jacoco/examples", s.getPackageName());
+		assertEquals(7, s.getInstructionCounter().getMissedCount());
+	}
+
+	@Test
+	public void testNonContiguousPackage() {
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		addClass(2, "Sample2", null, 3);
+		addClass(3, "org/jacoco/examples/Sample3", null, 3);
+		builder.finish();
+
+		assertEquals(2, packages.size());
+		assertEquals("org/jacoco/examples", packages.get(0).getName());
+		assertEquals(2, packages.get(0).getClasses().size());
+		assertEquals(6, packages.get(0).getInstructionCounter()
+				.getMissedCount());
+	}
+
+	@Test
+	public void testNonContiguousPackageWithCounts() {
+		final Map<String, Integer> counts = new HashMap<String, Integer>();
+		counts.put("org/jacoco/examples", Integer.valueOf(2));
+		counts.put("", Integer.valueOf(1));
+		builder = new StreamingCoverageBuilder("bundle", this, counts);
+
+		addClass(1, "org/jacoco/examples/Sample1", null, 3);
+		addClass(2, "Sample2", null, 3);
+		assertEquals(1, packages.size());
+		assertEquals("", packages.get(0).getName());
+		addClass(3, "org/jacoco/examples/Sample3", null, 3);
+		assertEquals(2, packages.size());
+		assertEquals(2, packages.get(1).getClasses().size());
+	}
+
+	@Test
+	public void testDuplicateClassSameId() {
+		addClass(1, "org/jacoco/examples/Sample", "Sample.java", 3);
+		addClass(1, "org/jacoco/examples/Sample", "Sample.java", 3);
+		builder.finish();
+
+		assertEquals(1, packages.get(0).getClasses().size());
+		assertEquals(3, packages.get(0).getSourceFiles().iterator().next()
+				.getInstructionCounter().getMissedCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDuplicateClassNameDifferent() {
+		addClass(1, "org/jacoco/examples/Sample", null, 3);
+		addClass(2, "org/jacoco/examples/Sample", null, 3);
+	}
+
+	private void addClass(long id, String name, String source, int lines) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				false, null, "java/lang/Object", new String[0]);
+		coverage.setSourceFileName(source);
+		coverage.addMethod(createMethod(lines));
+		builder.visitCoverage(coverage);
+	}
+
+	private MethodCoverageImpl createMethod(int lines) {
+		final MethodCoverageImpl method = new MethodCoverageImpl("doit",
+				"()V", null);
+		for (int i = 0; i < lines; i++) {
+			method.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0,
+					i + 1);
+		}
+		method.incrementMethodCounter();
+		return method;
+	}
+
+	// === IPackageCoverageVisitor ===
+
+	public void visitPackage(IPackageCoverage coverage) {
+		packages.add(coverage);
+	}
+
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DuaCoverageBuilder}.
+ */
+public class DuaCoverageBuilderTest {
+
+	private DuaCoverageBuilder coverageBuilder;
+
+	@Before
+	public void setup() {
+		coverageBuilder = new DuaCoverageBuilder();
+	}
+
+	@Test
+	public void testCreateClassMissed() {
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 3, 0));
+
+		final Collection<IDuaClassCoverage> classes = coverageBuilder
+				.getClasses();
+		assertEquals(1, classes.size());
+		assertEquals("org/jacoco/Foo", classes.iterator().next().getName());
+		assertEquals(CounterImpl.getInstance(3, 0),
+				coverageBuilder.getDuaCounter());
+	}
+
+	@Test
+	public void testIgnoreClassWithoutMethods() {
+		coverageBuilder.visitCoverage(new DuaClassCoverage("org/jacoco/Foo",
+				1, null, "java/lang/Object", new String[0]));
+
+		assertEquals(0, coverageBuilder.getClasses().size());
+		assertEquals(0, coverageBuilder.getPackages().size());
+		assertEquals(CounterImpl.COUNTER_0_0, coverageBuilder.getDuaCounter());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDuplicateClassNameDifferent() {
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 1, 0));
+		coverageBuilder.visitCoverage(createClass(2, "org/jacoco/Foo",
+				"Foo.java", 1, 0));
+	}
+
+	@Test
+	public void testDuplicateClassNameIdentical() {
+		final IDuaClassCoverage first = createClass(1, "org/jacoco/Foo",
+				"Foo.java", 1, 1);
+		coverageBuilder.visitCoverage(first);
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 1, 1));
+
+		assertEquals(1, coverageBuilder.getClasses().size());
+		assertSame(first, coverageBuilder.getClasses().iterator().next());
+		assertEquals(CounterImpl.getInstance(1, 1),
+				coverageBuilder.getDuaCounter());
+		assertEquals(CounterImpl.getInstance(1, 1), coverageBuilder
+				.getSourceFiles().iterator().next().getDuaCounter());
+	}
+
+	@Test
+	public void testSourceFiles() {
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 2, 1));
+		coverageBuilder.visitCoverage(createClass(2, "org/jacoco/Foo$1",
+				"Foo.java", 1, 3));
+		coverageBuilder.visitCoverage(createClass(3, "org/jacoco/Bar",
+				"Bar.java", 1, 0));
+		coverageBuilder.visitCoverage(createClass(4, "org/jacoco/Baz", null,
+				5, 5));
+
+		final Map<String, IDuaSourceFileCoverage> sources = new HashMap<String, IDuaSourceFileCoverage>();
+		for (final IDuaSourceFileCoverage s : coverageBuilder.getSourceFiles()) {
+			sources.put(s.getName(), s);
+		}
+		assertEquals(2, sources.size());
+		final IDuaSourceFileCoverage foo = sources.get("Foo.java");
+		assertEquals("org/jacoco", foo.getPackageName());
+		assertEquals(2, foo.getClasses().size());
+		assertEquals(CounterImpl.getInstance(3, 4), foo.getDuaCounter());
+		assertEquals(CounterImpl.getInstance(1, 0), sources.get("Bar.java")
+				.getDuaCounter());
+	}
+
+	@Test
+	public void testPackagesAndBundle() {
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 2, 1));
+		coverageBuilder.visitCoverage(createClass(2, "org/jacoco/Bar", null,
+				1, 1));
+		coverageBuilder.visitCoverage(createClass(3, "Default", "Default.java",
+				4, 0));
+
+		final Map<String, IDuaPackageCoverage> packages = new HashMap<String, IDuaPackageCoverage>();
+		for (final IDuaPackageCoverage p : coverageBuilder.getPackages()) {
+			packages.put(p.getName(), p);
+		}
+		assertEquals(2, packages.size());
+		final IDuaPackageCoverage jacoco = packages.get("org/jacoco");
+		assertEquals(2, jacoco.getClasses().size());
+		assertEquals(1, jacoco.getSourceFiles().size());
+		assertEquals(CounterImpl.getInstance(3, 2), jacoco.getDuaCounter());
+		assertEquals(CounterImpl.getInstance(4, 0), packages.get("")
+				.getDuaCounter());
+
+		final IDuaBundleCoverage bundle = coverageBuilder.getBundle("Sample");
+		assertEquals("Sample", bundle.getName());
+		assertEquals(2, bundle.getPackages().size());
+		assertEquals(CounterImpl.getInstance(7, 2), bundle.getDuaCounter());
+		assertEquals(bundle.getDuaCounter(), coverageBuilder.getDuaCounter());
+	}
+
+	@Test
+	public void testBundleIsSnapshot() {
+		coverageBuilder.visitCoverage(createClass(1, "org/jacoco/Foo",
+				"Foo.java", 1, 0));
+		final IDuaBundleCoverage bundle = coverageBuilder.getBundle("Sample");
+		coverageBuilder.visitCoverage(createClass(2, "org/acme/Bar",
+				"Bar.java", 1, 0));
+
+		assertEquals(1, bundle.getPackages().size());
+		assertEquals(CounterImpl.getInstance(1, 0), bundle.getDuaCounter());
+		assertTrue(coverageBuilder.getPackages().size() == 2);
+	}
+
+	private IDuaClassCoverage createClass(final long id, final String name,
+			final String source, final int missed, final int covered) {
+		final DuaClassCoverage coverage = new DuaClassCoverage(name, id, null,
+				"java/lang/Object", new String[0]);
+		coverage.setSourceFileName(source);
+		final DuaMethodCoverage method = new DuaMethodCoverage(0, "doit",
+				"()V", null, false);
+		int index = 0;
+		for (int i = 0; i < missed; i++) {
+			method.addDua(new Dua(index++, 1, 2, -1, "a",
+					ICounter.NOT_COVERED));
+		}
+		for (int i = 0; i < covered; i++) {
+			method.addDua(new Dua(index++, 1, 2, -1, "b",
+					ICounter.FULLY_COVERED));
+		}
+		coverage.addMethod(method);
+		return coverage;
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Iterator;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DuaMethodCoverage}.
+ */
+public class DuaMethodCoverageTest {
+
+	@Test
+	public void testEmpty() {
+		final DuaMethodCoverage method = new DuaMethodCoverage(1, "foo", "()V",
+				null, true);
+
+		assertEquals(1, method.getId());
+		assertEquals("foo", method.getName());
+		assertEquals("()V", method.getDesc());
+		assertNull(method.getSignature());
+		assertEquals(true, method.isStaticMethod());
+		assertEquals(0, method.getDuas().size());
+		assertFalse(method.getDuas().iterator().hasNext());
+		assertEquals(CounterImpl.COUNTER_0_0, method.getDuaCounter());
+	}
+
+	@Test
+	public void testAddDua() {
+		final DuaMethodCoverage method = new DuaMethodCoverage(1, "foo", "()V",
+				null, false);
+		for (int i = 0; i < 100; i++) {
+			method.addDua(new Dua(i, i + 1, i + 2, i % 2 == 0 ? -1 : i + 3,
+					"v" + (i % 3), i % 5 == 0 ? ICounter.FULLY_COVERED
+							: ICounter.NOT_COVERED));
+		}
+
+		assertEquals(100, method.getDuas().size());
+		assertEquals(CounterImpl.getInstance(80, 20), method.getDuaCounter());
+		final Iterator<IDua> duas = method.getDuas().iterator();
+		for (int i = 0; i < 100; i++) {
+			final IDua dua = duas.next();
+			assertEquals(i, dua.getIndex());
+			assertEquals(i + 1, dua.getDef());
+			assertEquals(i + 2, dua.getUse());
+			assertEquals(i % 2 == 0 ? -1 : i + 3, dua.getTarget());
+			assertEquals("v" + (i % 3), dua.getVar());
+			assertEquals(i % 5 == 0 ? ICounter.FULLY_COVERED
+					: ICounter.NOT_COVERED, dua.getStatus());
+		}
+		assertFalse(duas.hasNext());
+	}
+
+	@Test
+	public void testColumns() {
+		final int[] index = new int[] { 0, 1 };
+		final DuaMethodCoverage method = new DuaMethodCoverage(1, "foo", "()V",
+				null, false, index, new int[] { 10, 11 },
+				new int[] { 12, 13 }, new int[] { -1, 14 }, new int[] { 1, 0 },
+				new String[] { "a", "b" }, new long[] { 2 });
+
+		assertEquals(CounterImpl.getInstance(1, 1), method.getDuaCounter());
+		method.addDua(new Dua(2, 15, 16, -1, "c", ICounter.FULLY_COVERED));
+
+		assertEquals(CounterImpl.getInstance(1, 2), method.getDuaCounter());
+		assertEquals(0, index[0]);
+		assertEquals(1, index[1]);
+		final Iterator<IDua> duas = method.getDuas().iterator();
+		final IDua first = duas.next();
+		assertEquals("b", first.getVar());
+		assertEquals(ICounter.NOT_COVERED, first.getStatus());
+		assertEquals("Dua [def=11, use=13, target=14, var=a, status=2]", duas
+				.next().toString());
+		assertEquals("c", duas.next().getVar());
+	}
+
+}
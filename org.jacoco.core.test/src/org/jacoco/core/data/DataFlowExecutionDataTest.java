@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DataFlowExecutionData}.
+ */
+public class DataFlowExecutionDataTest {
+
+	@Test
+	public void testCreateEmpty() {
+		final DataFlowExecutionData e = new DataFlowExecutionData(5, "Example",
+				2);
+		assertEquals(5, e.getId());
+		assertEquals("Example", e.getName());
+		assertEquals(2, e.getLongProbes().length);
+		assertEquals(128, e.getProbes().length);
+		assertFalse(e.hasHits());
+	}
+
+	@Test
+	public void testGetters() {
+		final long[] data = new long[0];
+		final DataFlowExecutionData e = new DataFlowExecutionData(5, "Example",
+				data);
+		assertEquals(5, e.getId());
+		assertEquals("Example", e.getName());
+		assertSame(data, e.getLongProbes());
+	}
+
+	@Test
+	public void testGetProbes() {
+		final DataFlowExecutionData e = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x2L, 0x8000000000000000L });
+		final boolean[] probes = e.getProbes();
+		for (int i = 0; i < probes.length; i++) {
+			assertEquals("Index " + i, Boolean.valueOf(i == 1 || i == 127),
+					Boolean.valueOf(probes[i]));
+		}
+	}
+
+	@Test
+	public void testHasHits() {
+		assertTrue(new DataFlowExecutionData(5, "Example", new long[] { 0x0L,
+				0x0L, 0x10L }).hasHits());
+		assertFalse(new DataFlowExecutionData(5, "Example", new long[] { 0x0L,
+				0x0L, 0x0L }).hasHits());
+	}
+
+	@Test
+	public void testReset() {
+		final DataFlowExecutionData e = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x5L, -1L });
+		e.reset();
+		assertEquals(0L, e.getLongProbes()[0]);
+		assertEquals(0L, e.getLongProbes()[1]);
+	}
+
+	@Test
+	public void testMerge() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x5L, 0x0L });
+		final DataFlowExecutionData b = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x3L, 0x8000000000000000L });
+		a.merge(b);
+
+		// b is merged into a:
+		assertEquals(0x7L, a.getLongProbes()[0]);
+		assertEquals(0x8000000000000000L, a.getLongProbes()[1]);
+
+		// b must not be modified:
+		assertEquals(0x3L, b.getLongProbes()[0]);
+		assertEquals(0x8000000000000000L, b.getLongProbes()[1]);
+	}
+
+	@Test
+	public void testMergeSubtract() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x5L, -1L });
+		final DataFlowExecutionData b = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x3L, 0x8000000000000000L });
+		a.merge(b, false);
+
+		assertEquals(0x4L, a.getLongProbes()[0]);
+		assertEquals(0x7FFFFFFFFFFFFFFFL, a.getLongProbes()[1]);
+
+		assertEquals(0x3L, b.getLongProbes()[0]);
+		assertEquals(0x8000000000000000L, b.getLongProbes()[1]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeNegative1() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x5L });
+		a.merge(new DataFlowExecutionData(5, "Example", new long[] { 0x5L,
+				0x0L }));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeNegative2() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x5L });
+		a.merge(new ControlFlowExecutionData(5, "Example", new boolean[64]));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeNegative3() {
+		final ControlFlowExecutionData a = new ControlFlowExecutionData(5,
+				"Example", new boolean[64]);
+		a.merge(new DataFlowExecutionData(5, "Example", new long[] { 0x5L }));
+	}
+
+	@Test
+	public void testAssertCompatibility() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x1L, 0x0L });
+		a.assertCompatibility(5, "Example", 2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative1() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x1L });
+		a.assertCompatibility(55, "Example", 1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative2() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x1L });
+		a.assertCompatibility(5, "Exxxample", 1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative3() {
+		final DataFlowExecutionData a = new DataFlowExecutionData(5, "Example",
+				new long[] { 0x1L });
+		a.assertCompatibility(5, "Example", 64);
+	}
+
+}
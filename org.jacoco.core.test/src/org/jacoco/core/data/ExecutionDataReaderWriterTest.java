@@ -14,6 +14,7 @@ package org.jacoco.core.data;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,6 +25,7 @@ import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Random;
 
+import org.jacoco.core.internal.data.CompactDataOutput;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -141,12 +143,81 @@ public class ExecutionDataReaderWriterTest {
 		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
 		buffer.write(0xC0);
 		buffer.write(0xC0);
-		final char version = ExecutionDataWriter.FORMAT_VERSION - 1;
+		final char version = 0x1006;
 		buffer.write(version >> 8);
 		buffer.write(version & 0xFF);
 		createReader().read();
 	}
 
+	@Test(expected = IOException.class)
+	public void testNewerHeaderVersion() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
+		buffer.write(0xC0);
+		buffer.write(0xC0);
+		final char version = ExecutionDataWriter.FORMAT_VERSION + 1;
+		buffer.write(version >> 8);
+		buffer.write(version & 0xFF);
+		createReader().read();
+	}
+
+	@Test
+	public void testReadVersion1007() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		writeHeader(out, 0x1007);
+		out.writeByte(ExecutionDataWriter.BLOCK_EXECUTIONDATA);
+		out.writeLong(3);
+		out.writeUTF("Sample");
+		out.writeBooleanArray(new boolean[] { true, false, true });
+
+		createReaderWithVisitors().read();
+
+		assertArrayEquals(new boolean[] { true, false, true }, store.get(3)
+				.getProbes());
+	}
+
+	@Test
+	public void testReadVersion1008() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		writeHeader(out, 0x1008);
+		out.writeByte(ExecutionDataWriter.BLOCK_EXECUTIONDATA);
+		out.writeLong(3);
+		out.writeUTF("Sample");
+		out.writeBooleanArray(new boolean[] { false, true });
+		out.writeByte(ExecutionDataWriter.BLOCK_DATAFLOWEXECUTIONDATA);
+		out.writeLong(4);
+		out.writeUTF("Other");
+		out.writeLongArray(new long[] { 0x5L, -1L });
+
+		createReaderWithVisitors().read();
+
+		assertArrayEquals(new boolean[] { false, true }, store.get(3)
+				.getProbes());
+		assertEquals(-1L,
+				((DataFlowExecutionData) store.get(4)).getLongProbes()[1]);
+	}
+
+	@Test
+	public void testReadConcatenatedVersions() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		writeHeader(out, 0x1007);
+		out.writeByte(ExecutionDataWriter.BLOCK_EXECUTIONDATA);
+		out.writeLong(3);
+		out.writeUTF("Sample");
+		out.writeBooleanArray(new boolean[] { true, false });
+		writer = createWriter(buffer);
+		writer.visitClassExecution(new ControlFlowExecutionData(3, "Sample",
+				new boolean[] { false, true }));
+
+		createReaderWithVisitors().read();
+
+		assertArrayEquals(new boolean[] { true, true }, store.get(3)
+				.getProbes());
+	}
+
 	@Test(expected = IOException.class)
 	public void testMissingHeader() throws IOException {
 		buffer.reset();
@@ -263,6 +334,73 @@ public class ExecutionDataReaderWriterTest {
 		assertArrayEquals(data, store.get(123).getProbes());
 	}
 
+	@Test
+	public void testSparseClass() throws IOException {
+		final boolean[] data = new boolean[1000];
+		data[17] = true;
+		data[923] = true;
+		final int size = buffer.size();
+		writer.visitClassExecution(new ControlFlowExecutionData(123, "Sample",
+				data));
+		// A bitmap would require 125 bytes:
+		assertTrue(buffer.size() - size < 30);
+		assertFalse(createReaderWithVisitors().read());
+		assertArrayEquals(data, store.get(123).getProbes());
+	}
+
+	@Test
+	public void testDeflatedFrames() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+		final boolean[] data1 = createData(50);
+		writer.visitClassExecution(new ControlFlowExecutionData(1, "Sample1",
+				data1));
+		writer.flush();
+		final long[] data2 = new long[] { 0x5L, 0x0L, 0x8000000000000000L };
+		writer.visitClassExecution(new DataFlowExecutionData(2, "Sample2",
+				data2));
+		writer.flush();
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("session", sessionInfo.getId());
+		assertArrayEquals(data1, store.get(1).getProbes());
+		assertTrue(Arrays.equals(data2,
+				((DataFlowExecutionData) store.get(2)).getLongProbes()));
+	}
+
+	@Test
+	public void testDeflatedFramesBeforeFlush() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+
+		assertArrayEquals(ExecutionDataWriter.getFileHeader(),
+				buffer.toByteArray());
+	}
+
+	@Test
+	public void testDataFlowClass() throws IOException {
+		final long[] data = new long[] { 0x5L, 0x0L, 0x8000000000000000L };
+		writer.visitClassExecution(new DataFlowExecutionData(3, "Sample", data));
+		assertFalse(createReaderWithVisitors().read());
+		final ControlFlowExecutionData actual = store.get(3);
+		assertTrue(actual instanceof DataFlowExecutionData);
+		assertTrue(Arrays.equals(data,
+				((DataFlowExecutionData) actual).getLongProbes()));
+	}
+
+	@Test
+	public void testDataFlowClassWithoutHits() throws IOException {
+		writer.visitClassExecution(new DataFlowExecutionData(3, "Sample",
+				new long[2]));
+		assertFalse(createReaderWithVisitors().read());
+		assertNull(store.get(3));
+	}
+
 	@Test(expected = RuntimeException.class)
 	public void testExecutionDataIOException() throws IOException {
 		final boolean[] broken = new boolean[1];
@@ -278,6 +416,13 @@ public class ExecutionDataReaderWriterTest {
 		writer.visitClassExecution(new ControlFlowExecutionData(3, "Sample", createData(1)));
 	}
 
+	private void writeHeader(final CompactDataOutput out, final int version)
+			throws IOException {
+		out.writeByte(ExecutionDataWriter.BLOCK_HEADER);
+		out.writeChar(ExecutionDataWriter.MAGIC_NUMBER);
+		out.writeChar(version);
+	}
+
 	private ExecutionDataReader createReaderWithVisitors() throws IOException {
 		final ExecutionDataReader reader = createReader();
 		reader.setExecutionDataVisitor(store);
@@ -302,6 +447,10 @@ public class ExecutionDataReaderWriterTest {
 		assertTrue(Arrays.equals(expected, actual));
 	}
 
+	private void assertArrayEquals(final byte[] expected, final byte[] actual) {
+		assertTrue(Arrays.equals(expected, actual));
+	}
+
 	protected ExecutionDataWriter createWriter(OutputStream out)
 			throws IOException {
 		return new ExecutionDataWriter(out);
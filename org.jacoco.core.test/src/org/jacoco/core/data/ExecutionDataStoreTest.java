@@ -190,6 +190,52 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertFalse(result[3]);
 	}
 
+	@Test
+	public void testMergeDataFlow() {
+		store.visitClassExecution(new DataFlowExecutionData(1000, "Sample",
+				new long[] { 0x5L, 0x0L }));
+		store.visitClassExecution(new DataFlowExecutionData(1000, "Sample",
+				new long[] { 0x3L, 0x1L }));
+
+		final DataFlowExecutionData result = (DataFlowExecutionData) store
+				.get(1000);
+		assertEquals(0x7L, result.getLongProbes()[0]);
+		assertEquals(0x1L, result.getLongProbes()[1]);
+	}
+
+	@Test
+	public void testSubtractDataFlowStore() {
+		store.put(new DataFlowExecutionData(1000, "Sample", new long[] { 0x5L,
+				0x3L }));
+
+		final DataFlowExecutionDataStore store2 = new DataFlowExecutionDataStore();
+		store2.put(new DataFlowExecutionData(1000, "Sample", new long[] { 0x1L,
+				0x2L }));
+
+		store.subtract(store2);
+
+		final DataFlowExecutionData result = (DataFlowExecutionData) store
+				.get(1000);
+		assertEquals(0x4L, result.getLongProbes()[0]);
+		assertEquals(0x1L, result.getLongProbes()[1]);
+	}
+
+	@Test
+	public void testGetDataFlowWithCreate() {
+		final DataFlowExecutionDataStore dataFlowStore = new DataFlowExecutionDataStore();
+		final Long id = Long.valueOf(1000);
+		final DataFlowExecutionData data = dataFlowStore.get(id, "Sample", 3);
+		assertEquals(3, data.getLongProbes().length);
+		assertSame(data, dataFlowStore.get(id, "Sample", 3));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPutControlFlowIntoDataFlowStore() {
+		final DataFlowExecutionDataStore dataFlowStore = new DataFlowExecutionDataStore();
+		dataFlowStore.visitClassExecution(new ControlFlowExecutionData(1000,
+				"Sample", new boolean[] { true }));
+	}
+
 	@Test
 	public void testReset() throws InstantiationException,
 			IllegalAccessException {
@@ -203,6 +249,34 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertFalse(data2[2]);
 	}
 
+	@Test
+	public void testAcceptHits() {
+		store.put(new ControlFlowExecutionData(1000, "Sample1", new boolean[] {
+				false, true }));
+		store.put(new ControlFlowExecutionData(1001, "Sample2",
+				new boolean[] { false }));
+		store.acceptHits(this, false);
+
+		assertEquals(Collections.singleton(Long.valueOf(1000)),
+				dataOutput.keySet());
+		assertTrue(store.get(1000).getProbes()[1]);
+	}
+
+	@Test
+	public void testAcceptHitsWithReset() {
+		final boolean[] data1 = new boolean[] { false, true };
+		store.put(new ControlFlowExecutionData(1000, "Sample1", data1));
+		store.put(new DataFlowExecutionData(1001, "Sample2",
+				new long[] { 0, 0x10 }));
+		store.put(new ControlFlowExecutionData(1002, "Sample3",
+				new boolean[] { false }));
+		store.acceptHits(this, true);
+
+		assertEquals(2, dataOutput.size());
+		assertFalse(data1[1]);
+		assertFalse(store.get(1001).hasHits());
+	}
+
 	// === IExecutionDataOutput ===
 
 	public void visitClassExecution(final ControlFlowExecutionData data) {
@@ -12,6 +12,7 @@
 package org.jacoco.core.instr;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
@@ -23,6 +24,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
@@ -33,12 +36,19 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.runtime.ControlFlowRuntimeData;
 import org.jacoco.core.runtime.SystemPropertiesRuntime;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 /**
  * Unit tests for {@link Instrumenter}.
@@ -67,13 +77,16 @@ public class InstrumenterTest {
 
 	private SystemPropertiesRuntime runtime;
 
-	private Instrumenter instrumenter;
+	private ControlFlowRuntimeData data;
+
+	protected Instrumenter instrumenter;
 
 	@Before
 	public void setup() throws Exception {
 		runtime = new SystemPropertiesRuntime();
 		instrumenter = new Instrumenter(runtime);
-		runtime.startup(new ControlFlowRuntimeData());
+		data = new ControlFlowRuntimeData();
+		runtime.startup(data);
 	}
 
 	@After
@@ -91,6 +104,75 @@ public class InstrumenterTest {
 		assertEquals("org.jacoco.core.instr.InstrumenterTest", clazz.getName());
 	}
 
+	@Test
+	public void testInstrumentClassWithId() throws Exception {
+		byte[] bytes = instrumenter.instrument(
+				TargetLoader.getClassDataAsBytes(SerializationTarget.class),
+				0x1234L, "Test");
+		TargetLoader loader = new TargetLoader();
+		loader.add(SerializationTarget.class, bytes)
+				.getConstructor(String.class, Integer.TYPE)
+				.newInstance("Hello", Integer.valueOf(42));
+
+		final ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		data.collect(store, new SessionInfoStore(), false);
+		assertNotNull(store.get(0x1234L));
+	}
+
+	@Test
+	public void testInstrumentSaturated() throws Exception {
+		final byte[] original = TargetLoader
+				.getClassDataAsBytes(SerializationTarget.class);
+		final byte[] instrumented = instrumenter.instrument(original, "Test");
+		final byte[] saturated = instrumenter.instrumentSaturated(original,
+				"Test");
+		assertEquals(getMembers(instrumented), getMembers(saturated));
+
+		TargetLoader loader = new TargetLoader();
+		Object obj = loader.add(SerializationTarget.class, saturated)
+				.getConstructor(String.class, Integer.TYPE)
+				.newInstance("Hello", Integer.valueOf(42));
+		assertEquals("Hello42", obj.toString());
+
+		final ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		data.collect(store, new SessionInfoStore(), false);
+		assertEquals(0, store.getContents().size());
+	}
+
+	@Test
+	public void testInstrumentSaturatedBrokenClass() throws IOException {
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		try {
+			instrumenter.instrumentSaturated(brokenclass, "Broken");
+			fail();
+		} catch (IOException e) {
+			assertEquals("Error while instrumenting class Broken.",
+					e.getMessage());
+		}
+	}
+
+	private static List<String> getMembers(final byte[] definition) {
+		final List<String> members = new ArrayList<String>();
+		new ClassReader(definition).accept(new ClassVisitor(Opcodes.ASM5) {
+			@Override
+			public FieldVisitor visitField(int access, String name,
+					String desc, String signature, Object value) {
+				members.add(access + " " + name + desc);
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				members.add(access + " " + name + desc);
+				return null;
+			}
+		}, 0);
+		return members;
+	}
+
 	@Test
 	public void testInstrumentBrokenClass1() throws IOException {
 		final byte[] brokenclass = TargetLoader
@@ -169,6 +251,30 @@ public class InstrumenterTest {
 		assertNull(zipin.getNextEntry());
 	}
 
+	@Test
+	public void testInstrumentAll_ZipEntryTime() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ZipOutputStream zipout = new ZipOutputStream(buffer);
+		ZipEntry entry = new ZipEntry("Test.class");
+		entry.setTime(1000000000000L);
+		zipout.putNextEntry(entry);
+		zipout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		entry = new ZipEntry("readme.txt");
+		entry.setTime(1200000000000L);
+		zipout.putNextEntry(entry);
+		zipout.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		instrumenter.instrumentAll(
+				new ByteArrayInputStream(buffer.toByteArray()), out, "Test");
+
+		ZipInputStream zipin = new ZipInputStream(new ByteArrayInputStream(
+				out.toByteArray()));
+		assertEquals(1000000000000L, zipin.getNextEntry().getTime());
+		assertEquals(1200000000000L, zipin.getNextEntry().getTime());
+		assertNull(zipin.getNextEntry());
+	}
+
 	@Test
 	public void testInstrumentAll_BrokenClassFileInZip() throws IOException {
 		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.instr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Runs the {@link InstrumenterTest} with an executor for parallel
+ * instrumentation.
+ */
+public class ParallelInstrumenterTest extends InstrumenterTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setupExecutor() {
+		executor = Executors.newFixedThreadPool(4);
+		instrumenter.setExecutor(executor);
+	}
+
+	@After
+	public void teardownExecutor() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testOutputIsDeterministic() throws IOException {
+		final Class<?>[] targets = new Class<?>[] { InstrumenterTest.class,
+				ParallelInstrumenterTest.class, Instrumenter.class,
+				AnalyzerTest.class };
+		final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+		final ZipOutputStream nestedZip = new ZipOutputStream(nested);
+		nestedZip.putNextEntry(new ZipEntry("Nested.class"));
+		nestedZip.write(TargetLoader.getClassDataAsBytes(Instrumenter.class));
+		nestedZip.finish();
+
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (int i = 0; i < 500; i++) {
+			final ZipEntry entry;
+			if (i % 100 == 50) {
+				entry = new ZipEntry("lib" + i + ".jar");
+				entry.setTime(1000000000000L);
+				zip.putNextEntry(entry);
+				zip.write(nested.toByteArray());
+			} else if (i % 100 == 75) {
+				entry = new ZipEntry("resource" + i + ".txt");
+				entry.setTime(1000000000000L);
+				zip.putNextEntry(entry);
+				zip.write(("resource" + i).getBytes());
+			} else {
+				entry = new ZipEntry("Target" + i + ".class");
+				entry.setTime(1000000000000L);
+				zip.putNextEntry(entry);
+				zip.write(TargetLoader
+						.getClassDataAsBytes(targets[i % targets.length]));
+			}
+		}
+		zip.finish();
+
+		instrumenter.setExecutor(null);
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final int expectedCount = instrumenter.instrumentAll(
+				new ByteArrayInputStream(buffer.toByteArray()), expected,
+				"Test");
+
+		instrumenter.setExecutor(executor);
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final int actualCount = instrumenter.instrumentAll(
+				new ByteArrayInputStream(buffer.toByteArray()), actual, "Test");
+
+		assertEquals(495, actualCount);
+		assertEquals(expectedCount, actualCount);
+		final ZipInputStream expectedZip = new ZipInputStream(
+				new ByteArrayInputStream(expected.toByteArray()));
+		final ZipInputStream actualZip = new ZipInputStream(
+				new ByteArrayInputStream(actual.toByteArray()));
+		ZipEntry entry;
+		while ((entry = expectedZip.getNextEntry()) != null) {
+			final ZipEntry actualEntry = actualZip.getNextEntry();
+			assertEquals(entry.getName(), actualEntry.getName());
+			assertEquals(entry.getTime(), actualEntry.getTime());
+			final byte[] expectedContent = toByteArray(expectedZip);
+			final byte[] actualContent = toByteArray(actualZip);
+			if (entry.getName().endsWith(".class")) {
+				assertEquals(new ClassReader(expectedContent).getClassName(),
+						new ClassReader(actualContent).getClassName());
+			} else {
+				assertArrayEquals(expectedContent, actualContent);
+			}
+		}
+		assertNull(actualZip.getNextEntry());
+	}
+
+	private static byte[] toByteArray(InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		return out.toByteArray();
+	}
+
+}
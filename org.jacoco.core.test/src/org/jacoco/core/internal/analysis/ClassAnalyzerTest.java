@@ -34,7 +34,7 @@ public class ClassAnalyzerTest {
 
 	@Before
 	public void setup() {
-		analyzer = new ClassAnalyzer(0x0000, false, null, new StringPool());
+		analyzer = new ClassAnalyzer(0x0000);
 		analyzer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "Foo", null,
 				"java/lang/Object", null);
 	}
@@ -58,8 +58,8 @@ public class ClassAnalyzerTest {
 		final MethodProbesVisitor mv = analyzer.visitMethod(0, "foo", "()V",
 				null, null);
 		mv.visitEnd();
-		Collection<IMethodCoverage> methods = analyzer.getCoverage()
-				.getMethods();
+		Collection<IMethodCoverage> methods = analyzer.getStructure()
+				.createCoverage(false, null, new StringPool()).getMethods();
 		assertEquals(0, methods.size());
 	}
 
@@ -70,8 +70,8 @@ public class ClassAnalyzerTest {
 		mv.visitCode();
 		mv.visitInsn(Opcodes.RETURN);
 		mv.visitEnd();
-		Collection<IMethodCoverage> methods = analyzer.getCoverage()
-				.getMethods();
+		Collection<IMethodCoverage> methods = analyzer.getStructure()
+				.createCoverage(false, null, new StringPool()).getMethods();
 		assertEquals(1, methods.size());
 	}
 
@@ -80,8 +80,8 @@ public class ClassAnalyzerTest {
 		final MethodProbesVisitor mv = analyzer.visitMethod(
 				Opcodes.ACC_SYNTHETIC, "foo", "()V", null, null);
 		assertNull(mv);
-		Collection<IMethodCoverage> methods = analyzer.getCoverage()
-				.getMethods();
+		Collection<IMethodCoverage> methods = analyzer.getStructure()
+				.createCoverage(false, null, new StringPool()).getMethods();
 		assertTrue(methods.isEmpty());
 	}
 
@@ -92,8 +92,8 @@ public class ClassAnalyzerTest {
 		mv.visitCode();
 		mv.visitInsn(Opcodes.RETURN);
 		mv.visitEnd();
-		Collection<IMethodCoverage> methods = analyzer.getCoverage()
-				.getMethods();
+		Collection<IMethodCoverage> methods = analyzer.getStructure()
+				.createCoverage(false, null, new StringPool()).getMethods();
 		assertEquals(1, methods.size());
 	}
 
@@ -556,12 +556,12 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 
 	private void runMethodAnalzer() {
 		LabelFlowAnalyzer.markLabels(method);
-		final MethodAnalyzer analyzer = new MethodAnalyzer("doit", "()V", null,
-				probes);
+		final MethodAnalyzer analyzer = new MethodAnalyzer("doit", "()V", null);
 		final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(
 				analyzer, this);
 		method.accept(probesAdapter);
-		result = analyzer.getCoverage();
+		result = analyzer.getStructure().createCoverage(probes,
+				new StringPool());
 	}
 
 	private void assertLine(int nr, int insnMissed, int insnCovered,
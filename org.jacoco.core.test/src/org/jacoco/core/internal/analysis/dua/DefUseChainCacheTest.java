@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.dua.DuaClassCoverage;
+import org.jacoco.core.analysis.dua.IDua;
+import org.jacoco.core.analysis.dua.IDuaMethodCoverage;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link DefUseChainCache}.
+ */
+public class DefUseChainCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File directory;
+
+	private DefUseChainCache cache;
+
+	private DuaClassStructure structure;
+
+	@Before
+	public void setup() {
+		directory = new File(folder.getRoot(), "cache");
+		cache = new DefUseChainCache(directory);
+		final DuaMethodStructure method = new DuaMethodStructure(0, "foo",
+				"(I)V", null, true, 64, 2, new int[] { 0, 3 }, new int[] { 10,
+						11 }, new int[] { 12, 13 }, new int[] { -1, 14 },
+				new int[] { 0, 1 }, new String[] { "a", "b" }, new int[] { 0,
+						1 });
+		structure = new DuaClassStructure(42, "Foo", null, "java/lang/Object",
+				new String[] { "java/lang/Runnable" },
+				new DuaMethodStructure[] { method });
+	}
+
+	@Test
+	public void testCreateDirectory() {
+		assertEquals(true, directory.isDirectory());
+	}
+
+	@Test
+	public void testMiss() {
+		assertNull(cache.get(0x1234));
+	}
+
+	@Test
+	public void testPutGet() {
+		cache.put(0x1234, structure);
+
+		final DuaClassCoverage coverage = cache.get(0x1234).createCoverage(
+				new boolean[128], new StringPool());
+
+		assertEquals("Foo", coverage.getName());
+		assertEquals(42, coverage.getId());
+		assertNull(coverage.getSignature());
+		assertEquals("java/lang/Object", coverage.getSuperName());
+		assertArrayEquals(new String[] { "java/lang/Runnable" },
+				coverage.getInterfaceNames());
+		assertEquals(1, directory.list().length);
+	}
+
+	@Test
+	public void testPutReplaces() {
+		cache.put(0x1234, structure);
+		cache.put(0x1234, new DuaClassStructure(43, "Bar", null, null,
+				new String[0], new DuaMethodStructure[0]));
+
+		assertEquals("Bar",
+				cache.get(0x1234).createCoverage(new boolean[0],
+						new StringPool()).getName());
+		assertEquals(1, directory.list().length);
+	}
+
+	@Test
+	public void testCreateCoverage() {
+		final boolean[] probes = new boolean[128];
+		probes[65] = true;
+
+		final DuaClassCoverage coverage = structure.createCoverage(probes,
+				new StringPool());
+
+		final IDuaMethodCoverage method = coverage.getMethods().iterator()
+				.next();
+		assertEquals("foo", method.getName());
+		assertEquals("(I)V", method.getDesc());
+		final Iterator<IDua> duas = method.getDuas().iterator();
+		final IDua first = duas.next();
+		assertEquals(0, first.getIndex());
+		assertEquals(10, first.getDef());
+		assertEquals(12, first.getUse());
+		assertEquals(-1, first.getTarget());
+		assertEquals("a", first.getVar());
+		assertEquals(ICounter.NOT_COVERED, first.getStatus());
+		final IDua second = duas.next();
+		assertEquals(3, second.getIndex());
+		assertEquals(14, second.getTarget());
+		assertEquals(ICounter.FULLY_COVERED, second.getStatus());
+	}
+
+	@Test
+	public void testCorruptEntry() throws IOException {
+		cache.put(0x1234, structure);
+		final FileOutputStream out = new FileOutputStream(new File(directory,
+				directory.list()[0]));
+		out.write(new byte[] { (byte) 0xC0, (byte) 0xDA, 0x10 });
+		out.close();
+
+		assertNull(cache.get(0x1234));
+	}
+
+	@Test
+	public void testWrongId() {
+		cache.put(0x1234, structure);
+		new File(directory, "0000000000001234.dua").renameTo(new File(
+				directory, "0000000000005678.dua"));
+
+		assertNull(cache.get(0x5678));
+	}
+
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.dua.DuaClassCoverage;
+import org.jacoco.core.analysis.dua.IDua;
+import org.jacoco.core.analysis.dua.IDuaMethodCoverage;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DuaClassStructure}.
+ */
+public class DuaClassStructureTest {
+
+	private DuaClassStructure structure;
+
+	private boolean[] probes;
+
+	@Before
+	public void setup() {
+		final DuaMethodStructure foo = new DuaMethodStructure(0, "foo",
+				"()V", null, false, 0, 3, new int[] { 0, 1, 2 }, new int[] {
+						1, 2, 3 }, new int[] { 4, 5, 6 }, new int[] { -1, -1,
+						-1 }, new int[] { 0, 1, 0 }, new String[] { "a", "b" },
+				new int[] { 0, 1, 2 });
+		final DuaMethodStructure bar = new DuaMethodStructure(1, "bar",
+				"()V", null, true, 64, 1, new int[] { 0 }, new int[] { 7 },
+				new int[] { 8 }, new int[] { 9 }, new int[] { 0 },
+				new String[] { "d" }, new int[] { 0 });
+		structure = new DuaClassStructure(1, "Foo", null, "java/lang/Object",
+				new String[0], new DuaMethodStructure[] { foo, bar });
+		probes = new boolean[128];
+		probes[1] = true;
+		probes[64] = true;
+	}
+
+	@Test
+	public void testCounters() {
+		final DuaClassCoverage coverage = structure.createCoverage(probes,
+				new StringPool());
+
+		assertEquals(CounterImpl.getInstance(2, 2), coverage.getDuaCounter());
+		final Iterator<IDuaMethodCoverage> methods = coverage.getMethods()
+				.iterator();
+		final IDuaMethodCoverage foo = methods.next();
+		assertEquals("foo", foo.getName());
+		assertEquals(0, foo.getId());
+		assertFalse(foo.isStaticMethod());
+		assertEquals(CounterImpl.getInstance(2, 1), foo.getDuaCounter());
+		assertEquals(CounterImpl.getInstance(0, 1), methods.next()
+				.getDuaCounter());
+	}
+
+	@Test
+	public void testDuas() {
+		final IDuaMethodCoverage foo = structure
+				.createCoverage(probes, new StringPool()).getMethods()
+				.iterator().next();
+
+		assertEquals(3, foo.getDuas().size());
+		final Iterator<IDua> duas = foo.getDuas().iterator();
+		final IDua a = duas.next();
+		assertEquals("a", a.getVar());
+		assertEquals(1, a.getDef());
+		assertEquals(4, a.getUse());
+		assertEquals(ICounter.NOT_COVERED, a.getStatus());
+		final IDua b = duas.next();
+		assertEquals("b", b.getVar());
+		assertEquals(ICounter.FULLY_COVERED, b.getStatus());
+		final IDua c = duas.next();
+		assertEquals("a", c.getVar());
+		assertEquals(ICounter.NOT_COVERED, c.getStatus());
+		assertFalse(duas.hasNext());
+	}
+
+	@Test
+	public void testStatusIsSnapshot() {
+		final IDuaMethodCoverage foo = structure
+				.createCoverage(probes, new StringPool()).getMethods()
+				.iterator().next();
+		probes[0] = true;
+
+		assertEquals(ICounter.NOT_COVERED, foo.getDuas().iterator().next()
+				.getStatus());
+	}
+
+	@Test
+	public void testVariableNamesArePooled() {
+		final StringPool pool = new StringPool();
+		final String name = new String("a");
+		pool.get(name);
+
+		final IDuaMethodCoverage foo = structure.createCoverage(probes, pool)
+				.getMethods().iterator().next();
+
+		assertSame(name, foo.getDuas().iterator().next().getVar());
+	}
+
+}
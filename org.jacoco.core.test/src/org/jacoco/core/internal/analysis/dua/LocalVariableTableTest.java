@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LocalVariableTable}.
+ */
+public class LocalVariableTableTest {
+
+	private MethodNode method;
+
+	private LabelNode l0, l1, l2;
+
+	@Before
+	public void setup() {
+		method = new MethodNode(0, "test", "()V", null, null);
+		l0 = new LabelNode();
+		l1 = new LabelNode();
+		l2 = new LabelNode();
+		method.instructions.add(l0);
+		method.instructions.add(new InsnNode(Opcodes.NOP));
+		method.instructions.add(l1);
+		method.instructions.add(new InsnNode(Opcodes.NOP));
+		method.instructions.add(l2);
+	}
+
+	@Test
+	public void testNoLocalVariables() {
+		method.localVariables = null;
+		final LocalVariableTable table = new LocalVariableTable(method);
+		assertNull(table.getName(0, 1));
+	}
+
+	@Test
+	public void testGetName() {
+		addLocal("a", 1, l0, l1);
+		addLocal("b", 1, l1, l2);
+		addLocal("c", 3, l0, l2);
+		final LocalVariableTable table = new LocalVariableTable(method);
+
+		assertEquals("a", table.getName(1, 0));
+		assertEquals("a", table.getName(1, 1));
+		assertEquals("b", table.getName(1, 2));
+		assertEquals("b", table.getName(1, 3));
+		assertNull(table.getName(1, 4));
+		assertEquals("c", table.getName(3, 3));
+		assertNull(table.getName(2, 1));
+		assertNull(table.getName(4, 1));
+		assertNull(table.getName(-1, 1));
+	}
+
+	@Test
+	public void testFirstDeclarationWins() {
+		addLocal("a", 0, l0, l2);
+		addLocal("b", 0, l0, l2);
+		final LocalVariableTable table = new LocalVariableTable(method);
+
+		assertEquals("a", table.getName(0, 1));
+	}
+
+	private void addLocal(String name, int index, LabelNode start,
+			LabelNode end) {
+		method.localVariables.add(new LocalVariableNode(name, "I", null,
+				start, end, index));
+	}
+
+}
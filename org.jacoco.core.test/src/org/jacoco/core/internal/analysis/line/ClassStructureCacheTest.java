@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.line;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jacoco.core.analysis.ControlFlowAnalyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Unit tests for {@link ClassStructureCache} and {@link ClassStructure}.
+ */
+public class ClassStructureCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File directory;
+
+	private ClassStructureCache cache;
+
+	private byte[] bytes;
+
+	private long classid;
+
+	private ClassStructure structure;
+
+	private boolean[] probes;
+
+	@Before
+	public void setup() throws IOException {
+		directory = new File(folder.getRoot(), "cache");
+		cache = new ClassStructureCache(directory);
+		bytes = TargetLoader.getClassDataAsBytes(ClassStructureCacheTest.class);
+		classid = CRC64.checksum(bytes);
+		final ClassAnalyzer analyzer = new ClassAnalyzer(classid);
+		new ClassReader(bytes).accept(new ClassProbesAdapter(analyzer, false),
+				0);
+		structure = analyzer.getStructure();
+		probes = new boolean[256];
+		for (int i = 0; i < probes.length; i += 3) {
+			probes[i] = true;
+		}
+	}
+
+	@Test
+	public void testMiss() {
+		assertNull(cache.get(classid));
+	}
+
+	@Test
+	public void testPutAndGet() {
+		cache.put(classid, structure);
+
+		assertTrue(new File(directory, String.format("%016x.cfs",
+				Long.valueOf(classid))).isFile());
+		final ClassStructure cached = cache.get(classid);
+		assertCoverage(structure.createCoverage(false, probes,
+				new StringPool()), cached.createCoverage(false, probes,
+				new StringPool()));
+		assertCoverage(
+				structure.createCoverage(true, null, new StringPool()),
+				cached.createCoverage(true, null, new StringPool()));
+	}
+
+	@Test
+	public void testReplayMatchesAnalysis() throws IOException {
+		final ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		store.put(new ControlFlowExecutionData(classid,
+				"org/jacoco/core/internal/analysis/line/ClassStructureCacheTest",
+				probes.clone()));
+		final List<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		final ICoverageVisitor visitor = new ICoverageVisitor() {
+			public void visitCoverage(final IClassCoverage coverage) {
+				result.add(coverage);
+			}
+		};
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(store,
+				visitor, directory);
+
+		analyzer.analyzeClass(bytes, "Test");
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(2, result.size());
+		assertCoverage(result.get(0), result.get(1));
+		assertCoverage(structure.createCoverage(false, probes,
+				new StringPool()), result.get(1));
+	}
+
+	private void assertCoverage(final IClassCoverage expected,
+			final IClassCoverage actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.isNoMatch(), actual.isNoMatch());
+		assertEquals(expected.getSuperName(), actual.getSuperName());
+		assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+		assertEquals(expected.getInstructionCounter(),
+				actual.getInstructionCounter());
+		assertEquals(expected.getBranchCounter(), actual.getBranchCounter());
+		assertEquals(expected.getLineCounter(), actual.getLineCounter());
+		assertEquals(expected.getComplexityCounter(),
+				actual.getComplexityCounter());
+		final Collection<IMethodCoverage> expectedMethods = expected
+				.getMethods();
+		assertEquals(expectedMethods.size(), actual.getMethods().size());
+		final Iterator<IMethodCoverage> actualMethods = actual.getMethods()
+				.iterator();
+		for (final IMethodCoverage m : expectedMethods) {
+			final IMethodCoverage a = actualMethods.next();
+			assertEquals(m.getName(), a.getName());
+			assertEquals(m.getDesc(), a.getDesc());
+			assertEquals(m.getFirstLine(), a.getFirstLine());
+			assertEquals(m.getLastLine(), a.getLastLine());
+			for (int line = m.getFirstLine(); line <= m.getLastLine(); line++) {
+				assertEquals(m.getLine(line).getInstructionCounter(), a
+						.getLine(line).getInstructionCounter());
+				assertEquals(m.getLine(line).getBranchCounter(), a
+						.getLine(line).getBranchCounter());
+			}
+		}
+	}
+
+}
@@ -11,8 +11,13 @@
  *******************************************************************************/
 package org.jacoco.core.internal.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
@@ -23,6 +28,7 @@ import org.junit.Test;
 /**
  * Unit tests for {@link CompactDataInput} and {@link CompactDataOutput}. The
  * tests don't care about the written binary format, they just verify symmetry.
+ * Only the choice of the probe encoding is checked.
  */
 public class CompactDataInputOutputTest {
 
@@ -37,6 +43,17 @@ public class CompactDataInputOutputTest {
 		in = new CompactDataInput(new PipedInputStream(pipe));
 	}
 
+	@Test
+	public void testOptionalUTF() throws IOException {
+		out.writeOptionalUTF("jacoco");
+		out.writeOptionalUTF(null);
+		out.writeOptionalUTF("");
+		out.close();
+		assertEquals("jacoco", in.readOptionalUTF());
+		assertNull(in.readOptionalUTF());
+		assertEquals("", in.readOptionalUTF());
+	}
+
 	@Test
 	public void testVarInt0x00000000() throws IOException {
 		testVarInt(0x00000000);
@@ -115,4 +132,166 @@ public class CompactDataInputOutputTest {
 		}
 	}
 
+	@Test
+	public void testLongArrayEmpty() throws IOException {
+		testLongArray();
+	}
+
+	@Test
+	public void testLongArray3() throws IOException {
+		testLongArray(0L, -1L, 0x8000000000000001L);
+	}
+
+	private void testLongArray(long... values) throws IOException {
+		out.writeLongArray(values);
+		out.close();
+		final long[] actual = in.readLongArray();
+		assertEquals(values.length, actual.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Index " + i, values[i], actual[i]);
+		}
+		assertEquals(Integer.valueOf(-1), Integer.valueOf(in.read()));
+	}
+
+	@Test
+	public void testProbeArrayEmpty() throws IOException {
+		testProbeArray(new boolean[0], CompactDataOutput.PROBES_BITMAP);
+	}
+
+	@Test
+	public void testProbeArrayDense() throws IOException {
+		final boolean[] values = new boolean[100];
+		for (int i = 0; i < values.length; i += 2) {
+			values[i] = true;
+		}
+		testProbeArray(values, CompactDataOutput.PROBES_BITMAP);
+	}
+
+	@Test
+	public void testProbeArraySparse() throws IOException {
+		final boolean[] values = new boolean[1000];
+		values[0] = true;
+		values[500] = true;
+		values[501] = true;
+		values[999] = true;
+		testProbeArray(values, CompactDataOutput.PROBES_DELTA);
+	}
+
+	@Test
+	public void testProbeArrayRuns() throws IOException {
+		final boolean[] values = new boolean[1000];
+		for (int i = 100; i < 900; i++) {
+			values[i] = true;
+		}
+		testProbeArray(values, CompactDataOutput.PROBES_RUNLENGTH);
+	}
+
+	@Test
+	public void testProbeArrayRunToEnd() throws IOException {
+		final boolean[] values = new boolean[1000];
+		for (int i = 500; i < 1000; i++) {
+			values[i] = true;
+		}
+		testProbeArray(values, CompactDataOutput.PROBES_RUNLENGTH);
+	}
+
+	private void testProbeArray(boolean[] values, int encoding)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		out.writeProbeArray(values);
+		out.writeByte(0x42);
+		final byte[] bytes = buffer.toByteArray();
+		assertEquals(encoding, bytes[varIntSize(values.length)]);
+
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(bytes));
+		final boolean[] actual = in.readProbeArray();
+		assertEquals(values.length, actual.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Index " + i, Boolean.valueOf(values[i]),
+					Boolean.valueOf(actual[i]));
+		}
+		assertEquals(0x42, in.readByte());
+	}
+
+	@Test
+	public void testProbeWordsEmpty() throws IOException {
+		testProbeWords(new long[0], CompactDataOutput.PROBES_BITMAP);
+	}
+
+	@Test
+	public void testProbeWordsDense() throws IOException {
+		testProbeWords(new long[] { 0x5555555555555555L, -1L, 0x1234L },
+				CompactDataOutput.PROBES_BITMAP);
+	}
+
+	@Test
+	public void testProbeWordsSparse() throws IOException {
+		testProbeWords(new long[] { 1L, 0, 0, 0x8000000000000000L },
+				CompactDataOutput.PROBES_DELTA);
+	}
+
+	@Test
+	public void testProbeWordsRuns() throws IOException {
+		testProbeWords(new long[] { 0xFFFFFFFF00000000L, -1L, -1L, 0 },
+				CompactDataOutput.PROBES_RUNLENGTH);
+	}
+
+	private void testProbeWords(long[] values, int encoding)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		out.writeProbeWords(values);
+		out.writeByte(0x42);
+		final byte[] bytes = buffer.toByteArray();
+		assertEquals(encoding, bytes[varIntSize(values.length)]);
+
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(bytes));
+		assertArrayEquals(values, in.readProbeWords());
+		assertEquals(0x42, in.readByte());
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownProbeEncoding() throws IOException {
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(new byte[] { 1, 7 }));
+		in.readProbeArray();
+	}
+
+	@Test
+	public void testDeflatedFrame() throws IOException {
+		final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		final CompactDataOutput frameOut = new CompactDataOutput(frame);
+		for (int i = 0; i < 1000; i++) {
+			frameOut.writeVarInt(i % 10);
+		}
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(buffer);
+		out.writeDeflatedFrame(frame.toByteArray());
+		out.writeByte(0x42);
+		assertTrue(buffer.size() < frame.size());
+
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(buffer.toByteArray()));
+		in.readDeflatedFrame();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 10, in.readVarInt());
+		}
+		assertEquals(0x42, in.readByte());
+		assertEquals(-1, in.read());
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptDeflatedFrame() throws IOException {
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(new byte[] { 10, 3, 1, 2, 3 }));
+		in.readDeflatedFrame();
+	}
+
+	private static int varIntSize(int value) {
+		return value < 0x80 ? 1 : 2;
+	}
+
 }
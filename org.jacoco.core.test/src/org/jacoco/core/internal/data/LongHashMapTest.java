@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LongHashMap}.
+ */
+public class LongHashMapTest {
+
+	private LongHashMap<String> map;
+
+	@Before
+	public void setup() {
+		map = new LongHashMap<String>();
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, map.size());
+		assertNull(map.get(42));
+		assertFalse(map.values().iterator().hasNext());
+	}
+
+	@Test
+	public void testPutIfAbsent() {
+		assertNull(map.putIfAbsent(42, "a"));
+		assertEquals("a", map.putIfAbsent(42, "b"));
+		assertEquals("a", map.get(42));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testExtremeKeys() {
+		map.putIfAbsent(0, "zero");
+		map.putIfAbsent(-1, "minus one");
+		map.putIfAbsent(Long.MIN_VALUE, "min");
+		map.putIfAbsent(Long.MAX_VALUE, "max");
+		assertEquals("zero", map.get(0));
+		assertEquals("minus one", map.get(-1));
+		assertEquals("min", map.get(Long.MIN_VALUE));
+		assertEquals("max", map.get(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testGrow() {
+		for (long i = 0; i < 10000; i++) {
+			map.putIfAbsent(i << 32, String.valueOf(i));
+		}
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(String.valueOf(i), map.get(i << 32));
+		}
+		assertNull(map.get(10000L << 32));
+	}
+
+	@Test
+	public void testValues() {
+		final Set<String> expected = new HashSet<String>();
+		for (long i = 0; i < 100; i++) {
+			map.putIfAbsent(i * 31, String.valueOf(i));
+			expected.add(String.valueOf(i));
+		}
+		assertEquals(100, map.values().size());
+		assertEquals(expected, new HashSet<String>(map.values()));
+	}
+
+	@Test
+	public void testValuesIsView() {
+		final Iterable<String> values = map.values();
+		map.putIfAbsent(1, "a");
+		final Iterator<String> it = values.iterator();
+		assertSame("a", it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testIteratorNoNext() {
+		map.values().iterator().next();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testIteratorRemove() {
+		map.putIfAbsent(1, "a");
+		final Iterator<String> it = map.values().iterator();
+		it.next();
+		it.remove();
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link MethodScanner}.
+ */
+public class MethodScannerTest {
+
+	private MethodScanner scanner;
+
+	@Before
+	public void setup() {
+		scanner = new MethodScanner();
+	}
+
+	@Test
+	public void testInitial() {
+		assertFalse(scanner.hasCode());
+		assertFalse(scanner.hasMethods());
+	}
+
+	@Test
+	public void testVisitClinitMethod() {
+		assertNull(scanner.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V",
+				null, null));
+		assertTrue(scanner.hasCode());
+		assertFalse(scanner.hasMethods());
+	}
+
+	@Test
+	public void testVisitMethod() {
+		assertNull(scanner.visitMethod(0, "foo", "()V", null, null));
+		assertTrue(scanner.hasCode());
+		assertTrue(scanner.hasMethods());
+	}
+
+	@Test
+	public void testVisitAbstractMethod() {
+		scanner.visitMethod(Opcodes.ACC_ABSTRACT, "foo", "()V", null, null);
+		assertFalse(scanner.hasCode());
+		assertTrue(scanner.hasMethods());
+	}
+
+	@Test
+	public void testVisitNativeMethod() {
+		scanner.visitMethod(Opcodes.ACC_NATIVE, "foo", "()V", null, null);
+		assertFalse(scanner.hasCode());
+		assertTrue(scanner.hasMethods());
+	}
+
+	@Test
+	public void testScan() {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_INTERFACE, "Foo",
+				"java/lang/Object", null, null);
+		writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "foo",
+				"()V", null, null).visitEnd();
+		final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC,
+				"<clinit>", "()V", null, null);
+		mv.visitCode();
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		assertSame(scanner,
+				scanner.scan(new ClassReader(writer.toByteArray())));
+		assertTrue(scanner.hasCode());
+		assertTrue(scanner.hasMethods());
+	}
+
+}
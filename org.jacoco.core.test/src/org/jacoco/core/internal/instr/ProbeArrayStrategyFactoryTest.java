@@ -139,6 +139,24 @@ public class ProbeArrayStrategyFactoryTest {
 		assertNoInitMethod();
 	}
 
+	@Test
+	public void testAbstractInterface8() {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_INTERFACE, "Foo",
+				"java/lang/Object", null, null);
+		writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "doit",
+				"()V", null, null).visitEnd();
+		writer.visitEnd();
+
+		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
+				.createFor(123, new ClassReader(writer.toByteArray()),
+						generator);
+
+		strategy.addMembers(cv, 0);
+		assertNoDataField();
+		assertNoInitMethod();
+	}
+
 	private IProbeArrayStrategy test(int version, int access, boolean clinit,
 			boolean method) {
 		ClassWriter writer = new ClassWriter(0);
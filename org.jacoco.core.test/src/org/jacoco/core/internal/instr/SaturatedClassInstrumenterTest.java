@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link SaturatedClassInstrumenter}.
+ */
+public class SaturatedClassInstrumenterTest implements IProbeArrayStrategy {
+
+	private SaturatedClassInstrumenter instrumenter;
+
+	private List<String> instructions;
+
+	private int probeCount;
+
+	@Before
+	public void setup() {
+		instructions = new ArrayList<String>();
+		probeCount = -1;
+		instrumenter = new SaturatedClassInstrumenter(this, new ClassVisitor(
+				JaCoCo.ASM_API_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				return new MethodVisitor(JaCoCo.ASM_API_VERSION) {
+					@Override
+					public void visitInsn(int opcode) {
+						instructions.add("insn " + opcode);
+					}
+
+					@Override
+					public void visitJumpInsn(int opcode, Label label) {
+						instructions.add("jump " + opcode);
+					}
+
+					@Override
+					public void visitTableSwitchInsn(int min, int max,
+							Label dflt, Label... labels) {
+						instructions.add("tableswitch");
+					}
+
+					@Override
+					public void visitLookupSwitchInsn(Label dflt, int[] keys,
+							Label[] labels) {
+						instructions.add("lookupswitch");
+					}
+				};
+			}
+		});
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInstrumentInstrumentedClass1() {
+		instrumenter.visitField(InstrSupport.DATAFIELD_ACC,
+				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC, null,
+				null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInstrumentInstrumentedClass2() {
+		instrumenter.visitMethod(InstrSupport.INITMETHOD_ACC,
+				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+				null, null);
+	}
+
+	@Test
+	public void testNoMethodVisitor() {
+		instrumenter = new SaturatedClassInstrumenter(this, new ClassVisitor(
+				JaCoCo.ASM_API_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name,
+					String desc, String signature, String[] exceptions) {
+				return null;
+			}
+		});
+		assertNull(instrumenter.visitMethod(0, "foo", "()V", null, null));
+	}
+
+	@Test
+	public void testInstructionsWithProbes() {
+		final Label label = new Label();
+		final MethodProbesVisitor mv = instrumenter.visitMethod(0, "foo",
+				"()V", null, null);
+		mv.visitProbe(0);
+		mv.visitInsnWithProbe(Opcodes.RETURN, 1);
+		mv.visitJumpInsnWithProbe(Opcodes.GOTO, label, 2, null);
+		mv.visitTableSwitchInsnWithProbes(0, 0, label, new Label[] { label },
+				null);
+		mv.visitLookupSwitchInsnWithProbes(label, new int[] { 0 },
+				new Label[] { label }, null);
+
+		assertEquals("[insn " + Opcodes.RETURN + ", jump " + Opcodes.GOTO
+				+ ", tableswitch, lookupswitch]", instructions.toString());
+	}
+
+	@Test
+	public void testVisitTotalProbeCount() {
+		instrumenter.visitTotalProbeCount(5);
+		assertEquals(5, probeCount);
+	}
+
+	// === IProbeArrayStrategy ===
+
+	public int storeInstance(MethodVisitor mv, int variable) {
+		throw new AssertionError();
+	}
+
+	public void addMembers(ClassVisitor cv, int probeCount) {
+		this.probeCount = probeCount;
+	}
+
+}
@@ -51,6 +51,13 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
 		assertFalse(options.getJmx());
+		assertNull(options.getSpectraFile());
+		assertEquals(1000, options.getMmapInterval());
+		assertEquals(0, options.getDumpInterval());
+		assertEquals(AgentOptions.DumpMode.full, options.getDumpMode());
+		assertNull(options.getInstrCache());
+		assertEquals(1024, options.getInstrCacheSize());
+		assertEquals(0, options.getDeinstrumentInterval());
 
 		assertEquals("", options.toString());
 	}
@@ -366,6 +373,155 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetSpectraFile() {
+		AgentOptions options = new AgentOptions("spectrafile=target/spectra.exec");
+		assertEquals("target/spectra.exec", options.getSpectraFile());
+	}
+
+	@Test
+	public void testSetSpectraFile() {
+		AgentOptions options = new AgentOptions();
+		options.setSpectraFile("target/spectra.exec");
+		assertEquals("target/spectra.exec", options.getSpectraFile());
+		assertEquals("spectrafile=target/spectra.exec", options.toString());
+	}
+
+	@Test
+	public void testGetOutputMmap() {
+		AgentOptions options = new AgentOptions("output=mmap");
+		assertEquals(AgentOptions.OutputMode.mmap, options.getOutput());
+	}
+
+	@Test
+	public void testGetMmapInterval() {
+		AgentOptions options = new AgentOptions("mmapinterval=250");
+		assertEquals(250, options.getMmapInterval());
+	}
+
+	@Test
+	public void testSetMmapInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setMmapInterval(0);
+		assertEquals(0, options.getMmapInterval());
+		assertEquals("mmapinterval=0", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMmapIntervalOptionValue() {
+		new AgentOptions("mmapinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidMmapInterval() {
+		new AgentOptions().setMmapInterval(-1);
+	}
+
+	@Test
+	public void testGetInstrCache() {
+		AgentOptions options = new AgentOptions("instrcache=/tmp/cache");
+		assertEquals("/tmp/cache", options.getInstrCache());
+	}
+
+	@Test
+	public void testSetInstrCache() {
+		AgentOptions options = new AgentOptions();
+		options.setInstrCache("/tmp/cache");
+		assertEquals("/tmp/cache", options.getInstrCache());
+		assertEquals("instrcache=/tmp/cache", options.toString());
+	}
+
+	@Test
+	public void testGetInstrCacheSize() {
+		AgentOptions options = new AgentOptions("instrcachesize=64");
+		assertEquals(64, options.getInstrCacheSize());
+	}
+
+	@Test
+	public void testSetInstrCacheSize() {
+		AgentOptions options = new AgentOptions();
+		options.setInstrCacheSize(16);
+		assertEquals(16, options.getInstrCacheSize());
+		assertEquals("instrcachesize=16", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidInstrCacheSizeOptionValue() {
+		new AgentOptions("instrcachesize=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidInstrCacheSize() {
+		new AgentOptions().setInstrCacheSize(-1);
+	}
+
+	@Test
+	public void testGetDeinstrumentInterval() {
+		AgentOptions options = new AgentOptions("deinstrumentinterval=10000");
+		assertEquals(10000, options.getDeinstrumentInterval());
+	}
+
+	@Test
+	public void testSetDeinstrumentInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDeinstrumentInterval(500);
+		assertEquals(500, options.getDeinstrumentInterval());
+		assertEquals("deinstrumentinterval=500", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDeinstrumentIntervalOptionValue() {
+		new AgentOptions("deinstrumentinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidDeinstrumentInterval() {
+		new AgentOptions().setDeinstrumentInterval(-1);
+	}
+
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions("dumpinterval=5000");
+		assertEquals(5000, options.getDumpInterval());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(200);
+		assertEquals(200, options.getDumpInterval());
+		assertEquals("dumpinterval=200", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDumpIntervalOptionValue() {
+		new AgentOptions("dumpinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidDumpInterval() {
+		new AgentOptions().setDumpInterval(-1);
+	}
+
+	@Test
+	public void testGetDumpMode() {
+		AgentOptions options = new AgentOptions("dumpmode=delta");
+		assertEquals(AgentOptions.DumpMode.delta, options.getDumpMode());
+	}
+
+	@Test
+	public void testSetDumpMode() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpMode(AgentOptions.DumpMode.delta);
+		assertEquals(AgentOptions.DumpMode.delta, options.getDumpMode());
+		assertEquals("dumpmode=delta", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDumpMode() {
+		new AgentOptions("dumpmode=foo");
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
@@ -14,11 +14,15 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.Callable;
 
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.DataFlowExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
@@ -86,6 +90,151 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void testCollectWithResetSkipsClassesWithoutHits() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		data.getExecutionData(Long.valueOf(456), "Bar", 1);
+
+		data.collect(storage, storage, true);
+
+		storage.assertSize(1);
+		assertFalse(storage.getData(123).getProbes()[0]);
+	}
+
+	@Test
+	public void testCollectAndRetain() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		data.getExecutionData(Long.valueOf(456), "Bar", 1);
+		probes[0] = true;
+		data.retain();
+		assertFalse(probes[0]);
+
+		probes[1] = true;
+		data.collectAndRetain(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ControlFlowExecutionData ed) {
+				assertEquals(123, ed.getId());
+				assertFalse(ed.getProbes()[0]);
+				assertTrue(ed.getProbes()[1]);
+			}
+		}, storage);
+
+		assertNotNull(storage.getSessionInfo());
+		assertFalse(probes[1]);
+		data.collect(storage, storage, false);
+		assertTrue(storage.getData(123).getProbes()[0]);
+		assertTrue(storage.getData(123).getProbes()[1]);
+	}
+
+	@Test
+	public void testCollectIncludesRetainedCoverage() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 3)
+				.getProbes();
+		probes[0] = true;
+		data.retain();
+		probes[1] = true;
+
+		data.collect(storage, storage, false);
+
+		final boolean[] collected = storage.getData(123).getProbes();
+		assertTrue(collected[0]);
+		assertTrue(collected[1]);
+		assertFalse(collected[2]);
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void testCollectWithResetClearsRetainedCoverage() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		data.retain();
+
+		data.collect(storage, storage, true);
+		storage.assertSize(1);
+		assertTrue(storage.getData(123).getProbes()[0]);
+
+		storage = new TestStorage();
+		data.collect(storage, storage, true);
+		storage.assertSize(0);
+	}
+
+	@Test
+	public void testResetClearsRetainedCoverage() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		data.retain();
+		data.reset();
+
+		data.collect(storage, storage, false);
+
+		assertFalse(storage.getData(123).getProbes()[0]);
+	}
+
+	@Test
+	public void testPin() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+
+		assertTrue(data.pin(123));
+		probes[1] = true;
+		data.reset();
+
+		assertFalse(probes[0]);
+		assertFalse(probes[1]);
+		data.collect(storage, storage, false);
+		assertTrue(storage.getData(123).getProbes()[0]);
+		assertFalse(storage.getData(123).getProbes()[1]);
+	}
+
+	@Test
+	public void testPinIncludesRetainedCoverage() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+		data.retain();
+		probes[1] = true;
+
+		data.pin(123);
+		data.reset();
+
+		data.collect(storage, storage, false);
+		assertTrue(storage.getData(123).getProbes()[0]);
+		assertTrue(storage.getData(123).getProbes()[1]);
+	}
+
+	@Test
+	public void testPinNotCollectedAndRetained() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		data.pin(123);
+		data.reset();
+
+		data.collectAndRetain(storage, storage);
+
+		storage.assertSize(0);
+	}
+
+	@Test
+	public void testPinCollectWithReset() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		data.pin(123);
+
+		data.collect(storage, storage, true);
+		data.collect(storage, storage, true);
+
+		assertFalse(probes[0]);
+		storage.assertSize(1);
+		assertTrue(storage.getData(123).getProbes()[0]);
+	}
+
+	@Test
+	public void testPinUnknownClass() {
+		assertFalse(data.pin(123));
+		data.reset();
+	}
+
 	@Test
 	public void testCollectWithoutReset() {
 		data.setSessionId("testsession");
@@ -99,6 +248,130 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void testCollectDelta() {
+		data.setSessionId("testsession");
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 3)
+				.getProbes();
+		probes[0] = true;
+
+		data.collectDelta(storage, storage);
+
+		assertEquals("testsession", storage.getSessionInfo().getId());
+		assertTrue(storage.getData(123).getProbes()[0]);
+		assertTrue(probes[0]);
+
+		probes[1] = true;
+		storage = new TestStorage();
+		data.collectDelta(storage, storage);
+
+		boolean[] delta = storage.getData(123).getProbes();
+		assertFalse(delta[0]);
+		assertTrue(delta[1]);
+		assertFalse(delta[2]);
+		assertNotSame(probes, delta);
+	}
+
+	@Test
+	public void testCollectDeltaSkipsClassesWithoutNewHits() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		data.getExecutionData(Long.valueOf(456), "Bar", 1);
+		data.collectDelta(storage, storage);
+		storage.assertSize(1);
+
+		storage = new TestStorage();
+		data.collectDelta(storage, storage);
+
+		storage.assertSize(0);
+		assertNotNull(storage.getSessionInfo());
+	}
+
+	@Test
+	public void testCollectDeltaAfterReset() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		data.collectDelta(storage, storage);
+		data.collect(storage, storage, true);
+
+		probes[0] = true;
+		storage = new TestStorage();
+		data.collectDelta(storage, storage);
+
+		assertTrue(storage.getData(123).getProbes()[0]);
+	}
+
+	@Test
+	public void testCollectDeltaDataFlow() {
+		final DataFlowRuntimeData dataFlow = new DataFlowRuntimeData();
+		final long[] probes = ((DataFlowExecutionData) dataFlow
+				.getExecutionData(Long.valueOf(123), "Foo", 2)).getLongProbes();
+		probes[1] = 0x3L;
+		dataFlow.collectDelta(storage, storage);
+
+		probes[1] = 0x7L;
+		storage = new TestStorage();
+		dataFlow.collectDelta(storage, storage);
+
+		final long[] delta = ((DataFlowExecutionData) storage.getData(123))
+				.getLongProbes();
+		assertEquals(0x0L, delta[0]);
+		assertEquals(0x4L, delta[1]);
+	}
+
+	@Test
+	public void testGetExecutionDataWhileCollecting() throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1);
+		final ControlFlowExecutionData[] registered = new ControlFlowExecutionData[1];
+		data.collect(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ControlFlowExecutionData ed) {
+				final Thread t = new Thread() {
+					@Override
+					public void run() {
+						registered[0] = data.getExecutionData(
+								Long.valueOf(456), "Bar", 2);
+					}
+				};
+				t.start();
+				try {
+					t.join(10000);
+				} catch (final InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}, storage, false);
+		assertNotNull(registered[0]);
+		assertSame(registered[0],
+				data.getExecutionData(Long.valueOf(456), "Bar", 2));
+	}
+
+	@Test
+	public void testGetExecutionDataConcurrently() throws Exception {
+		final ControlFlowExecutionData[] results = new ControlFlowExecutionData[8];
+		final Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int idx = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					results[idx] = data.getExecutionData(Long.valueOf(123),
+							"Foo", 3);
+				}
+			};
+		}
+		for (final Thread t : threads) {
+			t.start();
+		}
+		for (final Thread t : threads) {
+			t.join();
+		}
+		for (final ControlFlowExecutionData r : results) {
+			assertSame(results[0], r);
+		}
+		data.collect(storage, storage, false);
+		storage.assertSize(1);
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
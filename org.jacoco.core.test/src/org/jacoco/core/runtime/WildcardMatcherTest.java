@@ -62,6 +62,76 @@ public class WildcardMatcherTest {
 		assertTrue(new WildcardMatcher("*Test:*Foo").matches("UnitTest"));
 	}
 
+	@Test
+	public void testPrefix() {
+		final WildcardMatcher matcher = new WildcardMatcher(
+				"org/example/*:org/example/sub/**:org/other*");
+		assertTrue(matcher.matches("org/example/Foo"));
+		assertTrue(matcher.matches("org/example/sub/Foo"));
+		assertTrue(matcher.matches("org/others/Foo"));
+		assertTrue(matcher.matches("org/other"));
+		assertFalse(matcher.matches("org/example"));
+		assertFalse(matcher.matches("org/exampl"));
+		assertFalse(matcher.matches("com/example/Foo"));
+	}
+
+	@Test
+	public void testSuffix() {
+		final WildcardMatcher matcher = new WildcardMatcher("*Test:*IT:**Case");
+		assertTrue(matcher.matches("org/example/FooTest"));
+		assertTrue(matcher.matches("org/example/FooIT"));
+		assertTrue(matcher.matches("TestCase"));
+		assertTrue(matcher.matches("IT"));
+		assertFalse(matcher.matches("org/example/FooTests"));
+		assertFalse(matcher.matches("T"));
+	}
+
+	@Test
+	public void testInfix() {
+		final WildcardMatcher matcher = new WildcardMatcher("*$*:**/impl/**");
+		assertTrue(matcher.matches("$"));
+		assertTrue(matcher.matches("org/example/Foo$Bar"));
+		assertTrue(matcher.matches("org/example/impl/Foo"));
+		assertFalse(matcher.matches("org/example/Foo"));
+		assertFalse(matcher.matches("org/example/implementation/Foo"));
+	}
+
+	@Test
+	public void testPrefixAndSuffix() {
+		final WildcardMatcher matcher = new WildcardMatcher(
+				"org/*Test:org/?oo*:*a?c");
+		assertTrue(matcher.matches("org/example/FooTest"));
+		assertTrue(matcher.matches("org/Test"));
+		assertTrue(matcher.matches("org/Foo"));
+		assertTrue(matcher.matches("org/oo"));
+		assertTrue(matcher.matches("ac"));
+		assertTrue(matcher.matches("xxabc"));
+		assertFalse(matcher.matches("org/Test/Foo"));
+		assertFalse(matcher.matches("org/Fxoo"));
+		assertFalse(matcher.matches("xxabbc"));
+	}
+
+	@Test
+	public void testEmptyPart() {
+		assertTrue(new WildcardMatcher("Hello::World").matches(""));
+		assertFalse(new WildcardMatcher("Hello:World").matches(""));
+	}
+
+	@Test
+	public void testManyExpressions() {
+		final StringBuilder expression = new StringBuilder("*Test");
+		for (int i = 0; i < 300; i++) {
+			expression.append(":org/example/module").append(i).append("/*");
+		}
+		final WildcardMatcher matcher = new WildcardMatcher(
+				expression.toString());
+		assertTrue(matcher.matches("org/example/module0/Foo"));
+		assertTrue(matcher.matches("org/example/module299/Foo"));
+		assertTrue(matcher.matches("org/example/module300/FooTest"));
+		assertFalse(matcher.matches("org/example/module300/Foo"));
+		assertFalse(matcher.matches("org/example/module/Foo"));
+	}
+
 	@Test
 	public void testDollar() {
 		assertTrue(new WildcardMatcher("*$*").matches("java/util/Map$Entry"));
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.analysis.ControlFlowAnalyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * Scenario to measure the analysis of a class with a warm structure cache,
+ * i.e. only the probes are replayed. The reference parses the class every
+ * time.
+ */
+public class CachedAnalysisScenario extends TimedScenario {
+
+	private final byte[] bytes;
+
+	private final int count;
+
+	private final File directory;
+
+	protected CachedAnalysisScenario(Class<?> target, int count)
+			throws Exception {
+		super(String.format("analysing %s classes with structure cache",
+				Integer.valueOf(count)));
+		this.bytes = TargetLoader.getClassDataAsBytes(target);
+		this.count = count;
+		this.directory = File.createTempFile("jacoco", ".cache");
+		directory.delete();
+	}
+
+	@Override
+	public void run(IPerfOutput output) throws Exception {
+		try {
+			super.run(output);
+		} finally {
+			final File[] files = directory.listFiles();
+			if (files != null) {
+				for (final File f : files) {
+					f.delete();
+				}
+			}
+			directory.delete();
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final ControlFlowAnalyzer analyzer = new ControlFlowAnalyzer(
+				new ControlFlowExecutionDataStore(), createVisitor(),
+				directory);
+		// warm up the cache
+		analyzer.analyzeClass(bytes, "");
+		return createCallable(analyzer);
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return createCallable(new ControlFlowAnalyzer(
+				new ControlFlowExecutionDataStore(), createVisitor()));
+	}
+
+	private Callable<Void> createCallable(final ControlFlowAnalyzer analyzer) {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < count; i++) {
+					analyzer.analyzeClass(bytes, "");
+				}
+				return null;
+			}
+		};
+	}
+
+	private ICoverageVisitor createVisitor() {
+		return new ICoverageVisitor() {
+			public void visitCoverage(IClassCoverage coverage) {
+			}
+		};
+	}
+
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.analysis.DataflowAnalyzer;
+import org.jacoco.core.analysis.dua.DuaCoverageBuilder;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.internal.data.CRC64;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Scenario to measure the data-flow analysis of a single synthetic method with
+ * the given number of statements. Running it for growing sizes shows how the
+ * analysis scales with the number of def-use chains.
+ */
+public class DataflowAnalysisScalingScenario extends TimedScenario {
+
+	private static final int LOCALS = 8;
+
+	private final int size;
+
+	protected DataflowAnalysisScalingScenario(int size) {
+		super(String.format("data-flow analysis of a method with %s statements",
+				Integer.valueOf(size)));
+		this.size = size;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final byte[] bytes = createClass(size);
+		final ControlFlowExecutionDataStore executionData = new ControlFlowExecutionDataStore();
+		executionData.get(Long.valueOf(CRC64.checksum(bytes)), "Target",
+				size * 64);
+		final DataflowAnalyzer analyzer = new DataflowAnalyzer(executionData,
+				new DuaCoverageBuilder());
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				analyzer.analyzeClass(bytes, "Target");
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Creates a class with a static method which repeatedly combines a fixed
+	 * set of local variables. Every fourth statement is guarded by a branch to
+	 * create many basic blocks.
+	 */
+	private static byte[] createClass(int size) {
+		final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "Target", null,
+				"java/lang/Object", null);
+		final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC
+				| Opcodes.ACC_STATIC, "run", "(I)V", null, null);
+		mv.visitCode();
+		final Label start = new Label();
+		final Label end = new Label();
+		mv.visitLabel(start);
+		for (int i = 1; i < LOCALS; i++) {
+			mv.visitInsn(Opcodes.ICONST_0);
+			mv.visitVarInsn(Opcodes.ISTORE, i);
+		}
+		for (int i = 0; i < size; i++) {
+			final Label line = new Label();
+			mv.visitLabel(line);
+			mv.visitLineNumber(i + 1, line);
+			mv.visitVarInsn(Opcodes.ILOAD, i % LOCALS);
+			mv.visitVarInsn(Opcodes.ILOAD, (i + 1) % LOCALS);
+			mv.visitInsn(Opcodes.IADD);
+			mv.visitVarInsn(Opcodes.ISTORE, (i + 2) % LOCALS);
+			if (i % 4 == 0) {
+				final Label skip = new Label();
+				mv.visitVarInsn(Opcodes.ILOAD, (i + 2) % LOCALS);
+				mv.visitJumpInsn(Opcodes.IFEQ, skip);
+				mv.visitIincInsn((i + 3) % LOCALS, 1);
+				mv.visitLabel(skip);
+			}
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(end);
+		for (int i = 0; i < LOCALS; i++) {
+			mv.visitLocalVariable("v" + i, "I", null, start, end, i);
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+
+/**
+ * Scenario to measure lookups of execution data by class id in a large store.
+ * The reference looks up the same entries in a {@link HashMap} with boxed
+ * {@link Long} keys.
+ */
+public class ExecutionDataStoreLookupScenario extends TimedScenario {
+
+	private static final int CLASSES = 200000;
+
+	private static final int LOOKUPS = 10;
+
+	private final long[] ids;
+
+	protected ExecutionDataStoreLookupScenario() {
+		super(String.format("looking up %s classes %s times",
+				Integer.valueOf(CLASSES), Integer.valueOf(LOOKUPS)));
+		final Random random = new Random(42);
+		ids = new long[CLASSES];
+		for (int i = 0; i < CLASSES; i++) {
+			ids[i] = random.nextLong();
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final ControlFlowExecutionDataStore store = new ControlFlowExecutionDataStore();
+		for (final long id : ids) {
+			store.put(new ControlFlowExecutionData(id, "Sample", 1));
+		}
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < LOOKUPS; i++) {
+					for (final long id : ids) {
+						store.get(id);
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final Map<Long, ControlFlowExecutionData> map = new HashMap<Long, ControlFlowExecutionData>();
+		for (final long id : ids) {
+			map.put(Long.valueOf(id), new ControlFlowExecutionData(id,
+					"Sample", 1));
+		}
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < LOOKUPS; i++) {
+					for (final long id : ids) {
+						map.get(Long.valueOf(id));
+					}
+				}
+				return null;
+			}
+		};
+	}
+
+}
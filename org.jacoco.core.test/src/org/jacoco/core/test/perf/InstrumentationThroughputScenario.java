@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Scenario to measure the throughput of instrumenting class files read from
+ * streams, where half of the definitions are Java 8 interfaces with default
+ * methods as found in typical frameworks. The reference reads and writes the
+ * same definitions with ASM without instrumentation, which is the cost of a
+ * single pass.
+ */
+public class InstrumentationThroughputScenario extends TimedScenario {
+
+	private static final int METHODS = 20;
+
+	private final List<byte[]> definitions;
+
+	protected InstrumentationThroughputScenario(final Class<?> target,
+			final int count) throws Exception {
+		super(String.format("instrumenting %s classes and %s interfaces",
+				Integer.valueOf(count), Integer.valueOf(count)));
+		definitions = new ArrayList<byte[]>();
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		for (int i = 0; i < count; i++) {
+			definitions.add(bytes);
+			definitions.add(createInterface(i));
+		}
+	}
+
+	private static byte[] createInterface(final int nr) {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE
+				| Opcodes.ACC_ABSTRACT, "Interface" + nr, null,
+				"java/lang/Object", null);
+		for (int i = 0; i < METHODS; i++) {
+			writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT,
+					"abstract" + i, "()I", null, null).visitEnd();
+			final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC,
+					"default" + i, "()I", null, null);
+			mv.visitCode();
+			mv.visitVarInsn(Opcodes.ALOAD, 0);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, "Interface" + nr,
+					"abstract" + i, "()I", true);
+			mv.visitInsn(Opcodes.ICONST_1);
+			mv.visitInsn(Opcodes.IADD);
+			mv.visitInsn(Opcodes.IRETURN);
+			mv.visitMaxs(2, 1);
+			mv.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final Instrumenter instr = new Instrumenter(new LoggerRuntime());
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (final byte[] definition : definitions) {
+					instr.instrument(new ByteArrayInputStream(definition),
+							"TestTarget");
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (final byte[] definition : definitions) {
+					final ClassReader reader = new ClassReader(
+							new ByteArrayInputStream(definition));
+					final ClassWriter writer = new ClassWriter(reader, 0);
+					reader.accept(writer, ClassReader.EXPAND_FRAMES);
+					writer.toByteArray();
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.analysis.ControlFlowAnalyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * Scenario to measure the analysis of a ZIP archive with an executor using all
+ * available processors. The reference analyzes the same archive sequentially.
+ */
+public class ParallelAnalysisScenario extends TimedScenario {
+
+	private final byte[] archive;
+
+	private final ExecutorService executor;
+
+	protected ParallelAnalysisScenario(Class<?> target, int count)
+			throws Exception {
+		super(String.format("analysing %s classes in parallel",
+				Integer.valueOf(count)));
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (int i = 0; i < count; i++) {
+			zip.putNextEntry(new ZipEntry("Target" + i + ".class"));
+			zip.write(bytes);
+		}
+		zip.finish();
+		this.archive = buffer.toByteArray();
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors());
+	}
+
+	@Override
+	public void run(IPerfOutput output) throws Exception {
+		try {
+			super.run(output);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final ControlFlowAnalyzer analyzer = createAnalyzer();
+		analyzer.setExecutor(executor);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				analyzer.analyzeAll(new ByteArrayInputStream(archive),
+						"archive");
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final ControlFlowAnalyzer analyzer = createAnalyzer();
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				analyzer.analyzeAll(new ByteArrayInputStream(archive),
+						"archive");
+				return null;
+			}
+		};
+	}
+
+	private ControlFlowAnalyzer createAnalyzer() {
+		return new ControlFlowAnalyzer(new ControlFlowExecutionDataStore(),
+				new ICoverageVisitor() {
+					public void visitCoverage(IClassCoverage coverage) {
+					}
+				});
+	}
+
+}
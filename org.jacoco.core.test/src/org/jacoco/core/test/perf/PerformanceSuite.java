@@ -13,6 +13,8 @@ package org.jacoco.core.test.perf;
 
 import java.io.PrintWriter;
 
+import org.jacoco.core.runtime.ControlFlowRuntimeData;
+import org.jacoco.core.runtime.DataFlowRuntimeData;
 import org.jacoco.core.test.perf.targets.Target01;
 import org.jacoco.core.test.perf.targets.Target02;
 import org.jacoco.core.test.perf.targets.Target03;
@@ -31,7 +33,20 @@ public class PerformanceSuite implements IPerfScenario {
 				.run(output);
 		new InstrumentationSizeSzenario(Target03.class).run(output);
 		new InstrumentationTimeScenario(Target03.class, 1000).run(output);
+		new InstrumentationThroughputScenario(Target03.class, 1000)
+				.run(output);
 		new AnalysisTimeScenario(Target03.class, 1000).run(output);
+		new ParallelAnalysisScenario(Target03.class, 1000).run(output);
+		new CachedAnalysisScenario(Target03.class, 1000).run(output);
+		for (int size = 1000; size <= 8000; size *= 2) {
+			new DataflowAnalysisScalingScenario(size).run(output);
+		}
+		new ExecutionDataStoreLookupScenario().run(output);
+		new WildcardMatcherScenario().run(output);
+		new RuntimeDataRegistrationScenario(ControlFlowRuntimeData.class)
+				.run(output);
+		new RuntimeDataRegistrationScenario(DataFlowRuntimeData.class)
+				.run(output);
 	}
 
 	public static void main(String[] args) throws Exception {
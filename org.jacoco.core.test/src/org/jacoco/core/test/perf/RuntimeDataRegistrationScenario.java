@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.AbstractRuntimeData;
+
+/**
+ * Scenario to measure class registration in a runtime data instance from
+ * several threads while execution data is dumped concurrently. The reference
+ * serializes registration and dumps on a single monitor.
+ */
+public class RuntimeDataRegistrationScenario extends TimedScenario {
+
+	private static final int THREADS = 8;
+
+	private static final int CLASSES = 5000;
+
+	private final Class<? extends AbstractRuntimeData> type;
+
+	protected RuntimeDataRegistrationScenario(
+			final Class<? extends AbstractRuntimeData> type) {
+		super(String.format("registering %s classes in %s threads (%s)",
+				Integer.valueOf(THREADS * CLASSES), Integer.valueOf(THREADS),
+				type.getSimpleName()));
+		this.type = type;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return createCallable(false);
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return createCallable(true);
+	}
+
+	private Callable<Void> createCallable(final boolean locked) {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				run(type.newInstance(), locked);
+				return null;
+			}
+		};
+	}
+
+	private void run(final AbstractRuntimeData data, final boolean locked)
+			throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			final long base = (long) t * CLASSES;
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < CLASSES; i++) {
+							final Long id = Long.valueOf(base + i);
+							if (locked) {
+								synchronized (data) {
+									data.getExecutionData(id, "Sample", 4);
+								}
+							} else {
+								data.getExecutionData(id, "Sample", 4);
+							}
+						}
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		final NullVisitor visitor = new NullVisitor();
+		start.countDown();
+		while (done.getCount() > 0) {
+			if (locked) {
+				synchronized (data) {
+					data.collect(visitor, visitor, false);
+				}
+			} else {
+				data.collect(visitor, visitor, false);
+			}
+		}
+		done.await();
+	}
+
+	private static class NullVisitor implements IExecutionDataVisitor,
+			ISessionInfoVisitor {
+
+		public void visitClassExecution(final ControlFlowExecutionData data) {
+		}
+
+		public void visitSessionInfo(final SessionInfo info) {
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+import org.jacoco.core.runtime.WildcardMatcher;
+
+/**
+ * Scenario to measure filtering of class names with include expressions as
+ * typically configured for large projects: a few hundred package prefixes and
+ * some suffix and infix expressions. The reference matches the same names with
+ * a single regular expression of all alternatives.
+ */
+public class WildcardMatcherScenario extends TimedScenario {
+
+	private static final int PACKAGES = 300;
+
+	private static final int CLASSES = 100000;
+
+	private final String expression;
+
+	private final List<String> names;
+
+	protected WildcardMatcherScenario() {
+		super(String.format("matching %s class names against %s expressions",
+				Integer.valueOf(CLASSES), Integer.valueOf(PACKAGES + 3)));
+		final StringBuilder buffer = new StringBuilder("*Test:*$$*:*/impl/*");
+		for (int i = 0; i < PACKAGES; i++) {
+			buffer.append(":com/example/module").append(i).append("/*");
+		}
+		expression = buffer.toString();
+		final Random random = new Random(42);
+		names = new ArrayList<String>(CLASSES);
+		for (int i = 0; i < CLASSES; i++) {
+			final String base = random.nextBoolean() ? "com/example"
+					: "org/library";
+			final StringBuilder name = new StringBuilder(base);
+			name.append("/module").append(random.nextInt(PACKAGES * 2));
+			if (random.nextInt(4) == 0) {
+				name.append("/impl");
+			}
+			name.append("/Class").append(i);
+			switch (random.nextInt(8)) {
+			case 0:
+				name.append("Test");
+				break;
+			case 1:
+				name.append("$Inner");
+				break;
+			case 2:
+				name.append("$$Generated");
+				break;
+			}
+			names.add(name.toString());
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final WildcardMatcher matcher = new WildcardMatcher(expression);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (final String name : names) {
+					matcher.matches(name);
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final Pattern pattern = toPattern(expression);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (final String name : names) {
+					pattern.matcher(name).matches();
+				}
+				return null;
+			}
+		};
+	}
+
+	private static Pattern toPattern(final String expression) {
+		final StringBuilder regex = new StringBuilder();
+		for (final String part : expression.split("\\:")) {
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+			regex.append('(');
+			for (final char c : part.toCharArray()) {
+				switch (c) {
+				case '?':
+					regex.append(".?");
+					break;
+				case '*':
+					regex.append(".*");
+					break;
+				default:
+					regex.append(Pattern.quote(String.valueOf(c)));
+					break;
+				}
+			}
+			regex.append(')');
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.DataFlowExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.SharedMemoryWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecSharedMemoryReader} and
+ * {@link SharedMemoryWriter}.
+ */
+public class ExecSharedMemoryReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private SharedMemoryWriter writer;
+
+	private ExecSharedMemoryReader reader;
+
+	@Before
+	public void setup() throws Exception {
+		file = new File(folder.getRoot(), "jacoco.mmap");
+		writer = new SharedMemoryWriter(file);
+		reader = new ExecSharedMemoryReader(file);
+		reader.setRetryCount(0);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		writer.close();
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		writer.commit();
+
+		final ExecFileLoader loader = reader.read();
+		final SessionInfo info = loader.getSessionInfoStore().getInfos()
+				.get(0);
+		assertEquals("id", info.getId());
+		assertEquals(1, info.getStartTimeStamp());
+		assertEquals(2, info.getDumpTimeStamp());
+		assertTrue(loader.getExecutionDataStore().getContents().isEmpty());
+	}
+
+	@Test
+	public void testClasses() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		writer.visitClassExecution(new ControlFlowExecutionData(1, "Foo",
+				new boolean[] { true, false, true }));
+		writer.visitClassExecution(new DataFlowExecutionData(2, "Bar",
+				new long[] { 0x1234567890L, -1L }));
+		writer.commit();
+
+		final ExecFileLoader loader = reader.read();
+		final ControlFlowExecutionData foo = loader.getExecutionDataStore()
+				.get(1);
+		assertEquals("Foo", foo.getName());
+		assertEquals(3, foo.getProbes().length);
+		assertTrue(foo.getProbes()[0]);
+		assertTrue(!foo.getProbes()[1]);
+		assertTrue(foo.getProbes()[2]);
+		final DataFlowExecutionData bar = (DataFlowExecutionData) loader
+				.getExecutionDataStore().get(2);
+		assertEquals("Bar", bar.getName());
+		assertArrayEquals(new long[] { 0x1234567890L, -1L },
+				bar.getLongProbes());
+	}
+
+	@Test
+	public void testUpdate() throws IOException {
+		final boolean[] probes = new boolean[] { false, false };
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		writer.visitClassExecution(new ControlFlowExecutionData(1, "Foo",
+				probes));
+		writer.commit();
+		final long length = file.length();
+
+		probes[1] = true;
+		writer.visitSessionInfo(new SessionInfo("id", 1, 3));
+		writer.visitClassExecution(new ControlFlowExecutionData(1, "Foo",
+				probes));
+		writer.commit();
+
+		assertEquals(length, file.length());
+		final ExecFileLoader loader = reader.read();
+		assertEquals(1, loader.getExecutionDataStore().getContents().size());
+		assertTrue(loader.getExecutionDataStore().get(1).getProbes()[1]);
+		assertEquals(3, loader.getSessionInfoStore().getInfos().get(0)
+				.getDumpTimeStamp());
+	}
+
+	@Test
+	public void testGrow() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		for (int i = 0; i < 1000; i++) {
+			writer.visitClassExecution(new ControlFlowExecutionData(i,
+					"Foo" + i, new boolean[100]));
+		}
+		writer.commit();
+
+		final ExecFileLoader loader = reader.read();
+		assertEquals(1000, loader.getExecutionDataStore().getContents()
+				.size());
+		assertEquals("Foo999", loader.getExecutionDataStore().get(999)
+				.getName());
+	}
+
+	@Test
+	public void testReadBeforeAndAfterGrow() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		writer.commit();
+		final long length = file.length();
+		assertTrue(reader.read().getExecutionDataStore().getContents()
+				.isEmpty());
+
+		writer.visitSessionInfo(new SessionInfo("id", 1, 3));
+		for (int i = 0; i < 1000; i++) {
+			writer.visitClassExecution(new ControlFlowExecutionData(i,
+					"Foo" + i, new boolean[100]));
+		}
+		writer.commit();
+
+		assertTrue(file.length() > length);
+		assertEquals(1000, reader.read().getExecutionDataStore()
+				.getContents().size());
+	}
+
+	@Test
+	public void testLongSessionId() throws IOException {
+		final StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			id.append('x');
+		}
+		writer.visitSessionInfo(new SessionInfo(id.toString(), 1, 2));
+		writer.commit();
+
+		assertEquals(SharedMemoryWriter.SESSIONID_SIZE, reader.read()
+				.getSessionInfoStore().getInfos().get(0).getId().length());
+	}
+
+	@Test
+	public void testLongSessionIdMultiByteCharacters() throws IOException {
+		final StringBuilder id = new StringBuilder("x");
+		for (int i = 0; i < 200; i++) {
+			id.append('\u00e4');
+		}
+		writer.visitSessionInfo(new SessionInfo(id.toString(), 1, 2));
+		writer.commit();
+
+		final String expected = id.substring(0,
+				1 + (SharedMemoryWriter.SESSIONID_SIZE - 1) / 2);
+		assertEquals(expected, reader.read().getSessionInfoStore().getInfos()
+				.get(0).getId());
+	}
+
+	@Test(expected = IOException.class)
+	public void testUpdateInProgress() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		reader.read();
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		final File other = folder.newFile("other.mmap");
+		final FileOutputStream out = new FileOutputStream(other);
+		out.write(new byte[SharedMemoryWriter.HEADER_SIZE]);
+		out.close();
+		new ExecSharedMemoryReader(other).read();
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidVersion() throws IOException {
+		writer.commit();
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(2);
+		raf.writeChar(0x9999);
+		raf.close();
+		reader.read();
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		new ExecSharedMemoryReader(folder.newFile("empty.mmap")).read();
+	}
+
+}
@@ -15,14 +15,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Enumeration;
+import java.util.LinkedList;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.jacoco.core.data.AbstractExecutionDataStore;
 import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.Pack200Streams;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.data.LongHashMap;
 import org.objectweb.asm.ClassReader;
 
 /**
@@ -33,16 +44,96 @@ import org.objectweb.asm.ClassReader;
  * instance that holds the execution data for the classes to analyze. The
  * {@link AbstractAnalyzer} offers several methods to analyze classes from a
  * variety of sources.
+ * <p>
+ * If an {@link Executor} is set with {@link #setExecutor(Executor)} the class
+ * files are analyzed in parallel. Results are still reported on the calling
+ * thread in the order the class files are found, so the coverage visitors do
+ * not need to be thread-safe and the result is the same as in sequential mode.
+ * All results are reported before the analyze methods return.
+ * <p>
+ * ZIP archives given as files are accessed through their central directory.
+ * In parallel mode the class file entries of such archives are also inflated
+ * by the executor.
+ * <p>
+ * With a {@link ClassDeduplicator} set identical class files are reported only
+ * once, no matter how often they are found in the inputs. Duplicates are
+ * determined in the order the class files are found, also in parallel mode.
+ * Every further copy is counted as skipped by the deduplicator, also if it is
+ * reported by another analyzer sharing the same deduplicator.
  */
 public abstract class AbstractAnalyzer {
 
+	/** Maximum number of analyzed classes waiting to be reported */
+	private static final int MAX_PENDING = 256;
+
+	private final LinkedList<AnalysisTask> pending = new LinkedList<AnalysisTask>();
+
+	private Executor executor;
+
+	private ClassDeduplicator deduplicator;
+
+	private LongHashMap<Boolean> reported;
+
+	/**
+	 * Sets the executor used to analyze class files in parallel. The executor
+	 * is not shut down by the analyzer.
+	 * 
+	 * @param executor
+	 *            executor for parallel analysis or <code>null</code> to
+	 *            analyze class files sequentially on the calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the registry used to skip class files which have been seen before.
+	 * 
+	 * @param deduplicator
+	 *            registry of seen class files or <code>null</code> to analyze
+	 *            every class file found
+	 */
+	public void setDeduplicator(final ClassDeduplicator deduplicator) {
+		this.deduplicator = deduplicator;
+		this.reported = deduplicator == null ? null
+				: new LongHashMap<Boolean>();
+	}
+
+	/**
+	 * Returns the registry of seen class files.
+	 * 
+	 * @return registry of seen class files or <code>null</code>
+	 */
+	protected ClassDeduplicator getDeduplicator() {
+		return deduplicator;
+	}
+
+	/**
+	 * Analyzes the class given as a ASM reader. This method may be called
+	 * concurrently for different classes, so implementations must not modify
+	 * shared state. Reporting the result to the coverage visitor is deferred
+	 * to the returned action, which is always run on the thread that called
+	 * the analyzer.
+	 * 
+	 * @param reader
+	 *            reader with class definitions
+	 * @return action that reports the result or <code>null</code> if there
+	 *         is nothing to report
+	 */
+	protected abstract Runnable analyze(final ClassReader reader);
+
 	/**
 	 * Analyzes the class given as a ASM reader.
 	 * 
 	 * @param reader
 	 *            reader with class definitions
 	 */
-	public abstract void analyzeClass(final ClassReader reader);
+	public void analyzeClass(final ClassReader reader) {
+		final Runnable report = analyze(reader);
+		if (report != null) {
+			report.run();
+		}
+	}
 
 	/**
 	 * Analyzes the class definition from a given in-memory buffer.
@@ -57,9 +148,12 @@ public abstract class AbstractAnalyzer {
 	public void analyzeClass(final byte[] buffer, final String name)
 			throws IOException {
 		try {
-			analyzeClass(new ClassReader(buffer));
+			scanClass(new ClassReader(buffer), name);
+			reportPending(0);
 		} catch (final RuntimeException cause) {
 			throw analyzerError(name, cause);
+		} finally {
+			discardPending();
 		}
 	}
 
@@ -76,20 +170,156 @@ public abstract class AbstractAnalyzer {
 	public void analyzeClass(final InputStream input, final String name)
 			throws IOException {
 		try {
-			analyzeClass(new ClassReader(input));
+			scanClass(input, name);
+			reportPending(0);
+		} finally {
+			discardPending();
+		}
+	}
+
+	private void scanClass(final InputStream input, final String name)
+			throws IOException {
+		final ClassReader reader;
+		try {
+			reader = new ClassReader(input);
 		} catch (final RuntimeException e) {
 			throw analyzerError(name, e);
 		}
+		scanClass(reader, name);
+	}
+
+	private void scanClass(final ClassReader reader, final String name)
+			throws IOException {
+		if (executor == null) {
+			try {
+				if (deduplicator == null
+						|| firstReport(CRC64.checksum(reader.b),
+								reader.b.length)) {
+					analyzeClass(reader);
+				}
+			} catch (final RuntimeException e) {
+				throw analyzerError(name, e);
+			}
+		} else {
+			submit(new AnalysisTask(new ClassAnalysis() {
+				@Override
+				ClassReader read() {
+					return reader;
+				}
+			}, name));
+		}
+	}
+
+	private void submit(final AnalysisTask task) throws IOException {
+		pending.add(task);
+		executor.execute(task);
+		reportPending(MAX_PENDING);
+	}
+
+	/**
+	 * Reports the results of pending tasks in the order of submission. Tasks
+	 * are reported as long as they are already done or more than the given
+	 * number of tasks is pending.
+	 */
+	private void reportPending(final int max) throws IOException {
+		while (!pending.isEmpty()
+				&& (pending.size() > max || pending.getFirst().isDone())) {
+			pending.removeFirst().report();
+		}
+	}
+
+	private void discardPending() {
+		for (final AnalysisTask task : pending) {
+			task.cancel(false);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Records a class file found in the inputs and decides whether its result
+	 * has to be reported by this analyzer.
+	 */
+	private boolean firstReport(final long classid, final int length) {
+		deduplicator.add(classid, length);
+		return reported.putIfAbsent(classid, Boolean.TRUE) == null;
 	}
 
 	private IOException analyzerError(final String name,
-			final RuntimeException cause) {
+			final Throwable cause) {
 		final IOException ex = new IOException(String.format(
 				"Error while analyzing class %s.", name));
 		ex.initCause(cause);
 		return ex;
 	}
 
+	/**
+	 * Analysis of a single class file on a worker thread. Classes which have
+	 * already been reported by this analyzer are not analyzed. Whether the class
+	 * is a duplicate is finally decided when the result is reported.
+	 */
+	private abstract class ClassAnalysis implements Callable<Runnable> {
+
+		long classid;
+
+		int length;
+
+		abstract ClassReader read() throws IOException;
+
+		public Runnable call() throws IOException {
+			final ClassReader reader = read();
+			if (deduplicator != null) {
+				classid = CRC64.checksum(reader.b);
+				length = reader.b.length;
+				if (reported.get(classid) != null) {
+					return null;
+				}
+			}
+			return analyze(reader);
+		}
+
+	}
+
+	private class AnalysisTask extends FutureTask<Runnable> {
+
+		private final ClassAnalysis analysis;
+
+		private final String name;
+
+		AnalysisTask(final ClassAnalysis analysis, final String name) {
+			super(analysis);
+			this.analysis = analysis;
+			this.name = name;
+		}
+
+		void report() throws IOException {
+			final Runnable report;
+			try {
+				report = get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw analyzerError(name, cause);
+			}
+			if (deduplicator != null
+					&& !firstReport(analysis.classid, analysis.length)) {
+				return;
+			}
+			if (report != null) {
+				try {
+					report.run();
+				} catch (final RuntimeException e) {
+					throw analyzerError(name, e);
+				}
+			}
+		}
+
+	}
+
 	/**
 	 * Analyzes all classes found in the given input stream. The input stream
 	 * may either represent a single class file, a ZIP archive, a Pack200
@@ -106,10 +336,21 @@ public abstract class AbstractAnalyzer {
 	 */
 	public int analyzeAll(final InputStream input, final String name)
 			throws IOException {
+		try {
+			final int count = scanAll(input, name);
+			reportPending(0);
+			return count;
+		} finally {
+			discardPending();
+		}
+	}
+
+	private int scanAll(final InputStream input, final String name)
+			throws IOException {
 		final ContentTypeDetector detector = new ContentTypeDetector(input);
 		switch (detector.getType()) {
 		case ContentTypeDetector.CLASSFILE:
-			analyzeClass(detector.getInputStream(), name);
+			scanClass(detector.getInputStream(), name);
 			return 1;
 		case ContentTypeDetector.ZIPFILE:
 			return analyzeZip(detector.getInputStream(), name);
@@ -134,15 +375,32 @@ public abstract class AbstractAnalyzer {
 	 *             if the file can't be read or a class can't be analyzed
 	 */
 	public int analyzeAll(final File file) throws IOException {
+		try {
+			final int count = scanAll(file);
+			reportPending(0);
+			return count;
+		} finally {
+			discardPending();
+		}
+	}
+
+	private int scanAll(final File file) throws IOException {
 		int count = 0;
 		if (file.isDirectory()) {
 			for (final File f : file.listFiles()) {
-				count += analyzeAll(f);
+				count += scanAll(f);
 			}
 		} else {
 			final InputStream in = new FileInputStream(file);
 			try {
-				count += analyzeAll(in, file.getPath());
+				final ContentTypeDetector detector = new ContentTypeDetector(
+						in);
+				if (detector.getType() == ContentTypeDetector.ZIPFILE) {
+					in.close();
+					count += scanZipFile(file);
+				} else {
+					count += scanAll(detector.getInputStream(), file.getPath());
+				}
 			} finally {
 				in.close();
 			}
@@ -150,6 +408,61 @@ public abstract class AbstractAnalyzer {
 		return count;
 	}
 
+	private int scanZipFile(final File file) throws IOException {
+		final ZipFile zip;
+		try {
+			zip = new ZipFile(file);
+		} catch (final ZipException e) {
+			// No valid central directory, try to read the entries sequentially:
+			final InputStream in = new FileInputStream(file);
+			try {
+				return scanAll(in, file.getPath());
+			} finally {
+				in.close();
+			}
+		}
+		try {
+			int count = 0;
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				count += scanZipEntry(zip, entry,
+						file.getPath() + "@" + entry.getName());
+			}
+			// Pending tasks still read from the archive:
+			reportPending(0);
+			return count;
+		} finally {
+			zip.close();
+		}
+	}
+
+	private int scanZipEntry(final ZipFile zip, final ZipEntry entry,
+			final String name) throws IOException {
+		final InputStream in = zip.getInputStream(entry);
+		try {
+			final ContentTypeDetector detector = new ContentTypeDetector(in);
+			if (executor == null
+					|| detector.getType() != ContentTypeDetector.CLASSFILE) {
+				return scanAll(detector.getInputStream(), name);
+			}
+		} finally {
+			in.close();
+		}
+		submit(new AnalysisTask(new ClassAnalysis() {
+			@Override
+			ClassReader read() throws IOException {
+				final InputStream in = zip.getInputStream(entry);
+				try {
+					return new ClassReader(in);
+				} finally {
+					in.close();
+				}
+			}
+		}, name));
+		return 1;
+	}
+
 	/**
 	 * Analyzes all classes from the given class path. Directories containing
 	 * class files as well as archive files are considered.
@@ -166,12 +479,18 @@ public abstract class AbstractAnalyzer {
 	 */
 	public int analyzeAll(final String path, final File basedir)
 			throws IOException {
-		int count = 0;
-		final StringTokenizer st = new StringTokenizer(path, File.pathSeparator);
-		while (st.hasMoreTokens()) {
-			count += analyzeAll(new File(basedir, st.nextToken()));
+		try {
+			int count = 0;
+			final StringTokenizer st = new StringTokenizer(path,
+					File.pathSeparator);
+			while (st.hasMoreTokens()) {
+				count += scanAll(new File(basedir, st.nextToken()));
+			}
+			reportPending(0);
+			return count;
+		} finally {
+			discardPending();
 		}
-		return count;
 	}
 
 	private int analyzeZip(final InputStream input, final String name)
@@ -180,19 +499,19 @@ public abstract class AbstractAnalyzer {
 		ZipEntry entry;
 		int count = 0;
 		while ((entry = zip.getNextEntry()) != null) {
-			count += analyzeAll(zip, name + "@" + entry.getName());
+			count += scanAll(zip, name + "@" + entry.getName());
 		}
 		return count;
 	}
 
 	private int analyzeGzip(final InputStream input, final String name)
 			throws IOException {
-		return analyzeAll(new GZIPInputStream(input), name);
+		return scanAll(new GZIPInputStream(input), name);
 	}
 
 	private int analyzePack200(final InputStream input, final String name)
 			throws IOException {
-		return analyzeAll(Pack200Streams.unpack(input), name);
+		return scanAll(Pack200Streams.unpack(input), name);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Registry of the class files seen in a report session. Class files are
+ * identified by their CRC64 checksum, which is the same as the class id. If a
+ * deduplicator is set with
+ * {@link AbstractAnalyzer#setDeduplicator(ClassDeduplicator)}, an analyzer
+ * reports identical class files found again in any of its inputs only once.
+ * <p>
+ * A deduplicator may be shared by several analyzers, e.g. the analyzers of the
+ * different groups of a report. A {@link ControlFlowAnalyzer} then keeps the
+ * coverage node of every class it has analyzed in the deduplicator and
+ * reports the cached node to its visitor instead of analyzing identical class
+ * files again. All analyzers sharing a deduplicator must therefore use the
+ * same execution data. As the cached nodes are kept for the whole session the
+ * deduplicator should be discarded when the report is written.
+ */
+public class ClassDeduplicator {
+
+	private final LongHashMap<Boolean> ids = new LongHashMap<Boolean>();
+
+	private final LongHashMap<IClassCoverage> coverage = new LongHashMap<IClassCoverage>();
+
+	private int skippedClasses;
+
+	private long skippedBytes;
+
+	/**
+	 * Checks whether a class file with the given id has already been added.
+	 * This method may be called concurrently.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the class file
+	 * @return <code>true</code> if the class file has been added before
+	 */
+	public boolean contains(final long classid) {
+		return ids.get(classid) != null;
+	}
+
+	/**
+	 * Adds a class file with the given id. If it has been added before it is
+	 * counted as skipped.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the class file
+	 * @param length
+	 *            size of the class file in bytes
+	 * @return <code>true</code> if the class file has not been added before
+	 */
+	public synchronized boolean add(final long classid, final int length) {
+		if (ids.putIfAbsent(classid, Boolean.TRUE) == null) {
+			return true;
+		}
+		skippedClasses++;
+		skippedBytes += length;
+		return false;
+	}
+
+	/**
+	 * Returns the cached coverage node of the class file with the given id.
+	 * This method may be called concurrently.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the class file
+	 * @return cached coverage node or <code>null</code>
+	 */
+	public IClassCoverage getCoverage(final long classid) {
+		return coverage.get(classid);
+	}
+
+	/**
+	 * Caches the coverage node of a class file unless a node for the same
+	 * class file has been cached before. This method may be called
+	 * concurrently.
+	 * 
+	 * @param node
+	 *            coverage node of the class file
+	 * @return the node cached for the class file
+	 */
+	public IClassCoverage putCoverage(final IClassCoverage node) {
+		final IClassCoverage cached = coverage.putIfAbsent(node.getId(), node);
+		return cached == null ? node : cached;
+	}
+
+	/**
+	 * Returns the number of distinct class files added.
+	 * 
+	 * @return number of distinct class files
+	 */
+	public int getClassCount() {
+		return ids.size();
+	}
+
+	/**
+	 * Returns the number of class files skipped as duplicates.
+	 * 
+	 * @return number of skipped class files
+	 */
+	public synchronized int getSkippedClasses() {
+		return skippedClasses;
+	}
+
+	/**
+	 * Returns the total size of all class files skipped as duplicates.
+	 * 
+	 * @return number of skipped bytes
+	 */
+	public synchronized long getSkippedBytes() {
+		return skippedBytes;
+	}
+
+}
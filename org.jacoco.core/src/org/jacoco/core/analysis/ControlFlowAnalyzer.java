@@ -11,14 +11,17 @@
  *******************************************************************************/
 package org.jacoco.core.analysis;
 
+import java.io.File;
+
 import org.jacoco.core.data.AbstractExecutionDataStore;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.analysis.line.ClassAnalyzer;
+import org.jacoco.core.internal.analysis.line.ClassStructure;
+import org.jacoco.core.internal.analysis.line.ClassStructureCache;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
 
 /**
  * An {@link ControlFlowAnalyzer} instance processes a set of Java class files and
@@ -27,6 +30,16 @@ import org.objectweb.asm.ClassVisitor;
  * {@link ControlFlowAnalyzer} requires a {@link AbstractExecutionDataStore} instance that
  * holds the execution data for the classes to analyze. The {@link ControlFlowAnalyzer}
  * offers several methods to analyze classes from a variety of sources.
+ * <p>
+ * The structure of a class only changes with its class file, only the probes
+ * differ between analyses. Optionally the structure is stored in a cache
+ * directory keyed by the CRC64 id of the class file, so later analyses of
+ * unchanged classes only replay the probes.
+ * <p>
+ * With a {@link ClassDeduplicator} set the coverage node of every analyzed
+ * class is cached in the deduplicator. Identical class files found again, also
+ * by other analyzers sharing the deduplicator, are not analyzed but reported
+ * with the cached node.
  */
 public class ControlFlowAnalyzer extends AbstractAnalyzer {
 
@@ -36,6 +49,8 @@ public class ControlFlowAnalyzer extends AbstractAnalyzer {
 
 	private final StringPool stringPool;
 
+	private final ClassStructureCache cache;
+
 	/**
 	 * Creates a new analyzer reporting to the given output.
 	 * 
@@ -47,53 +62,85 @@ public class ControlFlowAnalyzer extends AbstractAnalyzer {
 	 */
 	public ControlFlowAnalyzer(final AbstractExecutionDataStore executionData,
 			final ICoverageVisitor coverageVisitor) {
+		this(executionData, coverageVisitor, null);
+	}
+
+	/**
+	 * Creates a new analyzer which caches the structure of the analyzed
+	 * classes in the given directory.
+	 * 
+	 * @param executionData
+	 *            execution data
+	 * @param coverageVisitor
+	 *            the output instance that will coverage data for every analyzed
+	 *            class
+	 * @param cacheDirectory
+	 *            directory for cached class structures or <code>null</code> to
+	 *            disable the cache
+	 */
+	public ControlFlowAnalyzer(final AbstractExecutionDataStore executionData,
+			final ICoverageVisitor coverageVisitor, final File cacheDirectory) {
 		this.executionData = executionData;
 		this.coverageVisitor = coverageVisitor;
 		this.stringPool = new StringPool();
+		this.cache = cacheDirectory == null ? null : new ClassStructureCache(
+				cacheDirectory);
+	}
+
+	private ClassStructure getStructure(final ClassReader reader,
+			final long classid) {
+		ClassStructure structure = cache == null ? null : cache.get(classid);
+		if (structure == null) {
+			final ClassAnalyzer analyzer = new ClassAnalyzer(classid);
+			reader.accept(new ClassProbesAdapter(analyzer, false), 0);
+			structure = analyzer.getStructure();
+			if (cache != null) {
+				cache.put(classid, structure);
+			}
+		}
+		return structure;
 	}
 
 	/**
-	 * Creates an ASM class visitor for analysis.
+	 * Analyzes the class given as a ASM reader.
 	 * 
-	 * @param classid
-	 *            id of the class calculated with {@link CRC64}
-	 * @param className
-	 *            VM name of the class
-	 * @return ASM visitor to write class definition to
+	 * @param reader
+	 *            reader with class definitions
+	 * @return action that reports the class coverage
 	 */
-	private ClassVisitor createAnalyzingVisitor(final long classid,
-			final String className) {
+	@Override
+	protected Runnable analyze(final ClassReader reader) {
+		final long classid = CRC64.checksum(reader.b);
+		final ClassDeduplicator deduplicator = getDeduplicator();
+		IClassCoverage coverage = deduplicator == null ? null : deduplicator
+				.getCoverage(classid);
+		if (coverage == null) {
+			coverage = createCoverage(reader, classid);
+			if (deduplicator != null) {
+				coverage = deduplicator.putCoverage(coverage);
+			}
+		}
+		final IClassCoverage result = coverage;
+		return new Runnable() {
+			public void run() {
+				coverageVisitor.visitCoverage(result);
+			}
+		};
+	}
+
+	private IClassCoverage createCoverage(final ClassReader reader,
+			final long classid) {
 		final ControlFlowExecutionData data = executionData.get(classid);
 		final boolean[] probes;
 		final boolean noMatch;
 		if (data == null) {
 			probes = null;
-			noMatch = executionData.contains(className);
+			noMatch = executionData.contains(reader.getClassName());
 		} else {
 			probes = data.getProbes();
 			noMatch = false;
 		}
-		final ClassAnalyzer analyzer = new ClassAnalyzer(classid, noMatch,
-				probes, stringPool) {
-			@Override
-			public void visitEnd() {
-				super.visitEnd();
-				coverageVisitor.visitCoverage(getCoverage());
-			}
-		};
-		return new ClassProbesAdapter(analyzer, false);
-	}
-
-	/**
-	 * Analyzes the class given as a ASM reader.
-	 * 
-	 * @param reader
-	 *            reader with class definitions
-	 */
-	@Override
-	public void analyzeClass(final ClassReader reader) {
-		final ClassVisitor visitor = createAnalyzingVisitor(
-				CRC64.checksum(reader.b), reader.getClassName());
-		reader.accept(visitor, 0);
+		return getStructure(reader, classid).createCoverage(noMatch, probes,
+				stringPool);
 	}
 }
@@ -11,11 +11,16 @@
  *******************************************************************************/
 package org.jacoco.core.analysis;
 
+import java.io.File;
+
+import org.jacoco.core.analysis.dua.IDuaClassCoverage;
 import org.jacoco.core.analysis.dua.IDuaCoverageVisitor;
 import org.jacoco.core.data.AbstractExecutionDataStore;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.analysis.dua.ClassAnalyzer;
+import org.jacoco.core.internal.analysis.dua.DefUseChainCache;
+import org.jacoco.core.internal.analysis.dua.DuaClassStructure;
 import org.jacoco.core.internal.data.CRC64;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
@@ -29,6 +34,10 @@ import org.objectweb.asm.tree.ClassNode;
  * instance that holds the execution data for the classes to analyze. The
  * {@link DataflowAnalyzer} offers several methods to analyze classes from a
  * variety of sources.
+ * <p>
+ * Deriving the def-use chains of a class is expensive. Optionally the chains
+ * are stored in a cache directory keyed by the CRC64 id of the class file, so
+ * later analyses of unchanged classes only evaluate the probes.
  */
 public class DataflowAnalyzer extends AbstractAnalyzer {
 
@@ -38,15 +47,52 @@ public class DataflowAnalyzer extends AbstractAnalyzer {
 
 	private final StringPool stringPool;
 
+	private final DefUseChainCache cache;
+
+	private boolean executedClassesOnly;
+
 	/**
 	 * @param executionData
 	 * @param coverageVisitor
 	 */
 	public DataflowAnalyzer(final AbstractExecutionDataStore executionData,
 			final IDuaCoverageVisitor coverageVisitor) {
+		this(executionData, coverageVisitor, null);
+	}
+
+	/**
+	 * Creates a new analyzer which caches the def-use chains of the analyzed
+	 * classes in the given directory.
+	 * 
+	 * @param executionData
+	 *            execution data
+	 * @param coverageVisitor
+	 *            the output instance that will receive coverage data for every
+	 *            analyzed class
+	 * @param cacheDirectory
+	 *            directory for cached def-use chains or <code>null</code> to
+	 *            disable the cache
+	 */
+	public DataflowAnalyzer(final AbstractExecutionDataStore executionData,
+			final IDuaCoverageVisitor coverageVisitor, final File cacheDirectory) {
 		this.executionDataStore = executionData;
 		this.coverageVisitor = coverageVisitor;
 		this.stringPool = new StringPool();
+		this.cache = cacheDirectory == null ? null : new DefUseChainCache(
+				cacheDirectory);
+	}
+
+	/**
+	 * Sets whether classes without any executed probe are skipped. Classes
+	 * without execution data are never analyzed. By default classes with
+	 * execution data are analyzed even if none of their probes was executed.
+	 * 
+	 * @param executedClassesOnly
+	 *            if <code>true</code> only classes with executed probes are
+	 *            analyzed
+	 */
+	public void setExecutedClassesOnly(final boolean executedClassesOnly) {
+		this.executedClassesOnly = executedClassesOnly;
 	}
 
 	/**
@@ -54,35 +100,58 @@ public class DataflowAnalyzer extends AbstractAnalyzer {
 	 * 
 	 * @param reader
 	 *            reader with class definitions
+	 * @return action that reports the class coverage or <code>null</code> for
+	 *         interfaces and skipped classes
 	 */
 	@Override
-	public void analyzeClass(final ClassReader reader) {
-		final ClassNode cn = new ClassNode(Opcodes.ASM5);
-		reader.accept(cn, ClassReader.EXPAND_FRAMES);
+	protected Runnable analyze(final ClassReader reader) {
 		// do not analyze interfaces
-		if ((cn.access & Opcodes.ACC_INTERFACE) != 0) {
-			return;
+		if ((reader.getAccess() & Opcodes.ACC_INTERFACE) != 0) {
+			return null;
 		}
 
-		final boolean[] probes = getProbes(CRC64.checksum(reader.b));
+		final long classId = CRC64.checksum(reader.b);
+		final boolean[] probes = getProbes(classId);
 
 		if (probes == null) {
-			return;
+			return null;
 		}
 
-		final ClassAnalyzer analyzer = new ClassAnalyzer(cn, probes, stringPool);
+		final DuaClassStructure structure = getStructure(reader, classId);
+		final IDuaClassCoverage coverage = structure.createCoverage(probes,
+				stringPool);
+		return new Runnable() {
+			public void run() {
+				coverageVisitor.visitCoverage(coverage);
+			}
+		};
+	}
 
-		analyzer.visit(cn);
-		coverageVisitor.visitCoverage(analyzer.getCoverage());
+	private DuaClassStructure getStructure(final ClassReader reader,
+			final long classId) {
+		DuaClassStructure structure = cache == null ? null : cache
+				.get(classId);
+		if (structure == null) {
+			final ClassNode cn = new ClassNode(Opcodes.ASM5);
+			reader.accept(cn, ClassReader.EXPAND_FRAMES);
+			final ClassAnalyzer analyzer = new ClassAnalyzer(cn);
+			analyzer.visit(cn);
+			structure = analyzer.getStructure();
+			if (cache != null) {
+				cache.put(classId, structure);
+			}
+		}
+		return structure;
 	}
 
 	private boolean[] getProbes(final long classId) {
 		final ControlFlowExecutionData executionData = executionDataStore
 				.get(classId);
-		if (executionData != null) {
-			return executionData.getProbes();
+		if (executionData == null
+				|| (executedClassesOnly && !executionData.hasHits())) {
+			return null;
 		}
-		return null;
+		return executionData.getProbes();
 	}
 
 }
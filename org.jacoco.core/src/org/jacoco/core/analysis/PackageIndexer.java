@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Analyzer which only counts the class files found per package. The counts
+ * tell a {@link StreamingCoverageBuilder} when all classes of a package have
+ * been visited, so packages can be emitted even if their class files are not
+ * stored together in the inputs. The indexer must be given the same inputs
+ * and, if any, a separate {@link ClassDeduplicator} like the analyzer that
+ * creates the coverage data.
+ */
+public class PackageIndexer extends AbstractAnalyzer {
+
+	private final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+	/**
+	 * Returns the number of class files found per VM package name.
+	 * 
+	 * @return number of class files per package
+	 */
+	public Map<String, Integer> getClassCounts() {
+		return Collections.unmodifiableMap(counts);
+	}
+
+	@Override
+	protected Runnable analyze(final ClassReader reader) {
+		final String name = reader.getClassName();
+		final int pos = name.lastIndexOf('/');
+		final String pkg = pos == -1 ? "" : name.substring(0, pos);
+		return new Runnable() {
+			public void run() {
+				final Integer count = counts.get(pkg);
+				counts.put(pkg,
+						Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+			}
+		};
+	}
+
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+
+/**
+ * Builder which groups single {@link IClassCoverage} nodes by package and
+ * emits every package to a {@link IPackageCoverageVisitor} as soon as it is
+ * complete. Unlike {@link CoverageBuilder} only the classes of incomplete
+ * packages are kept in memory, for the bundle only the counters are summed up.
+ * <p>
+ * A package is complete when as many classes have been visited as given in the
+ * class counts of the package, typically determined by a
+ * {@link PackageIndexer} run over the same inputs. Packages without a count
+ * are buffered and emitted when {@link #finish()} is called, so the classes of
+ * a package may be visited in any order.
+ */
+public class StreamingCoverageBuilder implements ICoverageVisitor {
+
+	private final IPackageCoverageVisitor output;
+
+	private final Map<String, Integer> classCounts;
+
+	private final CoverageNodeImpl total;
+
+	private final Map<String, PackageBuilder> packages;
+
+	private final List<IClassCoverage> noMatchClasses;
+
+	/**
+	 * Create a new builder which emits all packages when {@link #finish()} is
+	 * called.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param output
+	 *            visitor to emit complete packages to
+	 */
+	public StreamingCoverageBuilder(final String name,
+			final IPackageCoverageVisitor output) {
+		this(name, output, Collections.<String, Integer> emptyMap());
+	}
+
+	/**
+	 * Create a new builder which emits every package as soon as the given
+	 * number of classes has been visited for it. The counts have to be
+	 * determined from the same inputs, otherwise a package may be emitted
+	 * before all of its classes have been visited.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param output
+	 *            visitor to emit complete packages to
+	 * @param classCounts
+	 *            number of classes per VM package name, including classes
+	 *            without code
+	 * @see PackageIndexer#getClassCounts()
+	 */
+	public StreamingCoverageBuilder(final String name,
+			final IPackageCoverageVisitor output,
+			final Map<String, Integer> classCounts) {
+		this.output = output;
+		this.classCounts = classCounts;
+		this.total = new CoverageNodeImpl(ElementType.BUNDLE, name);
+		this.packages = new LinkedHashMap<String, PackageBuilder>();
+		this.noMatchClasses = new ArrayList<IClassCoverage>();
+	}
+
+	/**
+	 * Returns the summed up counters of all packages emitted so far.
+	 * 
+	 * @return bundle counters
+	 */
+	public ICoverageNode getTotal() {
+		return total.getPlainCopy();
+	}
+
+	/**
+	 * Returns all classes visited so far for which execution data does not
+	 * match.
+	 * 
+	 * @see IClassCoverage#isNoMatch()
+	 * @return classes with non-matching execution data
+	 */
+	public Collection<IClassCoverage> getNoMatchClasses() {
+		return Collections.unmodifiableCollection(noMatchClasses);
+	}
+
+	/**
+	 * Emits all packages which are still buffered. This method has to be
+	 * called after all classes have been visited.
+	 */
+	public void finish() {
+		final List<PackageBuilder> remaining = new ArrayList<PackageBuilder>(
+				packages.values());
+		packages.clear();
+		for (final PackageBuilder p : remaining) {
+			emit(p);
+		}
+	}
+
+	private void emit(final PackageBuilder p) {
+		if (p.classes.isEmpty()) {
+			return;
+		}
+		final IPackageCoverage coverage = new PackageCoverageImpl(p.name,
+				new ArrayList<IClassCoverage>(p.classes.values()),
+				new ArrayList<ISourceFileCoverage>(p.sourcefiles.values()));
+		total.increment(coverage);
+		output.visitPackage(coverage);
+	}
+
+	// === ICoverageVisitor ===
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String pkg = coverage.getPackageName();
+		PackageBuilder p = packages.get(pkg);
+		if (p == null) {
+			p = new PackageBuilder(pkg);
+			packages.put(pkg, p);
+		}
+		p.visitCoverage(coverage);
+		final Integer count = classCounts.get(pkg);
+		if (count != null && p.visited >= count.intValue()) {
+			packages.remove(pkg);
+			emit(p);
+		}
+	}
+
+	private class PackageBuilder {
+
+		final String name;
+
+		final Map<String, IClassCoverage> classes = new HashMap<String, IClassCoverage>();
+
+		final Map<String, SourceFileCoverageImpl> sourcefiles = new HashMap<String, SourceFileCoverageImpl>();
+
+		int visited;
+
+		PackageBuilder(final String name) {
+			this.name = name;
+		}
+
+		void visitCoverage(final IClassCoverage coverage) {
+			visited++;
+			// Only consider classes that actually contain code:
+			if (coverage.getInstructionCounter().getTotalCount() == 0) {
+				return;
+			}
+			final String classname = coverage.getName();
+			final IClassCoverage dup = classes.put(classname, coverage);
+			if (dup != null) {
+				if (dup.getId() != coverage.getId()) {
+					throw new IllegalStateException(
+							"Can't add different class with same name: "
+									+ classname);
+				}
+				return;
+			}
+			if (coverage.isNoMatch()) {
+				noMatchClasses.add(coverage);
+			}
+			final String source = coverage.getSourceFileName();
+			if (source != null) {
+				SourceFileCoverageImpl sourcefile = sourcefiles.get(source);
+				if (sourcefile == null) {
+					sourcefile = new SourceFileCoverageImpl(source, name);
+					sourcefiles.put(source, sourcefile);
+				}
+				sourcefile.increment(coverage);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import java.util.Collection;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
+/**
+ * Implementation of {@link IDuaBundleCoverage}.
+ */
+public class DuaBundleCoverage implements IDuaBundleCoverage {
+
+	private final String name;
+
+	private final Collection<IDuaPackageCoverage> packages;
+
+	private final ICounter duaCounter;
+
+	/**
+	 * Creates a new bundle with the given packages. The dua counter is
+	 * calculated from the counters of the packages.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param packages
+	 *            all packages of this bundle
+	 */
+	public DuaBundleCoverage(final String name,
+			final Collection<IDuaPackageCoverage> packages) {
+		this.name = name;
+		this.packages = packages;
+		CounterImpl counter = CounterImpl.COUNTER_0_0;
+		for (final IDuaPackageCoverage p : packages) {
+			counter = counter.increment(p.getDuaCounter());
+		}
+		this.duaCounter = counter;
+	}
+
+	// === IDuaBundleCoverage implementation ===
+
+	public String getName() {
+		return name;
+	}
+
+	public Collection<IDuaPackageCoverage> getPackages() {
+		return packages;
+	}
+
+	public ICounter getDuaCounter() {
+		return duaCounter;
+	}
+
+	@Override
+	public String toString() {
+		return "DuaBundleCoverage [name=" + name + ", duaCounter="
+				+ duaCounter + "]";
+	}
+
+}
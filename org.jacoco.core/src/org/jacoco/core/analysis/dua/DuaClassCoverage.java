@@ -15,6 +15,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
 public class DuaClassCoverage implements IDuaClassCoverage {
 
 	private final long id;
@@ -24,6 +27,7 @@ public class DuaClassCoverage implements IDuaClassCoverage {
 	private final String[] interfaces;
 	private final Collection<IDuaMethodCoverage> methods;
 	private String sourceFileName;
+	private CounterImpl duaCounter = CounterImpl.COUNTER_0_0;
 
 	public DuaClassCoverage(final String name, final long id, final String signature, final String superName,
 			final String[] interfaces) {
@@ -44,6 +48,7 @@ public class DuaClassCoverage implements IDuaClassCoverage {
 	 */
 	public void addMethod(final IDuaMethodCoverage method) {
 		this.methods.add(method);
+		duaCounter = duaCounter.increment(method.getDuaCounter());
 	}
 
 	public long getId() {
@@ -66,6 +71,10 @@ public class DuaClassCoverage implements IDuaClassCoverage {
 		return methods;
 	}
 
+	public ICounter getDuaCounter() {
+		return duaCounter;
+	}
+
 	public String getPackageName() {
 		final int pos = getName().lastIndexOf('/');
 		return pos == -1 ? "" : getName().substring(0, pos);
@@ -11,30 +11,42 @@
  *******************************************************************************/
 package org.jacoco.core.analysis.dua;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-///**
-// * Builder for hierarchical {@link ICoverageNode} structures from single
-// * {@link IClassCoverage} nodes. The nodes are feed into the builder through its
-// * {@link ICoverageVisitor} interface. Afterwards the aggregated data can be
-// * obtained with {@link #getClasses()}, {@link #getSourceFiles()} or
-// * {@link #getBundle(String)} in the following hierarchy:
-// * 
-// * <pre>
-// * {@link IBundleCoverage}
-// * +-- {@link IPackageCoverage}*
-// *     +-- {@link IClassCoverage}*
-// *     +-- {@link ISourceFileCoverage}*
-// * </pre>
-// */
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
+/**
+ * Builder for hierarchical {@link IDuaCoverageNode} structures from single
+ * {@link IDuaClassCoverage} nodes. The nodes are feed into the builder through
+ * its {@link IDuaCoverageVisitor} interface. Afterwards the aggregated data can
+ * be obtained with {@link #getClasses()}, {@link #getSourceFiles()},
+ * {@link #getPackages()} or {@link #getBundle(String)} in the following
+ * hierarchy:
+ * 
+ * <pre>
+ * {@link IDuaBundleCoverage}
+ * +-- {@link IDuaPackageCoverage}*
+ *     +-- {@link IDuaClassCoverage}*
+ *     +-- {@link IDuaSourceFileCoverage}*
+ * </pre>
+ * 
+ * The dua counters of source files, packages and the bundle are incremented
+ * while classes are visited, so they never require iterating the duas.
+ */
 public class DuaCoverageBuilder implements IDuaCoverageVisitor {
 
 	private final Map<String, IDuaClassCoverage> classes;
 
-	// private final Map<String, ISourceFileCoverage> sourcefiles;
+	private final Map<String, DuaSourceFileCoverage> sourcefiles;
+
+	private final Map<String, DuaPackageCoverage> packages;
+
+	private CounterImpl duaCounter;
 
 	/**
 	 * Create a new builder.
@@ -42,7 +54,9 @@ public class DuaCoverageBuilder implements IDuaCoverageVisitor {
 	 */
 	public DuaCoverageBuilder() {
 		this.classes = new HashMap<String, IDuaClassCoverage>();
-		// this.sourcefiles = new HashMap<String, ISourceFileCoverage>();
+		this.sourcefiles = new HashMap<String, DuaSourceFileCoverage>();
+		this.packages = new HashMap<String, DuaPackageCoverage>();
+		this.duaCounter = CounterImpl.COUNTER_0_0;
 	}
 
 	/**
@@ -54,18 +68,95 @@ public class DuaCoverageBuilder implements IDuaCoverageVisitor {
 		return Collections.unmodifiableCollection(classes.values());
 	}
 
+	/**
+	 * Returns all source file nodes currently contained in this builder.
+	 * 
+	 * @return all source file nodes
+	 */
+	public Collection<IDuaSourceFileCoverage> getSourceFiles() {
+		return Collections
+				.<IDuaSourceFileCoverage> unmodifiableCollection(sourcefiles
+						.values());
+	}
+
+	/**
+	 * Returns all package nodes currently contained in this builder.
+	 * 
+	 * @return all package nodes
+	 */
+	public Collection<IDuaPackageCoverage> getPackages() {
+		return Collections
+				.<IDuaPackageCoverage> unmodifiableCollection(packages.values());
+	}
+
+	/**
+	 * Returns the counter of covered and missed duas of all classes currently
+	 * contained in this builder.
+	 * 
+	 * @return dua counter
+	 */
+	public ICounter getDuaCounter() {
+		return duaCounter;
+	}
+
+	/**
+	 * Creates a bundle from all nodes currently contained in this bundle.
+	 * 
+	 * @param name
+	 *            Name of the bundle
+	 * @return bundle containing all packages
+	 */
+	public IDuaBundleCoverage getBundle(final String name) {
+		return new DuaBundleCoverage(name, new ArrayList<IDuaPackageCoverage>(
+				packages.values()));
+	}
+
+	// === IDuaCoverageVisitor ===
+
 	public void visitCoverage(final IDuaClassCoverage coverage) {
-		//SYSO System.out.println("DuaCoverageBuilder.visitCoverage");
 		// Only consider classes that contain at least one method:
 		if (coverage.getMethods().size() > 0) {
-			//SYSO System.out.println("DuaCoverageBuilder.visitCoverage #methods > 0");
 			final String name = coverage.getName();
 			final IDuaClassCoverage dup = classes.put(name, coverage);
-			if (dup != null && dup.getId() != coverage.getId()) {
-				throw new IllegalStateException(
-						"Can't add different class with same name: " + name);
+			if (dup != null) {
+				if (dup.getId() != coverage.getId()) {
+					throw new IllegalStateException(
+							"Can't add different class with same name: " + name);
+				}
+				// The same class has already been counted:
+				classes.put(name, dup);
+				return;
 			}
+			duaCounter = duaCounter.increment(coverage.getDuaCounter());
+			final DuaPackageCoverage pkg = getPackage(coverage
+					.getPackageName());
+			pkg.addClass(coverage);
+			final String source = coverage.getSourceFileName();
+			if (source != null) {
+				getSourceFile(source, pkg).addClass(coverage);
+			}
+		}
+	}
+
+	private DuaPackageCoverage getPackage(final String packagename) {
+		DuaPackageCoverage pkg = packages.get(packagename);
+		if (pkg == null) {
+			pkg = new DuaPackageCoverage(packagename);
+			packages.put(packagename, pkg);
+		}
+		return pkg;
+	}
+
+	private DuaSourceFileCoverage getSourceFile(final String filename,
+			final DuaPackageCoverage pkg) {
+		final String key = pkg.getName() + '/' + filename;
+		DuaSourceFileCoverage sourcefile = sourcefiles.get(key);
+		if (sourcefile == null) {
+			sourcefile = new DuaSourceFileCoverage(filename, pkg.getName());
+			sourcefiles.put(key, sourcefile);
+			pkg.addSourceFile(sourcefile);
 		}
+		return sourcefile;
 	}
 
-}
\ No newline at end of file
+}
@@ -11,26 +11,118 @@
  *******************************************************************************/
 package org.jacoco.core.analysis.dua;
 
-import java.util.ArrayList;
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
+/**
+ * Data-flow coverage of a single method. The duas are stored column-wise in
+ * primitive arrays: one entry per dua for the index, definition, use and target
+ * line, an index into a table of variable names and one bit for the status.
+ * The {@link IDua} instances returned by {@link #getDuas()} are lightweight
+ * views on these columns.
+ */
 public class DuaMethodCoverage implements IDuaMethodCoverage {
 
+	private static final int[] EMPTY = new int[0];
+
 	private final int id;
 	private final String name;
 	private final String desc;
 	private final String signature;
-	private final Collection<IDua> duas;
 	private final boolean isStatic;
 
-	public DuaMethodCoverage(final int id, final String name, final String desc, final String signature, boolean isStatic) {
-		super();
+	private int size;
+	private int[] index;
+	private int[] def;
+	private int[] use;
+	private int[] target;
+	private int[] var;
+	private String[] varNames;
+	private int varNameCount;
+	private long[] covered;
+	private CounterImpl duaCounter;
+
+	/**
+	 * Creates a method without duas.
+	 * 
+	 * @param id
+	 *            method id
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param isStatic
+	 *            <code>true</code> for static methods
+	 */
+	public DuaMethodCoverage(final int id, final String name,
+			final String desc, final String signature, final boolean isStatic) {
+		this(id, name, desc, signature, isStatic, EMPTY, EMPTY, EMPTY, EMPTY,
+				EMPTY, new String[0], new long[0]);
+	}
+
+	/**
+	 * Creates a method with the given duas. The arrays are not copied and must
+	 * not be modified afterwards, so they can be shared by several coverage
+	 * instances.
+	 * 
+	 * @param id
+	 *            method id
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param isStatic
+	 *            <code>true</code> for static methods
+	 * @param index
+	 *            index of every dua
+	 * @param def
+	 *            definition line of every dua
+	 * @param use
+	 *            use line of every dua
+	 * @param target
+	 *            target line of every dua or <code>-1</code>
+	 * @param var
+	 *            index of the variable name of every dua in
+	 *            <code>varNames</code>
+	 * @param varNames
+	 *            table of variable names
+	 * @param covered
+	 *            bit set of the covered duas
+	 */
+	public DuaMethodCoverage(final int id, final String name,
+			final String desc, final String signature, final boolean isStatic,
+			final int[] index, final int[] def, final int[] use,
+			final int[] target, final int[] var, final String[] varNames,
+			final long[] covered) {
 		this.id = id;
 		this.name = name;
 		this.desc = desc;
 		this.signature = signature;
-		this.duas = new ArrayList<IDua>();
-		this.isStatic=isStatic;
+		this.isStatic = isStatic;
+		this.size = index.length;
+		this.index = index;
+		this.def = def;
+		this.use = use;
+		this.target = target;
+		this.var = var;
+		this.varNames = varNames;
+		this.varNameCount = varNames.length;
+		this.covered = covered;
+		int coveredCount = 0;
+		for (final long word : covered) {
+			coveredCount += Long.bitCount(word);
+		}
+		this.duaCounter = CounterImpl.getInstance(size - coveredCount,
+				coveredCount);
 	}
 
 	/**
@@ -40,7 +132,60 @@ public class DuaMethodCoverage implements IDuaMethodCoverage {
 	 *            dua to add
 	 */
 	public void addDua(final IDua dua) {
-		this.duas.add(dua);
+		if (size == index.length) {
+			grow();
+		}
+		index[size] = dua.getIndex();
+		def[size] = dua.getDef();
+		use[size] = dua.getUse();
+		target[size] = dua.getTarget();
+		var[size] = getVarIndex(dua.getVar());
+		if (dua.getStatus() == ICounter.FULLY_COVERED) {
+			covered[size >>> 6] |= 1L << size;
+			duaCounter = duaCounter.increment(0, 1);
+		} else {
+			duaCounter = duaCounter.increment(1, 0);
+		}
+		size++;
+	}
+
+	/**
+	 * Replaces the columns by larger copies. Columns passed to the constructor
+	 * are never modified this way.
+	 */
+	private void grow() {
+		final int capacity = Math.max(8, size * 2);
+		index = copy(index, capacity);
+		def = copy(def, capacity);
+		use = copy(use, capacity);
+		target = copy(target, capacity);
+		var = copy(var, capacity);
+		final long[] newCovered = new long[(capacity + 63) >>> 6];
+		System.arraycopy(covered, 0, newCovered, 0, covered.length);
+		covered = newCovered;
+	}
+
+	private static int[] copy(final int[] column, final int capacity) {
+		final int[] newColumn = new int[capacity];
+		System.arraycopy(column, 0, newColumn, 0, column.length);
+		return newColumn;
+	}
+
+	private int getVarIndex(final String varName) {
+		for (int i = 0; i < varNameCount; i++) {
+			if (varNames[i] == null ? varName == null : varNames[i]
+					.equals(varName)) {
+				return i;
+			}
+		}
+		if (varNameCount == varNames.length) {
+			final String[] newNames = new String[Math.max(4,
+					varNameCount * 2)];
+			System.arraycopy(varNames, 0, newNames, 0, varNameCount);
+			varNames = newNames;
+		}
+		varNames[varNameCount] = varName;
+		return varNameCount++;
 	}
 
 	public int getId() {
@@ -60,17 +205,96 @@ public class DuaMethodCoverage implements IDuaMethodCoverage {
 	}
 
 	public Collection<IDua> getDuas() {
-		return duas;
+		return new AbstractCollection<IDua>() {
+
+			@Override
+			public Iterator<IDua> iterator() {
+				return new Iterator<IDua>() {
+
+					private int next = 0;
+
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					public IDua next() {
+						if (next >= size) {
+							throw new NoSuchElementException();
+						}
+						return new DuaView(next++);
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	public ICounter getDuaCounter() {
+		return duaCounter;
 	}
 
 	@Override
 	public String toString() {
-		return "DuaMethodCoverage [id=" + id + ", name=" + name + ", desc=" + desc + ", signature=" + signature
-				+ ", duas=" + duas + "]";
+		return "DuaMethodCoverage [id=" + id + ", name=" + name + ", desc="
+				+ desc + ", signature=" + signature + ", duas=" + getDuas()
+				+ "]";
 	}
 
 	public boolean isStaticMethod() {
 		return isStatic;
 	}
 
+	/**
+	 * View on the columns of a single dua.
+	 */
+	private class DuaView implements IDua {
+
+		private final int i;
+
+		DuaView(final int i) {
+			this.i = i;
+		}
+
+		public int getIndex() {
+			return index[i];
+		}
+
+		public int getDef() {
+			return def[i];
+		}
+
+		public int getUse() {
+			return use[i];
+		}
+
+		public int getTarget() {
+			return target[i];
+		}
+
+		public String getVar() {
+			return varNames[var[i]];
+		}
+
+		public int getStatus() {
+			return (covered[i >>> 6] & (1L << i)) != 0 ? ICounter.FULLY_COVERED
+					: ICounter.NOT_COVERED;
+		}
+
+		@Override
+		public String toString() {
+			return "Dua [def=" + getDef() + ", use=" + getUse() + ", target="
+					+ getTarget() + ", var=" + getVar() + ", status="
+					+ getStatus() + "]";
+		}
+
+	}
+
 }
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
+/**
+ * Implementation of {@link IDuaPackageCoverage}. Classes and source files are
+ * added incrementally, the dua counter is the sum of the counters of all
+ * classes added so far.
+ */
+public class DuaPackageCoverage implements IDuaPackageCoverage {
+
+	private final String name;
+
+	private final Collection<IDuaClassCoverage> classes;
+
+	private final Collection<IDuaSourceFileCoverage> sourceFiles;
+
+	private CounterImpl duaCounter = CounterImpl.COUNTER_0_0;
+
+	/**
+	 * Creates an empty package node for a package with the given name.
+	 * 
+	 * @param name
+	 *            vm name of the package
+	 */
+	public DuaPackageCoverage(final String name) {
+		this.name = name;
+		this.classes = new ArrayList<IDuaClassCoverage>();
+		this.sourceFiles = new ArrayList<IDuaSourceFileCoverage>();
+	}
+
+	/**
+	 * Adds a class to this package and increments the dua counter by the
+	 * counter of the class.
+	 * 
+	 * @param coverage
+	 *            class to add
+	 */
+	public void addClass(final IDuaClassCoverage coverage) {
+		classes.add(coverage);
+		duaCounter = duaCounter.increment(coverage.getDuaCounter());
+	}
+
+	/**
+	 * Adds a source file to this package. The counter of the package is not
+	 * modified, as it already includes the classes of the source file.
+	 * 
+	 * @param sourceFile
+	 *            source file to add
+	 */
+	public void addSourceFile(final IDuaSourceFileCoverage sourceFile) {
+		sourceFiles.add(sourceFile);
+	}
+
+	// === IDuaPackageCoverage implementation ===
+
+	public String getName() {
+		return name;
+	}
+
+	public Collection<IDuaClassCoverage> getClasses() {
+		return classes;
+	}
+
+	public Collection<IDuaSourceFileCoverage> getSourceFiles() {
+		return sourceFiles;
+	}
+
+	public ICounter getDuaCounter() {
+		return duaCounter;
+	}
+
+	@Override
+	public String toString() {
+		return "DuaPackageCoverage [name=" + name + ", duaCounter="
+				+ duaCounter + "]";
+	}
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+
+/**
+ * Implementation of {@link IDuaSourceFileCoverage}.
+ */
+public class DuaSourceFileCoverage implements IDuaSourceFileCoverage {
+
+	private final String name;
+
+	private final String packageName;
+
+	private final Collection<IDuaClassCoverage> classes;
+
+	private CounterImpl duaCounter = CounterImpl.COUNTER_0_0;
+
+	/**
+	 * Creates a source file data object with the given parameters.
+	 * 
+	 * @param name
+	 *            name of the source file
+	 * @param packageName
+	 *            vm name of the package the source file belongs to
+	 */
+	public DuaSourceFileCoverage(final String name, final String packageName) {
+		this.name = name;
+		this.packageName = packageName;
+		this.classes = new ArrayList<IDuaClassCoverage>();
+	}
+
+	/**
+	 * Adds a class defined in this source file and increments the dua counter
+	 * by the counter of the class.
+	 * 
+	 * @param coverage
+	 *            class to add
+	 */
+	public void addClass(final IDuaClassCoverage coverage) {
+		classes.add(coverage);
+		duaCounter = duaCounter.increment(coverage.getDuaCounter());
+	}
+
+	// === IDuaSourceFileCoverage implementation ===
+
+	public String getName() {
+		return name;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public Collection<IDuaClassCoverage> getClasses() {
+		return classes;
+	}
+
+	public ICounter getDuaCounter() {
+		return duaCounter;
+	}
+
+	@Override
+	public String toString() {
+		return "DuaSourceFileCoverage [name=" + name + ", packageName="
+				+ packageName + ", duaCounter=" + duaCounter + "]";
+	}
+
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import java.util.Collection;
+
+/**
+ * Data-flow coverage of a bundle of Java packages.
+ * 
+ * @see IDuaPackageCoverage
+ */
+public interface IDuaBundleCoverage extends IDuaCoverageNode {
+
+	/**
+	 * Returns all packages contained in this bundle.
+	 * 
+	 * @return all packages
+	 */
+	public Collection<IDuaPackageCoverage> getPackages();
+
+}
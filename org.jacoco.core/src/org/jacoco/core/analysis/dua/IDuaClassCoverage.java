@@ -13,13 +13,15 @@ package org.jacoco.core.analysis.dua;
 
 import java.util.Collection;
 
+import org.jacoco.core.analysis.ICounter;
+
 /**
  * Coverage data of a single class containing methods. The name of this node is
  * the fully qualified class name in VM notation (slash separated).
  * 
  * @see IDuaMethodCoverage
  */
-public interface IDuaClassCoverage {
+public interface IDuaClassCoverage extends IDuaCoverageNode {
 
 	/**
 	 * Returns the identifier for this class which is the CRC64 signature of the
@@ -56,6 +58,14 @@ public interface IDuaClassCoverage {
 	 * @return methods of this class
 	 */
 	public Collection<IDuaMethodCoverage> getMethods();
+
+	/**
+	 * Returns the counter of covered and missed duas of all methods of this
+	 * class.
+	 * 
+	 * @return dua counter
+	 */
+	public ICounter getDuaCounter();
 	
 	/**
 	 * Returns the VM signature of the class.
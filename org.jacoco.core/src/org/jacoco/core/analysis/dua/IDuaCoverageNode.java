@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import org.jacoco.core.analysis.ICounter;
+
+/**
+ * Common interface of all nodes of the data-flow coverage hierarchy. The dua
+ * counter of a node is maintained while the node is built, so it is available
+ * without iterating the duas of the node.
+ */
+public interface IDuaCoverageNode {
+
+	/**
+	 * Returns the name of this node.
+	 * 
+	 * @return name of this node
+	 */
+	public String getName();
+
+	/**
+	 * Returns the counter of covered and missed duas of this node.
+	 * 
+	 * @return dua counter
+	 */
+	public ICounter getDuaCounter();
+
+}
@@ -13,10 +13,12 @@ package org.jacoco.core.analysis.dua;
 
 import java.util.Collection;
 
+import org.jacoco.core.analysis.ICounter;
+
 /**
  * Coverage data of a single method.
  */
-public interface IDuaMethodCoverage {
+public interface IDuaMethodCoverage extends IDuaCoverageNode {
 
 	/**
 	 * Returns the id of this node. The first method id is equals to 1, the
@@ -53,6 +55,14 @@ public interface IDuaMethodCoverage {
 	 * @return duas of this method
 	 */
 	public Collection<IDua> getDuas();
+
+	/**
+	 * Returns the counter of covered and missed duas of this method. The
+	 * counter is available without iterating the duas.
+	 * 
+	 * @return dua counter
+	 */
+	public ICounter getDuaCounter();
 	
 	
 	public boolean isStaticMethod();
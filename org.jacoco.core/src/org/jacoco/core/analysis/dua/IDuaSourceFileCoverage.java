@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis.dua;
+
+import java.util.Collection;
+
+/**
+ * Data-flow coverage of a single source file. The name of this node is the
+ * file name without path.
+ */
+public interface IDuaSourceFileCoverage extends IDuaCoverageNode {
+
+	/**
+	 * Returns the VM name of the package the source file belongs to.
+	 * 
+	 * @return package name
+	 */
+	public String getPackageName();
+
+	/**
+	 * Returns all classes defined in this source file.
+	 * 
+	 * @return classes of this source file
+	 */
+	public Collection<IDuaClassCoverage> getClasses();
+
+}
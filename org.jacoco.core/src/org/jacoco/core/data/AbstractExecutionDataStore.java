@@ -12,10 +12,10 @@
 package org.jacoco.core.data;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jacoco.core.internal.data.LongHashMap;
 
 /**
  * In-memory data store for execution data. The data can be added through its
@@ -23,20 +23,22 @@ import java.util.concurrent.ConcurrentHashMap;
  * multiple times for the same class the data is merged, i.e. a probe is marked
  * as executed if it is reported as executed at least once. This allows to merge
  * coverage date from multiple runs. A instance of this class is not thread
- * safe.
+ * safe, except for {@link #get(Long, String, int)} which may be called
+ * concurrently with any other method without locking.
  */
 public abstract class AbstractExecutionDataStore implements
 		IExecutionDataVisitor {
 
-	// HLR TODO check if it is necessary to use ConcurrentHashMap
-	protected final Map<Long, ControlFlowExecutionData> entries = new ConcurrentHashMap<Long, ControlFlowExecutionData>();
+	private final LongHashMap<ControlFlowExecutionData> entries = new LongHashMap<ControlFlowExecutionData>();
 
-	protected final Set<String> names = new HashSet<String>();
+	/** VM names of all contained classes mapped to a canonical instance */
+	private final ConcurrentMap<String, String> names = new ConcurrentHashMap<String, String>();
 
 	/**
 	 * Adds the given {@link ControlFlowExecutionData} object into the store. If
 	 * there is already execution data with this same class id, this structure
-	 * is merged with the given one.
+	 * is merged with the given one. {@link DataFlowExecutionData} objects are
+	 * merged word by word.
 	 * 
 	 * @param data
 	 *            execution data to add or merge
@@ -47,11 +49,10 @@ public abstract class AbstractExecutionDataStore implements
 	 */
 	public void put(final ControlFlowExecutionData data)
 			throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ControlFlowExecutionData entry = entries.get(id);
+		final ControlFlowExecutionData entry = entries.putIfAbsent(
+				data.getId(), data);
 		if (entry == null) {
-			entries.put(id, data);
-			names.add(data.getName());
+			names.putIfAbsent(data.getName(), data.getName());
 		} else {
 			entry.merge(data);
 		}
@@ -73,8 +74,7 @@ public abstract class AbstractExecutionDataStore implements
 	 */
 	public void subtract(final ControlFlowExecutionData data)
 			throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ControlFlowExecutionData entry = entries.get(id);
+		final ControlFlowExecutionData entry = entries.get(data.getId());
 		if (entry != null) {
 			entry.merge(data, false);
 		}
@@ -87,7 +87,7 @@ public abstract class AbstractExecutionDataStore implements
 	 *            execution data store to subtract
 	 * @see #subtract(ControlFlowExecutionData)
 	 */
-	public void subtract(final ControlFlowExecutionDataStore store) {
+	public void subtract(final AbstractExecutionDataStore store) {
 		for (final ControlFlowExecutionData data : store.getContents()) {
 			subtract(data);
 		}
@@ -102,7 +102,7 @@ public abstract class AbstractExecutionDataStore implements
 	 * @return execution data or <code>null</code>
 	 */
 	public ControlFlowExecutionData get(final long id) {
-		return entries.get(Long.valueOf(id));
+		return entries.get(id);
 	}
 
 	/**
@@ -115,12 +115,15 @@ public abstract class AbstractExecutionDataStore implements
 	 *         contained.
 	 */
 	public boolean contains(final String name) {
-		return names.contains(name);
+		return names.containsKey(name);
 	}
 
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
+	 * This method is thread safe and does not block for existing entries: If
+	 * several threads register the same class concurrently all of them get the
+	 * same instance.
 	 * 
 	 * @param id
 	 *            class identifier
@@ -130,17 +133,52 @@ public abstract class AbstractExecutionDataStore implements
 	 *            probe data length
 	 * @return execution data
 	 */
-	public abstract ControlFlowExecutionData get(final Long id,
+	public ControlFlowExecutionData get(final Long id, final String name,
+			final int probecount) {
+		final long key = id.longValue();
+		ControlFlowExecutionData entry = entries.get(key);
+		if (entry == null) {
+			final ControlFlowExecutionData newEntry = newEntry(key,
+					canonicalName(name), probecount);
+			entry = entries.putIfAbsent(key, newEntry);
+			if (entry == null) {
+				return newEntry;
+			}
+		}
+		entry.assertCompatibility(key, name, probecount);
+		return entry;
+	}
+
+	/**
+	 * Creates a new entry of the type held by this store.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return new execution data with all probes set to <code>false</code>
+	 */
+	protected abstract ControlFlowExecutionData newEntry(final long id,
 			final String name, final int probecount);
 
+	private String canonicalName(final String name) {
+		final String existing = names.putIfAbsent(name, name);
+		return existing == null ? name : existing;
+	}
+
 	/**
 	 * Resets all execution data probes, i.e. marks them as not executed. The
-	 * execution data objects itself are not removed.
+	 * execution data objects itself are not removed. Only entries with executed
+	 * probes are written to, clean entries are just checked.
 	 */
 	public void reset() {
 		for (final ControlFlowExecutionData executionData : this.entries
 				.values()) {
-			executionData.reset();
+			if (executionData.hasHits()) {
+				executionData.reset();
+			}
 		}
 	}
 
@@ -165,6 +203,29 @@ public abstract class AbstractExecutionDataStore implements
 		}
 	}
 
+	/**
+	 * Writes all entries with at least one executed probe to the given visitor
+	 * interface. Entries without hits are skipped. If requested every visited
+	 * entry is reset directly after it has been written, so entries which have
+	 * not been executed are never modified.
+	 * 
+	 * @param visitor
+	 *            interface to write content to
+	 * @param reset
+	 *            if <code>true</code> the visited entries are reset
+	 */
+	public void acceptHits(final IExecutionDataVisitor visitor,
+			final boolean reset) {
+		for (final ControlFlowExecutionData data : entries.values()) {
+			if (data.hasHits()) {
+				visitor.visitClassExecution(data);
+				if (reset) {
+					data.reset();
+				}
+			}
+		}
+	}
+
 	// === IExecutionDataVisitor ===
 
 	public void visitClassExecution(final ControlFlowExecutionData data) {
@@ -157,6 +157,11 @@ public class ControlFlowExecutionData {
 	 *            merge mode
 	 */
 	public void merge(final ControlFlowExecutionData other, final boolean flag) {
+		if (other instanceof DataFlowExecutionData) {
+			throw new IllegalStateException(format(
+					"Incompatible execution data for class %s with id %016x.",
+					other.getName(), Long.valueOf(other.getId())));
+		}
 		assertCompatibility(other.getId(), other.getName(),
 				other.getProbes().length);
 		final boolean[] otherData = other.getProbes();
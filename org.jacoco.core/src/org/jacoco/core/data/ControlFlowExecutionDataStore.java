@@ -14,16 +14,8 @@ package org.jacoco.core.data;
 public final class ControlFlowExecutionDataStore extends AbstractExecutionDataStore {
 
 	@Override
-	public ControlFlowExecutionData get(final Long id, final String name,
-			final int probecount) {
-		ControlFlowExecutionData entry = (ControlFlowExecutionData) entries.get(id);
-		if (entry == null) {
-			entry = new ControlFlowExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
-			names.add(name);
-		} else {
-			entry.assertCompatibility(id.longValue(), name, probecount);
-		}
-		return entry;
+	protected ControlFlowExecutionData newEntry(final long id,
+			final String name, final int probecount) {
+		return new ControlFlowExecutionData(id, name, probecount);
 	}
 }
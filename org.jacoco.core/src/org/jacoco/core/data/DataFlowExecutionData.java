@@ -12,27 +12,63 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
+import static java.lang.String.format;
+
 import java.util.Arrays;
 
 import br.usp.each.saeg.commons.BitSetIterator;
 import br.usp.each.saeg.commons.BitSetUtils;
 
+/**
+ * Data-flow execution data for a single Java class. The probes are stored as a
+ * bit set in an array of type <code>long[]</code>, where each word holds 64
+ * probes. Merge, subtraction and hit checks operate on whole words.
+ */
 public class DataFlowExecutionData extends ControlFlowExecutionData {
 
 	private final long[] longProbes;
 
+	/**
+	 * Creates a new {@link DataFlowExecutionData} object with the given probe
+	 * words.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param probes
+	 *            probe words
+	 */
 	public DataFlowExecutionData(final long id, final String name,
 			final long[] probes) {
 		super(id, name, new boolean[] {});
 		this.longProbes = probes;
 	}
 
+	/**
+	 * Creates a new {@link DataFlowExecutionData} object with the given number
+	 * of probe words. All probes are set to <code>false</code>.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param probeCount
+	 *            number of probe words
+	 */
 	public DataFlowExecutionData(final long id, final String name,
 			final int probeCount) {
 		super(id, name, new boolean[] {});
 		this.longProbes = new long[probeCount];
 	}
 
+	/**
+	 * Returns a copy of the probe words expanded to a <code>boolean[]</code>
+	 * with 64 entries per word. Modifications of the returned array are not
+	 * reflected in this object.
+	 * 
+	 * @return expanded probe data
+	 */
 	@Override
 	public boolean[] getProbes() {
 		final boolean[] booleanProbes = new boolean[longProbes.length * 64];
@@ -41,10 +77,15 @@ public class DataFlowExecutionData extends ControlFlowExecutionData {
 		while (it.hasNext()) {
 			booleanProbes[it.next()] = true;
 		}
-		this.probes = booleanProbes;
 		return booleanProbes;
 	}
 
+	/**
+	 * Returns the probe words. A set bit indicates that the corresponding probe
+	 * was executed.
+	 * 
+	 * @return probe words
+	 */
 	public long[] getLongProbes() {
 		return longProbes;
 	}
@@ -56,8 +97,8 @@ public class DataFlowExecutionData extends ControlFlowExecutionData {
 	 */
 	@Override
 	public boolean hasHits() {
-		for (final boolean p : getProbes()) {
-			if (p) {
+		for (final long w : longProbes) {
+			if (w != 0) {
 				return true;
 			}
 		}
@@ -69,8 +110,87 @@ public class DataFlowExecutionData extends ControlFlowExecutionData {
 	 */
 	@Override
 	public void reset() {
-		Arrays.fill(probes, false);
 		Arrays.fill(longProbes, 0);
 	}
 
+	/**
+	 * Merges the given data-flow execution data into the probe words of this
+	 * object. For <code>flag==true</code> this corresponds to
+	 * 
+	 * <pre>
+	 * A or B
+	 * </pre>
+	 * 
+	 * for <code>flag==false</code> to
+	 * 
+	 * <pre>
+	 * A and not B
+	 * </pre>
+	 * 
+	 * The probe words of the other object are not modified.
+	 * 
+	 * @param other
+	 *            execution data to merge, must be a
+	 *            {@link DataFlowExecutionData} instance
+	 * @param flag
+	 *            merge mode
+	 * @throws IllegalStateException
+	 *             if the other object is not a compatible
+	 *             {@link DataFlowExecutionData} instance
+	 */
+	@Override
+	public void merge(final ControlFlowExecutionData other, final boolean flag) {
+		if (!(other instanceof DataFlowExecutionData)) {
+			throw new IllegalStateException(format(
+					"Incompatible execution data for class %s with id %016x.",
+					other.getName(), Long.valueOf(other.getId())));
+		}
+		final long[] otherData = ((DataFlowExecutionData) other)
+				.getLongProbes();
+		assertCompatibility(other.getId(), other.getName(), otherData.length);
+		if (flag) {
+			for (int i = 0; i < longProbes.length; i++) {
+				longProbes[i] |= otherData[i];
+			}
+		} else {
+			for (int i = 0; i < longProbes.length; i++) {
+				longProbes[i] &= ~otherData[i];
+			}
+		}
+	}
+
+	/**
+	 * Asserts that this execution data object is compatible with the given
+	 * parameters. For data-flow execution data the probe count is the number of
+	 * probe words.
+	 * 
+	 * @param id
+	 *            other class id, must be the same
+	 * @param name
+	 *            other name, must be equal to this name
+	 * @param probecount
+	 *            number of probe words, must be the same as for this data
+	 * @throws IllegalStateException
+	 *             if the given parameters do not match this instance
+	 */
+	@Override
+	public void assertCompatibility(final long id, final String name,
+			final int probecount) throws IllegalStateException {
+		if (getId() != id) {
+			throw new IllegalStateException(format(
+					"Different ids (%016x and %016x).", Long.valueOf(getId()),
+					Long.valueOf(id)));
+		}
+		if (!getName().equals(name)) {
+			throw new IllegalStateException(format(
+					"Different class names %s and %s for id %016x.", getName(),
+					name, Long.valueOf(id)));
+		}
+		if (longProbes.length != probecount) {
+			throw new IllegalStateException(format(
+					"Incompatible execution data for class %s with id %016x.",
+					name, Long.valueOf(id)));
+		}
+	}
+
 }
@@ -11,20 +11,49 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
+import static java.lang.String.format;
+
+/**
+ * In-memory data store for {@link DataFlowExecutionData}. Control-flow
+ * execution data is rejected, so all entries of this store are data-flow
+ * entries.
+ */
 public final class DataFlowExecutionDataStore extends
 		AbstractExecutionDataStore {
 
+	/**
+	 * Adds the given {@link DataFlowExecutionData} object into the store. If
+	 * there is already execution data with this same class id, this structure
+	 * is merged with the given one.
+	 * 
+	 * @param data
+	 *            execution data to add or merge, must be a
+	 *            {@link DataFlowExecutionData} instance
+	 * @throws IllegalStateException
+	 *             if the given object is not a {@link DataFlowExecutionData}
+	 *             instance or not compatible to a corresponding one, that is
+	 *             already contained
+	 */
+	@Override
+	public void put(final ControlFlowExecutionData data)
+			throws IllegalStateException {
+		if (!(data instanceof DataFlowExecutionData)) {
+			throw new IllegalStateException(format(
+					"Control-flow execution data for class %s with id %016x.",
+					data.getName(), Long.valueOf(data.getId())));
+		}
+		super.put(data);
+	}
+
 	@Override
 	public DataFlowExecutionData get(final Long id, final String name,
 			final int probecount) {
-		DataFlowExecutionData entry = (DataFlowExecutionData) entries.get(id);
-		if (entry == null) {
-			entry = new DataFlowExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
-			names.add(name);
-		} else {
-			entry.assertCompatibility(id.longValue(), name, probecount);
-		}
-		return entry;
+		return (DataFlowExecutionData) super.get(id, name, probecount);
+	}
+
+	@Override
+	protected DataFlowExecutionData newEntry(final long id,
+			final String name, final int probecount) {
+		return new DataFlowExecutionData(id, name, probecount);
 	}
-}
\ No newline at end of file
+}
@@ -20,10 +20,18 @@ import java.io.InputStream;
 import org.jacoco.core.internal.data.CompactDataInput;
 
 /**
- * Deserialization of execution data from binary streams.
+ * Deserialization of execution data from binary streams. Besides the current
+ * {@link ExecutionDataWriter#FORMAT_VERSION} the older formats 0x1007 and
+ * 0x1008 with plain probe arrays can be read.
  */
 public class ExecutionDataReader {
 
+	/** Oldest supported format version. */
+	private static final char OLDEST_VERSION = 0x1007;
+
+	/** Last format version with plain probe arrays. */
+	private static final char PLAIN_PROBES_VERSION = 0x1008;
+
 	/** Underlying data input */
 	protected final CompactDataInput in;
 
@@ -33,6 +41,8 @@ public class ExecutionDataReader {
 
 	private boolean firstBlock = true;
 
+	private char version = ExecutionDataWriter.FORMAT_VERSION;
+
 	/**
 	 * Creates a new reader based on the given input stream input. Depending on
 	 * the nature of the underlying stream input should be buffered as most data
@@ -112,6 +122,12 @@ public class ExecutionDataReader {
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
 			readExecutionData();
 			return true;
+		case ExecutionDataWriter.BLOCK_DATAFLOWEXECUTIONDATA:
+			readDataFlowExecutionData();
+			return true;
+		case ExecutionDataWriter.BLOCK_DEFLATEDFRAME:
+			in.readDeflatedFrame();
+			return true;
 		default:
 			throw new IOException(format("Unknown block type %x.",
 					Byte.valueOf(blocktype)));
@@ -123,10 +139,12 @@ public class ExecutionDataReader {
 			throw new IOException("Invalid execution data file.");
 		}
 		final char version = in.readChar();
-		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+		if (version < OLDEST_VERSION
+				|| version > ExecutionDataWriter.FORMAT_VERSION) {
 			throw new IOException(format("Incompatible version %x.",
 					Integer.valueOf(version)));
 		}
+		this.version = version;
 	}
 
 	private void readSessionInfo() throws IOException {
@@ -145,9 +163,22 @@ public class ExecutionDataReader {
 		}
 		final long id = in.readLong();
 		final String name = in.readUTF();
-		final boolean[] probes = in.readBooleanArray();
+		final boolean[] probes = version > PLAIN_PROBES_VERSION ? in
+				.readProbeArray() : in.readBooleanArray();
 		executionDataVisitor.visitClassExecution(new ControlFlowExecutionData(id, name,
 				probes));
 	}
 
+	private void readDataFlowExecutionData() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = in.readLong();
+		final String name = in.readUTF();
+		final long[] probes = version > PLAIN_PROBES_VERSION ? in
+				.readProbeWords() : in.readLongArray();
+		executionDataVisitor.visitClassExecution(new DataFlowExecutionData(id,
+				name, probes));
+	}
+
 }
@@ -24,7 +24,7 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 		IExecutionDataVisitor {
 
 	/** File format version, will be incremented for each incompatible change. */
-	public static final char FORMAT_VERSION = 0x1007;
+	public static final char FORMAT_VERSION = 0x1009;
 
 	/** Magic number in header for file format identification. */
 	public static final char MAGIC_NUMBER = 0xC0C0;
@@ -38,9 +38,25 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for data-flow execution data of a single class. The
+	 * probes are stored as the <code>long</code> words of the bit set.
+	 */
+	public static final byte BLOCK_DATAFLOWEXECUTIONDATA = 0x12;
+
+	/**
+	 * Block identifier for a deflated frame which contains a sequence of other
+	 * blocks.
+	 */
+	public static final byte BLOCK_DEFLATEDFRAME = 0x13;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	private final CompactDataOutput frameOut;
+
+	private final ByteArrayOutputStream frame;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -52,30 +68,71 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	 *             if the header can't be written
 	 */
 	public ExecutionDataWriter(final OutputStream output) throws IOException {
-		this.out = new CompactDataOutput(output);
-		writeHeader();
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses the written blocks. With compression all blocks are buffered
+	 * in memory and written as a single deflated frame on every call of
+	 * {@link #flush()}, which therefore must be called before the underlying
+	 * stream is closed. The file header is always written uncompressed.
+	 * 
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param deflate
+	 *            if <code>true</code> blocks are written in deflated frames
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output, final boolean deflate)
+			throws IOException {
+		if (deflate) {
+			this.frame = new ByteArrayOutputStream();
+			this.frameOut = new CompactDataOutput(output);
+			this.out = new CompactDataOutput(frame);
+			writeHeader(frameOut);
+		} else {
+			this.frame = null;
+			this.frameOut = null;
+			this.out = new CompactDataOutput(output);
+			writeHeader(out);
+		}
 	}
 
 	/**
 	 * Writes an file header to identify the stream and its protocol version.
 	 * 
+	 * @param target
+	 *            output to write the header to
 	 * @throws IOException
 	 *             if the header can't be written
 	 */
-	private void writeHeader() throws IOException {
-		out.writeByte(BLOCK_HEADER);
-		out.writeChar(MAGIC_NUMBER);
-		out.writeChar(FORMAT_VERSION);
+	private static void writeHeader(final CompactDataOutput target)
+			throws IOException {
+		target.writeByte(BLOCK_HEADER);
+		target.writeChar(MAGIC_NUMBER);
+		target.writeChar(FORMAT_VERSION);
 	}
 
 	/**
-	 * Flushes the underlying stream.
+	 * Flushes the underlying stream. If compression is enabled all blocks
+	 * written since the last call are written as a deflated frame before.
 	 * 
 	 * @throws IOException
 	 *             if the underlying stream can't be flushed
 	 */
 	public void flush() throws IOException {
 		out.flush();
+		if (frame != null) {
+			if (frame.size() > 0) {
+				final byte[] data = frame.toByteArray();
+				frame.reset();
+				frameOut.writeByte(BLOCK_DEFLATEDFRAME);
+				frameOut.writeDeflatedFrame(data);
+			}
+			frameOut.flush();
+		}
 	}
 
 	public void visitSessionInfo(final SessionInfo info) {
@@ -92,10 +149,18 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	public void visitClassExecution(final ControlFlowExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
-				out.writeLong(data.getId());
-				out.writeUTF(data.getName());
-				out.writeBooleanArray(data.getProbes());
+				if (data instanceof DataFlowExecutionData) {
+					out.writeByte(BLOCK_DATAFLOWEXECUTIONDATA);
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+					out.writeProbeWords(((DataFlowExecutionData) data)
+							.getLongProbes());
+				} else {
+					out.writeByte(BLOCK_EXECUTIONDATA);
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+					out.writeProbeArray(data.getProbes());
+				}
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
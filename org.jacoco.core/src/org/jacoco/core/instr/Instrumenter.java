@@ -14,7 +14,13 @@ package org.jacoco.core.instr;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -23,10 +29,12 @@ import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.Pack200Streams;
+import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.internal.instr.ClassInstrumenter;
 import org.jacoco.core.internal.instr.IProbeArrayStrategy;
 import org.jacoco.core.internal.instr.ProbeArrayStrategyFactory;
+import org.jacoco.core.internal.instr.SaturatedClassInstrumenter;
 import org.jacoco.core.internal.instr.SignatureRemover;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.objectweb.asm.ClassReader;
@@ -35,13 +43,32 @@ import org.objectweb.asm.ClassWriter;
 
 /**
  * Several APIs to instrument Java class definitions for coverage tracing.
+ * <p>
+ * If an {@link Executor} is set with {@link #setExecutor(Executor)} the class
+ * files contained in archives are instrumented in parallel. The entries are
+ * still written on the calling thread in their original order. All other
+ * entries, including nested archives, are streamed without buffering once the
+ * entries before them have been written.
  */
 public class Instrumenter {
 
+	/** Maximum number of archive entries waiting to be written */
+	private static final int MAX_PENDING = 256;
+
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private final SignatureRemover signatureRemover;
 
+	private Executor executor;
+
+	/** Reusable buffer of each thread to read class files from streams */
+	private final ThreadLocal<byte[]> readBuffers = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[0x4000];
+		}
+	};
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 * 
@@ -66,6 +93,19 @@ public class Instrumenter {
 		signatureRemover.setActive(flag);
 	}
 
+	/**
+	 * Sets the executor used to instrument the class files of archives in
+	 * parallel. The executor is not shut down by the instrumenter. Tasks
+	 * submitted to the executor never wait for other tasks.
+	 * 
+	 * @param executor
+	 *            executor for parallel instrumentation or <code>null</code>
+	 *            to instrument class files sequentially on the calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	/**
 	 * Creates a instrumented version of the given class if possible.
 	 * 
@@ -75,9 +115,13 @@ public class Instrumenter {
 	 * 
 	 */
 	public byte[] instrument(final ClassReader reader) {
+		return instrument(reader, CRC64.checksum(reader.b));
+	}
+
+	private byte[] instrument(final ClassReader reader, final long classId) {
 		final ClassWriter writer = new ClassWriter(reader, 0);
 		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
-				.createFor(reader, accessorGenerator);
+				.createFor(classId, reader, accessorGenerator);
 		final ClassVisitor visitor = new ClassProbesAdapter(
 				new ClassInstrumenter(strategy, writer), true);
 		reader.accept(visitor, ClassReader.EXPAND_FRAMES);
@@ -98,7 +142,62 @@ public class Instrumenter {
 	public byte[] instrument(final byte[] buffer, final String name)
 			throws IOException {
 		try {
-			return instrument(new ClassReader(buffer));
+			return instrument(new ClassReader(buffer), CRC64.checksum(buffer));
+		} catch (final RuntimeException e) {
+			throw instrumentError(name, e);
+		}
+	}
+
+	/**
+	 * Creates a instrumented version of the given class if possible. The
+	 * class id has already been calculated by the caller, for example to look
+	 * up the class in a cache, and is not calculated again.
+	 * 
+	 * @param buffer
+	 *            definition of the class
+	 * @param classId
+	 *            CRC64 checksum of the class definition
+	 * @param name
+	 *            a name used for exception messages
+	 * @return instrumented definition
+	 * @throws IOException
+	 *             if the class can't be analyzed
+	 */
+	public byte[] instrument(final byte[] buffer, final long classId,
+			final String name) throws IOException {
+		try {
+			return instrument(new ClassReader(buffer), classId);
+		} catch (final RuntimeException e) {
+			throw instrumentError(name, e);
+		}
+	}
+
+	/**
+	 * Creates a saturated version of the given class if possible. The saturated
+	 * version declares the same members as the instrumented version, but its
+	 * methods do not record coverage. Once all probes of an instrumented class
+	 * have been executed it can be replaced with this version through class
+	 * retransformation.
+	 * 
+	 * @param buffer
+	 *            original definition of the class
+	 * @param name
+	 *            a name used for exception messages
+	 * @return saturated definition
+	 * @throws IOException
+	 *             if the class can't be analyzed
+	 */
+	public byte[] instrumentSaturated(final byte[] buffer, final String name)
+			throws IOException {
+		try {
+			final ClassReader reader = new ClassReader(buffer);
+			final ClassWriter writer = new ClassWriter(reader, 0);
+			final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
+					.createFor(CRC64.checksum(buffer), reader,
+							accessorGenerator);
+			reader.accept(new ClassProbesAdapter(
+					new SaturatedClassInstrumenter(strategy, writer), false), 0);
+			return writer.toByteArray();
 		} catch (final RuntimeException e) {
 			throw instrumentError(name, e);
 		}
@@ -118,11 +217,7 @@ public class Instrumenter {
 	 */
 	public byte[] instrument(final InputStream input, final String name)
 			throws IOException {
-		try {
-			return instrument(new ClassReader(input));
-		} catch (final RuntimeException e) {
-			throw instrumentError(name, e);
-		}
+		return instrument(toByteArray(input), name);
 	}
 
 	/**
@@ -140,15 +235,11 @@ public class Instrumenter {
 	 */
 	public void instrument(final InputStream input, final OutputStream output,
 			final String name) throws IOException {
-		try {
-			output.write(instrument(new ClassReader(input)));
-		} catch (final RuntimeException e) {
-			throw instrumentError(name, e);
-		}
+		output.write(instrument(toByteArray(input), name));
 	}
 
 	private IOException instrumentError(final String name,
-			final RuntimeException cause) {
+			final Throwable cause) {
 		final IOException ex = new IOException(String.format(
 				"Error while instrumenting class %s.", name));
 		ex.initCause(cause);
@@ -194,6 +285,11 @@ public class Instrumenter {
 			final OutputStream output, final String name) throws IOException {
 		final ZipInputStream zipin = new ZipInputStream(input);
 		final ZipOutputStream zipout = new ZipOutputStream(output);
+		if (executor != null) {
+			final int count = instrumentZipParallel(zipin, zipout, name);
+			zipout.finish();
+			return count;
+		}
 		ZipEntry entry;
 		int count = 0;
 		while ((entry = zipin.getNextEntry()) != null) {
@@ -202,7 +298,7 @@ public class Instrumenter {
 				continue;
 			}
 
-			zipout.putNextEntry(new ZipEntry(entryName));
+			zipout.putNextEntry(copyEntry(entry));
 			if (!signatureRemover.filterEntry(entryName, zipin, zipout)) {
 				count += instrumentAll(zipin, zipout, name + "@" + entryName);
 			}
@@ -212,6 +308,114 @@ public class Instrumenter {
 		return count;
 	}
 
+	private int instrumentZipParallel(final ZipInputStream zipin,
+			final ZipOutputStream zipout, final String name)
+			throws IOException {
+		final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+		try {
+			ZipEntry entry;
+			int count = 0;
+			while ((entry = zipin.getNextEntry()) != null) {
+				final String entryName = entry.getName();
+				if (signatureRemover.removeEntry(entryName)) {
+					continue;
+				}
+				final String qualifiedName = name + "@" + entryName;
+				final ContentTypeDetector detector = new ContentTypeDetector(
+						zipin);
+				final InputStream in = detector.getInputStream();
+				if (detector.getType() == ContentTypeDetector.CLASSFILE) {
+					final byte[] buffer = toByteArray(in);
+					final PendingEntry pendingEntry = new PendingEntry(
+							copyEntry(entry), qualifiedName,
+							new Callable<byte[]>() {
+								public byte[] call() throws IOException {
+									return instrument(buffer, qualifiedName);
+								}
+							});
+					executor.execute(pendingEntry);
+					pending.add(pendingEntry);
+					writePending(pending, zipout, MAX_PENDING);
+					count++;
+				} else {
+					// Archives and other resources are streamed in place as
+					// soon as all entries before them have been written:
+					writePending(pending, zipout, 0);
+					zipout.putNextEntry(copyEntry(entry));
+					if (!signatureRemover.filterEntry(entryName, in, zipout)) {
+						count += instrumentAll(in, zipout, qualifiedName);
+					}
+					zipout.closeEntry();
+				}
+			}
+			writePending(pending, zipout, 0);
+			return count;
+		} finally {
+			for (final PendingEntry e : pending) {
+				e.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Writes pending entries in their original order. Entries are written as
+	 * long as they are already done or more than the given number of entries
+	 * is pending.
+	 */
+	private void writePending(final LinkedList<PendingEntry> pending,
+			final ZipOutputStream zipout, final int max) throws IOException {
+		while (!pending.isEmpty()
+				&& (pending.size() > max || pending.getFirst().isDone())) {
+			pending.removeFirst().write(zipout);
+		}
+	}
+
+	private static ZipEntry copyEntry(final ZipEntry entry) {
+		final ZipEntry copy = new ZipEntry(entry.getName());
+		if (entry.getTime() != -1) {
+			copy.setTime(entry.getTime());
+		}
+		copy.setComment(entry.getComment());
+		return copy;
+	}
+
+	private class PendingEntry extends FutureTask<byte[]> {
+
+		private final ZipEntry entry;
+
+		private final String name;
+
+		PendingEntry(final ZipEntry entry, final String name,
+				final Callable<byte[]> instrumentation) {
+			super(instrumentation);
+			this.entry = entry;
+			this.name = name;
+		}
+
+		void write(final ZipOutputStream zipout) throws IOException {
+			final byte[] content;
+			try {
+				content = get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw instrumentError(name, cause);
+			}
+			zipout.putNextEntry(entry);
+			zipout.write(content);
+			zipout.closeEntry();
+		}
+
+	}
+
 	private int instrumentGzip(final InputStream input,
 			final OutputStream output, final String name) throws IOException {
 		final GZIPOutputStream gzout = new GZIPOutputStream(output);
@@ -229,6 +433,29 @@ public class Instrumenter {
 		return count;
 	}
 
+	/**
+	 * Reads the given stream completely. The content is collected in the
+	 * reusable buffer of the current thread and copied only once to an array
+	 * of the exact size.
+	 */
+	private byte[] toByteArray(final InputStream input) throws IOException {
+		byte[] buffer = readBuffers.get();
+		int length = 0;
+		int n;
+		while ((n = input.read(buffer, length, buffer.length - length)) != -1) {
+			length += n;
+			if (length == buffer.length) {
+				final byte[] larger = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, larger, 0, length);
+				buffer = larger;
+				readBuffers.set(buffer);
+			}
+		}
+		final byte[] content = new byte[length];
+		System.arraycopy(buffer, 0, content, 0, length);
+		return content;
+	}
+
 	private void copy(final InputStream input, final OutputStream output)
 			throws IOException {
 		final byte[] buffer = new byte[1024];
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * On-disk cache of structures derived from class files. Every class is stored
+ * in a separate file named by its CRC64 id. Files written by a different cache
+ * format or JaCoCo version are ignored and replaced. The cache is best effort:
+ * unreadable entries are treated as misses and entries which can't be written
+ * are skipped, so the analysis never fails because of the cache. Entries are
+ * written to a temporary file first and renamed afterwards, so concurrent
+ * analyzers never read partially written entries.
+ * 
+ * @param <T>
+ *            type of the cached structures
+ */
+public abstract class StructureCache<T> {
+
+	/** Magic number in header for file format identification. */
+	public static final char MAGIC_NUMBER = 0xC0DA;
+
+	private final File directory;
+
+	private final String suffix;
+
+	private final char formatVersion;
+
+	/**
+	 * Creates a cache which stores its entries in the given directory. The
+	 * directory is created if it does not exist.
+	 * 
+	 * @param directory
+	 *            directory for the cache entries
+	 * @param suffix
+	 *            file name suffix of the entries of this cache
+	 * @param formatVersion
+	 *            format version of the entries, changes when the structure
+	 *            changes
+	 */
+	protected StructureCache(final File directory, final String suffix,
+			final char formatVersion) {
+		this.directory = directory;
+		this.suffix = suffix;
+		this.formatVersion = formatVersion;
+		directory.mkdirs();
+	}
+
+	/**
+	 * Returns the cached structure of the class with the given id.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the class file
+	 * @return cached structure or <code>null</code> if not cached
+	 */
+	public T get(final long classid) {
+		final File file = getFile(classid);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final CompactDataInput in = new CompactDataInput(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readChar() != MAGIC_NUMBER
+						|| in.readChar() != formatVersion
+						|| !JaCoCo.VERSION.equals(in.readUTF())
+						|| in.readLong() != classid) {
+					return null;
+				}
+				return read(in);
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the structure of the class with the given id.
+	 * 
+	 * @param classid
+	 *            CRC64 id of the class file
+	 * @param structure
+	 *            structure to store
+	 */
+	public void put(final long classid, final T structure) {
+		final File file = getFile(classid);
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(file.getName(), ".tmp", directory);
+			final CompactDataOutput out = new CompactDataOutput(
+					new BufferedOutputStream(new FileOutputStream(tmp)));
+			try {
+				out.writeChar(MAGIC_NUMBER);
+				out.writeChar(formatVersion);
+				out.writeUTF(JaCoCo.VERSION);
+				out.writeLong(classid);
+				write(out, structure);
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(file)) {
+				// Some platforms do not replace existing files
+				file.delete();
+				tmp.renameTo(file);
+			}
+		} catch (final IOException e) {
+			// The entry is simply not cached
+		} finally {
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Reads the body of an entry.
+	 * 
+	 * @param in
+	 *            input positioned after the entry header
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	protected abstract T read(CompactDataInput in) throws IOException;
+
+	/**
+	 * Writes the body of an entry.
+	 * 
+	 * @param out
+	 *            output positioned after the entry header
+	 * @param structure
+	 *            structure to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	protected abstract void write(CompactDataOutput out, T structure)
+			throws IOException;
+
+	private File getFile(final long classid) {
+		return new File(directory, String.format("%016x%s",
+				Long.valueOf(classid), suffix));
+	}
+
+}
@@ -11,11 +11,9 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.dua;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import org.jacoco.core.analysis.dua.DuaClassCoverage;
-import org.jacoco.core.analysis.dua.IDuaMethodCoverage;
-import org.jacoco.core.internal.analysis.StringPool;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -26,40 +24,31 @@ import org.objectweb.asm.tree.MethodNode;
 public class ClassAnalyzer {
 
 	private final long classid;
-	private final boolean probes[];
 	private final List<MethodNode> methods;
-	private final StringPool stringPool;
+	private final List<DuaMethodStructure> methodStructures;
 	private int methodProbeIndex = 0;
 
-	private DuaClassCoverage coverage;
+	private DuaClassStructure structure;
 
 	/**
-	 * Creates a new analyzer that builds coverage data for a class.
+	 * Creates a new analyzer that derives the def-use chains of a class.
 	 * 
 	 * @param classNode
 	 *            node of the class
-	 * @param probes
-	 *            execution data for this class or <code>null</code>
-	 * @param stringPool
-	 *            shared pool to minimize the number of {@link String} instances
 	 */
-	public ClassAnalyzer(final ClassNode classNode, final boolean[] probes,
-			final StringPool stringPool) {
+	public ClassAnalyzer(final ClassNode classNode) {
 		this.classid = classNode.name.hashCode();
 		this.methods = classNode.methods;
-		this.probes = probes;
-		this.stringPool = stringPool;
-
+		this.methodStructures = new ArrayList<DuaMethodStructure>();
 	}
 
 	/**
-	 * Returns the coverage data for this class after this visitor has been
-	 * processed.
+	 * Returns the def-use chains of this class after it has been visited.
 	 * 
-	 * @return coverage data for this class
+	 * @return structure of this class
 	 */
-	public DuaClassCoverage getCoverage() {
-		return coverage;
+	public DuaClassStructure getStructure() {
+		return structure;
 	}
 
 	/**
@@ -70,9 +59,6 @@ public class ClassAnalyzer {
 	public void visit(final ClassNode classNode) {
 		final String[] interfaces = classNode.interfaces
 				.toArray(new String[classNode.interfaces.size()]);
-		coverage = new DuaClassCoverage(stringPool.get(classNode.name),
-				classid, stringPool.get(classNode.signature),
-				stringPool.get(classNode.superName), stringPool.get(interfaces));
 
 		int methodId = 0;
 		for (final MethodNode method : methods) {
@@ -86,40 +72,40 @@ public class ClassAnalyzer {
 				continue;
 			}
 
-			visitMethod(method, methodId++);
+			visitMethod(classNode.name, method, methodId++);
 		}
-	}
 
-	/**
-	 * Visits the source of the class.
-	 * 
-	 * @param source
-	 *            the name of the source file from which the class was compiled.
-	 */
-	public void visitSource(final String source) {
-		this.coverage.setSourceFileName(stringPool.get(source));
+		structure = new DuaClassStructure(classid, classNode.name,
+				classNode.signature, classNode.superName, interfaces,
+				methodStructures.toArray(new DuaMethodStructure[methodStructures
+						.size()]));
 	}
 
 	/**
 	 * Visits a method of the class.
 	 * 
+	 * @param className
+	 *            VM name of the class
 	 * @param methodNode
 	 *            method Node
 	 * @param methodId
 	 *            method Id
 	 */
-	public void visitMethod(final MethodNode methodNode, final int methodId) {
+	public void visitMethod(final String className,
+			final MethodNode methodNode, final int methodId) {
 		final MethodAnalyzer methodAnalyzer = new MethodAnalyzer(methodId,
-				coverage.getName(), methodNode, probes, methodProbeIndex);
+				className, methodNode, methodProbeIndex);
 		methodAnalyzer.visit();
 
-		final IDuaMethodCoverage methodCoverage = methodAnalyzer.getCoverage();
-		if (methodAnalyzer.duasBBsize > 0) {
+		final DuaMethodStructure methodStructure = methodAnalyzer
+				.getStructure();
+		final int probeCount = methodStructure.getProbeCount();
+		if (probeCount > 0) {
 			// Only consider methods that actually contain code
-			coverage.addMethod(methodCoverage);
+			methodStructures.add(methodStructure);
 		}
 
-		methodProbeIndex += ((methodAnalyzer.duasBBsize + 63) / 64) * 64;
+		methodProbeIndex += ((probeCount + 63) / 64) * 64;
 	}
 
 }
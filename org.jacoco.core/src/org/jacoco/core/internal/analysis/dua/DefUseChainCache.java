@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.core.internal.analysis.StructureCache;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * On-disk cache of the def-use chains of classes.
+ * 
+ * @see StructureCache
+ */
+public class DefUseChainCache extends StructureCache<DuaClassStructure> {
+
+	/** File format version, changes when the structure changes. */
+	public static final char FORMAT_VERSION = 0x1002;
+
+	/**
+	 * Creates a cache which stores its entries in the given directory. The
+	 * directory is created if it does not exist.
+	 * 
+	 * @param directory
+	 *            directory for the cache entries
+	 */
+	public DefUseChainCache(final File directory) {
+		super(directory, ".dua", FORMAT_VERSION);
+	}
+
+	@Override
+	protected DuaClassStructure read(final CompactDataInput in)
+			throws IOException {
+		return DuaClassStructure.read(in);
+	}
+
+	@Override
+	protected void write(final CompactDataOutput out,
+			final DuaClassStructure structure) throws IOException {
+		structure.write(out);
+	}
+
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.dua.DuaClassCoverage;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * The def-use chains of all methods of a class as derived from the class file.
+ * 
+ * @see DuaMethodStructure
+ */
+public class DuaClassStructure {
+
+	private final long id;
+	private final String name;
+	private final String signature;
+	private final String superName;
+	private final String[] interfaces;
+	private final DuaMethodStructure[] methods;
+
+	/**
+	 * Creates a new class structure.
+	 * 
+	 * @param id
+	 *            class id used for the coverage node
+	 * @param name
+	 *            VM name of the class
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param superName
+	 *            VM name of the super class or <code>null</code>
+	 * @param interfaces
+	 *            VM names of the implemented interfaces
+	 * @param methods
+	 *            structure of all methods containing def-use chains
+	 */
+	public DuaClassStructure(final long id, final String name,
+			final String signature, final String superName,
+			final String[] interfaces, final DuaMethodStructure[] methods) {
+		this.id = id;
+		this.name = name;
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces;
+		this.methods = methods;
+	}
+
+	/**
+	 * Returns the structure of all methods containing def-use chains.
+	 * 
+	 * @return method structures
+	 */
+	public DuaMethodStructure[] getMethods() {
+		return methods;
+	}
+
+	/**
+	 * Creates the coverage of this class for the given probes.
+	 * 
+	 * @param probes
+	 *            probes of the class
+	 * @param stringPool
+	 *            pool to normalize the class and method names
+	 * @return coverage of this class
+	 */
+	public DuaClassCoverage createCoverage(final boolean[] probes,
+			final StringPool stringPool) {
+		final DuaClassCoverage coverage = new DuaClassCoverage(
+				stringPool.get(name), id, stringPool.get(signature),
+				stringPool.get(superName), stringPool.get(interfaces.clone()));
+		for (final DuaMethodStructure method : methods) {
+			coverage.addMethod(method.createCoverage(probes, stringPool));
+		}
+		return coverage;
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		out.writeLong(id);
+		out.writeUTF(name);
+		out.writeOptionalUTF(signature);
+		out.writeOptionalUTF(superName);
+		out.writeVarInt(interfaces.length);
+		for (final String i : interfaces) {
+			out.writeUTF(i);
+		}
+		out.writeVarInt(methods.length);
+		for (final DuaMethodStructure m : methods) {
+			m.write(out);
+		}
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static DuaClassStructure read(final CompactDataInput in)
+			throws IOException {
+		final long id = in.readLong();
+		final String name = in.readUTF();
+		final String signature = in.readOptionalUTF();
+		final String superName = in.readOptionalUTF();
+		final String[] interfaces = new String[in.readVarInt()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = in.readUTF();
+		}
+		final DuaMethodStructure[] methods = new DuaMethodStructure[in
+				.readVarInt()];
+		for (int i = 0; i < methods.length; i++) {
+			methods[i] = DuaMethodStructure.read(in);
+		}
+		return new DuaClassStructure(id, name, signature, superName,
+				interfaces, methods);
+	}
+
+}
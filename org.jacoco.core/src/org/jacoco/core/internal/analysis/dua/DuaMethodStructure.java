@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.dua.DuaMethodCoverage;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * The def-use chains of a single method as derived from the class file. The
+ * structure does not depend on execution data, so it can be cached and
+ * replayed against different probe arrays. The chains are stored column-wise,
+ * every array holds one entry per chain. Variable names are stored once per
+ * method in a name table.
+ */
+public class DuaMethodStructure {
+
+	private final int id;
+	private final String name;
+	private final String desc;
+	private final String signature;
+	private final boolean isStatic;
+	private final int probeIndex;
+	private final int probeCount;
+
+	private final int[] index;
+	private final int[] def;
+	private final int[] use;
+	private final int[] target;
+	private final int[] var;
+	private final String[] varNames;
+	private final int[] block;
+
+	/**
+	 * Creates a new method structure.
+	 * 
+	 * @param id
+	 *            method id
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param isStatic
+	 *            <code>true</code> for static methods
+	 * @param probeIndex
+	 *            index of the first probe of this method in the class probes
+	 * @param probeCount
+	 *            number of basic block chains with a probe
+	 * @param index
+	 *            instruction chain index of each chain
+	 * @param def
+	 *            definition line of each chain
+	 * @param use
+	 *            use line of each chain
+	 * @param target
+	 *            target line of each chain or <code>-1</code>
+	 * @param var
+	 *            index of the variable name of each chain in
+	 *            <code>varNames</code>
+	 * @param varNames
+	 *            table of variable names
+	 * @param block
+	 *            probe of each chain relative to <code>probeIndex</code>
+	 */
+	public DuaMethodStructure(final int id, final String name,
+			final String desc, final String signature, final boolean isStatic,
+			final int probeIndex, final int probeCount, final int[] index,
+			final int[] def, final int[] use, final int[] target,
+			final int[] var, final String[] varNames, final int[] block) {
+		this.id = id;
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.isStatic = isStatic;
+		this.probeIndex = probeIndex;
+		this.probeCount = probeCount;
+		this.index = index;
+		this.def = def;
+		this.use = use;
+		this.target = target;
+		this.var = var;
+		this.varNames = varNames;
+		this.block = block;
+	}
+
+	/**
+	 * Returns the number of basic block chains which have a probe.
+	 * 
+	 * @return number of probes used by this method
+	 */
+	public int getProbeCount() {
+		return probeCount;
+	}
+
+	/**
+	 * Returns the number of def-use chains.
+	 * 
+	 * @return number of chains
+	 */
+	public int getDuaCount() {
+		return index.length;
+	}
+
+	/**
+	 * Creates the coverage of this method for the given probes. The coverage
+	 * shares the columns of this structure and only allocates a bit set for
+	 * the status of the chains.
+	 * 
+	 * @param probes
+	 *            probes of the containing class
+	 * @param stringPool
+	 *            pool to normalize the method and variable names
+	 * @return coverage of this method
+	 */
+	public DuaMethodCoverage createCoverage(final boolean[] probes,
+			final StringPool stringPool) {
+		final long[] covered = new long[(index.length + 63) >>> 6];
+		for (int i = 0; i < index.length; i++) {
+			if (probes[probeIndex + block[i]]) {
+				covered[i >>> 6] |= 1L << i;
+			}
+		}
+		return new DuaMethodCoverage(id, stringPool.get(name),
+				stringPool.get(desc), stringPool.get(signature), isStatic,
+				index, def, use, target, var,
+				stringPool.get(varNames.clone()), covered);
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		out.writeVarInt(id);
+		out.writeUTF(name);
+		out.writeUTF(desc);
+		out.writeOptionalUTF(signature);
+		out.writeBoolean(isStatic);
+		out.writeVarInt(probeIndex);
+		out.writeVarInt(probeCount);
+		out.writeVarInt(varNames.length);
+		for (final String varName : varNames) {
+			out.writeUTF(varName);
+		}
+		out.writeVarInt(index.length);
+		for (int i = 0; i < index.length; i++) {
+			out.writeVarInt(index[i]);
+			out.writeVarInt(def[i]);
+			out.writeVarInt(use[i]);
+			out.writeVarInt(target[i] + 1);
+			out.writeVarInt(var[i]);
+			out.writeVarInt(block[i]);
+		}
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static DuaMethodStructure read(final CompactDataInput in)
+			throws IOException {
+		final int id = in.readVarInt();
+		final String name = in.readUTF();
+		final String desc = in.readUTF();
+		final String signature = in.readOptionalUTF();
+		final boolean isStatic = in.readBoolean();
+		final int probeIndex = in.readVarInt();
+		final int probeCount = in.readVarInt();
+		final String[] varNames = new String[in.readVarInt()];
+		for (int i = 0; i < varNames.length; i++) {
+			varNames[i] = in.readUTF();
+		}
+		final int count = in.readVarInt();
+		final int[] index = new int[count];
+		final int[] def = new int[count];
+		final int[] use = new int[count];
+		final int[] target = new int[count];
+		final int[] var = new int[count];
+		final int[] block = new int[count];
+		for (int i = 0; i < count; i++) {
+			index[i] = in.readVarInt();
+			def[i] = in.readVarInt();
+			use[i] = in.readVarInt();
+			target[i] = in.readVarInt() - 1;
+			var[i] = in.readVarInt();
+			block[i] = in.readVarInt();
+		}
+		return new DuaMethodStructure(id, name, desc, signature, isStatic,
+				probeIndex, probeCount, index, def, use, target, var,
+				varNames, block);
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.dua;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Instruction ranges of the local variables of a method, grouped by slot. The
+ * ranges are resolved to instruction indices once, so looking up the name of a
+ * variable only considers the ranges of its slot.
+ */
+class LocalVariableTable {
+
+	private static final int[] NO_RANGES = new int[0];
+
+	/** start and end instruction index of every range, per slot */
+	private final int[][] ranges;
+
+	/** variable name of every range, per slot */
+	private final String[][] names;
+
+	/**
+	 * Creates the table for the given method.
+	 * 
+	 * @param methodNode
+	 *            method with local variable debug information
+	 */
+	LocalVariableTable(final MethodNode methodNode) {
+		final List<LocalVariableNode> locals = methodNode.localVariables == null ? Collections
+				.<LocalVariableNode> emptyList() : methodNode.localVariables;
+		int slots = 0;
+		for (final LocalVariableNode local : locals) {
+			slots = Math.max(slots, local.index + 1);
+		}
+		final int[] counts = new int[slots];
+		for (final LocalVariableNode local : locals) {
+			counts[local.index]++;
+		}
+		ranges = new int[slots][];
+		names = new String[slots][];
+		for (int i = 0; i < slots; i++) {
+			ranges[i] = counts[i] == 0 ? NO_RANGES : new int[counts[i] * 2];
+			names[i] = new String[counts[i]];
+			counts[i] = 0;
+		}
+		final InsnList instructions = methodNode.instructions;
+		for (final LocalVariableNode local : locals) {
+			final int slot = local.index;
+			final int pos = counts[slot]++;
+			ranges[slot][pos * 2] = instructions.indexOf(local.start);
+			ranges[slot][pos * 2 + 1] = instructions.indexOf(local.end);
+			names[slot][pos] = local.name;
+		}
+	}
+
+	/**
+	 * Returns the name of the variable in the given slot at the given
+	 * instruction. If several ranges match, the first one declared wins.
+	 * 
+	 * @param slot
+	 *            local variable slot
+	 * @param insn
+	 *            instruction index
+	 * @return name of the variable or <code>null</code> if the slot has no
+	 *         variable at this instruction
+	 */
+	String getName(final int slot, final int insn) {
+		if (slot < 0 || slot >= ranges.length) {
+			return null;
+		}
+		final int[] slotRanges = ranges[slot];
+		for (int i = 0; i < slotRanges.length; i += 2) {
+			if (insn >= slotRanges[i] && insn < slotRanges[i + 1]) {
+				return names[slot][i / 2];
+			}
+		}
+		return null;
+	}
+
+}
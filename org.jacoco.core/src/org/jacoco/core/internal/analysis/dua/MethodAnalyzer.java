@@ -11,14 +11,15 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.dua;
 
-import org.jacoco.core.analysis.ICounter;
-import org.jacoco.core.analysis.dua.Dua;
-import org.jacoco.core.analysis.dua.DuaMethodCoverage;
-import org.jacoco.core.analysis.dua.IDua;
-import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.LineNumberNode;
-import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 
@@ -28,24 +29,27 @@ import br.usp.each.saeg.asm.defuse.DepthFirstDefUseChainSearch;
 import br.usp.each.saeg.asm.defuse.Field;
 import br.usp.each.saeg.asm.defuse.Local;
 import br.usp.each.saeg.asm.defuse.Variable;
-import br.usp.each.saeg.commons.ArrayUtils;
 
 /**
- * A {@link MethodProbesVisitor} that analyzes which statements and branches of
- * a method has been executed based on given probe data.
+ * Derives the def-use chains of a method and the probes that record their
+ * coverage. Basic block chains, instruction indices and local variable ranges
+ * are looked up in tables built once per method, so the analysis scales
+ * linearly with the number of chains.
  */
 public class MethodAnalyzer {
 
-	private final DuaMethodCoverage coverage;
+	/** Name prefix for variables without debug information */
+	private static final String UNNAMED_VAR = "var_";
+
+	private final int methodId;
 	private final MethodNode methodNode;
 	private final String className;
-	private final boolean[] probes;
 	private final int methodProbeIndex;
 
-	public int duasBBsize;
+	private DuaMethodStructure structure;
 
 	/**
-	 * New Method analyzer for the given probe data.
+	 * New Method analyzer for the given method.
 	 * 
 	 * @param methodId
 	 *            method Id
@@ -53,33 +57,25 @@ public class MethodAnalyzer {
 	 *            class Name
 	 * @param methodNode
 	 *            method node
-	 * 
-	 * @param probes
-	 *            recorded probe date of the containing class or
-	 *            <code>null</code> if the class is not executed at all
 	 * @param methodProbeIndex
+	 *            index of the first probe of this method
 	 */
 	public MethodAnalyzer(final int methodId, final String className,
-			final MethodNode methodNode, final boolean[] probes,
-			final int methodProbeIndex) {
+			final MethodNode methodNode, final int methodProbeIndex) {
 		super();
+		this.methodId = methodId;
 		this.className = className;
 		this.methodNode = methodNode;
-		this.probes = probes;
 		this.methodProbeIndex = methodProbeIndex;
-		this.coverage = new DuaMethodCoverage(methodId, methodNode.name,
-				methodNode.desc, methodNode.signature,
-				((methodNode.access & Opcodes.ACC_STATIC) != 0));
 	}
 
 	/**
-	 * Returns the coverage data for this method after this visitor has been
-	 * processed.
+	 * Returns the def-use chains of this method after it has been visited.
 	 * 
-	 * @return coverage data for this method
+	 * @return structure of this method
 	 */
-	public DuaMethodCoverage getCoverage() {
-		return coverage;
+	public DuaMethodStructure getStructure() {
+		return structure;
 	}
 
 	/**
@@ -94,46 +90,78 @@ public class MethodAnalyzer {
 
 		final DefUseChain[] duasBB = DefUseChain.toBasicBlock(duasIns,
 				analyzer.getLeaders(), analyzer.getBasicBlocks());
-		duasBBsize = duasBB.length;
 
 		final Variable[] variables = analyzer.getVariables();
 		final int[] lines = getLines();
+		final LocalVariableTable locals = new LocalVariableTable(methodNode);
+		final Map<BlockChain, Integer> blocks = indexBlocks(duasBB);
 
+		int count = 0;
+		final boolean[] global = new boolean[duasIns.length];
 		for (int i = 0; i < duasIns.length; i++) {
-			final DefUseChain dua = duasIns[i];
-			if (!DefUseChain.isGlobal(dua, analyzer.getLeaders(),
+			if (DefUseChain.isGlobal(duasIns[i], analyzer.getLeaders(),
 					analyzer.getBasicBlocks())) {
+				global[i] = true;
+				count++;
+			}
+		}
+
+		final int[] index = new int[count];
+		final int[] def = new int[count];
+		final int[] use = new int[count];
+		final int[] target = new int[count];
+		final int[] var = new int[count];
+		final Map<String, Integer> varIndices = new HashMap<String, Integer>();
+		final List<String> varNames = new ArrayList<String>();
+		final int[] block = new int[count];
+
+		int j = 0;
+		for (int i = 0; i < duasIns.length; i++) {
+			if (!global[i]) {
 				continue;
 			}
+			final DefUseChain dua = duasIns[i];
+			index[j] = i;
 
 			// def
-			final int defLine = lines[dua.def];
+			def[j] = lines[dua.def];
 
 			// use
-			final int useLine = lines[dua.use];
+			use[j] = lines[dua.use];
 
 			// target
-			int targetLine = -1;
+			target[j] = -1;
 			if (dua.target != -1) {
-				targetLine = lines[dua.target];
+				target[j] = lines[dua.target];
 			}
 
 			// var
-			String varName = getVarName(dua, variables[dua.var]);
+			String varName = getVarName(dua, variables[dua.var], locals);
 			if (varName == null) {
-				varName = "random_" + Math.random();
+				// Variables without a name are distinguished by their index
+				varName = UNNAMED_VAR + dua.var;
 			}
+			Integer varIndex = varIndices.get(varName);
+			if (varIndex == null) {
+				varIndex = Integer.valueOf(varNames.size());
+				varIndices.put(varName, varIndex);
+				varNames.add(varName);
+			}
+			var[j] = varIndex.intValue();
 
-			// status
-			final DefUseChain blockChain = toBasicBlock(dua,
-					analyzer.getLeaders());
-			final int status = getStatus(ArrayUtils.indexOf(duasBB, blockChain));
-
-			final IDua finalDua = new Dua(i, defLine, useLine, targetLine,
-					varName, status);
-			coverage.addDua(finalDua);
+			// probe
+			final Integer blockIndex = blocks.get(toBasicBlock(dua,
+					analyzer.getLeaders()));
+			block[j] = blockIndex == null ? -1 : blockIndex.intValue();
+			j++;
 		}
 
+		structure = new DuaMethodStructure(methodId, methodNode.name,
+				methodNode.desc, methodNode.signature,
+				(methodNode.access & Opcodes.ACC_STATIC) != 0,
+				methodProbeIndex, duasBB.length, index, def, use, target, var,
+				varNames.toArray(new String[varNames.size()]),
+				block);
 	}
 
 	private DefUseAnalyzer getAnalyzer() {
@@ -146,21 +174,14 @@ public class MethodAnalyzer {
 		return analyzer;
 	}
 
-	private int getStatus(final int i) {
-		int status = ICounter.NOT_COVERED;
-		if (probes[methodProbeIndex + i]) {
-			status = ICounter.FULLY_COVERED;
-		}
-		return status;
-	}
-
 	private int[] getLines() {
-		final int[] lines = new int[methodNode.instructions.size()];
-		for (int i = 0; i < lines.length; i++) {
-			if (methodNode.instructions.get(i) instanceof LineNumberNode) {
-				final LineNumberNode insn = (LineNumberNode) methodNode.instructions
-						.get(i);
-				lines[methodNode.instructions.indexOf(insn.start)] = insn.line;
+		final InsnList instructions = methodNode.instructions;
+		final AbstractInsnNode[] insns = instructions.toArray();
+		final int[] lines = new int[insns.length];
+		for (final AbstractInsnNode node : insns) {
+			if (node instanceof LineNumberNode) {
+				final LineNumberNode insn = (LineNumberNode) node;
+				lines[instructions.indexOf(insn.start)] = insn.line;
 			}
 		}
 
@@ -175,37 +196,74 @@ public class MethodAnalyzer {
 		return lines;
 	}
 
-	private String getVarName(final DefUseChain dua, final Variable var) {
+	private static String getVarName(final DefUseChain dua,
+			final Variable var, final LocalVariableTable locals) {
 		if (var instanceof Field) {
 			return ((Field) var).name;
-		} else {
-			try {
-				return getName(dua.use, ((Local) var).var, methodNode);
-			} catch (final Exception e) {
-				return null;
-			}
 		}
+		if (var instanceof Local) {
+			return locals.getName(((Local) var).var, dua.use);
+		}
+		return null;
 	}
 
-	private String getName(final int insn, final int index, final MethodNode mn) {
-		for (final LocalVariableNode local : mn.localVariables) {
-			if (local.index == index) {
-				final int start = mn.instructions.indexOf(local.start);
-				final int end = mn.instructions.indexOf(local.end);
-				if (insn >= start && insn < end) {
-					return local.name;
-				}
-			}
+	/**
+	 * Maps every basic block chain to the index of its first occurrence.
+	 */
+	private static Map<BlockChain, Integer> indexBlocks(
+			final DefUseChain[] duasBB) {
+		final Map<BlockChain, Integer> blocks = new HashMap<BlockChain, Integer>(
+				duasBB.length * 2);
+		for (int i = duasBB.length - 1; i >= 0; i--) {
+			blocks.put(new BlockChain(duasBB[i]), Integer.valueOf(i));
 		}
-		throw new RuntimeException("Variable not found");
+		return blocks;
 	}
 
 	// TODO use new asm-defuse-0.0.4, when it is ready
-	private static DefUseChain toBasicBlock(final DefUseChain chain,
+	private static BlockChain toBasicBlock(final DefUseChain chain,
 			final int[] leaders) {
-		return new DefUseChain(leaders[chain.def], leaders[chain.use],
-				chain.target != -1 ? leaders[chain.target] : -1,
-				chain.var);
+		return new BlockChain(leaders[chain.def], leaders[chain.use],
+				chain.target != -1 ? leaders[chain.target] : -1, chain.var);
+	}
+
+	/**
+	 * Hash key for a def-use chain between basic blocks.
+	 */
+	private static final class BlockChain {
+
+		private final int def;
+		private final int use;
+		private final int target;
+		private final int var;
+
+		BlockChain(final DefUseChain chain) {
+			this(chain.def, chain.use, chain.target, chain.var);
+		}
+
+		BlockChain(final int def, final int use, final int target,
+				final int var) {
+			this.def = def;
+			this.use = use;
+			this.target = target;
+			this.var = var;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof BlockChain)) {
+				return false;
+			}
+			final BlockChain other = (BlockChain) obj;
+			return def == other.def && use == other.use
+					&& target == other.target && var == other.var;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((def * 31 + use) * 31 + target) * 31 + var;
+		}
+
 	}
 
 }
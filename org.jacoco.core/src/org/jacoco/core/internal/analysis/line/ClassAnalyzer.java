@@ -11,9 +11,9 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis.line;
 
-import org.jacoco.core.analysis.IMethodCoverage;
-import org.jacoco.core.internal.analysis.ClassCoverageImpl;
-import org.jacoco.core.internal.analysis.StringPool;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.jacoco.core.internal.instr.InstrSupport;
@@ -21,81 +21,78 @@ import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
- * Analyzes the structure of a class.
+ * Analyzes the structure of a class. The result is a {@link ClassStructure}
+ * which calculates the coverage for given probe data.
  */
 public class ClassAnalyzer extends ClassProbesVisitor {
 
+	private static final String[] NO_INTERFACES = new String[0];
+
 	private final long classid;
-	private final boolean noMatch;
-	private final boolean[] probes;
-	private final StringPool stringPool;
 
-	private ClassCoverageImpl coverage;
+	private final List<MethodStructure> methods = new ArrayList<MethodStructure>();
+
+	private String name;
+	private String signature;
+	private String superName;
+	private String[] interfaces;
+	private String sourceFileName;
 
 	/**
-	 * Creates a new analyzer that builds coverage data for a class.
+	 * Creates a new analyzer that builds the structure of a class.
 	 * 
 	 * @param classid
 	 *            id of the class
-	 * @param noMatch
-	 *            <code>true</code> if class id does not match with execution
-	 *            data
-	 * @param probes
-	 *            execution data for this class or <code>null</code>
-	 * @param stringPool
-	 *            shared pool to minimize the number of {@link String} instances
 	 */
-	public ClassAnalyzer(final long classid, final boolean noMatch,
-			final boolean[] probes, final StringPool stringPool) {
+	public ClassAnalyzer(final long classid) {
 		this.classid = classid;
-		this.noMatch = noMatch;
-		this.probes = probes;
-		this.stringPool = stringPool;
 	}
 
 	/**
-	 * Returns the coverage data for this class after this visitor has been
+	 * Returns the structure of this class after this visitor has been
 	 * processed.
 	 * 
-	 * @return coverage data for this class
+	 * @return structure of this class
 	 */
-	public ClassCoverageImpl getCoverage() {
-		return coverage;
+	public ClassStructure getStructure() {
+		return new ClassStructure(classid, name, signature, superName,
+				interfaces, sourceFileName,
+				methods.toArray(new MethodStructure[methods.size()]));
 	}
 
 	@Override
 	public void visit(final int version, final int access, final String name,
 			final String signature, final String superName,
 			final String[] interfaces) {
-		this.coverage = new ClassCoverageImpl(stringPool.get(name), classid,
-				noMatch, stringPool.get(signature), stringPool.get(superName),
-				stringPool.get(interfaces));
+		this.name = name;
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces == null ? NO_INTERFACES : interfaces;
 	}
 
 	@Override
 	public void visitSource(final String source, final String debug) {
-		this.coverage.setSourceFileName(stringPool.get(source));
+		this.sourceFileName = source;
 	}
 
 	@Override
 	public MethodProbesVisitor visitMethod(final int access, final String name,
 			final String desc, final String signature, final String[] exceptions) {
 
-		InstrSupport.assertNotInstrumented(name, coverage.getName());
+		InstrSupport.assertNotInstrumented(name, this.name);
 
 		if (isMethodFiltered(access, name)) {
 			return null;
 		}
 
-		return new MethodAnalyzer(stringPool.get(name), stringPool.get(desc),
-				stringPool.get(signature), probes) {
+		return new MethodAnalyzer(name, desc, signature) {
 			@Override
 			public void visitEnd() {
 				super.visitEnd();
-				final IMethodCoverage methodCoverage = getCoverage();
-				if (methodCoverage.getInstructionCounter().getTotalCount() > 0) {
+				final MethodStructure method = getStructure();
+				if (method.getInstructionCount() > 0) {
 					// Only consider methods that actually contain code
-					coverage.addMethod(methodCoverage);
+					methods.add(method);
 				}
 			}
 		};
@@ -110,7 +107,7 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 	@Override
 	public FieldVisitor visitField(final int access, final String name,
 			final String desc, final String signature, final Object value) {
-		InstrSupport.assertNotInstrumented(name, coverage.getName());
+		InstrSupport.assertNotInstrumented(name, this.name);
 		return super.visitField(access, name, desc, signature, value);
 	}
 
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.line;
+
+import java.io.IOException;
+
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * The control flow of all methods of a class as derived from the class file.
+ * 
+ * @see MethodStructure
+ */
+public class ClassStructure {
+
+	private final long id;
+	private final String name;
+	private final String signature;
+	private final String superName;
+	private final String[] interfaces;
+	private final String sourceFileName;
+	private final MethodStructure[] methods;
+
+	/**
+	 * Creates a new class structure.
+	 * 
+	 * @param id
+	 *            class id used for the coverage node
+	 * @param name
+	 *            VM name of the class
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param superName
+	 *            VM name of the super class or <code>null</code>
+	 * @param interfaces
+	 *            VM names of the implemented interfaces
+	 * @param sourceFileName
+	 *            name of the source file or <code>null</code>
+	 * @param methods
+	 *            structure of all methods containing code
+	 */
+	public ClassStructure(final long id, final String name,
+			final String signature, final String superName,
+			final String[] interfaces, final String sourceFileName,
+			final MethodStructure[] methods) {
+		this.id = id;
+		this.name = name;
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces;
+		this.sourceFileName = sourceFileName;
+		this.methods = methods;
+	}
+
+	/**
+	 * Returns the structure of all methods containing code.
+	 * 
+	 * @return method structures
+	 */
+	public MethodStructure[] getMethods() {
+		return methods;
+	}
+
+	/**
+	 * Creates the coverage of this class for the given probes.
+	 * 
+	 * @param noMatch
+	 *            <code>true</code> if class id does not match with execution
+	 *            data
+	 * @param probes
+	 *            probes of the class or <code>null</code> if the class is not
+	 *            executed at all
+	 * @param stringPool
+	 *            pool to normalize the class and method names
+	 * @return coverage of this class
+	 */
+	public ClassCoverageImpl createCoverage(final boolean noMatch,
+			final boolean[] probes, final StringPool stringPool) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(
+				stringPool.get(name), id, noMatch, stringPool.get(signature),
+				stringPool.get(superName), stringPool.get(interfaces.clone()));
+		coverage.setSourceFileName(stringPool.get(sourceFileName));
+		for (final MethodStructure method : methods) {
+			coverage.addMethod(method.createCoverage(probes, stringPool));
+		}
+		return coverage;
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		out.writeLong(id);
+		out.writeUTF(name);
+		out.writeOptionalUTF(signature);
+		out.writeOptionalUTF(superName);
+		out.writeVarInt(interfaces.length);
+		for (final String i : interfaces) {
+			out.writeUTF(i);
+		}
+		out.writeOptionalUTF(sourceFileName);
+		out.writeVarInt(methods.length);
+		for (final MethodStructure m : methods) {
+			m.write(out);
+		}
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static ClassStructure read(final CompactDataInput in)
+			throws IOException {
+		final long id = in.readLong();
+		final String name = in.readUTF();
+		final String signature = in.readOptionalUTF();
+		final String superName = in.readOptionalUTF();
+		final String[] interfaces = new String[in.readVarInt()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = in.readUTF();
+		}
+		final String sourceFileName = in.readOptionalUTF();
+		final MethodStructure[] methods = new MethodStructure[in.readVarInt()];
+		for (int i = 0; i < methods.length; i++) {
+			methods[i] = MethodStructure.read(in);
+		}
+		return new ClassStructure(id, name, signature, superName, interfaces,
+				sourceFileName, methods);
+	}
+
+}
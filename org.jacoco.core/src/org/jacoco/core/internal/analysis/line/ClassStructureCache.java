@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.line;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.core.internal.analysis.StructureCache;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * On-disk cache of the control flow structure of classes.
+ * 
+ * @see StructureCache
+ */
+public class ClassStructureCache extends StructureCache<ClassStructure> {
+
+	/** File format version, changes when the structure changes. */
+	public static final char FORMAT_VERSION = 0x1001;
+
+	/**
+	 * Creates a cache which stores its entries in the given directory. The
+	 * directory is created if it does not exist.
+	 * 
+	 * @param directory
+	 *            directory for the cache entries
+	 */
+	public ClassStructureCache(final File directory) {
+		super(directory, ".cfs", FORMAT_VERSION);
+	}
+
+	@Override
+	protected ClassStructure read(final CompactDataInput in)
+			throws IOException {
+		return ClassStructure.read(in);
+	}
+
+	@Override
+	protected void write(final CompactDataOutput out,
+			final ClassStructure structure) throws IOException {
+		structure.write(out);
+	}
+
+}
@@ -12,13 +12,11 @@
 package org.jacoco.core.internal.analysis.line;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.jacoco.core.analysis.ICounter;
-import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.ISourceNode;
-import org.jacoco.core.internal.analysis.CounterImpl;
-import org.jacoco.core.internal.analysis.MethodCoverageImpl;
 import org.jacoco.core.internal.flow.IFrame;
 import org.jacoco.core.internal.flow.Instruction;
 import org.jacoco.core.internal.flow.LabelInfo;
@@ -27,14 +25,19 @@ import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 
 /**
- * A {@link MethodProbesVisitor} that analyzes which statements and branches of
- * a method have been executed based on given probe data.
+ * A {@link MethodProbesVisitor} that analyzes the statements and branches of a
+ * method and the probes they are covered by. The result is a
+ * {@link MethodStructure} which calculates the coverage for given probe data.
  */
 public class MethodAnalyzer extends MethodProbesVisitor {
 
-	private final boolean[] probes;
+	private final String name;
 
-	private final MethodCoverageImpl coverage;
+	private final String desc;
+
+	private final String signature;
+
+	private MethodStructure structure;
 
 	private int currentLine = ISourceNode.UNKNOWN_LINE;
 
@@ -48,8 +51,11 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	/** List of all analyzed instructions */
 	private final List<Instruction> instructions = new ArrayList<Instruction>();
 
-	/** List of all predecessors of covered probes */
-	private final List<Instruction> coveredProbes = new ArrayList<Instruction>();
+	/** List of all predecessors of probes */
+	private final List<Instruction> probeInsns = new ArrayList<Instruction>();
+
+	/** List of the ids of all probes */
+	private final List<Integer> probeIds = new ArrayList<Integer>();
 
 	/** List of all jumps encountered */
 	private final List<Jump> jumps = new ArrayList<Jump>();
@@ -58,7 +64,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	private Instruction lastInsn;
 
 	/**
-	 * New Method analyzer for the given probe data.
+	 * New Method analyzer for the given method.
 	 * 
 	 * @param name
 	 *            method name
@@ -66,26 +72,23 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	 *            method descriptor
 	 * @param signature
 	 *            optional parameterized signature
-	 * 
-	 * @param probes
-	 *            recorded probe date of the containing class or
-	 *            <code>null</code> if the class is not executed at all
 	 */
 	public MethodAnalyzer(final String name, final String desc,
-			final String signature, final boolean[] probes) {
+			final String signature) {
 		super();
-		this.probes = probes;
-		this.coverage = new MethodCoverageImpl(name, desc, signature);
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
 	}
 
 	/**
-	 * Returns the coverage data for this method after this visitor has been
+	 * Returns the structure of this method after this visitor has been
 	 * processed.
 	 * 
-	 * @return coverage data for this method
+	 * @return structure of this method
 	 */
-	public IMethodCoverage getCoverage() {
-		return coverage;
+	public MethodStructure getStructure() {
+		return structure;
 	}
 
 	@Override
@@ -267,29 +270,41 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 		for (final Jump j : jumps) {
 			LabelInfo.getInstruction(j.target).setPredecessor(j.source);
 		}
-		// Propagate probe values:
-		for (final Instruction p : coveredProbes) {
-			p.setCovered();
+		// Number instructions:
+		final int count = instructions.size();
+		final Map<Instruction, Integer> indices = new HashMap<Instruction, Integer>(
+				count * 2);
+		for (int i = 0; i < count; i++) {
+			indices.put(instructions.get(i), Integer.valueOf(i));
+		}
+		// Create structure:
+		final int[] lines = new int[count];
+		final int[] branches = new int[count];
+		final int[] predecessors = new int[count];
+		for (int i = 0; i < count; i++) {
+			final Instruction insn = instructions.get(i);
+			lines[i] = insn.getLine();
+			branches[i] = insn.getBranches();
+			final Instruction predecessor = insn.getPredecessor();
+			predecessors[i] = predecessor == null ? -1 : indices.get(
+					predecessor).intValue();
 		}
-		// Report result:
-		coverage.ensureCapacity(firstLine, lastLine);
-		for (final Instruction i : instructions) {
-			final int total = i.getBranches();
-			final int covered = i.getCoveredBranches();
-			final ICounter instrCounter = covered == 0 ? CounterImpl.COUNTER_1_0
-					: CounterImpl.COUNTER_0_1;
-			final ICounter branchCounter = total > 1 ? CounterImpl.getInstance(
-					total - covered, covered) : CounterImpl.COUNTER_0_0;
-			coverage.increment(instrCounter, branchCounter, i.getLine());
+		final int probeCount = probeIds.size();
+		final int[] probeInsnIndices = new int[probeCount];
+		final int[] probeIdArray = new int[probeCount];
+		for (int p = 0; p < probeCount; p++) {
+			probeInsnIndices[p] = indices.get(probeInsns.get(p)).intValue();
+			probeIdArray[p] = probeIds.get(p).intValue();
 		}
-		coverage.incrementMethodCounter();
+		structure = new MethodStructure(name, desc, signature, firstLine,
+				lastLine, lines, branches, predecessors, probeInsnIndices,
+				probeIdArray);
 	}
 
 	private void addProbe(final int probeId) {
 		lastInsn.addBranch();
-		if (probes != null && probes[probeId]) {
-			coveredProbes.add(lastInsn);
-		}
+		probeInsns.add(lastInsn);
+		probeIds.add(Integer.valueOf(probeId));
 	}
 
 	private static class Jump {
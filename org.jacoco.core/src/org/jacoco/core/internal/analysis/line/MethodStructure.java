@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.line;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * The control flow of a method as derived from the class file. Instructions
+ * are stored in columns with their source line, their number of branches and
+ * the index of their predecessor. Every probe is mapped to the instruction it
+ * belongs to. Coverage for given probes is calculated by propagating every
+ * executed probe backwards along the predecessors, without parsing the class
+ * file again.
+ */
+public class MethodStructure {
+
+	private final String name;
+	private final String desc;
+	private final String signature;
+	private final int firstLine;
+	private final int lastLine;
+	private final int[] lines;
+	private final int[] branches;
+	private final int[] predecessors;
+	private final int[] probeInsns;
+	private final int[] probeIds;
+
+	/**
+	 * Creates a new method structure. The instruction columns have one entry
+	 * per instruction, the probe columns one entry per probe.
+	 * 
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            generic signature or <code>null</code>
+	 * @param firstLine
+	 *            first source line of the method
+	 * @param lastLine
+	 *            last source line of the method
+	 * @param lines
+	 *            source line of every instruction
+	 * @param branches
+	 *            number of branches of every instruction
+	 * @param predecessors
+	 *            index of the predecessor of every instruction or
+	 *            <code>-1</code>
+	 * @param probeInsns
+	 *            index of the instruction of every probe
+	 * @param probeIds
+	 *            id of every probe
+	 */
+	public MethodStructure(final String name, final String desc,
+			final String signature, final int firstLine, final int lastLine,
+			final int[] lines, final int[] branches, final int[] predecessors,
+			final int[] probeInsns, final int[] probeIds) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.firstLine = firstLine;
+		this.lastLine = lastLine;
+		this.lines = lines;
+		this.branches = branches;
+		this.predecessors = predecessors;
+		this.probeInsns = probeInsns;
+		this.probeIds = probeIds;
+	}
+
+	/**
+	 * Returns the number of instructions of this method.
+	 * 
+	 * @return number of instructions
+	 */
+	public int getInstructionCount() {
+		return lines.length;
+	}
+
+	/**
+	 * Creates the coverage of this method for the given probes.
+	 * 
+	 * @param probes
+	 *            probes of the class or <code>null</code> if the class is not
+	 *            executed at all
+	 * @param stringPool
+	 *            pool to normalize the method names
+	 * @return coverage of this method
+	 */
+	public MethodCoverageImpl createCoverage(final boolean[] probes,
+			final StringPool stringPool) {
+		final MethodCoverageImpl coverage = new MethodCoverageImpl(
+				stringPool.get(name), stringPool.get(desc),
+				stringPool.get(signature));
+		final int[] coveredBranches = new int[lines.length];
+		if (probes != null) {
+			for (int p = 0; p < probeIds.length; p++) {
+				if (probes[probeIds[p]]) {
+					int i = probeInsns[p];
+					while (i != -1 && coveredBranches[i]++ == 0) {
+						i = predecessors[i];
+					}
+				}
+			}
+		}
+		coverage.ensureCapacity(firstLine, lastLine);
+		for (int i = 0; i < lines.length; i++) {
+			final int total = branches[i];
+			final int covered = coveredBranches[i];
+			final ICounter instrCounter = covered == 0 ? CounterImpl.COUNTER_1_0
+					: CounterImpl.COUNTER_0_1;
+			final ICounter branchCounter = total > 1 ? CounterImpl.getInstance(
+					total - covered, covered) : CounterImpl.COUNTER_0_0;
+			coverage.increment(instrCounter, branchCounter, lines[i]);
+		}
+		coverage.incrementMethodCounter();
+		return coverage;
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		out.writeUTF(name);
+		out.writeUTF(desc);
+		out.writeOptionalUTF(signature);
+		out.writeVarInt(firstLine + 1);
+		out.writeVarInt(lastLine + 1);
+		out.writeVarInt(lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			out.writeVarInt(lines[i] + 1);
+			out.writeVarInt(branches[i]);
+			out.writeVarInt(predecessors[i] + 1);
+		}
+		out.writeVarInt(probeIds.length);
+		for (int p = 0; p < probeIds.length; p++) {
+			out.writeVarInt(probeInsns[p]);
+			out.writeVarInt(probeIds[p]);
+		}
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static MethodStructure read(final CompactDataInput in)
+			throws IOException {
+		final String name = in.readUTF();
+		final String desc = in.readUTF();
+		final String signature = in.readOptionalUTF();
+		final int firstLine = in.readVarInt() - 1;
+		final int lastLine = in.readVarInt() - 1;
+		final int count = in.readVarInt();
+		final int[] lines = new int[count];
+		final int[] branches = new int[count];
+		final int[] predecessors = new int[count];
+		for (int i = 0; i < count; i++) {
+			lines[i] = in.readVarInt() - 1;
+			branches[i] = in.readVarInt();
+			predecessors[i] = in.readVarInt() - 1;
+		}
+		final int probeCount = in.readVarInt();
+		final int[] probeInsns = new int[probeCount];
+		final int[] probeIds = new int[probeCount];
+		for (int p = 0; p < probeCount; p++) {
+			probeInsns[p] = in.readVarInt();
+			probeIds[p] = in.readVarInt();
+		}
+		return new MethodStructure(name, desc, signature, firstLine, lastLine,
+				lines, branches, predecessors, probeInsns, probeIds);
+	}
+
+}
@@ -11,9 +11,13 @@
  *******************************************************************************/
 package org.jacoco.core.internal.data;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * Additional data input methods for compact storage of data structures.
@@ -22,6 +26,8 @@ import java.io.InputStream;
  */
 public class CompactDataInput extends DataInputStream {
 
+	private final InputStream source;
+
 	/**
 	 * Creates a new {@link CompactDataInput} that uses the specified underlying
 	 * input stream.
@@ -31,6 +37,7 @@ public class CompactDataInput extends DataInputStream {
 	 */
 	public CompactDataInput(final InputStream in) {
 		super(in);
+		this.source = in;
 	}
 
 	/**
@@ -48,6 +55,18 @@ public class CompactDataInput extends DataInputStream {
 		return (value & 0x7F) | (readVarInt() << 7);
 	}
 
+	/**
+	 * Reads a string written by
+	 * {@link CompactDataOutput#writeOptionalUTF(String)}.
+	 * 
+	 * @return string or <code>null</code>
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public String readOptionalUTF() throws IOException {
+		return readBoolean() ? readUTF() : null;
+	}
+
 	/**
 	 * Reads a boolean array.
 	 * 
@@ -57,6 +76,134 @@ public class CompactDataInput extends DataInputStream {
 	 */
 	public boolean[] readBooleanArray() throws IOException {
 		final boolean[] value = new boolean[readVarInt()];
+		readBitmap(value);
+		return value;
+	}
+
+	/**
+	 * Reads a long array.
+	 * 
+	 * @return long array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public long[] readLongArray() throws IOException {
+		final long[] value = new long[readVarInt()];
+		for (int i = 0; i < value.length; i++) {
+			value[i] = readLong();
+		}
+		return value;
+	}
+
+	/**
+	 * Reads probes written by
+	 * {@link CompactDataOutput#writeProbeArray(boolean[])}.
+	 * 
+	 * @return boolean array
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the encoding is unknown
+	 */
+	public boolean[] readProbeArray() throws IOException {
+		final boolean[] value = new boolean[readVarInt()];
+		final int encoding = readByte();
+		switch (encoding) {
+		case CompactDataOutput.PROBES_BITMAP:
+			readBitmap(value);
+			break;
+		case CompactDataOutput.PROBES_DELTA:
+			int pos = 0;
+			for (int count = readVarInt(); count > 0; count--) {
+				pos += readVarInt();
+				value[pos++] = true;
+			}
+			break;
+		case CompactDataOutput.PROBES_RUNLENGTH:
+			boolean executed = false;
+			for (int i = 0; i < value.length; executed = !executed) {
+				final int end = i + readVarInt();
+				while (i < end) {
+					value[i++] = executed;
+				}
+			}
+			break;
+		default:
+			throw unknownEncoding(encoding);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads probe words written by
+	 * {@link CompactDataOutput#writeProbeWords(long[])}.
+	 * 
+	 * @return probe words
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the encoding is unknown
+	 */
+	public long[] readProbeWords() throws IOException {
+		final long[] value = new long[readVarInt()];
+		final int encoding = readByte();
+		switch (encoding) {
+		case CompactDataOutput.PROBES_BITMAP:
+			for (int i = 0; i < value.length; i++) {
+				value[i] = readLong();
+			}
+			break;
+		case CompactDataOutput.PROBES_DELTA:
+			int pos = 0;
+			for (int count = readVarInt(); count > 0; count--) {
+				pos += readVarInt();
+				value[pos >>> 6] |= 1L << pos;
+				pos++;
+			}
+			break;
+		case CompactDataOutput.PROBES_RUNLENGTH:
+			final int length = value.length << 6;
+			boolean executed = false;
+			for (int i = 0; i < length; executed = !executed) {
+				final int end = i + readVarInt();
+				if (executed) {
+					for (; i < end; i++) {
+						value[i >>> 6] |= 1L << i;
+					}
+				}
+				i = end;
+			}
+			break;
+		default:
+			throw unknownEncoding(encoding);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a frame written by
+	 * {@link CompactDataOutput#writeDeflatedFrame(byte[])}. Subsequent
+	 * reads return the decompressed content of the frame first and then
+	 * continue with the underlying stream.
+	 * 
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the frame is corrupt
+	 */
+	public void readDeflatedFrame() throws IOException {
+		final byte[] data = new byte[readVarInt()];
+		final byte[] compressed = new byte[readVarInt()];
+		readFully(compressed);
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			if (inflater.inflate(data) != data.length || !inflater.finished()) {
+				throw new IOException("Corrupt deflated frame.");
+			}
+		} catch (final DataFormatException e) {
+			throw new IOException("Corrupt deflated frame.");
+		} finally {
+			inflater.end();
+		}
+		in = new SequenceInputStream(new ByteArrayInputStream(data), source);
+	}
+
+	private void readBitmap(final boolean[] value) throws IOException {
 		int buffer = 0;
 		for (int i = 0; i < value.length; i++) {
 			if ((i % 8) == 0) {
@@ -65,7 +212,11 @@ public class CompactDataInput extends DataInputStream {
 			value[i] = (buffer & 0x01) != 0;
 			buffer >>>= 1;
 		}
-		return value;
+	}
+
+	private static IOException unknownEncoding(final int encoding) {
+		return new IOException(String.format("Unknown probe encoding %x.",
+				Integer.valueOf(encoding)));
 	}
 
 }
@@ -14,6 +14,7 @@ package org.jacoco.core.internal.data;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 
 /**
  * Additional data output methods for compact storage of data structures.
@@ -22,6 +23,15 @@ import java.io.OutputStream;
  */
 public class CompactDataOutput extends DataOutputStream {
 
+	/** Probe encoding: one bit per probe */
+	static final int PROBES_BITMAP = 0;
+
+	/** Probe encoding: delta coded indices of executed probes */
+	static final int PROBES_DELTA = 1;
+
+	/** Probe encoding: alternating run lengths, starting with not executed */
+	static final int PROBES_RUNLENGTH = 2;
+
 	/**
 	 * Creates a new {@link CompactDataOutput} instance that writes data to the
 	 * specified underlying output stream
@@ -52,6 +62,21 @@ public class CompactDataOutput extends DataOutputStream {
 		}
 	}
 
+	/**
+	 * Writes a string which may be <code>null</code>.
+	 * 
+	 * @param value
+	 *            string or <code>null</code>
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeOptionalUTF(final String value) throws IOException {
+		writeBoolean(value != null);
+		if (value != null) {
+			writeUTF(value);
+		}
+	}
+
 	/**
 	 * Writes a boolean array. Internally a sequence of boolean values is packed
 	 * into single bits.
@@ -63,6 +88,156 @@ public class CompactDataOutput extends DataOutputStream {
 	 */
 	public void writeBooleanArray(final boolean[] value) throws IOException {
 		writeVarInt(value.length);
+		writeBitmap(value);
+	}
+
+	/**
+	 * Writes a long array. The words are written as is, i.e. each element
+	 * takes exactly 8 bytes preceded by the variable length array size.
+	 * 
+	 * @param value
+	 *            long array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeLongArray(final long[] value) throws IOException {
+		writeVarInt(value.length);
+		for (final long l : value) {
+			writeLong(l);
+		}
+	}
+
+	/**
+	 * Writes a boolean array of probes in the most compact of three encodings:
+	 * a bitmap, a delta coded list of the indices of <code>true</code> entries
+	 * or run lengths of alternating values. The encoding is chosen by size, so
+	 * sparse arrays need only a few bytes.
+	 * 
+	 * @param value
+	 *            probes to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see CompactDataInput#readProbeArray()
+	 */
+	public void writeProbeArray(final boolean[] value) throws IOException {
+		writeVarInt(value.length);
+		int count = 0;
+		final int[] hits = new int[value.length];
+		for (int i = 0; i < value.length; i++) {
+			if (value[i]) {
+				hits[count++] = i;
+			}
+		}
+		final int encoding = selectEncoding(value.length, hits, count,
+				(value.length + 7) >> 3);
+		writeByte(encoding);
+		if (encoding == PROBES_BITMAP) {
+			writeBitmap(value);
+		} else {
+			writeSparse(encoding, value.length, hits, count);
+		}
+	}
+
+	/**
+	 * Writes probes stored as bits in <code>long</code> words in the most
+	 * compact of the encodings described at {@link #writeProbeArray(boolean[])}
+	 * . In bitmap encoding every word is written as a <code>long</code>.
+	 * 
+	 * @param value
+	 *            probe words to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see CompactDataInput#readProbeWords()
+	 */
+	public void writeProbeWords(final long[] value) throws IOException {
+		writeVarInt(value.length);
+		int count = 0;
+		for (final long w : value) {
+			count += Long.bitCount(w);
+		}
+		final int[] hits = new int[count];
+		count = 0;
+		for (int i = 0; i < value.length; i++) {
+			long w = value[i];
+			while (w != 0) {
+				hits[count++] = (i << 6) + Long.numberOfTrailingZeros(w);
+				w &= w - 1;
+			}
+		}
+		final int encoding = selectEncoding(value.length << 6, hits, count,
+				value.length << 3);
+		writeByte(encoding);
+		if (encoding == PROBES_BITMAP) {
+			for (final long w : value) {
+				writeLong(w);
+			}
+		} else {
+			writeSparse(encoding, value.length << 6, hits, count);
+		}
+	}
+
+	/**
+	 * Writes the given data deflated as a frame: the uncompressed length, the
+	 * compressed length and the compressed bytes.
+	 * 
+	 * @param data
+	 *            data to compress
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see CompactDataInput#readDeflatedFrame()
+	 */
+	public void writeDeflatedFrame(final byte[] data) throws IOException {
+		final Deflater deflater = new Deflater();
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] compressed = new byte[Math.max(64, data.length / 2)];
+			int size = 0;
+			while (!deflater.finished()) {
+				if (size == compressed.length) {
+					final byte[] larger = new byte[compressed.length * 2];
+					System.arraycopy(compressed, 0, larger, 0, size);
+					compressed = larger;
+				}
+				size += deflater.deflate(compressed, size, compressed.length
+						- size);
+			}
+			writeVarInt(data.length);
+			writeVarInt(size);
+			write(compressed, 0, size);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static int selectEncoding(final int length, final int[] hits,
+			final int count, final int bitmapSize) {
+		int deltaSize = varIntSize(count);
+		int runSize = 0;
+		int pos = 0;
+		int i = 0;
+		while (i < count) {
+			final int first = i;
+			deltaSize += varIntSize(hits[i] - pos);
+			while (i + 1 < count && hits[i + 1] == hits[i] + 1) {
+				i++;
+				deltaSize += 1;
+			}
+			runSize += varIntSize(hits[first] - pos);
+			runSize += varIntSize(i - first + 1);
+			pos = hits[i] + 1;
+			i++;
+		}
+		if (pos < length) {
+			runSize += varIntSize(length - pos);
+		}
+		if (bitmapSize <= deltaSize && bitmapSize <= runSize) {
+			return PROBES_BITMAP;
+		}
+		return deltaSize <= runSize ? PROBES_DELTA : PROBES_RUNLENGTH;
+	}
+
+	private void writeBitmap(final boolean[] value) throws IOException {
 		int buffer = 0;
 		int bufferSize = 0;
 		for (final boolean b : value) {
@@ -80,4 +255,42 @@ public class CompactDataOutput extends DataOutputStream {
 		}
 	}
 
+	private void writeSparse(final int encoding, final int length,
+			final int[] hits, final int count) throws IOException {
+		if (encoding == PROBES_DELTA) {
+			writeVarInt(count);
+			int pos = 0;
+			for (int i = 0; i < count; i++) {
+				writeVarInt(hits[i] - pos);
+				pos = hits[i] + 1;
+			}
+		} else {
+			int pos = 0;
+			int i = 0;
+			while (i < count) {
+				final int first = i;
+				while (i + 1 < count && hits[i + 1] == hits[i] + 1) {
+					i++;
+				}
+				writeVarInt(hits[first] - pos);
+				writeVarInt(i - first + 1);
+				pos = hits[i] + 1;
+				i++;
+			}
+			if (pos < length) {
+				writeVarInt(length - pos);
+			}
+		}
+	}
+
+	private static int varIntSize(final int value) {
+		int size = 1;
+		int v = value >>> 7;
+		while (v != 0) {
+			size++;
+			v >>>= 7;
+		}
+		return size;
+	}
+
 }
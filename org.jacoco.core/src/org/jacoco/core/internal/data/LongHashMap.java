@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open addressing hash map with primitive <code>long</code> keys. Keys are
+ * stored in a plain <code>long[]</code> next to the values, so neither key
+ * objects nor entry nodes are allocated. Entries can not be removed.
+ * 
+ * Lookups and iteration do not block and may run concurrently with inserts,
+ * inserts are serialized internally. Iteration is weakly consistent, i.e. it
+ * may or may not reflect concurrent inserts.
+ * 
+ * @param <V>
+ *            value type
+ */
+public final class LongHashMap<V> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Object lock = new Object();
+
+	private volatile Table<V> table;
+
+	private volatile int size;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public LongHashMap() {
+		table = new Table<V>(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the value for the given key.
+	 * 
+	 * @param key
+	 *            key to look up
+	 * @return value or <code>null</code> if the map contains no value for the
+	 *         key
+	 */
+	public V get(final long key) {
+		return table.get(key);
+	}
+
+	/**
+	 * Adds the given value unless there is already a value for the given key.
+	 * 
+	 * @param key
+	 *            key of the value
+	 * @param value
+	 *            value to add, must not be <code>null</code>
+	 * @return existing value for the key or <code>null</code> if the given
+	 *         value has been added
+	 */
+	public V putIfAbsent(final long key, final V value) {
+		synchronized (lock) {
+			final V existing = table.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			if (size >= table.threshold) {
+				table = table.grow();
+			}
+			table.insert(key, value);
+			size++;
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the number of values in this map.
+	 * 
+	 * @return number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a view of the values contained in this map.
+	 * 
+	 * @return view of all values
+	 */
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return table.iterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private static int index(final long key, final int mask) {
+		final int h = (int) (key ^ (key >>> 32)) * 0x9e3779b9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static final class Table<V> {
+
+		final long[] keys;
+
+		// A slot is published by the volatile write of its value, which
+		// happens after the key has been written.
+		final AtomicReferenceArray<V> values;
+
+		final int mask;
+
+		final int threshold;
+
+		Table(final int capacity) {
+			keys = new long[capacity];
+			values = new AtomicReferenceArray<V>(capacity);
+			mask = capacity - 1;
+			threshold = capacity / 4 * 3;
+		}
+
+		V get(final long key) {
+			int i = index(key, mask);
+			while (true) {
+				final V value = values.get(i);
+				if (value == null || keys[i] == key) {
+					return value;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		void insert(final long key, final V value) {
+			int i = index(key, mask);
+			while (values.get(i) != null) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values.set(i, value);
+		}
+
+		Table<V> grow() {
+			final Table<V> t = new Table<V>(keys.length << 1);
+			for (int i = 0; i < keys.length; i++) {
+				final V value = values.get(i);
+				if (value != null) {
+					t.insert(keys[i], value);
+				}
+			}
+			return t;
+		}
+
+		Iterator<V> iterator() {
+			return new Iterator<V>() {
+
+				private int next = advance(0);
+
+				private int advance(int i) {
+					while (i < keys.length && values.get(i) == null) {
+						i++;
+					}
+					return i;
+				}
+
+				public boolean hasNext() {
+					return next < keys.length;
+				}
+
+				public V next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					final V value = values.get(next);
+					next = advance(next + 1);
+					return value;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+	}
+
+}
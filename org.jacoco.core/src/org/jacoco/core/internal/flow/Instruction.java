@@ -69,6 +69,15 @@ public class Instruction {
 		}
 	}
 
+	/**
+	 * Returns the predecessor of this instruction.
+	 * 
+	 * @return predecessor instruction or <code>null</code>
+	 */
+	public Instruction getPredecessor() {
+		return predecessor;
+	}
+
 	/**
 	 * Returns the source line this instruction belongs to.
 	 * 
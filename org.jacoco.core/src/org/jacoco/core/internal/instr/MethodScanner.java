@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.JaCoCo;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Internal class to find out which kind of methods a class declares. Unlike
+ * {@link ProbeCounter} the method bodies are skipped, so only the member
+ * declarations of the class file are parsed.
+ */
+class MethodScanner extends ClassVisitor {
+
+	private boolean code;
+	private boolean methods;
+
+	MethodScanner() {
+		super(JaCoCo.ASM_API_VERSION);
+		code = false;
+		methods = false;
+	}
+
+	/**
+	 * Scans the methods declared by the given class.
+	 * 
+	 * @param reader
+	 *            reader for the class
+	 * @return this scanner
+	 */
+	MethodScanner scan(final ClassReader reader) {
+		reader.accept(this, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG
+				| ClassReader.SKIP_FRAMES);
+		return this;
+	}
+
+	@Override
+	public MethodVisitor visitMethod(final int access, final String name,
+			final String desc, final String signature, final String[] exceptions) {
+		if ((access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) == 0) {
+			code = true;
+		}
+		if (!"<clinit>".equals(name)) {
+			methods = true;
+		}
+		return null;
+	}
+
+	/**
+	 * @return <code>true</code> if the class has methods with code, i.e. the
+	 *         class requires probes
+	 */
+	boolean hasCode() {
+		return code;
+	}
+
+	/**
+	 * @return <code>true</code> if the class has other methods than a static
+	 *         initializer
+	 */
+	boolean hasMethods() {
+		return methods;
+	}
+
+}
@@ -38,25 +38,48 @@ public final class ProbeArrayStrategyFactory {
 	 */
 	public static IProbeArrayStrategy createFor(final ClassReader reader,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
+		return createFor(CRC64.checksum(reader.b), reader, accessorGenerator);
+	}
+
+	/**
+	 * Creates a suitable strategy instance for the class described by the given
+	 * reader and identified by the given id. Classes never require an
+	 * additional pass over their code. For interfaces only the method
+	 * declarations are scanned, the probes are counted only if the probe array
+	 * is kept in a local variable of the static initializer.
+	 * 
+	 * @param classId
+	 *            CRC64 checksum of the class definition
+	 * @param reader
+	 *            reader to get information about the class
+	 * @param accessorGenerator
+	 *            accessor to the coverage runtime
+	 * @return strategy instance
+	 */
+	public static IProbeArrayStrategy createFor(final long classId,
+			final ClassReader reader,
+			final IExecutionDataAccessorGenerator accessorGenerator) {
 
 		final String className = reader.getClassName();
 		final int version = getVersion(reader);
-		final long classId = CRC64.checksum(reader.b);
 		final boolean withFrames = version >= Opcodes.V1_6;
 
 		if (isInterface(reader)) {
-			final ProbeCounter counter = getProbeCounter(reader);
-			if (counter.getCount() == 0) {
+			final MethodScanner scanner = new MethodScanner().scan(reader);
+			if (!scanner.hasCode()) {
 				return new NoneProbeArrayStrategy();
 			}
-			if (version >= Opcodes.V1_8 && counter.hasMethods()) {
+			if (version >= Opcodes.V1_8 && scanner.hasMethods()) {
 				return new FieldProbeArrayStrategy(className, classId,
 						withFrames, InstrSupport.DATAFIELD_INTF_ACC,
 						accessorGenerator);
-			} else {
-				return new LocalProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
 			}
+			final ProbeCounter counter = getProbeCounter(reader);
+			if (counter.getCount() == 0) {
+				return new NoneProbeArrayStrategy();
+			}
+			return new LocalProbeArrayStrategy(className, classId,
+					counter.getCount(), accessorGenerator);
 		} else {
 			return new FieldProbeArrayStrategy(className, classId, withFrames,
 					InstrSupport.DATAFIELD_ACC, accessorGenerator);
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Adapter that emits a version of a class which does not record coverage but
+ * declares the same members as the version emitted by
+ * {@link ClassInstrumenter}. Such a definition can replace the instrumented
+ * class through retransformation, which must not add or remove members, once
+ * all probes of the class have been executed.
+ */
+public class SaturatedClassInstrumenter extends ClassProbesVisitor {
+
+	private final IProbeArrayStrategy probeArrayStrategy;
+
+	private String className;
+
+	/**
+	 * Emits a saturated version of this class to the given class visitor.
+	 * 
+	 * @param probeArrayStrategy
+	 *            strategy of the instrumented version, which declares the
+	 *            additional members
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the saturated
+	 *            class
+	 */
+	public SaturatedClassInstrumenter(
+			final IProbeArrayStrategy probeArrayStrategy, final ClassVisitor cv) {
+		super(cv);
+		this.probeArrayStrategy = probeArrayStrategy;
+	}
+
+	@Override
+	public void visit(final int version, final int access, final String name,
+			final String signature, final String superName,
+			final String[] interfaces) {
+		this.className = name;
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public FieldVisitor visitField(final int access, final String name,
+			final String desc, final String signature, final Object value) {
+		InstrSupport.assertNotInstrumented(name, className);
+		return super.visitField(access, name, desc, signature, value);
+	}
+
+	@Override
+	public MethodProbesVisitor visitMethod(final int access, final String name,
+			final String desc, final String signature, final String[] exceptions) {
+
+		InstrSupport.assertNotInstrumented(name, className);
+
+		final MethodVisitor mv = cv.visitMethod(access, name, desc, signature,
+				exceptions);
+
+		if (mv == null) {
+			return null;
+		}
+		return new UninstrumentedMethod(mv);
+	}
+
+	@Override
+	public void visitTotalProbeCount(final int count) {
+		probeArrayStrategy.addMembers(cv, count);
+	}
+
+	/**
+	 * Emits the original instructions of a method without probes.
+	 */
+	private static class UninstrumentedMethod extends MethodProbesVisitor {
+
+		UninstrumentedMethod(final MethodVisitor mv) {
+			super(mv);
+		}
+
+		@Override
+		public void visitJumpInsnWithProbe(final int opcode, final Label label,
+				final int probeId, final IFrame frame) {
+			mv.visitJumpInsn(opcode, label);
+		}
+
+		@Override
+		public void visitInsnWithProbe(final int opcode, final int probeId) {
+			mv.visitInsn(opcode);
+		}
+
+		@Override
+		public void visitTableSwitchInsnWithProbes(final int min,
+				final int max, final Label dflt, final Label[] labels,
+				final IFrame frame) {
+			mv.visitTableSwitchInsn(min, max, dflt, labels);
+		}
+
+		@Override
+		public void visitLookupSwitchInsnWithProbes(final Label dflt,
+				final int[] keys, final Label[] labels, final IFrame frame) {
+			mv.visitLookupSwitchInsn(dflt, keys, labels);
+		}
+
+	}
+
+}
@@ -13,9 +13,12 @@ package org.jacoco.core.runtime;
 
 import org.jacoco.core.data.AbstractExecutionDataStore;
 import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.ControlFlowExecutionDataStore;
+import org.jacoco.core.data.DataFlowExecutionData;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.LongHashMap;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -33,6 +36,15 @@ public abstract class AbstractRuntimeData {
 
 	private String sessionId;
 
+	/** coverage moved out of the probe arrays by {@link #retain()} */
+	private ControlFlowExecutionDataStore retained = new ControlFlowExecutionDataStore();
+
+	/** probes already written by {@link #collectDelta}, one bit per probe */
+	private LongHashMap<long[]> collected = new LongHashMap<long[]>();
+
+	/** coverage kept over resets, see {@link #pin(long)} */
+	private final ControlFlowExecutionDataStore pinned = new ControlFlowExecutionDataStore();
+
 	/**
 	 * Creates a new runtime.
 	 */
@@ -67,7 +79,11 @@ public abstract class AbstractRuntimeData {
 
 	/**
 	 * Collects the current execution data and writes it to the given
-	 * {@link IExecutionDataVisitor} object.
+	 * {@link IExecutionDataVisitor} object. With <code>reset</code> only
+	 * classes with executed probes are written and cleared. The probes of all
+	 * other classes are still checked, but not written to. Coverage retained
+	 * by {@link #retain()} is included and cleared as well. Pinned coverage is
+	 * always included and never cleared.
 	 * 
 	 * @param executionDataVisitor
 	 *            handler to write coverage data to
@@ -83,27 +99,265 @@ public abstract class AbstractRuntimeData {
 			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
 			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
 			if (reset) {
-				reset();
+				if (isPlain()) {
+					store.acceptHits(executionDataVisitor, true);
+				} else {
+					accept(executionDataVisitor, true);
+					store.reset();
+					retained = new ControlFlowExecutionDataStore();
+				}
+				collected = new LongHashMap<long[]>();
+				startTimeStamp = System.currentTimeMillis();
+			} else {
+				accept(executionDataVisitor, false);
+			}
+		}
+	}
+
+	/**
+	 * Collects the execution data of all classes with executed probes, writes
+	 * it to the given {@link IExecutionDataVisitor} object and clears the
+	 * probes. Unlike a reset the collected coverage is retained: It is still
+	 * included in the data written by
+	 * {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)}
+	 * and {@link #collectDelta(IExecutionDataVisitor, ISessionInfoVisitor)}
+	 * until the next reset. This allows to record the coverage of consecutive
+	 * sections of a run, for example single tests, separately without losing
+	 * the overall coverage. Pinned coverage is not included, as it has not
+	 * been recorded in the current section.
+	 * 
+	 * @param executionDataVisitor
+	 *            handler to write the coverage of the current section to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 */
+	public final void collectAndRetain(
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) {
+		synchronized (store) {
+			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			sessionInfoVisitor.visitSessionInfo(info);
+			store.acceptHits(new IExecutionDataVisitor() {
+				public void visitClassExecution(
+						final ControlFlowExecutionData data) {
+					executionDataVisitor.visitClassExecution(data);
+					retained.put(copy(data));
+				}
+			}, true);
+		}
+	}
+
+	/**
+	 * Clears the probes of all classes but retains their coverage, i.e. the
+	 * next call of
+	 * {@link #collectAndRetain(IExecutionDataVisitor, ISessionInfoVisitor)}
+	 * only writes probes executed after this call.
+	 */
+	public final void retain() {
+		synchronized (store) {
+			store.acceptHits(new IExecutionDataVisitor() {
+				public void visitClassExecution(
+						final ControlFlowExecutionData data) {
+					retained.put(copy(data));
+				}
+			}, true);
+		}
+	}
+
+	/**
+	 * Checks whether the probe arrays hold the complete coverage, i.e. there
+	 * is neither retained nor pinned coverage.
+	 */
+	private boolean isPlain() {
+		return retained.getContents().isEmpty()
+				&& pinned.getContents().isEmpty();
+	}
+
+	/**
+	 * Writes the current coverage including the retained and pinned coverage
+	 * to the given visitor. Merged copies are only created for classes with
+	 * retained or pinned coverage.
+	 */
+	private void accept(final IExecutionDataVisitor visitor,
+			final boolean hitsOnly) {
+		if (isPlain()) {
+			if (hitsOnly) {
+				store.acceptHits(visitor, false);
+			} else {
+				store.accept(visitor);
+			}
+			return;
+		}
+		for (final ControlFlowExecutionData data : store.getContents()) {
+			final ControlFlowExecutionData merged = merge(data);
+			if (merged != data || !hitsOnly || data.hasHits()) {
+				visitor.visitClassExecution(merged);
 			}
 		}
 	}
 
 	/**
-	 * Resets all coverage information.
+	 * Returns a copy of the given data merged with the retained and pinned
+	 * coverage of the class or the data itself if there is no such coverage.
+	 */
+	private ControlFlowExecutionData merge(final ControlFlowExecutionData data) {
+		final ControlFlowExecutionData previous = retained.get(data.getId());
+		final ControlFlowExecutionData pin = pinned.get(data.getId());
+		if (previous == null && pin == null) {
+			return data;
+		}
+		final ControlFlowExecutionData merged = copy(data);
+		if (previous != null) {
+			merged.merge(previous);
+		}
+		if (pin != null) {
+			merged.merge(pin);
+		}
+		return merged;
+	}
+
+	/**
+	 * Collects the probes which have been executed for the first time since
+	 * the last call of this method or the last reset and writes them to the
+	 * given {@link IExecutionDataVisitor} object. Only classes with such probes
+	 * are written and the written data objects contain only these probes, so
+	 * the written data is proportional to the new coverage. Merging all written
+	 * deltas results in the complete coverage. Written probes are remembered
+	 * with one bit per probe, the current coverage information is not
+	 * modified.
+	 * 
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 */
+	public final void collectDelta(
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) {
+		synchronized (store) {
+			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			sessionInfoVisitor.visitSessionInfo(info);
+			accept(new IExecutionDataVisitor() {
+				public void visitClassExecution(
+						final ControlFlowExecutionData data) {
+					final ControlFlowExecutionData delta = delta(data);
+					if (delta != null) {
+						executionDataVisitor.visitClassExecution(delta);
+					}
+				}
+			}, true);
+		}
+	}
+
+	/**
+	 * Returns the probes of the given data which have not been written by
+	 * {@link #collectDelta} before and marks them as written. Returns
+	 * <code>null</code> if there are no such probes.
+	 */
+	private ControlFlowExecutionData delta(final ControlFlowExecutionData data) {
+		final long id = data.getId();
+		if (data instanceof DataFlowExecutionData) {
+			final long[] probes = ((DataFlowExecutionData) data)
+					.getLongProbes();
+			final long[] written = getCollected(id, probes.length);
+			long[] delta = null;
+			for (int i = 0; i < probes.length; i++) {
+				final long word = probes[i] & ~written[i];
+				if (word != 0) {
+					if (delta == null) {
+						delta = new long[probes.length];
+					}
+					delta[i] = word;
+					written[i] |= word;
+				}
+			}
+			return delta == null ? null : new DataFlowExecutionData(id,
+					data.getName(), delta);
+		}
+		final boolean[] probes = data.getProbes();
+		final long[] written = getCollected(id, (probes.length + 63) >>> 6);
+		boolean[] delta = null;
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i] && (written[i >>> 6] & (1L << i)) == 0) {
+				if (delta == null) {
+					delta = new boolean[probes.length];
+				}
+				delta[i] = true;
+				written[i >>> 6] |= 1L << i;
+			}
+		}
+		return delta == null ? null : new ControlFlowExecutionData(id,
+				data.getName(), delta);
+	}
+
+	private long[] getCollected(final long id, final int words) {
+		long[] written = collected.get(id);
+		if (written == null) {
+			written = new long[words];
+			collected.putIfAbsent(id, written);
+		}
+		return written;
+	}
+
+	private static ControlFlowExecutionData copy(
+			final ControlFlowExecutionData data) {
+		if (data instanceof DataFlowExecutionData) {
+			return new DataFlowExecutionData(data.getId(), data.getName(),
+					((DataFlowExecutionData) data).getLongProbes().clone());
+		}
+		return new ControlFlowExecutionData(data.getId(), data.getName(), data
+				.getProbes().clone());
+	}
+
+	/**
+	 * Resets all coverage information including the retained coverage, but
+	 * not the pinned coverage.
 	 */
 	public final void reset() {
 		synchronized (store) {
 			store.reset();
+			retained = new ControlFlowExecutionDataStore();
+			collected = new LongHashMap<long[]>();
 			startTimeStamp = System.currentTimeMillis();
 		}
 	}
 
+	/**
+	 * Pins the current coverage of the class with the given identifier,
+	 * including its retained coverage. Pinned coverage is kept apart from the
+	 * probe arrays and is included in the data written by
+	 * {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)}
+	 * and {@link #collectDelta(IExecutionDataVisitor, ISessionInfoVisitor)},
+	 * also after resets. It is not included in the data written by
+	 * {@link #collectAndRetain(IExecutionDataVisitor, ISessionInfoVisitor)}.
+	 * This is intended for classes which do not record coverage any more, for
+	 * example because their instrumentation has been removed after all probes
+	 * have been executed.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @return <code>true</code> if execution data for the class exists
+	 */
+	public final boolean pin(final long id) {
+		synchronized (store) {
+			final ControlFlowExecutionData data = store.get(id);
+			if (data == null) {
+				return false;
+			}
+			final ControlFlowExecutionData merged = merge(data);
+			pinned.put(merged == data ? copy(data) : merged);
+			return true;
+		}
+	}
+
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * This is a thread safe access to the underlying store which does not
+	 * block, also not while execution data is collected or reset.
 	 * 
 	 * @param id
 	 *            class identifier
@@ -102,6 +102,7 @@ public final class AgentOptions {
 	 * @see OutputMode#tcpserver
 	 * @see OutputMode#tcpclient
 	 * @see OutputMode#none
+	 * @see OutputMode#mmap
 	 */
 	public static final String OUTPUT = "output";
 
@@ -135,7 +136,15 @@ public final class AgentOptions {
 		 * Value for the {@link AgentOptions#OUTPUT} parameter: Do not produce
 		 * any output.
 		 */
-		none
+		none,
+
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: The probes of
+		 * all classes are kept in a memory-mapped file specified by
+		 * {@link AgentOptions#DESTFILE} which is refreshed in the interval
+		 * specified by {@link AgentOptions#MMAPINTERVAL} and on every dump.
+		 */
+		mmap
 
 	}
 
@@ -181,10 +190,96 @@ public final class AgentOptions {
 	 */
 	public static final String DATAFLOW = "dataflow";
 
+	/**
+	 * Specifies the file to which per-test coverage spectra are written. The
+	 * file is opened once and receives one session block per test recorded
+	 * through the agent API. Default is <code>null</code> (no spectra).
+	 */
+	public static final String SPECTRAFILE = "spectrafile";
+
+	/**
+	 * Interval in milliseconds in which the memory-mapped file is refreshed if
+	 * the output is <code>mmap</code>. A value of <code>0</code> refreshes the
+	 * file on dumps only. Default is defined by {@link #DEFAULT_MMAPINTERVAL}.
+	 */
+	public static final String MMAPINTERVAL = "mmapinterval";
+
+	/**
+	 * Default value for the "mmapinterval" agent option.
+	 */
+	public static final int DEFAULT_MMAPINTERVAL = 1000;
+
+	/**
+	 * Interval in milliseconds in which the agent periodically dumps execution
+	 * data through the configured output. Default is <code>0</code> (no
+	 * periodic dumps).
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Specifies what periodic dumps and the dump on exit write. Default is
+	 * {@link DumpMode#full}.
+	 * 
+	 * @see DumpMode#full
+	 * @see DumpMode#delta
+	 */
+	public static final String DUMPMODE = "dumpmode";
+
+	/**
+	 * Possible values for {@link AgentOptions#DUMPMODE}.
+	 */
+	public static enum DumpMode {
+
+		/**
+		 * Value for the {@link AgentOptions#DUMPMODE} parameter: Every dump
+		 * writes the complete execution data.
+		 */
+		full,
+
+		/**
+		 * Value for the {@link AgentOptions#DUMPMODE} parameter: Every dump
+		 * appends a new session with the probes executed for the first time
+		 * since the previous dump only.
+		 */
+		delta
+
+	}
+
+	/**
+	 * Specifies a directory where the agent caches instrumented class files.
+	 * The directory may be shared by several JVMs, later JVM runs load
+	 * unchanged classes from the cache instead of instrumenting them again.
+	 * Default is <code>null</code> (no cache).
+	 */
+	public static final String INSTRCACHE = "instrcache";
+
+	/**
+	 * Maximum size of the instrumentation cache directory in megabytes. If the
+	 * cache grows larger the least recently used entries are removed. Default
+	 * is defined by {@link #DEFAULT_INSTRCACHESIZE}.
+	 */
+	public static final String INSTRCACHESIZE = "instrcachesize";
+
+	/**
+	 * Default value for the "instrcachesize" agent option.
+	 */
+	public static final int DEFAULT_INSTRCACHESIZE = 1024;
+
+	/**
+	 * Interval in milliseconds in which the agent looks for classes whose
+	 * probes have all been executed and retransforms them to a version without
+	 * probes. The coverage of such classes is kept for all following dumps.
+	 * Default is <code>0</code> (classes stay instrumented). Not supported in
+	 * data-flow mode.
+	 */
+	public static final String DEINSTRUMENTINTERVAL = "deinstrumentinterval";
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, SESSIONID, DUMPONEXIT, OUTPUT, ADDRESS, PORT,
-			CLASSDUMPDIR, JMX, DATAFLOW);
+			CLASSDUMPDIR, JMX, DATAFLOW, SPECTRAFILE, MMAPINTERVAL,
+			DUMPINTERVAL, DUMPMODE, INSTRCACHE, INSTRCACHESIZE,
+			DEINSTRUMENTINTERVAL);
 
 	private final Map<String, String> options;
 
@@ -242,7 +337,12 @@ public final class AgentOptions {
 
 	private void validateAll() {
 		validatePort(getPort());
+		validateMmapInterval(getMmapInterval());
+		validateDumpInterval(getDumpInterval());
+		validateInstrCacheSize(getInstrCacheSize());
+		validateDeinstrumentInterval(getDeinstrumentInterval());
 		getOutput();
+		getDumpMode();
 	}
 
 	private void validatePort(final int port) {
@@ -251,6 +351,32 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateDumpInterval(final int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("dumpinterval must be positive");
+		}
+	}
+
+	private void validateDeinstrumentInterval(final int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException(
+					"deinstrumentinterval must be positive");
+		}
+	}
+
+	private void validateInstrCacheSize(final int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException(
+					"instrcachesize must be positive");
+		}
+	}
+
+	private void validateMmapInterval(final int interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("mmapinterval must be positive");
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 * 
@@ -541,6 +667,157 @@ public final class AgentOptions {
 		setOption(DATAFLOW, dataflow);
 	}
 
+	/**
+	 * Returns the location of the file per-test coverage spectra are written
+	 * to.
+	 * 
+	 * @return spectra file location or <code>null</code> (no spectra)
+	 */
+	public String getSpectraFile() {
+		return getOption(SPECTRAFILE, null);
+	}
+
+	/**
+	 * Sets the location of the file per-test coverage spectra are written to.
+	 * 
+	 * @param spectraFile
+	 *            spectra file location or <code>null</code> (no spectra)
+	 */
+	public void setSpectraFile(final String spectraFile) {
+		setOption(SPECTRAFILE, spectraFile);
+	}
+
+	/**
+	 * Returns the interval in milliseconds in which the memory-mapped file is
+	 * refreshed when the output is <code>mmap</code>.
+	 * 
+	 * @return refresh interval in milliseconds, <code>0</code> for dumps only
+	 */
+	public int getMmapInterval() {
+		return getOption(MMAPINTERVAL, DEFAULT_MMAPINTERVAL);
+	}
+
+	/**
+	 * Sets the interval in milliseconds in which the memory-mapped file is
+	 * refreshed when the output is <code>mmap</code>.
+	 * 
+	 * @param interval
+	 *            refresh interval in milliseconds, <code>0</code> for dumps
+	 *            only
+	 */
+	public void setMmapInterval(final int interval) {
+		validateMmapInterval(interval);
+		setOption(MMAPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the interval in milliseconds in which execution data is dumped
+	 * periodically.
+	 * 
+	 * @return dump interval in milliseconds, <code>0</code> for no periodic
+	 *         dumps
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in milliseconds in which execution data is dumped
+	 * periodically.
+	 * 
+	 * @param interval
+	 *            dump interval in milliseconds, <code>0</code> for no periodic
+	 *            dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		validateDumpInterval(interval);
+		setOption(DUMPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the dump mode
+	 * 
+	 * @return current dump mode
+	 */
+	public DumpMode getDumpMode() {
+		final String value = options.get(DUMPMODE);
+		return value == null ? DumpMode.full : DumpMode.valueOf(value);
+	}
+
+	/**
+	 * Sets the dump mode
+	 * 
+	 * @param mode
+	 *            dump mode
+	 */
+	public void setDumpMode(final DumpMode mode) {
+		setOption(DUMPMODE, mode.name());
+	}
+
+	/**
+	 * Returns the location of the directory where instrumented class files
+	 * are cached.
+	 * 
+	 * @return cache location or <code>null</code> (no cache)
+	 */
+	public String getInstrCache() {
+		return getOption(INSTRCACHE, null);
+	}
+
+	/**
+	 * Sets the directory where instrumented class files are cached.
+	 * 
+	 * @param location
+	 *            cache location or <code>null</code> (no cache)
+	 */
+	public void setInstrCache(final String location) {
+		setOption(INSTRCACHE, location);
+	}
+
+	/**
+	 * Returns the maximum size of the instrumentation cache in megabytes.
+	 * 
+	 * @return maximum cache size in megabytes
+	 */
+	public int getInstrCacheSize() {
+		return getOption(INSTRCACHESIZE, DEFAULT_INSTRCACHESIZE);
+	}
+
+	/**
+	 * Sets the maximum size of the instrumentation cache in megabytes.
+	 * 
+	 * @param size
+	 *            maximum cache size in megabytes
+	 */
+	public void setInstrCacheSize(final int size) {
+		validateInstrCacheSize(size);
+		setOption(INSTRCACHESIZE, size);
+	}
+
+	/**
+	 * Returns the interval in milliseconds in which fully covered classes are
+	 * retransformed to a version without probes.
+	 * 
+	 * @return interval in milliseconds, <code>0</code> if classes stay
+	 *         instrumented
+	 */
+	public int getDeinstrumentInterval() {
+		return getOption(DEINSTRUMENTINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in milliseconds in which fully covered classes are
+	 * retransformed to a version without probes.
+	 * 
+	 * @param interval
+	 *            interval in milliseconds, <code>0</code> if classes stay
+	 *            instrumented
+	 */
+	public void setDeinstrumentInterval(final int interval) {
+		validateDeinstrumentInterval(interval);
+		setOption(DEINSTRUMENTINTERVAL, interval);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
@@ -23,9 +23,7 @@ public class ControlFlowRuntimeData extends AbstractRuntimeData {
 	@Override
 	public ControlFlowExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
-		}
+		return store.get(id, name, probecount);
 	}
 
 }
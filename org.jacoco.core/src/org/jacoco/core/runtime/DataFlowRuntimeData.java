@@ -24,9 +24,7 @@ public class DataFlowRuntimeData extends AbstractRuntimeData {
 	@Override
 	public DataFlowExecutionData getExecutionData(final Long id,
 			final String name, final int probecount) {
-		synchronized (store) {
-			return (DataFlowExecutionData) store.get(id, name, probecount);
-		}
+		return (DataFlowExecutionData) store.get(id, name, probecount);
 	}
 
 }
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.DataFlowExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Writes execution data into a memory-mapped file which can be read by other
+ * processes on the same host while it is updated. Every class gets a fixed
+ * record in the file when it is visited for the first time, subsequent visits
+ * only copy the current probes into that record. An update starts with a call
+ * to {@link #visitSessionInfo(SessionInfo)} and ends with {@link #commit()}.
+ * 
+ * The file starts with a header of {@link #HEADER_SIZE} bytes:
+ * 
+ * <ul>
+ * <li>magic number {@link #MAGIC_NUMBER} (<code>char</code>)</li>
+ * <li>format version {@link #FORMAT_VERSION} (<code>char</code>)</li>
+ * <li>sequence number, odd while an update is in progress (<code>int</code>)</li>
+ * <li>session start time stamp (<code>long</code>)</li>
+ * <li>session dump time stamp (<code>long</code>)</li>
+ * <li>number of class records (<code>int</code>)</li>
+ * <li>end offset of the last class record (<code>int</code>)</li>
+ * <li>session id as UTF-8 with a <code>short</code> length prefix, truncated
+ * to at most {@link #SESSIONID_SIZE} bytes at a character boundary</li>
+ * </ul>
+ * 
+ * Each class record consists of the class id (<code>long</code>), the probe
+ * type {@link #PROBES_BOOLEAN} or {@link #PROBES_LONG} (<code>byte</code>), the
+ * probe count (<code>int</code>), the VM name as UTF-8 with a
+ * <code>short</code> length prefix and finally the probes with one byte per
+ * probe or eight bytes per probe word. All values are big endian.
+ */
+public class SharedMemoryWriter implements ISessionInfoVisitor,
+		IExecutionDataVisitor {
+
+	/** Magic number in the header of the file */
+	public static final char MAGIC_NUMBER = 0xC0C0;
+
+	/** Format version of the file layout */
+	public static final char FORMAT_VERSION = 0x0001;
+
+	/** Offset of the sequence number */
+	public static final int SEQUENCE_OFFSET = 4;
+
+	/** Offset of the session start time stamp */
+	public static final int START_OFFSET = 8;
+
+	/** Offset of the session dump time stamp */
+	public static final int DUMP_OFFSET = 16;
+
+	/** Offset of the number of class records */
+	public static final int COUNT_OFFSET = 24;
+
+	/** Offset of the end offset of the class records */
+	public static final int END_OFFSET = 28;
+
+	/** Offset of the session id */
+	public static final int SESSIONID_OFFSET = 32;
+
+	/** Maximum number of bytes of the encoded session id */
+	public static final int SESSIONID_SIZE = 256;
+
+	/** Size of the header, the first class record starts here */
+	public static final int HEADER_SIZE = SESSIONID_OFFSET + 2 + SESSIONID_SIZE;
+
+	/** Probe type for probes stored as one byte per probe */
+	public static final byte PROBES_BOOLEAN = 0;
+
+	/** Probe type for probes stored as <code>long</code> words */
+	public static final byte PROBES_LONG = 1;
+
+	private static final int INITIAL_SIZE = 0x10000;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final FileLock lock;
+
+	private final LongHashMap<Integer> probeOffsets;
+
+	private byte[] probeBytes = new byte[0];
+
+	private MappedByteBuffer buffer;
+
+	private int sequence;
+
+	private int count;
+
+	private int end;
+
+	/**
+	 * Creates a new writer for the given file. Existing content of the file is
+	 * discarded. The file is locked until the writer is closed.
+	 * 
+	 * @param destFile
+	 *            file to map
+	 * @throws IOException
+	 *             if the file can't be opened, locked or mapped
+	 */
+	public SharedMemoryWriter(final File destFile) throws IOException {
+		file = new RandomAccessFile(destFile, "rw");
+		channel = file.getChannel();
+		// Avoid concurrent writes from different agents running in parallel:
+		lock = channel.lock();
+		file.setLength(0);
+		probeOffsets = new LongHashMap<Integer>();
+		map(INITIAL_SIZE);
+		buffer.putChar(0, MAGIC_NUMBER);
+		buffer.putChar(2, FORMAT_VERSION);
+		end = HEADER_SIZE;
+		buffer.putInt(END_OFFSET, end);
+	}
+
+	/**
+	 * Starts an update of the file with the given session information.
+	 */
+	public void visitSessionInfo(final SessionInfo info) {
+		if ((sequence & 1) == 0) {
+			buffer.putInt(SEQUENCE_OFFSET, ++sequence);
+		}
+		buffer.putLong(START_OFFSET, info.getStartTimeStamp());
+		buffer.putLong(DUMP_OFFSET, info.getDumpTimeStamp());
+		final byte[] id = encode(info.getId());
+		int length = id.length;
+		if (length > SESSIONID_SIZE) {
+			length = SESSIONID_SIZE;
+			// Do not split the encoding of a character:
+			while (length > 0 && (id[length] & 0xC0) == 0x80) {
+				length--;
+			}
+		}
+		buffer.putShort(SESSIONID_OFFSET, (short) length);
+		final ByteBuffer target = buffer.duplicate();
+		target.position(SESSIONID_OFFSET + 2);
+		target.put(id, 0, length);
+	}
+
+	/**
+	 * Copies the probes of the given class into its record. A new record is
+	 * appended if the class has not been visited before.
+	 */
+	public void visitClassExecution(final ControlFlowExecutionData data) {
+		final Integer offset = probeOffsets.get(data.getId());
+		final int pos = offset == null ? append(data) : offset.intValue();
+		if (data instanceof DataFlowExecutionData) {
+			final ByteBuffer target = buffer.duplicate();
+			target.position(pos);
+			target.asLongBuffer().put(
+					((DataFlowExecutionData) data).getLongProbes());
+		} else {
+			final boolean[] probes = data.getProbes();
+			if (probeBytes.length < probes.length) {
+				probeBytes = new byte[probes.length];
+			}
+			for (int i = 0; i < probes.length; i++) {
+				probeBytes[i] = probes[i] ? (byte) 1 : (byte) 0;
+			}
+			final ByteBuffer target = buffer.duplicate();
+			target.position(pos);
+			target.put(probeBytes, 0, probes.length);
+		}
+	}
+
+	/**
+	 * Completes the current update. Readers will see a consistent state of the
+	 * file until the next update starts.
+	 */
+	public void commit() {
+		buffer.putInt(COUNT_OFFSET, count);
+		buffer.putInt(END_OFFSET, end);
+		if ((sequence & 1) == 1) {
+			buffer.putInt(SEQUENCE_OFFSET, ++sequence);
+		}
+	}
+
+	/**
+	 * Releases the file lock and closes the file. The content remains
+	 * available for readers.
+	 * 
+	 * @throws IOException
+	 *             if the file can't be closed
+	 */
+	public void close() throws IOException {
+		try {
+			lock.release();
+		} finally {
+			file.close();
+		}
+	}
+
+	private int append(final ControlFlowExecutionData data) {
+		final boolean words = data instanceof DataFlowExecutionData;
+		final int probecount = words ? ((DataFlowExecutionData) data)
+				.getLongProbes().length : data.getProbes().length;
+		final byte[] name = encode(data.getName());
+		final int pos = end + 8 + 1 + 4 + 2 + name.length;
+		final int recordEnd = pos + probecount * (words ? 8 : 1);
+		ensureCapacity(recordEnd);
+		buffer.putLong(end, data.getId());
+		buffer.put(end + 8, words ? PROBES_LONG : PROBES_BOOLEAN);
+		buffer.putInt(end + 9, probecount);
+		buffer.putShort(end + 13, (short) name.length);
+		final ByteBuffer target = buffer.duplicate();
+		target.position(end + 15);
+		target.put(name);
+		probeOffsets.putIfAbsent(data.getId(), Integer.valueOf(pos));
+		count++;
+		end = recordEnd;
+		return pos;
+	}
+
+	private void ensureCapacity(final int size) {
+		int capacity = buffer.capacity();
+		if (size > capacity) {
+			while (size > capacity) {
+				capacity <<= 1;
+			}
+			try {
+				map(capacity);
+			} catch (final IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private void map(final int size) throws IOException {
+		buffer = channel.map(MapMode.READ_WRITE, 0, size);
+	}
+
+	private static byte[] encode(final String s) {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+}
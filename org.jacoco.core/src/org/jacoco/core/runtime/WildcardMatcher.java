@@ -11,16 +11,36 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
  * Matches strings against <code>?</code>/<code>*</code> wildcard expressions.
  * Multiple expressions can be separated with a colon (:). In this case the
  * expression matches if at least one part matches.
+ * <p>
+ * The expressions are compiled once: Expressions without wildcards are looked
+ * up in a hash set, literal prefixes (<code>org/example/*</code>) and suffixes
+ * (<code>*Test</code>) are matched with a single walk over a character trie,
+ * literal infixes (<code>*$*</code>) with a substring search. Only the
+ * remaining expressions are matched with regular expressions, each guarded by
+ * its literal prefix and suffix.
+ * </p>
  */
 public class WildcardMatcher {
 
-	private final Pattern pattern;
+	private final Set<String> literals = new HashSet<String>();
+
+	private final Trie prefixes = new Trie(false);
+
+	private final Trie suffixes = new Trie(true);
+
+	private final List<String> infixes = new ArrayList<String>();
+
+	private final List<Expression> expressions = new ArrayList<Expression>();
 
 	/**
 	 * Creates a new matcher with the given expression.
@@ -29,20 +49,85 @@ public class WildcardMatcher {
 	 *            wildcard expressions
 	 */
 	public WildcardMatcher(final String expression) {
-		final String[] parts = expression.split("\\:");
-		final StringBuilder regex = new StringBuilder(expression.length() * 2);
-		boolean next = false;
-		for (final String part : parts) {
-			if (next) {
-				regex.append('|');
+		for (final String part : expression.split("\\:")) {
+			add(part);
+		}
+	}
+
+	private void add(final String part) {
+		final int first = firstWildcard(part);
+		if (first == -1) {
+			literals.add(part);
+			return;
+		}
+		final int last = lastWildcard(part);
+		final String prefix = part.substring(0, first);
+		final String suffix = part.substring(last + 1);
+		final String inner = part.substring(first, last + 1);
+		if (isStars(inner)) {
+			if (suffix.length() == 0) {
+				prefixes.add(prefix);
+				return;
+			}
+			if (prefix.length() == 0) {
+				suffixes.add(suffix);
+				return;
 			}
-			regex.append('(').append(toRegex(part)).append(')');
-			next = true;
 		}
-		pattern = Pattern.compile(regex.toString());
+		if (prefix.length() == 0 && suffix.length() == 0) {
+			final String infix = stripStars(inner);
+			if (firstWildcard(infix) == -1) {
+				infixes.add(infix);
+				return;
+			}
+		}
+		expressions.add(new Expression(prefix, suffix, part));
 	}
 
-	private static CharSequence toRegex(final String expression) {
+	private static int firstWildcard(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (isWildcard(s.charAt(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int lastWildcard(final String s) {
+		for (int i = s.length(); --i >= 0;) {
+			if (isWildcard(s.charAt(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isWildcard(final char c) {
+		return c == '*' || c == '?';
+	}
+
+	private static boolean isStars(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) != '*') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String stripStars(final String s) {
+		int start = 0;
+		int end = s.length();
+		while (start < end && s.charAt(start) == '*') {
+			start++;
+		}
+		while (end > start && s.charAt(end - 1) == '*') {
+			end--;
+		}
+		return s.substring(start, end);
+	}
+
+	private static Pattern toPattern(final String expression) {
 		final StringBuilder regex = new StringBuilder(expression.length() * 2);
 		for (final char c : expression.toCharArray()) {
 			switch (c) {
@@ -57,7 +142,7 @@ public class WildcardMatcher {
 				break;
 			}
 		}
-		return regex;
+		return Pattern.compile(regex.toString());
 	}
 
 	/**
@@ -68,7 +153,126 @@ public class WildcardMatcher {
 	 * @return <code>true</code>, if the expression matches
 	 */
 	public boolean matches(final String s) {
-		return pattern.matcher(s).matches();
+		if (literals.contains(s) || prefixes.matches(s)
+				|| suffixes.matches(s)) {
+			return true;
+		}
+		for (final String infix : infixes) {
+			if (s.indexOf(infix) != -1) {
+				return true;
+			}
+		}
+		for (final Expression expression : expressions) {
+			if (expression.matches(s)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Expression with wildcards in the middle. The literal prefix and suffix
+	 * reject most strings before the regular expression is evaluated.
+	 */
+	private static class Expression {
+
+		private final String prefix;
+
+		private final String suffix;
+
+		private final Pattern pattern;
+
+		Expression(final String prefix, final String suffix,
+				final String expression) {
+			this.prefix = prefix;
+			this.suffix = suffix;
+			this.pattern = toPattern(expression);
+		}
+
+		boolean matches(final String s) {
+			return s.length() >= prefix.length() + suffix.length()
+					&& s.startsWith(prefix) && s.endsWith(suffix)
+					&& pattern.matcher(s).matches();
+		}
+
+	}
+
+	/**
+	 * Character trie which checks whether one of its strings is a prefix (or,
+	 * walked backwards, a suffix) of a given string.
+	 */
+	private static class Trie {
+
+		private final Node root = new Node();
+
+		private final boolean reverse;
+
+		private boolean empty = true;
+
+		Trie(final boolean reverse) {
+			this.reverse = reverse;
+		}
+
+		void add(final String s) {
+			empty = false;
+			Node node = root;
+			final int length = s.length();
+			for (int i = 0; i < length; i++) {
+				node = node.child(s.charAt(reverse ? length - 1 - i : i), true);
+			}
+			node.terminal = true;
+		}
+
+		boolean matches(final String s) {
+			if (empty) {
+				return false;
+			}
+			Node node = root;
+			final int length = s.length();
+			for (int i = 0; !node.terminal; i++) {
+				if (i == length) {
+					return false;
+				}
+				node = node.child(s.charAt(reverse ? length - 1 - i : i),
+						false);
+				if (node == null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private static class Node {
+
+		private char[] keys = new char[0];
+
+		private Node[] children = new Node[0];
+
+		boolean terminal;
+
+		Node child(final char c, final boolean create) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			if (!create) {
+				return null;
+			}
+			final int size = keys.length;
+			final char[] newKeys = new char[size + 1];
+			final Node[] newChildren = new Node[size + 1];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			System.arraycopy(children, 0, newChildren, 0, size);
+			newKeys[size] = c;
+			newChildren[size] = new Node();
+			keys = newKeys;
+			children = newChildren;
+			return newChildren[size];
+		}
+
 	}
 
 }
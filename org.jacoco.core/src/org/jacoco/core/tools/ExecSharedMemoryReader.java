@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static java.lang.String.format;
+import static org.jacoco.core.runtime.SharedMemoryWriter.COUNT_OFFSET;
+import static org.jacoco.core.runtime.SharedMemoryWriter.DUMP_OFFSET;
+import static org.jacoco.core.runtime.SharedMemoryWriter.END_OFFSET;
+import static org.jacoco.core.runtime.SharedMemoryWriter.FORMAT_VERSION;
+import static org.jacoco.core.runtime.SharedMemoryWriter.HEADER_SIZE;
+import static org.jacoco.core.runtime.SharedMemoryWriter.MAGIC_NUMBER;
+import static org.jacoco.core.runtime.SharedMemoryWriter.PROBES_LONG;
+import static org.jacoco.core.runtime.SharedMemoryWriter.SEQUENCE_OFFSET;
+import static org.jacoco.core.runtime.SharedMemoryWriter.SESSIONID_OFFSET;
+import static org.jacoco.core.runtime.SharedMemoryWriter.START_OFFSET;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jacoco.core.data.ControlFlowExecutionData;
+import org.jacoco.core.data.DataFlowExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.SharedMemoryWriter;
+
+/**
+ * Reads execution data from a memory-mapped file which is written by an agent
+ * with output mode <code>mmap</code>. The file can be read at any time while
+ * the agent is running, no dump needs to be requested. Every read returns a
+ * consistent snapshot of the last completed update. The file is read through
+ * its channel into a heap buffer which is reused for retries, so no mappings
+ * are left behind that would prevent the agent from growing the file.
+ * 
+ * @see SharedMemoryWriter
+ */
+public class ExecSharedMemoryReader {
+
+	private final File file;
+	private int retryCount;
+	private long retryDelay;
+
+	/**
+	 * New reader for the given file with the defaults
+	 * <code>retryCount==100</code> and <code>retryDelay=1</code>.
+	 * 
+	 * @param file
+	 *            memory-mapped file written by the agent
+	 */
+	public ExecSharedMemoryReader(final File file) {
+		this.file = file;
+		this.retryCount = 100;
+		this.retryDelay = 1;
+	}
+
+	/**
+	 * Sets the number of attempts to read the file again if an update by the
+	 * agent was in progress.
+	 * 
+	 * @param retryCount
+	 *            number of retries
+	 */
+	public void setRetryCount(final int retryCount) {
+		this.retryCount = retryCount;
+	}
+
+	/**
+	 * Sets the delay time between read attempts.
+	 * 
+	 * @param retryDelay
+	 *            delay in milliseconds
+	 */
+	public void setRetryDelay(final long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Reads a snapshot of the current execution data from the file.
+	 * 
+	 * @return container for the execution data
+	 * @throws IOException
+	 *             if the file can't be read, has an invalid format or no
+	 *             consistent snapshot could be read within the configured
+	 *             number of retries
+	 */
+	public ExecFileLoader read() throws IOException {
+		final ByteBuffer snapshot = readSnapshot();
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.getSessionInfoStore().visitSessionInfo(readSessionInfo(snapshot));
+		final int count = snapshot.getInt(COUNT_OFFSET);
+		snapshot.position(HEADER_SIZE);
+		for (int i = 0; i < count; i++) {
+			loader.getExecutionDataStore().visitClassExecution(
+					readClass(snapshot));
+		}
+		return loader;
+	}
+
+	private ByteBuffer readSnapshot() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer sequence = ByteBuffer.allocate(4);
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+			int count = 0;
+			while (true) {
+				final int end = readHeader(channel, buffer);
+				if (end != -1) {
+					if (buffer.capacity() < end) {
+						final ByteBuffer larger = ByteBuffer.allocate(end);
+						buffer.position(0);
+						larger.put(buffer);
+						buffer = larger;
+					}
+					if (readBody(channel, buffer, end, sequence)) {
+						buffer.position(0);
+						buffer.limit(end);
+						return buffer;
+					}
+				}
+				if (++count > retryCount) {
+					throw new IOException(format(
+							"No consistent snapshot of %s.", file));
+				}
+				sleep();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads and checks the header of the file. Returns the end position of
+	 * the data or -1 if an update is in progress.
+	 */
+	private static int readHeader(final FileChannel channel,
+			final ByteBuffer buffer) throws IOException {
+		final long length = channel.size();
+		if (length < HEADER_SIZE) {
+			throw new IOException("Invalid shared memory file.");
+		}
+		buffer.clear();
+		buffer.limit(HEADER_SIZE);
+		readFully(channel, buffer, 0);
+		if (buffer.getChar(0) != MAGIC_NUMBER) {
+			throw new IOException("Invalid shared memory file.");
+		}
+		final char version = buffer.getChar(2);
+		if (version != FORMAT_VERSION) {
+			throw new IOException(format("Incompatible version %x.",
+					Integer.valueOf(version)));
+		}
+		if ((buffer.getInt(SEQUENCE_OFFSET) & 1) == 1) {
+			return -1;
+		}
+		final int end = buffer.getInt(END_OFFSET);
+		if (end < HEADER_SIZE) {
+			throw new IOException("Invalid shared memory file.");
+		}
+		return end > length ? -1 : end;
+	}
+
+	/**
+	 * Reads the data after the header and checks that the sequence number has
+	 * not been changed by an update in the meantime.
+	 */
+	private static boolean readBody(final FileChannel channel,
+			final ByteBuffer buffer, final int end, final ByteBuffer sequence)
+			throws IOException {
+		buffer.limit(end);
+		buffer.position(HEADER_SIZE);
+		readFully(channel, buffer, HEADER_SIZE);
+		sequence.clear();
+		readFully(channel, sequence, SEQUENCE_OFFSET);
+		return sequence.getInt(0) == buffer.getInt(SEQUENCE_OFFSET);
+	}
+
+	private static void readFully(final FileChannel channel,
+			final ByteBuffer buffer, final long position) throws IOException {
+		long pos = position;
+		while (buffer.hasRemaining()) {
+			final int n = channel.read(buffer, pos);
+			if (n == -1) {
+				throw new EOFException();
+			}
+			pos += n;
+		}
+	}
+
+	private void sleep() throws InterruptedIOException {
+		try {
+			Thread.sleep(retryDelay);
+		} catch (final InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+
+	private static SessionInfo readSessionInfo(final ByteBuffer snapshot) {
+		snapshot.position(SESSIONID_OFFSET);
+		final String id = readUTF(snapshot);
+		return new SessionInfo(id, snapshot.getLong(START_OFFSET),
+				snapshot.getLong(DUMP_OFFSET));
+	}
+
+	private static ControlFlowExecutionData readClass(final ByteBuffer snapshot) {
+		final long id = snapshot.getLong();
+		final byte type = snapshot.get();
+		final int probecount = snapshot.getInt();
+		final String name = readUTF(snapshot);
+		if (type == PROBES_LONG) {
+			final long[] probes = new long[probecount];
+			snapshot.asLongBuffer().get(probes);
+			snapshot.position(snapshot.position() + probecount * 8);
+			return new DataFlowExecutionData(id, name, probes);
+		}
+		final boolean[] probes = new boolean[probecount];
+		for (int i = 0; i < probecount; i++) {
+			probes[i] = snapshot.get() != 0;
+		}
+		return new ControlFlowExecutionData(id, name, probes);
+	}
+
+	private static String readUTF(final ByteBuffer snapshot) {
+		final byte[] bytes = new byte[snapshot.getShort() & 0xffff];
+		snapshot.get(bytes);
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+}
@@ -22,10 +22,13 @@ import java.util.Collections;
 import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
 import org.junit.Test;
 
 /**
@@ -77,6 +80,21 @@ public class MultiReportVisitorTest {
 			children.add(new MockGroupVisitor(bundle.getName()));
 		}
 
+		public IReportBundleVisitor visitBundleStream(String name,
+				ISourceFileLocator locator) throws IOException {
+			final MockGroupVisitor child = new MockGroupVisitor(name);
+			children.add(child);
+			return new IReportBundleVisitor() {
+				public void visitPackage(IPackageCoverage coverage)
+						throws IOException {
+					child.children.add(new MockGroupVisitor(coverage.getName()));
+				}
+
+				public void visitEnd() throws IOException {
+				}
+			};
+		}
+
 		public IReportGroupVisitor visitGroup(String name) throws IOException {
 			MockGroupVisitor child = new MockGroupVisitor(name);
 			children.add(child);
@@ -94,7 +112,14 @@ public class MultiReportVisitorTest {
 		return new BundleCoverageImpl(name, packages);
 	}
 
-	private static final String MOCK_REPORT = "Report[g1[b1[], b2[]], g2[]]";
+	private IPackageCoverage createPackage(String name) {
+		final Collection<IClassCoverage> classes = Collections.emptyList();
+		final Collection<ISourceFileCoverage> sourceFiles = Collections
+				.emptyList();
+		return new PackageCoverageImpl(name, classes, sourceFiles);
+	}
+
+	private static final String MOCK_REPORT = "Report[g1[b1[], b2[]], g2[b3[p1[], p2[]]]]";
 
 	private void createMockReport(IReportVisitor visitor) throws IOException {
 		final List<SessionInfo> sessions = Collections.emptyList();
@@ -103,7 +128,11 @@ public class MultiReportVisitorTest {
 		IReportGroupVisitor g1 = visitor.visitGroup("g1");
 		g1.visitBundle(createBundle("b1"), null);
 		g1.visitBundle(createBundle("b2"), null);
-		visitor.visitGroup("g2");
+		IReportGroupVisitor g2 = visitor.visitGroup("g2");
+		IReportBundleVisitor b3 = g2.visitBundleStream("b3", null);
+		b3.visitPackage(createPackage("p1"));
+		b3.visitPackage(createPackage("p2"));
+		b3.visitEnd();
 		visitor.visitEnd();
 	}
 
@@ -124,4 +124,29 @@ public class ReportStructureTestDriver {
 		groupVisitor.visitBundle(bundleCoverage, sourceFileLocator);
 	}
 
+	public void sendBundleStream(IReportVisitor reportVisitor)
+			throws IOException {
+		reportVisitor.visitInfo(sessions, executionData);
+		sendBundleStream((IReportGroupVisitor) reportVisitor);
+		reportVisitor.visitEnd();
+	}
+
+	public void sendBundleStream(IReportGroupVisitor groupVisitor)
+			throws IOException {
+		final IReportBundleVisitor bundle = groupVisitor.visitBundleStream(
+				bundleCoverage.getName(), sourceFileLocator);
+		for (final IPackageCoverage p : bundleCoverage.getPackages()) {
+			bundle.visitPackage(p);
+		}
+		bundle.visitEnd();
+	}
+
+	public void sendGroupWithBundleStream(IReportVisitor reportVisitor)
+			throws IOException {
+		reportVisitor.visitInfo(sessions, executionData);
+		final IReportGroupVisitor group = reportVisitor.visitGroup("group");
+		sendBundleStream(group);
+		reportVisitor.visitEnd();
+	}
+
 }
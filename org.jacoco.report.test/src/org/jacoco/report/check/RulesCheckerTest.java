@@ -55,6 +55,19 @@ public class RulesCheckerTest implements IViolationsOutput {
 				messages);
 	}
 
+	@Test
+	public void testBundleStream() throws IOException {
+		Rule rule = new Rule();
+		Limit limit = rule.createLimit();
+		limit.setValue(CounterValue.MISSEDCOUNT.name());
+		limit.setMaximum("5");
+		checker.setRules(Arrays.asList(rule));
+		driver.sendGroupWithBundleStream(checker.createVisitor(this));
+		assertEquals(
+				Arrays.asList("Rule violated for bundle bundle: instructions missed count is 10, but expected maximum is 5"),
+				messages);
+	}
+
 	@Test
 	public void testSetLanguageNames() throws IOException {
 		Rule rule = new Rule();
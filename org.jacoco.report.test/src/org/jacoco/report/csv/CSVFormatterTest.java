@@ -89,6 +89,16 @@ public class CSVFormatterTest {
 				lines.get(1));
 	}
 
+	@Test
+	public void testStructureWithBundleStream() throws IOException {
+		driver.sendGroupWithBundleStream(visitor);
+		final List<String> lines = getLines();
+		assertEquals(HEADER, lines.get(0));
+		assertEquals(
+				"group/bundle,org.jacoco.example,FooClass,10,15,1,2,0,3,1,2,0,1",
+				lines.get(1));
+	}
+
 	@Test
 	public void testSetEncoding() throws Exception {
 		formatter.setOutputEncoding("UTF-16");
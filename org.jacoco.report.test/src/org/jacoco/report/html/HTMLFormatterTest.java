@@ -77,6 +77,23 @@ public class HTMLFormatterTest {
 		output.assertFile("org.jacoco.example/FooClass.html");
 	}
 
+	@Test
+	public void testStructureWithBundleStream() throws IOException {
+		driver.sendGroupWithBundleStream(formatter.createVisitor(output));
+		output.assertFile("index.html");
+		output.assertFile("bundle/index.html");
+		output.assertFile("bundle/org.jacoco.example/index.html");
+		output.assertFile("bundle/org.jacoco.example/FooClass.html");
+	}
+
+	@Test
+	public void testStructureWithBundleStreamOnly() throws IOException {
+		driver.sendBundleStream(formatter.createVisitor(output));
+		output.assertFile("index.html");
+		output.assertFile("org.jacoco.example/index.html");
+		output.assertFile("org.jacoco.example/FooClass.html");
+	}
+
 	@Test
 	public void testDefaultEncoding() throws Exception {
 		driver.sendBundle(formatter.createVisitor(output));
@@ -126,6 +126,29 @@ public class XMLFormatterTest {
 		assertPathMatches("1", "report/counter[@type='CLASS']/@covered");
 	}
 
+	@Test
+	public void testStructureWithBundleStream() throws Exception {
+		driver.sendGroupWithBundleStream(formatter.createVisitor(output));
+		assertPathMatches("group", "/report/@name");
+		assertPathMatches("bundle", "/report/group/@name");
+		assertPathMatches("org/jacoco/example", "/report/group/package/@name");
+		assertPathMatches("org/jacoco/example/FooClass",
+				"/report/group/package/class/@name");
+		assertPathMatches("10",
+				"report/group/counter[@type='INSTRUCTION']/@missed");
+		assertPathMatches("15", "report/counter[@type='INSTRUCTION']/@covered");
+	}
+
+	@Test
+	public void testStructureWithBundleStreamOnly() throws Exception {
+		driver.sendBundleStream(formatter.createVisitor(output));
+		assertPathMatches("bundle", "/report/@name");
+		assertPathMatches("org/jacoco/example", "/report/package/@name");
+		assertPathMatches("1", "count(/report/counter[@type='INSTRUCTION'])");
+		assertPathMatches("10", "report/counter[@type='INSTRUCTION']/@missed");
+		assertPathMatches("15", "report/counter[@type='INSTRUCTION']/@covered");
+	}
+
 	@Test
 	public void testStructureWithBundleOnly() throws Exception {
 		final IReportVisitor visitor = formatter.createVisitor(output);
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.IPackageCoverage;
+
+/**
+ * Output-Interface for a bundle which is emitted package by package. The
+ * formatters write every package as soon as it is visited and keep only the
+ * summed up counters of the bundle, so the complete bundle never has to be in
+ * memory. The interface is implemented by the report formatters.
+ * 
+ * @see IReportGroupVisitor#visitBundleStream(String, ISourceFileLocator)
+ */
+public interface IReportBundleVisitor {
+
+	/**
+	 * Called to add a package to the bundle. Every package must be added only
+	 * once, i.e. with all of its classes and source files.
+	 * 
+	 * @param coverage
+	 *            package to include in the bundle
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	void visitPackage(IPackageCoverage coverage) throws IOException;
+
+	/**
+	 * Has to be called after all packages of the bundle have been emitted.
+	 * 
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	void visitEnd() throws IOException;
+
+}
@@ -25,11 +25,13 @@ import org.jacoco.core.analysis.IBundleCoverage;
  * 
  * <ul>
  * <li>A visitor instance can be used to either submit bundles (
- * {@link #visitBundle(IBundleCoverage, ISourceFileLocator)}) or groups
+ * {@link #visitBundle(IBundleCoverage, ISourceFileLocator)} or
+ * {@link #visitBundleStream(String, ISourceFileLocator)}) or groups
  * {@link #visitGroup(String)}). Bundles and groups are not allowed for the same
  * visitor.</li>
- * <li>When creating nested groups with {@link #visitGroup(String)} the
- * hierarchy has to be processed in a "deep first" manner.</li>
+ * <li>When creating nested groups with {@link #visitGroup(String)} or
+ * streaming bundles with {@link #visitBundleStream(String, ISourceFileLocator)}
+ * the hierarchy has to be processed in a "deep first" manner.</li>
  * </ul>
  */
 public interface IReportGroupVisitor {
@@ -47,6 +49,23 @@ public interface IReportGroupVisitor {
 	void visitBundle(IBundleCoverage bundle, ISourceFileLocator locator)
 			throws IOException;
 
+	/**
+	 * Called to add a bundle to the report which is emitted package by
+	 * package. The bundle has to be completed with
+	 * {@link IReportBundleVisitor#visitEnd()} before this or any parent visitor
+	 * can be used again ("deep first").
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param locator
+	 *            source locator for this bundle
+	 * @return visitor for the packages of the bundle
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	IReportBundleVisitor visitBundleStream(String name,
+			ISourceFileLocator locator) throws IOException;
+
 	/**
 	 * Called to add a new group to the report. The returned
 	 * {@link IReportGroupVisitor} instance can be used to add nested bundles or
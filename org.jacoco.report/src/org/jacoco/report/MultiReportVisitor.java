@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.data.SessionInfo;
 
@@ -70,6 +71,28 @@ class MultiGroupVisitor implements IReportGroupVisitor {
 		}
 	}
 
+	public IReportBundleVisitor visitBundleStream(final String name,
+			final ISourceFileLocator locator) throws IOException {
+		final List<IReportBundleVisitor> bundles = new ArrayList<IReportBundleVisitor>();
+		for (final IReportGroupVisitor v : visitors) {
+			bundles.add(v.visitBundleStream(name, locator));
+		}
+		return new IReportBundleVisitor() {
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				for (final IReportBundleVisitor b : bundles) {
+					b.visitPackage(coverage);
+				}
+			}
+
+			public void visitEnd() throws IOException {
+				for (final IReportBundleVisitor b : bundles) {
+					b.visitEnd();
+				}
+			}
+		};
+	}
+
 	public IReportGroupVisitor visitGroup(final String name) throws IOException {
 		final List<IReportGroupVisitor> children = new ArrayList<IReportGroupVisitor>();
 		for (final IReportGroupVisitor v : visitors) {
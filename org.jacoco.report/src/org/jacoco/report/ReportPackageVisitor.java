@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.IPackageCoverageVisitor;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
+
+/**
+ * Adapter which emits the packages of a {@link StreamingCoverageBuilder} to a
+ * {@link IReportBundleVisitor}. As {@link IPackageCoverageVisitor} can't throw
+ * checked exceptions, {@link IOException}s of the report writer are wrapped in
+ * a {@link RuntimeException}.
+ */
+public class ReportPackageVisitor implements IPackageCoverageVisitor {
+
+	private final IReportBundleVisitor visitor;
+
+	/**
+	 * Creates an adapter for the given bundle visitor.
+	 * 
+	 * @param visitor
+	 *            bundle visitor to emit packages to
+	 */
+	public ReportPackageVisitor(final IReportBundleVisitor visitor) {
+		this.visitor = visitor;
+	}
+
+	public void visitPackage(final IPackageCoverage coverage) {
+		try {
+			visitor.visitPackage(coverage);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -78,12 +78,20 @@ class BundleChecker {
 	}
 
 	public void checkBundle(final IBundleCoverage bundleCoverage) {
+		checkBundleTotal(bundleCoverage);
+		for (final IPackageCoverage p : bundleCoverage.getPackages()) {
+			checkPackage(p);
+		}
+	}
+
+	public void checkBundleTotal(final ICoverageNode bundleCoverage) {
 		final String name = bundleCoverage.getName();
 		checkRules(bundleCoverage, bundleRules, "bundle", name);
+	}
+
+	public void checkPackage(final IPackageCoverage packageCoverage) {
 		if (traversePackages) {
-			for (final IPackageCoverage p : bundleCoverage.getPackages()) {
-				check(p);
-			}
+			check(packageCoverage);
 		}
 	}
 
@@ -16,10 +16,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -85,6 +89,23 @@ public class RulesChecker {
 				bundleChecker.checkBundle(bundle);
 			}
 
+			public IReportBundleVisitor visitBundleStream(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				final CoverageNodeImpl total = new CoverageNodeImpl(
+						ElementType.BUNDLE, name);
+				return new IReportBundleVisitor() {
+					public void visitPackage(final IPackageCoverage coverage)
+							throws IOException {
+						total.increment(coverage);
+						bundleChecker.checkPackage(coverage);
+					}
+
+					public void visitEnd() throws IOException {
+						bundleChecker.checkBundleTotal(total);
+					}
+				};
+			}
+
 			public void visitInfo(final List<SessionInfo> sessionInfos,
 					final Collection<ControlFlowExecutionData> executionData)
 					throws IOException {
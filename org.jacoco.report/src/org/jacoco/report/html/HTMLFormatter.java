@@ -22,6 +22,7 @@ import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -212,6 +213,14 @@ public class HTMLFormatter implements IHTMLReportContext {
 				page.render();
 			}
 
+			public IReportBundleVisitor visitBundleStream(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				final BundlePage page = new BundlePage(name, null, locator,
+						root, HTMLFormatter.this);
+				createSessionsPage(page);
+				return page;
+			}
+
 			public IReportGroupVisitor visitGroup(final String name)
 					throws IOException {
 				groupHandler = new HTMLGroupVisitor(null, root,
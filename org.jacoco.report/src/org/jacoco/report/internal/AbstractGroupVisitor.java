@@ -16,6 +16,8 @@ import java.io.IOException;
 import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.ISourceFileLocator;
 
@@ -60,6 +62,38 @@ public abstract class AbstractGroupVisitor implements IReportGroupVisitor {
 	protected abstract void handleBundle(IBundleCoverage bundle,
 			ISourceFileLocator locator) throws IOException;
 
+	public final IReportBundleVisitor visitBundleStream(final String name,
+			final ISourceFileLocator locator) throws IOException {
+		finalizeLastChild();
+		final IReportBundleVisitor bundle = handleBundleStream(name, locator);
+		return new IReportBundleVisitor() {
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				total.increment(coverage);
+				bundle.visitPackage(coverage);
+			}
+
+			public void visitEnd() throws IOException {
+				bundle.visitEnd();
+			}
+		};
+	}
+
+	/**
+	 * Called to handle a bundle which is emitted package by package in a
+	 * specific way.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param locator
+	 *            source locator
+	 * @return visitor for the packages of the bundle
+	 * @throws IOException
+	 *             if the report can't be written
+	 */
+	protected abstract IReportBundleVisitor handleBundleStream(String name,
+			ISourceFileLocator locator) throws IOException;
+
 	public final IReportGroupVisitor visitGroup(final String name)
 			throws IOException {
 		finalizeLastChild();
@@ -15,6 +15,7 @@ import java.io.IOException;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.AbstractGroupVisitor;
 import org.jacoco.report.internal.ReportOutputFolder;
@@ -73,6 +74,15 @@ public class HTMLGroupVisitor extends AbstractGroupVisitor {
 		page.addItem(bundlepage);
 	}
 
+	@Override
+	protected IReportBundleVisitor handleBundleStream(final String name,
+			final ISourceFileLocator locator) throws IOException {
+		final BundlePage bundlepage = new BundlePage(name, page, locator,
+				folder.subFolder(name), context);
+		page.addItem(bundlepage);
+		return bundlepage;
+	}
+
 	@Override
 	protected AbstractGroupVisitor handleGroup(final String name)
 			throws IOException {
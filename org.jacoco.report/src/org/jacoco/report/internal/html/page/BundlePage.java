@@ -13,23 +13,31 @@ package org.jacoco.report.internal.html.page;
 
 import java.io.IOException;
 
+import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.IHTMLReportContext;
 
 /**
  * Page showing coverage information for a bundle. The page contains a table
- * with all packages of the bundle.
+ * with all packages of the bundle. Alternatively to a complete bundle the
+ * packages can be streamed to the page through its {@link IReportBundleVisitor}
+ * interface, every package is rendered immediately in this case.
  */
-public class BundlePage extends TablePage<ICoverageNode> {
+public class BundlePage extends TablePage<ICoverageNode> implements
+		IReportBundleVisitor {
 
 	private final ISourceFileLocator locator;
 
 	private IBundleCoverage bundle;
 
+	private final CoverageNodeImpl total;
+
 	/**
 	 * Creates a new visitor in the given context.
 	 * 
@@ -50,26 +58,72 @@ public class BundlePage extends TablePage<ICoverageNode> {
 		super(bundle.getPlainCopy(), parent, folder, context);
 		this.bundle = bundle;
 		this.locator = locator;
+		this.total = null;
+	}
+
+	/**
+	 * Creates a new visitor for a bundle whose packages are streamed to this
+	 * page.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param parent
+	 *            optional hierarchical parent
+	 * @param locator
+	 *            source locator
+	 * @param folder
+	 *            base folder for this bundle
+	 * @param context
+	 *            settings context
+	 */
+	public BundlePage(final String name, final ReportPage parent,
+			final ISourceFileLocator locator, final ReportOutputFolder folder,
+			final IHTMLReportContext context) {
+		this(new CoverageNodeImpl(ElementType.BUNDLE, name), parent, locator,
+				folder, context);
+	}
+
+	private BundlePage(final CoverageNodeImpl total, final ReportPage parent,
+			final ISourceFileLocator locator, final ReportOutputFolder folder,
+			final IHTMLReportContext context) {
+		super(total, parent, folder, context);
+		this.bundle = null;
+		this.locator = locator;
+		this.total = total;
 	}
 
 	@Override
 	public void render() throws IOException {
-		renderPackages();
+		if (bundle != null) {
+			for (final IPackageCoverage p : bundle.getPackages()) {
+				renderPackage(p);
+			}
+		}
 		super.render();
 		// Don't keep the bundle structure in memory
 		bundle = null;
 	}
 
-	private void renderPackages() throws IOException {
-		for (final IPackageCoverage p : bundle.getPackages()) {
-			final String packagename = p.getName();
-			final String foldername = packagename.length() == 0 ? "default"
-					: packagename.replace('/', '.');
-			final PackagePage page = new PackagePage(p, this, locator,
-					folder.subFolder(foldername), context);
-			page.render();
-			addItem(page);
-		}
+	private void renderPackage(final IPackageCoverage p) throws IOException {
+		final String packagename = p.getName();
+		final String foldername = packagename.length() == 0 ? "default"
+				: packagename.replace('/', '.');
+		final PackagePage page = new PackagePage(p, this, locator,
+				folder.subFolder(foldername), context);
+		page.render();
+		addItem(new PageItem(page));
+	}
+
+	// === IReportBundleVisitor ===
+
+	public void visitPackage(final IPackageCoverage coverage)
+			throws IOException {
+		total.increment(coverage);
+		renderPackage(coverage);
+	}
+
+	public void visitEnd() throws IOException {
+		render();
 	}
 
 	@Override
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2015 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.table.ITableItem;
+
+/**
+ * Table item representing an already rendered page. Only the link and the
+ * counters of the page are kept, so the page and its coverage node can be
+ * released after rendering.
+ */
+final class PageItem implements ITableItem {
+
+	private final String label;
+
+	private final String style;
+
+	private final ReportOutputFolder folder;
+
+	private final String fileName;
+
+	private final ICoverageNode node;
+
+	PageItem(final NodePage<?> page) {
+		this.label = page.getLinkLabel();
+		this.style = page.getLinkStyle();
+		this.folder = page.folder;
+		this.fileName = page.getFileName();
+		this.node = page.getNode().getPlainCopy();
+	}
+
+	public String getLinkLabel() {
+		return label;
+	}
+
+	public String getLinkStyle() {
+		return style;
+	}
+
+	public String getLink(final ReportOutputFolder base) {
+		return folder.getLink(base, fileName);
+	}
+
+	public ICoverageNode getNode() {
+		return node;
+	}
+
+}
@@ -13,16 +13,19 @@ package org.jacoco.report.internal.xml;
 
 import java.io.IOException;
 
+import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.report.IReportBundleVisitor;
 
 /**
  * Serializes coverage data as XML fragments.
@@ -68,6 +71,33 @@ public final class XMLCoverageWriter {
 		writeCounters(bundle, element);
 	}
 
+	/**
+	 * Creates a visitor which writes the packages of a bundle as they are
+	 * visited. The counters of the bundle are written when the visitor ends.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param element
+	 *            container element for the bundle data
+	 * @return visitor for the packages of the bundle
+	 */
+	public static IReportBundleVisitor createBundleVisitor(final String name,
+			final XMLElement element) {
+		final CoverageNodeImpl total = new CoverageNodeImpl(
+				ElementType.BUNDLE, name);
+		return new IReportBundleVisitor() {
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				total.increment(coverage);
+				writePackage(coverage, element);
+			}
+
+			public void visitEnd() throws IOException {
+				writeCounters(total, element);
+			}
+		};
+	}
+
 	private static void writePackage(final IPackageCoverage p,
 			final XMLElement parent) throws IOException {
 		final XMLElement element = createChild(parent, "package", p.getName());
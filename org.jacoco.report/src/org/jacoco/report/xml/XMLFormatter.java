@@ -19,6 +19,7 @@ import java.util.List;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.data.ControlFlowExecutionData;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.AbstractGroupVisitor;
@@ -82,6 +83,14 @@ public class XMLFormatter {
 				XMLCoverageWriter.writeBundle(bundle, element);
 			}
 
+			@Override
+			protected IReportBundleVisitor handleBundleStream(
+					final String name, final ISourceFileLocator locator)
+					throws IOException {
+				writeHeader(name);
+				return XMLCoverageWriter.createBundleVisitor(name, element);
+			}
+
 			@Override
 			protected AbstractGroupVisitor handleGroup(final String name)
 					throws IOException {